@@ -515,6 +515,19 @@ public class Condition implements Cloneable, IXml {
     return retval;
   }
 
+  /**
+   * Compile the condition for rows with the given layout. The predicate looks up the fields once and evaluates the
+   * condition as it is now, later changes to the condition are not picked up.
+   * Unlike {@link #evaluate(IRowMeta, Object[])} it doesn't change the condition, so every transform copy can have
+   * its own predicate.
+   *
+   * @param rowMeta the row metadata of the rows to evaluate
+   * @return the predicate
+   */
+  public IRowPredicate compile( IRowMeta rowMeta ) {
+    return ConditionCompiler.compile( this, rowMeta );
+  }
+
   public void addCondition( Condition cb ) {
     if ( isAtomic() && getLeftValuename() != null ) {
       /*
@@ -0,0 +1,469 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.ValueMetaAndData;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.util.Utils;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a {@link Condition} into a tree of predicates for a given row layout.
+ * Field positions, constant values, regular expressions and IN lists are worked out once instead of for every row.
+ * Comparisons of integers, numbers, dates and big numbers in normal storage are done on the Java values directly.
+ * Everything else is evaluated by a copy of the atomic condition, which gives the same result as
+ * {@link Condition#evaluate(IRowMeta, Object[])}.
+ */
+class ConditionCompiler {
+
+  private ConditionCompiler() {
+  }
+
+  /**
+   * @param condition The condition to compile
+   * @param rowMeta   The layout of the rows to evaluate
+   * @return The predicate, independent of the condition and safe to use next to other predicates of the same condition
+   */
+  static IRowPredicate compile( Condition condition, IRowMeta rowMeta ) {
+    if ( condition.isComposite() ) {
+      return compileComposite( condition, rowMeta );
+    }
+    return compileAtomic( condition, rowMeta );
+  }
+
+  private static IRowPredicate compileComposite( Condition condition, IRowMeta rowMeta ) {
+    int size = condition.nrConditions();
+    IRowPredicate[] predicates = new IRowPredicate[ size ];
+    int[] operators = new int[ size ];
+    for ( int i = 0; i < size; i++ ) {
+      Condition child = condition.getCondition( i );
+      predicates[ i ] = compile( child, rowMeta );
+      operators[ i ] = child.getOperator();
+    }
+    return new CompositePredicate( predicates, operators, condition.isNegated() );
+  }
+
+  private static IRowPredicate compileAtomic( Condition condition, IRowMeta rowMeta ) {
+    boolean negate = condition.isNegated();
+    int function = condition.getFunction();
+    if ( function == Condition.FUNC_TRUE ) {
+      return negate ? row -> false : row -> true;
+    }
+
+    // No field to evaluate: never true, negated or not
+    //
+    String leftName = condition.getLeftValuename();
+    int leftIndex = Utils.isEmpty( leftName ) ? -1 : rowMeta.indexOfValue( leftName );
+    if ( leftIndex < 0 ) {
+      return row -> false;
+    }
+    IValueMeta leftMeta = rowMeta.getValueMeta( leftIndex );
+
+    String rightName = condition.getRightValuename();
+    int rightIndex = Utils.isEmpty( rightName ) ? -1 : rowMeta.indexOfValue( rightName );
+    ValueMetaAndData rightExact = condition.getRightExact();
+    boolean constant = rightExact != null && rightExact.getValueData() != null && rightExact.getValueMeta() != null;
+
+    IRowPredicate predicate = null;
+    try {
+      switch ( function ) {
+        case Condition.FUNC_EQUAL:
+        case Condition.FUNC_NOT_EQUAL:
+        case Condition.FUNC_SMALLER:
+        case Condition.FUNC_SMALLER_EQUAL:
+        case Condition.FUNC_LARGER:
+        case Condition.FUNC_LARGER_EQUAL:
+          predicate = compileComparison( condition, rowMeta, leftIndex, leftMeta, rightIndex, constant );
+          break;
+        case Condition.FUNC_NULL:
+          predicate = new NullPredicate( condition, leftIndex, leftMeta, !negate );
+          break;
+        case Condition.FUNC_NOT_NULL:
+          predicate = new NullPredicate( condition, leftIndex, leftMeta, negate );
+          break;
+        case Condition.FUNC_IN_LIST:
+        case Condition.FUNC_CONTAINS:
+        case Condition.FUNC_STARTS_WITH:
+        case Condition.FUNC_ENDS_WITH:
+        case Condition.FUNC_REGEXP:
+        case Condition.FUNC_LIKE:
+          if ( constant ) {
+            predicate = compileStringFunction( condition, leftIndex, leftMeta, rightExact );
+          }
+          break;
+        default:
+          break;
+      }
+    } catch ( HopValueException | RuntimeException e ) {
+      // Invalid constants or regular expressions: the interpreter reports the error for every row, as before
+      predicate = null;
+    }
+
+    if ( predicate == null ) {
+      return new InterpretedPredicate( condition, rowMeta );
+    }
+    return predicate;
+  }
+
+  private static IRowPredicate compileComparison( Condition condition, IRowMeta rowMeta, int leftIndex,
+                                                  IValueMeta leftMeta, int rightIndex, boolean constant )
+    throws HopValueException {
+    Comparator<Object> comparator = getTypeComparator( leftMeta );
+    if ( comparator == null ) {
+      return null;
+    }
+
+    if ( constant ) {
+      // Convert the constant the same way IValueMeta.compare() does for every row
+      //
+      IValueMeta meta2 = condition.getRightExact().getValueMeta();
+      Object data2 = condition.getRightExact().getValueData();
+      Object value;
+      if ( leftMeta.getType() == meta2.getType() ) {
+        value = meta2.isStorageNormal() ? data2 : meta2.convertToNormalStorageType( data2 );
+      } else if ( leftMeta.getType() == IValueMeta.TYPE_INTEGER && meta2.getType() == IValueMeta.TYPE_NUMBER ) {
+        // Compared as numbers, depends on the row value
+        return null;
+      } else {
+        value = leftMeta.convertData( meta2, data2 );
+      }
+      return new ComparisonPredicate( condition, leftIndex, -1, value, comparator );
+    }
+
+    if ( rightIndex < 0 ) {
+      return null;
+    }
+    IValueMeta rightMeta = rowMeta.getValueMeta( rightIndex );
+    if ( rightMeta.getType() != leftMeta.getType() || !rightMeta.isStorageNormal() ) {
+      return null;
+    }
+    return new ComparisonPredicate( condition, leftIndex, rightIndex, null, comparator );
+  }
+
+  /**
+   * @return A comparator for non-null values giving the same result as {@link IValueMeta#compare(Object, Object)}
+   * or null if the value metadata has its own rules
+   */
+  private static Comparator<Object> getTypeComparator( IValueMeta valueMeta ) {
+    if ( !valueMeta.isStorageNormal() || valueMeta.isSortedDescending() ) {
+      return null;
+    }
+    Class<?> valueMetaClass = valueMeta.getClass();
+    if ( valueMetaClass == ValueMetaInteger.class ) {
+      return ( a, b ) -> ( (Long) a ).compareTo( (Long) b );
+    }
+    if ( valueMetaClass == ValueMetaNumber.class ) {
+      return ( a, b ) -> Double.compare( (Double) a, (Double) b );
+    }
+    if ( valueMetaClass == ValueMetaDate.class ) {
+      return ( a, b ) -> Long.compare( ( (Date) a ).getTime(), ( (Date) b ).getTime() );
+    }
+    if ( valueMetaClass == ValueMetaBigNumber.class ) {
+      return ( a, b ) -> ( (BigDecimal) a ).compareTo( (BigDecimal) b );
+    }
+    return null;
+  }
+
+  private static IRowPredicate compileStringFunction( Condition condition, int leftIndex, IValueMeta leftMeta,
+                                                      ValueMetaAndData rightExact ) throws HopValueException {
+    IValueMeta meta2 = rightExact.getValueMeta();
+    Object data2 = rightExact.getValueData();
+    boolean negate = condition.isNegated();
+
+    switch ( condition.getFunction() ) {
+      case Condition.FUNC_IN_LIST:
+        String[] inList = Const.splitString( meta2.getString( data2 ), ';', true );
+        Set<String> values = new HashSet<>();
+        for ( String value : inList ) {
+          if ( value == null ) {
+            return null;
+          }
+          values.add( value.replace( "\\", "" ) );
+        }
+        return new StringPredicate( condition, leftIndex, leftMeta, negate ) {
+          @Override
+          protected boolean test( String string ) {
+            return string != null && values.contains( string );
+          }
+        };
+      case Condition.FUNC_CONTAINS:
+        String contained = meta2.getCompatibleString( data2 );
+        if ( contained == null ) {
+          return null;
+        }
+        return new StringPredicate( condition, leftIndex, leftMeta, negate ) {
+          @Override
+          protected boolean test( String string ) {
+            return string != null && string.contains( contained );
+          }
+        };
+      case Condition.FUNC_STARTS_WITH:
+        String prefix = meta2.getCompatibleString( data2 );
+        if ( prefix == null ) {
+          return null;
+        }
+        return new StringPredicate( condition, leftIndex, leftMeta, negate ) {
+          @Override
+          protected boolean test( String string ) {
+            return string != null && string.startsWith( prefix );
+          }
+        };
+      case Condition.FUNC_ENDS_WITH:
+        String suffix = meta2.getCompatibleString( data2 );
+        return new StringPredicate( condition, leftIndex, leftMeta, negate ) {
+          @Override
+          protected boolean test( String string ) {
+            return !Utils.isEmpty( string ) && suffix != null && string.endsWith( suffix );
+          }
+        };
+      case Condition.FUNC_REGEXP:
+        return compileMatches( condition, leftIndex, leftMeta, Pattern.compile( meta2.getCompatibleString( data2 ) ) );
+      case Condition.FUNC_LIKE:
+        String regex = meta2.getCompatibleString( data2 );
+        regex = regex.replace( "%", ".*" );
+        regex = regex.replace( "?", "." );
+        return compileMatches( condition, leftIndex, leftMeta, Pattern.compile( regex ) );
+      default:
+        return null;
+    }
+  }
+
+  private static IRowPredicate compileMatches( Condition condition, int leftIndex, IValueMeta leftMeta,
+                                               Pattern pattern ) {
+    return new StringPredicate( condition, leftIndex, leftMeta, condition.isNegated() ) {
+      @Override
+      protected boolean isNullFalse() {
+        return true;
+      }
+
+      @Override
+      protected boolean test( String string ) {
+        return pattern.matcher( string ).matches();
+      }
+    };
+  }
+
+  private static RuntimeException evaluationError( Condition condition, Exception e ) {
+    return new RuntimeException( "Unexpected error evaluation condition [" + condition.toString() + "]", e );
+  }
+
+  /**
+   * Evaluates the sub-conditions from left to right, without precedence, like the interpreter
+   */
+  private static final class CompositePredicate implements IRowPredicate {
+    private final IRowPredicate[] predicates;
+    private final int[] operators;
+    private final boolean negate;
+
+    CompositePredicate( IRowPredicate[] predicates, int[] operators, boolean negate ) {
+      this.predicates = predicates;
+      this.operators = operators;
+      this.negate = negate;
+    }
+
+    @Override
+    public boolean evaluate( Object[] row ) {
+      boolean result = predicates[ 0 ].evaluate( row );
+      for ( int i = 1; i < predicates.length; i++ ) {
+        switch ( operators[ i ] ) {
+          case Condition.OPERATOR_OR:
+            result = result || predicates[ i ].evaluate( row );
+            break;
+          case Condition.OPERATOR_AND:
+            result = result && predicates[ i ].evaluate( row );
+            break;
+          case Condition.OPERATOR_OR_NOT:
+            result = result || !predicates[ i ].evaluate( row );
+            break;
+          case Condition.OPERATOR_AND_NOT:
+            result = result && !predicates[ i ].evaluate( row );
+            break;
+          case Condition.OPERATOR_XOR:
+            result = result ^ predicates[ i ].evaluate( row );
+            break;
+          default:
+            break;
+        }
+      }
+      return negate != result;
+    }
+  }
+
+  /**
+   * Compares two values of the same type, nulls first
+   */
+  private static final class ComparisonPredicate implements IRowPredicate {
+    private final Condition condition;
+    private final int leftIndex;
+    private final int rightIndex;
+    private final Object rightValue;
+    private final Comparator<Object> comparator;
+    private final int function;
+    private final boolean negate;
+
+    ComparisonPredicate( Condition condition, int leftIndex, int rightIndex, Object rightValue,
+                         Comparator<Object> comparator ) {
+      this.condition = condition;
+      this.leftIndex = leftIndex;
+      this.rightIndex = rightIndex;
+      this.rightValue = rightValue;
+      this.comparator = comparator;
+      this.function = condition.getFunction();
+      this.negate = condition.isNegated();
+    }
+
+    @Override
+    public boolean evaluate( Object[] row ) {
+      try {
+        Object left = row[ leftIndex ];
+        Object right = rightIndex < 0 ? rightValue : row[ rightIndex ];
+        int cmp;
+        if ( left == null ) {
+          cmp = right == null ? 0 : -1;
+        } else if ( right == null ) {
+          cmp = 1;
+        } else {
+          cmp = comparator.compare( left, right );
+        }
+
+        boolean result;
+        switch ( function ) {
+          case Condition.FUNC_EQUAL:
+            result = cmp == 0;
+            break;
+          case Condition.FUNC_NOT_EQUAL:
+            result = cmp != 0;
+            break;
+          case Condition.FUNC_SMALLER:
+            result = left != null && cmp < 0;
+            break;
+          case Condition.FUNC_SMALLER_EQUAL:
+            result = left != null && cmp <= 0;
+            break;
+          case Condition.FUNC_LARGER:
+            result = cmp > 0;
+            break;
+          default:
+            result = cmp >= 0;
+            break;
+        }
+        return negate != result;
+      } catch ( RuntimeException e ) {
+        throw evaluationError( condition, e );
+      }
+    }
+  }
+
+  private static final class NullPredicate implements IRowPredicate {
+    private final Condition condition;
+    private final int index;
+    private final IValueMeta valueMeta;
+    private final boolean expected;
+
+    /**
+     * @param expected The result of the predicate for a null value
+     */
+    NullPredicate( Condition condition, int index, IValueMeta valueMeta, boolean expected ) {
+      this.condition = condition;
+      this.index = index;
+      this.valueMeta = valueMeta;
+      this.expected = expected;
+    }
+
+    @Override
+    public boolean evaluate( Object[] row ) {
+      try {
+        return valueMeta.isNull( row[ index ] ) == expected;
+      } catch ( Exception e ) {
+        throw evaluationError( condition, e );
+      }
+    }
+  }
+
+  /**
+   * Tests the compatible string of a field against a constant
+   */
+  private abstract static class StringPredicate implements IRowPredicate {
+    private final Condition condition;
+    private final int index;
+    private final IValueMeta valueMeta;
+    private final boolean negate;
+
+    StringPredicate( Condition condition, int index, IValueMeta valueMeta, boolean negate ) {
+      this.condition = condition;
+      this.index = index;
+      this.valueMeta = valueMeta;
+      this.negate = negate;
+    }
+
+    /**
+     * @return true if a null value is never a match, without converting it to a string
+     */
+    protected boolean isNullFalse() {
+      return false;
+    }
+
+    protected abstract boolean test( String string );
+
+    @Override
+    public boolean evaluate( Object[] row ) {
+      try {
+        Object value = row[ index ];
+        boolean result;
+        if ( isNullFalse() && valueMeta.isNull( value ) ) {
+          result = false;
+        } else {
+          result = test( valueMeta.getCompatibleString( value ) );
+        }
+        return negate != result;
+      } catch ( Exception e ) {
+        throw evaluationError( condition, e );
+      }
+    }
+  }
+
+  /**
+   * Evaluates a copy of an atomic condition with the interpreter. The copy keeps its own cached field positions.
+   */
+  private static final class InterpretedPredicate implements IRowPredicate {
+    private final Condition condition;
+    private final IRowMeta rowMeta;
+
+    InterpretedPredicate( Condition condition, IRowMeta rowMeta ) {
+      this.condition = (Condition) condition.clone();
+      this.rowMeta = rowMeta;
+    }
+
+    @Override
+    public boolean evaluate( Object[] row ) {
+      return condition.evaluate( rowMeta, row );
+    }
+  }
+}
@@ -429,6 +429,23 @@ public class Const {
    */
   public static final String HOP_MAX_LOG_SIZE_IN_LINES = "HOP_MAX_LOG_SIZE_IN_LINES";
 
+  /**
+   * System wide flag to hand log lines over to a dispatcher thread instead of passing them to the log listeners on
+   * the thread doing the logging. Set to Y to enable.
+   */
+  public static final String HOP_LOG_ASYNC = "HOP_LOG_ASYNC";
+
+  /**
+   * The maximum number of log lines waiting for the log dispatcher thread
+   */
+  public static final String HOP_LOG_ASYNC_QUEUE_SIZE = "HOP_LOG_ASYNC_QUEUE_SIZE";
+
+  /**
+   * What to do with a log line when the queue of the log dispatcher thread is full: BLOCK (default) to wait or DROP
+   * to drop the line. Errors are never dropped.
+   */
+  public static final String HOP_LOG_ASYNC_POLICY = "HOP_LOG_ASYNC_POLICY";
+
   /**
    * System wide flag to set the maximum age (in minutes) of a log line while being kept internally
    * by Hop. Set to 0 to keep all rows indefinitely (default)
@@ -512,6 +529,18 @@ public class Const {
   public static final String HOP_PLUGIN_PACKAGES = "HOP_PLUGIN_PACKAGES";
 
   public static final String HOP_PLUGIN_BASE_FOLDERS = "HOP_PLUGIN_BASE_FOLDERS";
+
+  /**
+   * Set this variable to N to read the annotation index of every plugin jar file at startup
+   * instead of using the plugin jar snapshot of the previous run
+   */
+  public static final String HOP_PLUGIN_SNAPSHOT = "HOP_PLUGIN_SNAPSHOT";
+
+  /**
+   * The file in which the annotated classes of the plugin jar files are kept between runs. The
+   * default is plugin-snapshot.dat in the Hop config folder.
+   */
+  public static final String HOP_PLUGIN_SNAPSHOT_FILE = "HOP_PLUGIN_SNAPSHOT_FILE";
   
   /**
    * Name of the environment variable that contains the size of the pipeline rowset size. This
@@ -586,6 +615,13 @@ public class Const {
   /** Set this variable to Y if you want to test a more efficient batching row set. (default = N) */
   public static final String HOP_BATCHING_ROWSET = "HOP_BATCHING_ROWSET";
 
+  /**
+   * The percentage of the maximum heap size that transforms like Sort Rows, Memory Group By and
+   * Stream Lookup can claim together before the ones that can are asked to spill to disk. (default = 60)
+   */
+  public static final String HOP_TRANSFORM_MEMORY_POOL_PERCENTAGE =
+      "HOP_TRANSFORM_MEMORY_POOL_PERCENTAGE";
+
   /**
    * Set this variable to limit max number of files the Text File Output transform can have open at
    * one time.
@@ -15,17 +15,17 @@
  * limitations under the License.
  */
 
-package org.apache.hop.pipeline.transforms.sort;
+package org.apache.hop.core;
 
 /**
- * Keeps track of which temporary file a row is coming from
+ * A test on rows with a fixed layout, for example a {@link Condition} compiled for the row metadata of a transform
+ * input. See {@link Condition#compile(org.apache.hop.core.row.IRowMeta)}
  */
-public class RowTempFile {
-  public Object[] row;
-  public int fileNumber;
+public interface IRowPredicate {
 
-  public RowTempFile( Object[] row, int fileNumber ) {
-    this.row = row;
-    this.fileNumber = fileNumber;
-  }
+  /**
+   * @param row The row data, with the layout of the row metadata the predicate was created for
+   * @return true if the row matches
+   */
+  boolean evaluate( Object[] row );
 }
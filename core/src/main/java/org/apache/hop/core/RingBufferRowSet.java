@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import org.apache.hop.core.row.IRowMeta;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lock-free buffer of rows for exactly one producing and one consuming thread. Every hop between two transform copies
+ * in a local pipeline satisfies this, so instead of paying for the lock and conditions of an ArrayBlockingQueue per
+ * row we simply publish a write and a read index. A thread that has to wait first spins for a while and then parks for
+ * short periods until the other side catches up or the timeout expires.
+ * <p>
+ * Do NOT use this row set when more than one thread can write to or read from it at the same time.
+ */
+public class RingBufferRowSet extends BaseRowSet implements Comparable<IRowSet>, IRowSet {
+
+  private static final int SPIN_TRIES = 100;
+  private static final int YIELD_TRIES = 10;
+  private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos( 50 );
+
+  private final Object[][] buffer;
+  private final int mask;
+  private final int maxSize;
+
+  /**
+   * The index of the next row to write, only ever modified by the producer
+   */
+  private final PaddedIndex putIndex;
+
+  /**
+   * The index of the next row to read, only ever modified by the consumer
+   */
+  private final PaddedIndex getIndex;
+
+  /**
+   * The producer side copy of the read index, avoids reading the contended index for every row
+   */
+  private long cachedGetIndex;
+
+  /**
+   * The consumer side copy of the write index, avoids reading the contended index for every row
+   */
+  private long cachedPutIndex;
+
+  private int timeoutPut;
+  private int timeoutGet;
+
+  /**
+   * Create a new ring buffer which can hold up to maxSize rows.
+   *
+   * @param maxSize
+   */
+  public RingBufferRowSet( int maxSize ) {
+    super();
+
+    this.maxSize = Math.max( 1, maxSize );
+
+    // Round the capacity up to a power of 2 so we can mask instead of taking the remainder
+    //
+    int capacity = Integer.highestOneBit( this.maxSize );
+    if ( capacity < this.maxSize ) {
+      capacity <<= 1;
+    }
+    buffer = new Object[ capacity ][];
+    mask = capacity - 1;
+
+    putIndex = new PaddedIndex();
+    getIndex = new PaddedIndex();
+
+    timeoutGet = Const.toInt( System.getProperty( Const.HOP_ROWSET_GET_TIMEOUT ), Const.TIMEOUT_GET_MILLIS );
+    timeoutPut = Const.toInt( System.getProperty( Const.HOP_ROWSET_PUT_TIMEOUT ), Const.TIMEOUT_PUT_MILLIS );
+  }
+
+  @Override
+  public boolean putRow( IRowMeta rowMeta, Object[] rowData ) {
+    return putRowWait( rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public boolean putRowWait( IRowMeta rowMeta, Object[] rowData, long time, TimeUnit tu ) {
+    if ( rowData == null ) {
+      return false;
+    }
+    this.rowMeta = rowMeta;
+
+    long index = putIndex.get();
+    if ( index - cachedGetIndex >= maxSize ) {
+      cachedGetIndex = getIndex.get();
+      if ( index - cachedGetIndex >= maxSize ) {
+        long deadline = System.nanoTime() + tu.toNanos( time );
+        int tries = 0;
+        while ( index - ( cachedGetIndex = getIndex.get() ) >= maxSize ) {
+          if ( !backOff( tries++, deadline ) ) {
+            return false;
+          }
+        }
+      }
+    }
+
+    buffer[ (int) index & mask ] = rowData;
+    putIndex.lazySet( index + 1 );
+    return true;
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait( timeoutGet, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    long index = getIndex.get();
+    if ( index >= cachedPutIndex ) {
+      cachedPutIndex = putIndex.get();
+      if ( index >= cachedPutIndex ) {
+        return null;
+      }
+    }
+    return take( index );
+  }
+
+  @Override
+  public Object[] getRowWait( long timeout, TimeUnit tu ) {
+    long index = getIndex.get();
+    if ( index >= cachedPutIndex ) {
+      cachedPutIndex = putIndex.get();
+      if ( index >= cachedPutIndex ) {
+        long deadline = System.nanoTime() + tu.toNanos( timeout );
+        int tries = 0;
+        while ( index >= ( cachedPutIndex = putIndex.get() ) ) {
+          if ( !backOff( tries++, deadline ) ) {
+            return null;
+          }
+        }
+      }
+    }
+    return take( index );
+  }
+
+  private Object[] take( long index ) {
+    int slot = (int) index & mask;
+    Object[] row = buffer[ slot ];
+    buffer[ slot ] = null; // prevent any hold-up to GC
+    getIndex.lazySet( index + 1 );
+    return row;
+  }
+
+  /**
+   * Wait a little while for the other side of the buffer: spin first, then yield and finally park.
+   *
+   * @param tries    the number of times we already backed off
+   * @param deadline the System.nanoTime() value after which we give up
+   * @return false if the deadline passed or the thread was interrupted.
+   */
+  private boolean backOff( int tries, long deadline ) {
+    if ( tries < SPIN_TRIES ) {
+      // Busy spin: the caller re-reads the other index right away
+      //
+      return true;
+    }
+    long remaining = deadline - System.nanoTime();
+    if ( remaining <= 0 || Thread.currentThread().isInterrupted() ) {
+      return false;
+    }
+    if ( tries < SPIN_TRIES + YIELD_TRIES ) {
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos( this, Math.min( remaining, PARK_NANOS ) );
+    }
+    return true;
+  }
+
+  @Override
+  public int size() {
+    // Read the consumer index first so that we never report a negative size
+    //
+    long get = getIndex.get();
+    long put = putIndex.get();
+    return (int) Math.max( 0L, put - get );
+  }
+
+  @Override
+  public void clear() {
+    long index = getIndex.get();
+    long put = putIndex.get();
+    while ( index < put ) {
+      buffer[ (int) index++ & mask ] = null;
+    }
+    cachedPutIndex = put;
+    getIndex.set( put );
+    done.set( false );
+  }
+
+  /**
+   * An index padded with an extra cache line worth of fields so that the producer and consumer indexes never end up
+   * on the same cache line.
+   */
+  @SuppressWarnings( "unused" )
+  private static final class PaddedIndex extends AtomicLong {
+    private long p1, p2, p3, p4, p5, p6, p7, p8;
+  }
+}
@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+import org.apache.hop.core.exception.HopValueException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hash index of serialized keys and values with open addressing.
+ * The keys and values are appended to large byte buffers, on or off the Java heap. The slots of the index only hold
+ * the hash code and the address of an entry in those buffers, collisions are resolved with linear probing.
+ * An entry takes the length of its key and value plus 8 bytes, and 12 bytes divided by the load factor for its slot.
+ * <p>
+ * Keys are equal if their bytes are equal, like in {@link ByteArrayHashIndex}. Replacing a value with one of another
+ * length leaves the old value unused in the buffers.
+ * <p>
+ * Lookups can be done by any number of threads once all entries are added.
+ */
+public class ByteArrayOpenHashIndex {
+
+  private static final int STANDARD_INDEX_SIZE = 512;
+  private static final float STANDARD_LOAD_FACTOR = 0.7f;
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  /**
+   * The size of the buffers the entries are stored in, unless an entry is larger
+   */
+  private static final int CHUNK_SIZE = 1 << 20;
+
+  /**
+   * The length of the key and the length of the value in front of every entry
+   */
+  private static final int ENTRY_HEADER_SIZE = 8;
+
+  private final boolean offHeap;
+  private final List<ByteBuffer> chunks;
+  private ByteBuffer currentChunk;
+  private int currentPosition;
+  private long chunkMemory;
+
+  /**
+   * The number of the chunk plus one in the high 32 bits and the position in the chunk in the low 32 bits, 0 is free
+   */
+  private long[] addresses;
+  private int[] hashCodes;
+  private int mask;
+  private int size;
+  private int resizeThresHold;
+
+  /**
+   * Create a new hash index with its entries on the Java heap
+   *
+   * @param size the expected number of entries
+   */
+  public ByteArrayOpenHashIndex( int size ) {
+    this( size, false );
+  }
+
+  /**
+   * Create a new hash index
+   *
+   * @param size    the expected number of entries
+   * @param offHeap true to store the keys and values in direct byte buffers, outside of the Java heap
+   */
+  public ByteArrayOpenHashIndex( int size, boolean offHeap ) {
+    this.offHeap = offHeap;
+    this.chunks = new ArrayList<>();
+    allocate( LongOpenHashIndex.getCapacity( size, STANDARD_LOAD_FACTOR, MAXIMUM_CAPACITY ) );
+  }
+
+  /**
+   * Create a new hash index with its entries on the Java heap
+   */
+  public ByteArrayOpenHashIndex() {
+    this( STANDARD_INDEX_SIZE );
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean isOffHeap() {
+    return offHeap;
+  }
+
+  /**
+   * @return The number of bytes used by the index, the buffers with the entries included
+   */
+  public long getMemoryUsage() {
+    return 12L * addresses.length + chunkMemory;
+  }
+
+  public byte[] get( byte[] key ) {
+    int hashCode = hash( key );
+    int slot = hashCode & mask;
+    while ( true ) {
+      long address = addresses[ slot ];
+      if ( address == 0L ) {
+        return null;
+      }
+      if ( hashCodes[ slot ] == hashCode && equalsKey( address, key ) ) {
+        return readValue( address );
+      }
+      slot = ( slot + 1 ) & mask;
+    }
+  }
+
+  public void put( byte[] key, byte[] value ) throws HopValueException {
+    int hashCode = hash( key );
+    int slot = hashCode & mask;
+    while ( true ) {
+      long address = addresses[ slot ];
+      if ( address == 0L ) {
+        break;
+      }
+      if ( hashCodes[ slot ] == hashCode && equalsKey( address, key ) ) {
+        // Replace the value of the existing entry, in place if it fits
+        //
+        ByteBuffer chunk = getChunk( address );
+        int position = getPosition( address );
+        if ( chunk.getInt( position + 4 ) == value.length ) {
+          write( chunk, position + ENTRY_HEADER_SIZE + key.length, value );
+        } else {
+          addresses[ slot ] = append( key, value );
+        }
+        return;
+      }
+      slot = ( slot + 1 ) & mask;
+    }
+
+    addresses[ slot ] = append( key, value );
+    hashCodes[ slot ] = hashCode;
+    size++;
+
+    if ( size >= resizeThresHold ) {
+      resize();
+    }
+  }
+
+  private void allocate( int capacity ) {
+    addresses = new long[ capacity ];
+    hashCodes = new int[ capacity ];
+    mask = capacity - 1;
+    resizeThresHold = capacity == MAXIMUM_CAPACITY ? capacity - 1 : (int) ( capacity * STANDARD_LOAD_FACTOR );
+  }
+
+  private void resize() throws HopValueException {
+    int capacity = mask + 1;
+    if ( capacity == MAXIMUM_CAPACITY ) {
+      throw new HopValueException( "The hash index can't hold more than " + ( capacity - 1 ) + " entries" );
+    }
+
+    long[] oldAddresses = addresses;
+    int[] oldHashCodes = hashCodes;
+    allocate( capacity << 1 );
+
+    // Re-distribute the entries over the new slots, the keys themselves don't need to be read
+    //
+    for ( int i = 0; i < oldAddresses.length; i++ ) {
+      if ( oldAddresses[ i ] != 0L ) {
+        int slot = oldHashCodes[ i ] & mask;
+        while ( addresses[ slot ] != 0L ) {
+          slot = ( slot + 1 ) & mask;
+        }
+        addresses[ slot ] = oldAddresses[ i ];
+        hashCodes[ slot ] = oldHashCodes[ i ];
+      }
+    }
+  }
+
+  /**
+   * Store the key and value at the end of the buffers
+   *
+   * @return The address of the entry
+   */
+  private long append( byte[] key, byte[] value ) throws HopValueException {
+    long entrySize = (long) ENTRY_HEADER_SIZE + key.length + value.length;
+    if ( entrySize > Integer.MAX_VALUE ) {
+      throw new HopValueException( "Unable to store a hash index entry of " + entrySize + " bytes" );
+    }
+    if ( currentChunk == null || currentChunk.capacity() - currentPosition < entrySize ) {
+      int chunkSize = Math.max( CHUNK_SIZE, (int) entrySize );
+      currentChunk = offHeap ? ByteBuffer.allocateDirect( chunkSize ) : ByteBuffer.allocate( chunkSize );
+      currentPosition = 0;
+      chunks.add( currentChunk );
+      chunkMemory += chunkSize;
+    }
+
+    int position = currentPosition;
+    currentChunk.putInt( position, key.length );
+    currentChunk.putInt( position + 4, value.length );
+    write( currentChunk, position + ENTRY_HEADER_SIZE, key );
+    write( currentChunk, position + ENTRY_HEADER_SIZE + key.length, value );
+    currentPosition += (int) entrySize;
+
+    return ( (long) chunks.size() << 32 ) | position;
+  }
+
+  private ByteBuffer getChunk( long address ) {
+    return chunks.get( (int) ( address >>> 32 ) - 1 );
+  }
+
+  private static int getPosition( long address ) {
+    return (int) address;
+  }
+
+  private boolean equalsKey( long address, byte[] key ) {
+    ByteBuffer chunk = getChunk( address );
+    int position = getPosition( address );
+    if ( chunk.getInt( position ) != key.length ) {
+      return false;
+    }
+    position += ENTRY_HEADER_SIZE;
+    if ( chunk.hasArray() ) {
+      byte[] array = chunk.array();
+      int offset = chunk.arrayOffset() + position;
+      for ( int i = 0; i < key.length; i++ ) {
+        if ( array[ offset + i ] != key[ i ] ) {
+          return false;
+        }
+      }
+    } else {
+      for ( int i = 0; i < key.length; i++ ) {
+        if ( chunk.get( position + i ) != key[ i ] ) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private byte[] readValue( long address ) {
+    ByteBuffer chunk = getChunk( address );
+    int position = getPosition( address );
+    int keyLength = chunk.getInt( position );
+    byte[] value = new byte[ chunk.getInt( position + 4 ) ];
+    position += ENTRY_HEADER_SIZE + keyLength;
+    if ( chunk.hasArray() ) {
+      System.arraycopy( chunk.array(), chunk.arrayOffset() + position, value, 0, value.length );
+    } else {
+      for ( int i = 0; i < value.length; i++ ) {
+        value[ i ] = chunk.get( position + i );
+      }
+    }
+    return value;
+  }
+
+  private static void write( ByteBuffer chunk, int position, byte[] bytes ) {
+    if ( chunk.hasArray() ) {
+      System.arraycopy( bytes, 0, chunk.array(), chunk.arrayOffset() + position, bytes.length );
+    } else {
+      for ( int i = 0; i < bytes.length; i++ ) {
+        chunk.put( position + i, bytes[ i ] );
+      }
+    }
+  }
+
+  /**
+   * The hash code of the bytes of a key, with the bits spread over the slots of the index
+   */
+  static int hash( byte[] key ) {
+    int h = 1;
+    for ( byte b : key ) {
+      h = 31 * h + b;
+    }
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+}
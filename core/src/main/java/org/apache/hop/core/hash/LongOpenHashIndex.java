@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+import org.apache.hop.core.exception.HopValueException;
+
+/**
+ * A long/long hash index with open addressing: keys and values are stored next to each other in a single long array
+ * and collisions are resolved with linear probing. An entry takes 16 bytes divided by the load factor, no objects
+ * are created per entry.
+ * <p>
+ * Lookups can be done by any number of threads once all entries are added.
+ */
+public class LongOpenHashIndex {
+
+  private static final int STANDARD_INDEX_SIZE = 512;
+  private static final float STANDARD_LOAD_FACTOR = 0.7f;
+
+  /**
+   * Keys and values take 2 longs per slot in an array
+   */
+  private static final int MAXIMUM_CAPACITY = 1 << 29;
+
+  /**
+   * Marks a free slot, the entry for this key is kept aside
+   */
+  private static final long FREE_KEY = 0L;
+
+  private long[] entries;
+  private int mask;
+  private int size;
+  private int resizeThresHold;
+
+  private boolean hasFreeKey;
+  private long freeKeyValue;
+
+  /**
+   * Create a new long/long hash index
+   *
+   * @param size the expected number of entries
+   */
+  public LongOpenHashIndex( int size ) {
+    allocate( getCapacity( size, STANDARD_LOAD_FACTOR, MAXIMUM_CAPACITY ) );
+  }
+
+  /**
+   * Create a new long/long hash index
+   */
+  public LongOpenHashIndex() {
+    this( STANDARD_INDEX_SIZE );
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return The number of bytes used by the index
+   */
+  public long getMemoryUsage() {
+    return 8L * entries.length;
+  }
+
+  public Long get( long key ) {
+    if ( key == FREE_KEY ) {
+      return hasFreeKey ? freeKeyValue : null;
+    }
+    int slot = hash( key ) & mask;
+    while ( true ) {
+      long check = entries[ slot << 1 ];
+      if ( check == key ) {
+        return entries[ ( slot << 1 ) + 1 ];
+      }
+      if ( check == FREE_KEY ) {
+        return null;
+      }
+      slot = ( slot + 1 ) & mask;
+    }
+  }
+
+  public void put( long key, long value ) throws HopValueException {
+    if ( key == FREE_KEY ) {
+      if ( !hasFreeKey ) {
+        hasFreeKey = true;
+        size++;
+      }
+      freeKeyValue = value;
+      return;
+    }
+    int slot = hash( key ) & mask;
+    while ( true ) {
+      long check = entries[ slot << 1 ];
+      if ( check == key ) {
+        // Replace the value of an existing entry
+        //
+        entries[ ( slot << 1 ) + 1 ] = value;
+        return;
+      }
+      if ( check == FREE_KEY ) {
+        break;
+      }
+      slot = ( slot + 1 ) & mask;
+    }
+
+    entries[ slot << 1 ] = key;
+    entries[ ( slot << 1 ) + 1 ] = value;
+    size++;
+
+    if ( size >= resizeThresHold ) {
+      resize();
+    }
+  }
+
+  private void allocate( int capacity ) {
+    entries = new long[ capacity << 1 ];
+    mask = capacity - 1;
+    resizeThresHold = capacity == MAXIMUM_CAPACITY ? capacity - 1 : (int) ( capacity * STANDARD_LOAD_FACTOR );
+  }
+
+  private void resize() throws HopValueException {
+    int capacity = mask + 1;
+    if ( capacity == MAXIMUM_CAPACITY ) {
+      throw new HopValueException( "The hash index can't hold more than " + ( capacity - 1 ) + " entries" );
+    }
+
+    long[] oldEntries = entries;
+    allocate( capacity << 1 );
+
+    // Re-distribute the entries over the new slots
+    //
+    for ( int i = 0; i < oldEntries.length; i += 2 ) {
+      long key = oldEntries[ i ];
+      if ( key != FREE_KEY ) {
+        int slot = hash( key ) & mask;
+        while ( entries[ slot << 1 ] != FREE_KEY ) {
+          slot = ( slot + 1 ) & mask;
+        }
+        entries[ slot << 1 ] = key;
+        entries[ ( slot << 1 ) + 1 ] = oldEntries[ i + 1 ];
+      }
+    }
+  }
+
+  /**
+   * @return A power of 2 with room for the given number of entries without resizing
+   */
+  static int getCapacity( int size, float loadFactor, int maximumCapacity ) {
+    long needed = (long) Math.ceil( Math.max( size, 1 ) / (double) loadFactor ) + 1;
+    int capacity = 2;
+    while ( capacity < needed && capacity < maximumCapacity ) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  /**
+   * Spread the bits of the key so that sequential keys don't end up in long runs of occupied slots
+   */
+  static int hash( long key ) {
+    long h = key;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands logging events over to a dispatcher thread which adds them to the central log buffer, its listeners
+ * (console, file, Slf4j, ...) and the log channel file writers.
+ * The threads logging only put the event in a bounded queue. Formatting the message happens when the listeners
+ * need it, on the dispatcher thread.
+ * <p>
+ * The queued events are handled before the JVM exits through a shutdown hook, in case nobody called
+ * {@link #shutdown()}.
+ */
+public class AsyncLoggingEventDispatcher {
+
+  /**
+   * What to do with an event when the queue is full
+   */
+  public enum Policy {
+    /**
+     * Wait until the dispatcher made room in the queue
+     */
+    BLOCK,
+
+    /**
+     * Drop the event, except for errors which are always kept
+     */
+    DROP;
+
+    public static Policy getPolicy( String name ) {
+      for ( Policy policy : values() ) {
+        if ( policy.name().equalsIgnoreCase( name ) ) {
+          return policy;
+        }
+      }
+      return BLOCK;
+    }
+  }
+
+  public static final int DEFAULT_QUEUE_SIZE = 10000;
+
+  private static final int MAX_BATCH_SIZE = 1000;
+
+  private static final long SHUTDOWN_TIMEOUT_MS = 10000;
+
+  private final LoggingBuffer appender;
+  private final Policy policy;
+  private final BlockingQueue<HopLoggingEvent> queue;
+  private final AtomicLong droppedEvents = new AtomicLong( 0 );
+  private final AtomicLong queuedEvents = new AtomicLong( 0 );
+  private final AtomicLong deliveredEvents = new AtomicLong( 0 );
+  private final AtomicInteger activeProducers = new AtomicInteger( 0 );
+  private final Thread dispatcher;
+  private final Thread shutdownHook;
+
+  /**
+   * No new events are queued once stopped
+   */
+  private volatile boolean stopped;
+
+  /**
+   * The dispatcher thread ends once closed, after all threads busy queueing an event are done
+   */
+  private volatile boolean closed;
+
+  /**
+   * @param appender  The central log buffer
+   * @param queueSize The maximum number of events waiting for the dispatcher
+   * @param policy    What to do when the queue is full
+   */
+  public AsyncLoggingEventDispatcher( LoggingBuffer appender, int queueSize, Policy policy ) {
+    this.appender = appender;
+    this.policy = policy;
+    this.queue = new ArrayBlockingQueue<>( queueSize > 0 ? queueSize : DEFAULT_QUEUE_SIZE );
+
+    dispatcher = new Thread( this::dispatchEvents, "Hop log dispatcher" );
+    dispatcher.setDaemon( true );
+    dispatcher.start();
+
+    shutdownHook = new Thread( this::shutdown, "Hop log dispatcher shutdown" );
+    Runtime.getRuntime().addShutdownHook( shutdownHook );
+  }
+
+  /**
+   * Queue an event for the dispatcher thread.
+   * Once the dispatcher is stopped the event is handled on the calling thread.
+   *
+   * @param event The event to log
+   */
+  public void dispatch( HopLoggingEvent event ) {
+    // Registered before looking at the stopped flag: shutdown() waits for us if we got past it
+    //
+    activeProducers.incrementAndGet();
+    try {
+      if ( stopped ) {
+        deliver( event );
+        return;
+      }
+      queuedEvents.incrementAndGet();
+      if ( queue.offer( event ) ) {
+        return;
+      }
+      if ( policy == Policy.DROP && !event.getLevel().isError() ) {
+        queuedEvents.decrementAndGet();
+        droppedEvents.incrementAndGet();
+        return;
+      }
+      while ( !queue.offer( event, 100, TimeUnit.MILLISECONDS ) ) {
+        // Nobody is going to make room in the queue anymore, or we are the one who should
+        //
+        if ( closed || !dispatcher.isAlive() || Thread.currentThread() == dispatcher ) {
+          queuedEvents.decrementAndGet();
+          deliver( event );
+          return;
+        }
+      }
+    } catch ( InterruptedException e ) {
+      // Keep the event rather than losing the interrupt or the message
+      //
+      Thread.currentThread().interrupt();
+      queuedEvents.decrementAndGet();
+      deliver( event );
+    } finally {
+      activeProducers.decrementAndGet();
+    }
+  }
+
+  /**
+   * @return The number of events which were dropped because the queue was full
+   */
+  public long getDroppedEvents() {
+    return droppedEvents.get();
+  }
+
+  /**
+   * Wait until the events queued so far are handled
+   *
+   * @param timeoutMs The maximum time to wait in milliseconds
+   * @return true if the queue was emptied in time
+   */
+  public boolean flush( long timeoutMs ) {
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    long queued = queuedEvents.get();
+    while ( deliveredEvents.get() < queued ) {
+      if ( System.currentTimeMillis() > deadline || !dispatcher.isAlive() ) {
+        return false;
+      }
+      try {
+        Thread.sleep( 1 );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Stop the dispatcher thread after it handled the queued events.
+   * Events logged after this are handled on the calling thread.
+   */
+  public synchronized void shutdown() {
+    if ( closed ) {
+      return;
+    }
+    stopped = true;
+
+    // Threads which got past the stopped flag are still queueing their event.
+    // The dispatcher keeps making room for them in the mean time.
+    //
+    long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MS;
+    while ( activeProducers.get() > 0 && dispatcher.isAlive() && System.currentTimeMillis() < deadline ) {
+      try {
+        Thread.sleep( 1 );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    closed = true;
+
+    try {
+      dispatcher.join( SHUTDOWN_TIMEOUT_MS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    // Whatever is left in the queue is handled here
+    //
+    HopLoggingEvent event = queue.poll();
+    while ( event != null ) {
+      deliver( event );
+      deliveredEvents.incrementAndGet();
+      event = queue.poll();
+    }
+
+    try {
+      Runtime.getRuntime().removeShutdownHook( shutdownHook );
+    } catch ( IllegalStateException e ) {
+      // The JVM is shutting down, this is the shutdown hook running
+    }
+  }
+
+  private void dispatchEvents() {
+    List<HopLoggingEvent> events = new ArrayList<>( MAX_BATCH_SIZE );
+    while ( !closed ) {
+      try {
+        HopLoggingEvent event = queue.poll( 100, TimeUnit.MILLISECONDS );
+        if ( event == null ) {
+          continue;
+        }
+        events.add( event );
+        queue.drainTo( events, MAX_BATCH_SIZE - 1 );
+        for ( HopLoggingEvent loggingEvent : events ) {
+          try {
+            deliver( loggingEvent );
+          } catch ( Exception e ) {
+            // A failing listener doesn't stop the logging of the other events
+            //
+            HopLogStore.OriginalSystemErr.println( "Error dispatching log event: " + e.getMessage() );
+          }
+          deliveredEvents.incrementAndGet();
+        }
+        events.clear();
+      } catch ( InterruptedException e ) {
+        // Stopping, the remaining events are handled by shutdown()
+        //
+        break;
+      }
+    }
+  }
+
+  private void deliver( HopLoggingEvent event ) {
+    appender.addLogggingEvent( event );
+
+    Object message = event.getMessage();
+    if ( message instanceof ILogMessage ) {
+      String logChannelId = ( (ILogMessage) message ).getLogChannelId();
+      if ( logChannelId == null ) {
+        return;
+      }
+      LogChannelFileWriterBuffer fileWriter = LoggingRegistry.getInstance().getLogChannelFileWriterBuffer( logChannelId );
+      if ( fileWriter != null ) {
+        fileWriter.addEvent( event );
+      }
+    }
+  }
+}
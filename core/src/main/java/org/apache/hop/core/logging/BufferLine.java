@@ -30,6 +30,17 @@ public class BufferLine {
     this.nr = sequence.incrementAndGet();
   }
 
+  /**
+   * Create a line with a number given by the buffer it is stored in.
+   *
+   * @param event the logging event or null for a line which was removed
+   * @param nr    the number of the line
+   */
+  BufferLine( HopLoggingEvent event, int nr ) {
+    this.event = event;
+    this.nr = nr;
+  }
+
   public int getNr() {
     return nr;
   }
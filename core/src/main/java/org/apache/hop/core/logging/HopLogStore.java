@@ -36,6 +36,8 @@ public class HopLogStore {
 
   private LoggingBuffer appender;
 
+  private AsyncLoggingEventDispatcher asyncDispatcher;
+
   private Timer logCleanerTimer;
 
   private static AtomicBoolean initialized = new AtomicBoolean( false );
@@ -60,6 +62,12 @@ public class HopLogStore {
     this.appender = new LoggingBuffer( maxSize );
     replaceLogCleaner( maxLogTimeoutMinutes );
 
+    if ( "Y".equalsIgnoreCase( EnvUtil.getSystemProperty( Const.HOP_LOG_ASYNC, "N" ) ) ) {
+      int queueSize = Const.toInt( EnvUtil.getSystemProperty( Const.HOP_LOG_ASYNC_QUEUE_SIZE ), AsyncLoggingEventDispatcher.DEFAULT_QUEUE_SIZE );
+      AsyncLoggingEventDispatcher.Policy policy = AsyncLoggingEventDispatcher.Policy.getPolicy( EnvUtil.getSystemProperty( Const.HOP_LOG_ASYNC_POLICY ) );
+      this.asyncDispatcher = new AsyncLoggingEventDispatcher( appender, queueSize, policy );
+    }
+
     if ( redirectStdOut ) {
       System.setOut( new LoggingPrintStream( OriginalSystemOut ) );
     }
@@ -196,6 +204,25 @@ public class HopLogStore {
     return getInstance().appender;
   }
 
+  /**
+   * @return The dispatcher to hand logging events to or null if they're handled on the thread doing the logging
+   */
+  public static AsyncLoggingEventDispatcher getAsyncDispatcher() {
+    HopLogStore logStore = store;
+    return logStore == null ? null : logStore.asyncDispatcher;
+  }
+
+  /**
+   * Wait until the logging events handed to the asynchronous dispatcher so far are handled.
+   * Does nothing when logging is synchronous.
+   */
+  public static void flush() {
+    AsyncLoggingEventDispatcher dispatcher = getAsyncDispatcher();
+    if ( dispatcher != null ) {
+      dispatcher.flush( 10000 );
+    }
+  }
+
   /**
    * Discard all the lines for the specified log channel id AND all the children.
    *
@@ -235,6 +262,10 @@ public class HopLogStore {
 
   public void reset() {
     if ( initialized.compareAndSet( true, false ) ) {
+      if ( asyncDispatcher != null ) {
+        asyncDispatcher.shutdown();
+        asyncDispatcher = null;
+      }
       appender = null;
       if ( logCleanerTimer != null ) {
         logCleanerTimer.cancel();
@@ -116,6 +116,15 @@ public class LogChannel implements ILogChannel {
     //
     if ( channelLogLevel.getLevel() >= logLevel.getLevel() ) {
       HopLoggingEvent loggingEvent = new HopLoggingEvent( logMessage, System.currentTimeMillis(), logLevel );
+
+      // Let the dispatcher thread pass the event on to the listeners and file writers
+      //
+      AsyncLoggingEventDispatcher asyncDispatcher = HopLogStore.getAsyncDispatcher();
+      if ( asyncDispatcher != null ) {
+        asyncDispatcher.dispatch( loggingEvent );
+        return;
+      }
+
       HopLogStore.getAppender().addLogggingEvent( loggingEvent );
 
       if ( this.fileWriter == null ) {
@@ -129,6 +138,13 @@ public class LogChannel implements ILogChannel {
     }
   }
 
+  /**
+   * Check before creating a message for a level which isn't logged anyway
+   */
+  private boolean isLogged( LogLevel level ) {
+    return level.isVisible( logLevel );
+  }
+
   public void println( ILogMessage message, Throwable e, LogLevel channelLogLevel ) {
     println( message, channelLogLevel );
 
@@ -139,66 +155,105 @@ public class LogChannel implements ILogChannel {
 
   @Override
   public void logMinimal( String s ) {
+    if ( !isLogged( LogLevel.MINIMAL ) ) {
+      return;
+    }
     println( new LogMessage( s, logChannelId, LogLevel.MINIMAL, simplified ), logLevel );
   }
 
   @Override
   public void logBasic( String s ) {
+    if ( !isLogged( LogLevel.BASIC ) ) {
+      return;
+    }
     println( new LogMessage( s, logChannelId, LogLevel.BASIC, simplified ), logLevel );
   }
 
   @Override
   public void logError( String s ) {
+    if ( !isLogged( LogLevel.ERROR ) ) {
+      return;
+    }
     println( new LogMessage( s, logChannelId, LogLevel.ERROR, simplified ), logLevel );
   }
 
   @Override
   public void logError( String s, Throwable e ) {
+    if ( !isLogged( LogLevel.ERROR ) ) {
+      return;
+    }
     println( new LogMessage( s, logChannelId, LogLevel.ERROR, simplified ), e, logLevel );
   }
 
   @Override
   public void logBasic( String s, Object... arguments ) {
+    if ( !isLogged( LogLevel.BASIC ) ) {
+      return;
+    }
     println( new LogMessage( s, logChannelId, arguments, LogLevel.BASIC, simplified ), logLevel );
   }
 
   @Override
   public void logDetailed( String s, Object... arguments ) {
+    if ( !isLogged( LogLevel.DETAILED ) ) {
+      return;
+    }
     println( new LogMessage( s, logChannelId, arguments, LogLevel.DETAILED, simplified ), logLevel );
   }
 
   @Override
   public void logError( String s, Object... arguments ) {
+    if ( !isLogged( LogLevel.ERROR ) ) {
+      return;
+    }
     println( new LogMessage( s, logChannelId, arguments, LogLevel.ERROR, simplified ), logLevel );
   }
 
   @Override
   public void logDetailed( String s ) {
+    if ( !isLogged( LogLevel.DETAILED ) ) {
+      return;
+    }
     println( new LogMessage( s, logChannelId, LogLevel.DETAILED, simplified ), logLevel );
   }
 
   @Override
   public void logDebug( String s ) {
+    if ( !isLogged( LogLevel.DEBUG ) ) {
+      return;
+    }
     println( new LogMessage( s, logChannelId, LogLevel.DEBUG, simplified ), logLevel );
   }
 
   @Override
   public void logDebug( String message, Object... arguments ) {
+    if ( !isLogged( LogLevel.DEBUG ) ) {
+      return;
+    }
     println( new LogMessage( message, logChannelId, arguments, LogLevel.DEBUG, simplified ), logLevel );
   }
 
   @Override
   public void logRowlevel( String s ) {
+    if ( !isLogged( LogLevel.ROWLEVEL ) ) {
+      return;
+    }
     println( new LogMessage( s, logChannelId, LogLevel.ROWLEVEL, simplified ), logLevel );
   }
 
   @Override
   public void logMinimal( String message, Object... arguments ) {
+    if ( !isLogged( LogLevel.MINIMAL ) ) {
+      return;
+    }
     println( new LogMessage( message, logChannelId, arguments, LogLevel.MINIMAL, simplified ), logLevel );
   }
 
   @Override
   public void logRowlevel( String message, Object... arguments ) {
+    if ( !isLogged( LogLevel.ROWLEVEL ) ) {
+      return;
+    }
     println( new LogMessage( message, logChannelId, arguments, LogLevel.ROWLEVEL, simplified ), logLevel );
   }
 
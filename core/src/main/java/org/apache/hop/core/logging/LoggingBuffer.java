@@ -21,28 +21,49 @@ import com.google.common.annotations.VisibleForTesting;
 import org.apache.hop.core.Const;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * This class keeps the last N lines in a buffer
+ * This class keeps the last N lines in a buffer.
+ * <p>
+ * The lines are kept in a ring: line number N goes in slot N modulo the capacity, replacing the line which was there.
+ * Appending a line doesn't lock, the number is claimed with an atomic increment and the slot is set with a
+ * compare-and-set. Lines are only visible to readers up to the last line number for which all lines are in the ring
+ * so no line is skipped by readers fetching the log incrementally.
+ * <p>
+ * For every log channel the line numbers are indexed as well so that getting the log of a pipeline or workflow only
+ * looks at the lines of its own log channels.
  *
  * @author matt
  */
 public class LoggingBuffer {
   private String name;
 
-  private List<BufferLine> buffer;
-  private ReadWriteLock lock = new ReentrantReadWriteLock();
+  private volatile Ring ring;
+  private final Object resizeLock = new Object();
 
-  private int bufferSize;
+  /**
+   * The number of the last line which was claimed
+   */
+  private final AtomicInteger sequence = new AtomicInteger( 0 );
+
+  /**
+   * The number of the last line for which all lines up to it are in the ring
+   */
+  private final AtomicInteger published = new AtomicInteger( 0 );
+
+  private final ConcurrentMap<String, ChannelIndex> channelIndexes = new ConcurrentHashMap<>();
+
+  private volatile int bufferSize;
 
   private HopLogLayout layout;
 
@@ -52,10 +73,7 @@ public class LoggingBuffer {
 
   public LoggingBuffer( int bufferSize ) {
     this.bufferSize = bufferSize;
-    // The buffer overflow protection allows it to be overflowed for 1 item within a single thread.
-    // Considering a possible high contention, let's set it's max overflow size to be 10%.
-    // Anyway, even an overflow goes higher than 10%, it wouldn't cost us too much.
-    buffer = new ArrayList<>( (int) ( bufferSize * 1.1 ) );
+    ring = new Ring( bufferSize > 0 ? bufferSize : Const.MAX_NR_LOG_LINES );
     layout = new HopLogLayout( true );
     eventListeners = new CopyOnWriteArrayList<>();
   }
@@ -64,16 +82,26 @@ public class LoggingBuffer {
    * @return the number (sequence, 1..N) of the last log line. If no records are present in the buffer, 0 is returned.
    */
   public int getLastBufferLineNr() {
-    lock.readLock().lock();
-    try {
-      if ( buffer.size() > 0 ) {
-        return buffer.get( buffer.size() - 1 ).getNr();
-      } else {
-        return 0;
+    return published.get();
+  }
+
+  /**
+   * @param parentLogChannelId the parent log channel ID
+   * @return The number of the last line logged by the channel or its children, 0 if there is none
+   */
+  public int getLastBufferLineNr( String parentLogChannelId ) {
+    int last = published.get();
+    int lastNr = 0;
+    List<String> childIds = loggingRegistry.getLogChannelChildren( parentLogChannelId );
+    if ( childIds != null ) {
+      for ( String id : childIds ) {
+        ChannelIndex index = id == null ? null : channelIndexes.get( id );
+        if ( index != null ) {
+          lastNr = Math.max( lastNr, index.getLastNr( last ) );
+        }
       }
-    } finally {
-      lock.readLock().unlock();
     }
+    return lastNr;
   }
 
   /**
@@ -85,19 +113,59 @@ public class LoggingBuffer {
    */
   public List<HopLoggingEvent> getLogBufferFromTo( List<String> channelId, boolean includeGeneral, int from,
                                                    int to ) {
-    lock.readLock().lock();
-    try {
-      Stream<BufferLine> bufferStream = buffer.stream().filter( line -> line.getNr() > from && line.getNr() <= to );
-      if ( channelId != null ) {
-        bufferStream = bufferStream.filter( line -> {
-          String logChannelId = getLogChId( line );
-          return includeGeneral ? isGeneral( logChannelId ) || channelId.contains( logChannelId ) : channelId.contains( logChannelId );
-        } );
+    int last = Math.min( to, published.get() );
+    List<HopLoggingEvent> events = new ArrayList<>();
+
+    if ( channelId == null ) {
+      Ring r = ring;
+      int first = Math.max( from, last - r.capacity ) + 1;
+      for ( int nr = first; nr <= last; nr++ ) {
+        BufferLine line = getLine( r, nr );
+        if ( line != null ) {
+          events.add( line.getEvent() );
+        }
+      }
+      return events;
+    }
+
+    // Collect the line numbers of the requested channels
+    //
+    Set<ChannelIndex> indexes = new HashSet<>();
+    for ( String id : channelId ) {
+      if ( id != null ) {
+        ChannelIndex index = channelIndexes.get( id );
+        if ( index != null ) {
+          indexes.add( index );
+        }
       }
-      return bufferStream.map( BufferLine::getEvent ).collect( Collectors.toList() );
-    } finally {
-      lock.readLock().unlock();
     }
+    if ( includeGeneral ) {
+      for ( ChannelIndex index : channelIndexes.values() ) {
+        if ( index.general ) {
+          indexes.add( index );
+        }
+      }
+    }
+    int[] nrs = new int[ 0 ];
+    int nrCount = 0;
+    for ( ChannelIndex index : indexes ) {
+      int[] indexNrs = index.getNrs( from, last );
+      if ( nrCount + indexNrs.length > nrs.length ) {
+        nrs = Arrays.copyOf( nrs, Math.max( nrs.length * 2, nrCount + indexNrs.length ) );
+      }
+      System.arraycopy( indexNrs, 0, nrs, nrCount, indexNrs.length );
+      nrCount += indexNrs.length;
+    }
+    Arrays.sort( nrs, 0, nrCount );
+
+    Ring r = ring;
+    for ( int i = 0; i < nrCount; i++ ) {
+      BufferLine line = getLine( r, nrs[ i ] );
+      if ( line != null ) {
+        events.add( line.getEvent() );
+      }
+    }
+    return events;
   }
 
   /**
@@ -147,15 +215,35 @@ public class LoggingBuffer {
 
   public void doAppend( HopLoggingEvent event ) {
     if ( event.getMessage() instanceof LogMessage ) {
-      lock.writeLock().lock();
-      try {
-        buffer.add( new BufferLine( event ) );
-        while ( bufferSize > 0 && buffer.size() > bufferSize ) {
-          buffer.remove( 0 );
+      BufferLine line = new BufferLine( event, sequence.incrementAndGet() );
+
+      // Index the line before it becomes visible so readers of the channel don't miss it
+      //
+      String logChannelId = getLogChId( line );
+      if ( logChannelId != null ) {
+        ChannelIndex index = channelIndexes.computeIfAbsent( logChannelId, ChannelIndex::new );
+        while ( !index.add( line.getNr() ) ) {
+          index = channelIndexes.computeIfAbsent( logChannelId, ChannelIndex::new );
+        }
+      }
+
+      Ring r = ring;
+      while ( true ) {
+        if ( !store( r, line, bufferSize > 0 ) ) {
+          // Without a limit the ring grows instead of replacing lines
+          //
+          r = grow( r );
+          continue;
+        }
+        // Make sure the line ends up in the ring which replaced this one while we were storing it
+        //
+        Ring current = ring;
+        if ( current == r ) {
+          break;
         }
-      } finally {
-        lock.writeLock().unlock();
+        r = current;
       }
+      advancePublished();
     }
   }
 
@@ -180,11 +268,17 @@ public class LoggingBuffer {
   }
 
   public void clear() {
-    lock.writeLock().lock();
-    try {
-      buffer.clear();
-    } finally {
-      lock.writeLock().unlock();
+    for ( ChannelIndex index : channelIndexes.values() ) {
+      if ( channelIndexes.remove( index.logChannelId, index ) ) {
+        index.drop();
+      }
+    }
+    Ring r = ring;
+    for ( int i = 0; i < r.capacity; i++ ) {
+      BufferLine line = r.slots.get( i );
+      if ( isPresent( line ) ) {
+        r.slots.compareAndSet( i, line, new BufferLine( null, line.getNr() ) );
+      }
     }
   }
 
@@ -199,14 +293,21 @@ public class LoggingBuffer {
    * @param maxNrLines the maximum number of lines that this buffer should contain, 0 or lower means: no limit
    */
   public void setMaxNrLines( int maxNrLines ) {
-    this.bufferSize = maxNrLines;
+    synchronized ( resizeLock ) {
+      this.bufferSize = maxNrLines;
+      Ring r = ring;
+      int capacity = maxNrLines > 0 ? maxNrLines : Math.max( r.capacity, Const.MAX_NR_LOG_LINES );
+      if ( capacity != r.capacity ) {
+        resize( r, capacity );
+      }
+    }
   }
 
   /**
    * @return the nrLines
    */
   public int getNrLines() {
-    return buffer.size();
+    return size();
   }
 
   /**
@@ -215,24 +316,28 @@ public class LoggingBuffer {
    * @param id the id of the logging channel to remove
    */
   public void removeChannelFromBuffer( String id ) {
-    lock.writeLock().lock();
-    try {
-      buffer.removeIf( line -> id.equals( getLogChId( line ) ) );
-    } finally {
-      lock.writeLock().unlock();
+    ChannelIndex index = channelIndexes.remove( id );
+    if ( index != null ) {
+      removeIndexedLines( index );
     }
   }
 
   public int size() {
-    return buffer.size();
+    Ring r = ring;
+    int size = 0;
+    for ( int i = 0; i < r.capacity; i++ ) {
+      if ( isPresent( r.slots.get( i ) ) ) {
+        size++;
+      }
+    }
+    return size;
   }
 
   public void removeGeneralMessages() {
-    lock.writeLock().lock();
-    try {
-      buffer.removeIf( line -> isGeneral( getLogChId( line ) ) );
-    } finally {
-      lock.writeLock().unlock();
+    for ( ChannelIndex index : channelIndexes.values() ) {
+      if ( index.general && channelIndexes.remove( index.logChannelId, index ) ) {
+        removeIndexedLines( index );
+      }
     }
   }
 
@@ -246,7 +351,7 @@ public class LoggingBuffer {
   @Deprecated
   @VisibleForTesting
   public Iterator<BufferLine> getBufferIterator() {
-    return buffer.iterator();
+    return getLines().iterator();
   }
 
   /**
@@ -255,17 +360,12 @@ public class LoggingBuffer {
   @Deprecated
   public String dump() {
     StringBuilder buf = new StringBuilder( 50000 );
-    lock.readLock().lock();
-    try {
-      buffer.forEach( line -> {
-        LogMessage message = (LogMessage) line.getEvent().getMessage();
-        buf.append( message.getLogChannelId() ).append( "\t" )
-          .append( message.getSubject() ).append( "\n" );
-      } );
-      return buf.toString();
-    } finally {
-      lock.readLock().unlock();
-    }
+    getLines().forEach( line -> {
+      LogMessage message = (LogMessage) line.getEvent().getMessage();
+      buf.append( message.getLogChannelId() ).append( "\t" )
+        .append( message.getSubject() ).append( "\n" );
+    } );
+    return buf.toString();
   }
 
   /**
@@ -275,11 +375,9 @@ public class LoggingBuffer {
    */
   @Deprecated
   public void removeBufferLines( List<BufferLine> linesToRemove ) {
-    lock.writeLock().lock();
-    try {
-      buffer.removeAll( linesToRemove );
-    } finally {
-      lock.writeLock().unlock();
+    Ring r = ring;
+    for ( BufferLine line : linesToRemove ) {
+      remove( r, line );
     }
   }
 
@@ -290,34 +388,27 @@ public class LoggingBuffer {
    */
   @Deprecated
   public List<BufferLine> getBufferLinesBefore( long minTimeBoundary ) {
-    lock.readLock().lock();
-    try {
-      return buffer.stream().filter( line -> line.getEvent().timeStamp < minTimeBoundary )
-        .collect( Collectors.toList() );
-    } finally {
-      lock.readLock().unlock();
+    List<BufferLine> lines = new ArrayList<>();
+    for ( BufferLine line : getLines() ) {
+      if ( line.getEvent().timeStamp < minTimeBoundary ) {
+        lines.add( line );
+      }
     }
+    return lines;
   }
 
   public void removeBufferLinesBefore( long minTimeBoundary ) {
-    // Using HashSet even though BufferLine does not implement hashcode and equals,
-    // we just need to remove the exact objects we have found and put in the set.
-    Set<BufferLine> linesToRemove = new HashSet<>();
-    lock.writeLock().lock();
-    try {
-      for ( BufferLine bufferLine : buffer ) {
-        if ( bufferLine.getEvent().timeStamp < minTimeBoundary ) {
-          linesToRemove.add( bufferLine );
-        } else {
-          break;
-        }
+    Ring r = ring;
+    int last = published.get();
+    for ( int nr = Math.max( 1, last - r.capacity + 1 ); nr <= last; nr++ ) {
+      BufferLine line = getLine( r, nr );
+      if ( line == null ) {
+        continue;
       }
-      // removeAll should run fast against a HashSet,
-      // since ArrayList.batchRemove check for each element of a collection given if it is in the ArrayList.
-      // Thus, removeAll should run in a linear time.
-      buffer.removeAll( linesToRemove );
-    } finally {
-      lock.writeLock().unlock();
+      if ( line.getEvent().timeStamp >= minTimeBoundary ) {
+        break;
+      }
+      remove( r, line );
     }
   }
 
@@ -342,4 +433,256 @@ public class LoggingBuffer {
   private static String getLogChId( BufferLine bufferLine ) {
     return ( (LogMessage) bufferLine.getEvent().getMessage() ).getLogChannelId();
   }
+
+  /**
+   * @return true if the slot holds a line which wasn't removed
+   */
+  private static boolean isPresent( BufferLine line ) {
+    return line != null && line.getEvent() != null;
+  }
+
+  /**
+   * @return the line with the given number or null if it isn't in the ring (anymore)
+   */
+  private static BufferLine getLine( Ring r, int nr ) {
+    BufferLine line = r.slots.get( r.index( nr ) );
+    if ( line != null && line.getNr() == nr && line.getEvent() != null ) {
+      return line;
+    }
+    return null;
+  }
+
+  /**
+   * @return the lines in the buffer, oldest first
+   */
+  private List<BufferLine> getLines() {
+    Ring r = ring;
+    int last = published.get();
+    List<BufferLine> lines = new ArrayList<>();
+    for ( int nr = Math.max( 1, last - r.capacity + 1 ); nr <= last; nr++ ) {
+      BufferLine line = getLine( r, nr );
+      if ( line != null ) {
+        lines.add( line );
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Put a line in its slot unless a more recent line is in there already.
+   *
+   * @param r           the ring to store the line in
+   * @param line        the line to store
+   * @param replaceLine true if a line which is still present can be replaced
+   * @return false if the slot holds a line which can't be replaced
+   */
+  private boolean store( Ring r, BufferLine line, boolean replaceLine ) {
+    int slot = r.index( line.getNr() );
+    while ( true ) {
+      BufferLine current = r.slots.get( slot );
+      if ( current != null && current.getNr() >= line.getNr() ) {
+        // The line is outdated already
+        return true;
+      }
+      boolean present = isPresent( current );
+      if ( present && !replaceLine ) {
+        return false;
+      }
+      if ( r.slots.compareAndSet( slot, current, line ) ) {
+        if ( present ) {
+          forget( current );
+        }
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Replace a line with an empty line carrying the same number
+   */
+  private void remove( Ring r, BufferLine line ) {
+    if ( r.slots.compareAndSet( r.index( line.getNr() ), line, new BufferLine( null, line.getNr() ) ) ) {
+      forget( line );
+    }
+  }
+
+  /**
+   * Drop a line which is no longer in the ring from the index of its channel
+   */
+  private void forget( BufferLine line ) {
+    String logChannelId = getLogChId( line );
+    if ( logChannelId != null ) {
+      ChannelIndex index = channelIndexes.get( logChannelId );
+      if ( index != null ) {
+        index.remove( line.getNr() );
+      }
+    }
+  }
+
+  private void removeIndexedLines( ChannelIndex index ) {
+    Ring r = ring;
+    for ( int nr : index.drop() ) {
+      BufferLine line = getLine( r, nr );
+      if ( line != null ) {
+        r.slots.compareAndSet( r.index( nr ), line, new BufferLine( null, nr ) );
+      }
+    }
+  }
+
+  /**
+   * Move the published line number forward as long as the next line is in the ring
+   */
+  private void advancePublished() {
+    int last = published.get();
+    while ( true ) {
+      Ring r = ring;
+      BufferLine next = r.slots.get( r.index( last + 1 ) );
+      if ( next == null || next.getNr() <= last ) {
+        return;
+      }
+      if ( published.compareAndSet( last, last + 1 ) ) {
+        last++;
+      } else {
+        last = published.get();
+      }
+    }
+  }
+
+  private Ring grow( Ring r ) {
+    synchronized ( resizeLock ) {
+      if ( ring == r ) {
+        resize( r, r.capacity * 2 );
+      }
+      return ring;
+    }
+  }
+
+  /**
+   * Replace the ring with a ring of another capacity. Lines stored in the old ring while copying are stored again
+   * by {@link #doAppend(HopLoggingEvent)} once it sees the new ring.
+   */
+  private void resize( Ring r, int capacity ) {
+    Ring newRing = new Ring( capacity );
+    ring = newRing;
+    for ( int i = 0; i < r.capacity; i++ ) {
+      BufferLine line = r.slots.get( i );
+      if ( line != null ) {
+        store( newRing, line, true );
+      }
+    }
+    advancePublished();
+  }
+
+  private static final class Ring {
+    private final int capacity;
+    private final AtomicReferenceArray<BufferLine> slots;
+
+    private Ring( int capacity ) {
+      this.capacity = capacity;
+      this.slots = new AtomicReferenceArray<>( capacity );
+    }
+
+    private int index( int nr ) {
+      return Math.floorMod( nr, capacity );
+    }
+  }
+
+  /**
+   * The numbers of the lines of one log channel, oldest first.
+   */
+  private final class ChannelIndex {
+    private final String logChannelId;
+    private final boolean general;
+
+    private int[] nrs = new int[ 16 ];
+    private int head;
+    private int count;
+    private boolean removed;
+
+    private ChannelIndex( String logChannelId ) {
+      this.logChannelId = logChannelId;
+      this.general = isGeneral( logChannelId );
+    }
+
+    /**
+     * @return false if this index was dropped and a new one needs to be used
+     */
+    private synchronized boolean add( int nr ) {
+      if ( removed ) {
+        return false;
+      }
+      // Forget about the lines which were replaced in the ring
+      //
+      int oldest = published.get() - ring.capacity;
+      while ( count > 0 && nrs[ head ] <= oldest ) {
+        head = ( head + 1 ) % nrs.length;
+        count--;
+      }
+      if ( count == nrs.length ) {
+        int[] newNrs = new int[ nrs.length * 2 ];
+        for ( int i = 0; i < count; i++ ) {
+          newNrs[ i ] = nrs[ ( head + i ) % nrs.length ];
+        }
+        nrs = newNrs;
+        head = 0;
+      }
+      nrs[ ( head + count ) % nrs.length ] = nr;
+      count++;
+      return true;
+    }
+
+    /**
+     * Lines leave the ring oldest first so the line is normally the first one in the index.
+     * An index without lines is dropped so channels which stopped logging don't stick around.
+     */
+    private synchronized void remove( int nr ) {
+      if ( count > 0 && nrs[ head ] == nr ) {
+        head = ( head + 1 ) % nrs.length;
+        count--;
+        if ( count == 0 ) {
+          removed = true;
+          channelIndexes.remove( logChannelId, this );
+        }
+      }
+    }
+
+    /**
+     * Stop using this index, lines of the channel logged after this go in a new index.
+     *
+     * @return the line numbers in the index
+     */
+    private synchronized int[] drop() {
+      removed = true;
+      return getNrs( 0, Integer.MAX_VALUE );
+    }
+
+    /**
+     * @return the highest line number up to and including to, 0 if there is none
+     */
+    private synchronized int getLastNr( int to ) {
+      int lastNr = 0;
+      for ( int i = 0; i < count; i++ ) {
+        int nr = nrs[ ( head + i ) % nrs.length ];
+        if ( nr <= to && nr > lastNr ) {
+          lastNr = nr;
+        }
+      }
+      return lastNr;
+    }
+
+    /**
+     * @return the line numbers after from up to and including to
+     */
+    private synchronized int[] getNrs( int from, int to ) {
+      int[] result = new int[ count ];
+      int size = 0;
+      for ( int i = 0; i < count; i++ ) {
+        int nr = nrs[ ( head + i ) % nrs.length ];
+        if ( nr > from && nr <= to ) {
+          result[ size++ ] = nr;
+        }
+      }
+      return size == count ? result : Arrays.copyOf( result, size );
+    }
+  }
 }
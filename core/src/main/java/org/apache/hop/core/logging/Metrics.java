@@ -108,6 +108,15 @@ public class Metrics implements IMetrics {
   public static Metrics METRIC_TRANSFORM_INIT_STOP = new Metrics(
     MetricsSnapshotType.STOP, "METRIC_TRANSFORM_INIT", "Initialize a transform" );
 
+  // Transform caches
+  //
+  public static Metrics METRIC_TRANSFORM_CACHE_HITS = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_TRANSFORM_CACHE_HITS", "Lookups answered from the cache" );
+  public static Metrics METRIC_TRANSFORM_CACHE_MISSES = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_TRANSFORM_CACHE_MISSES", "Lookups not found in the cache" );
+  public static Metrics METRIC_TRANSFORM_CACHE_EVICTIONS = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_TRANSFORM_CACHE_EVICTIONS", "Entries removed from the cache" );
+
   // Logging back-end
   //
   public static Metrics METRIC_CENTRAL_LOG_STORE_TIMEOUT_CLEAN_TIME = new Metrics(
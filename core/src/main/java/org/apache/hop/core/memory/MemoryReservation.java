@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.memory;
+
+/**
+ * The memory claimed by a single transform copy from the TransformMemoryManager.<br>
+ * Memory is taken from the shared pool in chunks so that the pool isn't hit for every row. A reservation is meant to
+ * be used by the thread of the transform copy that owns it.
+ */
+public class MemoryReservation implements AutoCloseable {
+
+  /**
+   * The number of bytes claimed from the shared pool in one go
+   */
+  public static final long CHUNK_SIZE = 1024L * 1024L;
+
+  private final TransformMemoryManager manager;
+  private final String owner;
+  private final long budget;
+
+  /**
+   * The number of bytes the owner says it's using
+   */
+  private volatile long usedBytes;
+
+  /**
+   * The number of bytes claimed from the shared pool. Together with pinnedBytes always >= usedBytes
+   */
+  private long claimedBytes;
+
+  /**
+   * The number of bytes claimed regardless of the budget or the shared pool
+   */
+  private long pinnedBytes;
+
+  MemoryReservation( TransformMemoryManager manager, String owner, long budget ) {
+    this.manager = manager;
+    this.owner = owner;
+    this.budget = budget;
+    this.usedBytes = 0L;
+    this.claimedBytes = 0L;
+    this.pinnedBytes = 0L;
+  }
+
+  /**
+   * Try to claim extra memory within the budget of this reservation and the shared pool.
+   *
+   * @param bytes the number of extra bytes needed
+   * @return true if the memory was claimed, false if the owner should free up (spill) memory first
+   */
+  public boolean tryAcquire( long bytes ) {
+    long needed = usedBytes + bytes;
+    if ( budget > 0 && needed > budget ) {
+      return false;
+    }
+    long totalBytes = claimedBytes + pinnedBytes;
+    if ( needed > totalBytes ) {
+      long chunk = Math.max( needed - totalBytes, CHUNK_SIZE );
+      if ( budget > 0 ) {
+        chunk = Math.max( needed - totalBytes, Math.min( chunk, budget - totalBytes ) );
+      }
+      if ( !manager.tryReserve( chunk ) ) {
+        return false;
+      }
+      claimedBytes += chunk;
+    }
+    usedBytes = needed;
+    return true;
+  }
+
+  /**
+   * Claim extra memory, regardless of the budget or the shared pool. This is for owners who can't free up memory.
+   * The pinned memory leaves a minimum share of the pool to the owners who can spill.
+   *
+   * @param bytes the number of extra bytes used
+   */
+  public void acquire( long bytes ) {
+    long needed = usedBytes + bytes;
+    long totalBytes = claimedBytes + pinnedBytes;
+    if ( needed > totalBytes ) {
+      long chunk = Math.max( needed - totalBytes, CHUNK_SIZE );
+      manager.pin( chunk );
+      pinnedBytes += chunk;
+    }
+    usedBytes = needed;
+  }
+
+  /**
+   * Give all claimed memory back to the shared pool, for example after spilling to disk.
+   */
+  public void releaseAll() {
+    manager.release( claimedBytes );
+    manager.unpin( pinnedBytes );
+    claimedBytes = 0L;
+    pinnedBytes = 0L;
+    usedBytes = 0L;
+  }
+
+  /**
+   * Release all memory and remove this reservation from the manager.
+   */
+  @Override
+  public void close() {
+    releaseAll();
+    manager.remove( this );
+  }
+
+  /**
+   * Gets owner
+   *
+   * @return value of owner
+   */
+  public String getOwner() {
+    return owner;
+  }
+
+  /**
+   * Gets budget
+   *
+   * @return value of budget, &lt;=0 means that only the shared pool limits this reservation
+   */
+  public long getBudget() {
+    return budget;
+  }
+
+  /**
+   * Gets usedBytes
+   *
+   * @return value of usedBytes
+   */
+  public long getUsedBytes() {
+    return usedBytes;
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.memory;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Estimates the heap footprint of rows of data on a typical 64-bit JVM with compressed object pointers. The estimate
+ * only needs to be good enough to decide when a transform should spill its buffers to disk, it's not exact.
+ */
+public class RowMemoryEstimator {
+
+  private static final long OBJECT_HEADER = 16L;
+  private static final long ARRAY_HEADER = 16L;
+  private static final long REFERENCE = 4L;
+
+  private RowMemoryEstimator() {
+  }
+
+  /**
+   * @param row the row to estimate
+   * @return the estimated number of bytes used by the row array and the values in it
+   */
+  public static long estimateRowSize( Object[] row ) {
+    if ( row == null ) {
+      return 0L;
+    }
+    long size = align( ARRAY_HEADER + REFERENCE * row.length );
+    for ( Object value : row ) {
+      size += estimateValueSize( value );
+    }
+    return size;
+  }
+
+  /**
+   * @param value the value to estimate
+   * @return the estimated number of bytes used by the value
+   */
+  public static long estimateValueSize( Object value ) {
+    if ( value == null || value instanceof Boolean ) {
+      return 0L; // nothing or a shared instance
+    }
+    if ( value instanceof String ) {
+      // The String object plus its char/byte array
+      return align( OBJECT_HEADER + 8L ) + align( ARRAY_HEADER + 2L * ( (String) value ).length() );
+    }
+    if ( value instanceof Long || value instanceof Double || value instanceof Integer ) {
+      return OBJECT_HEADER + 8L;
+    }
+    if ( value instanceof Timestamp ) {
+      return align( OBJECT_HEADER + 16L );
+    }
+    if ( value instanceof Date ) {
+      return align( OBJECT_HEADER + 8L );
+    }
+    if ( value instanceof BigDecimal ) {
+      // BigDecimal + BigInteger + int[] magnitude
+      return 40L + 40L + align( ARRAY_HEADER + 4L * ( 1 + ( (BigDecimal) value ).precision() / 9 ) );
+    }
+    if ( value instanceof byte[] ) {
+      return align( ARRAY_HEADER + ( (byte[]) value ).length );
+    }
+    return 32L;
+  }
+
+  private static long align( long size ) {
+    return ( size + 7L ) & ~7L;
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.memory;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.util.StorageUnitConverter;
+import org.apache.hop.core.util.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the memory used by memory hungry transforms (Sort Rows, Memory Group By, Stream Lookup, ...) across
+ * all the pipelines running in this JVM.<br>
+ * Every transform copy gets a MemoryReservation which can have its own budget. On top of that all reservations share a
+ * pool which by default is a percentage of the maximum heap size (see Const.HOP_TRANSFORM_MEMORY_POOL_PERCENTAGE).
+ * Transforms which can spill to disk ask for memory with MemoryReservation.tryAcquire() and spill when they don't get
+ * it. Transforms which can't spill claim their memory regardless so that the others know to spill sooner. This pinned
+ * memory never takes away the last MIN_SPILLABLE_PERCENTAGE of the pool though, otherwise a large lookup table would
+ * make every sort spill after a handful of rows.
+ */
+public class TransformMemoryManager {
+
+  public static final int DEFAULT_POOL_PERCENTAGE = 60;
+
+  /**
+   * The percentage of the pool which stays available to the transforms which can spill, whatever is pinned
+   */
+  public static final int MIN_SPILLABLE_PERCENTAGE = 25;
+
+  private static final TransformMemoryManager instance = new TransformMemoryManager();
+
+  private final AtomicLong reservedBytes;
+  private final AtomicLong pinnedBytes;
+  private final Set<MemoryReservation> reservations;
+
+  private TransformMemoryManager() {
+    reservedBytes = new AtomicLong( 0L );
+    pinnedBytes = new AtomicLong( 0L );
+    reservations = ConcurrentHashMap.newKeySet();
+  }
+
+  public static TransformMemoryManager getInstance() {
+    return instance;
+  }
+
+  /**
+   * Create a new reservation for a transform copy. Close the reservation when the transform is disposed.
+   *
+   * @param owner  A description of the owner of the reservation, e.g. the transform name and copy
+   * @param budget The maximum number of bytes the owner wants to use or &lt;=0 if it's only limited by the shared pool
+   * @return the new reservation
+   */
+  public MemoryReservation createReservation( String owner, long budget ) {
+    MemoryReservation reservation = new MemoryReservation( this, owner, budget );
+    reservations.add( reservation );
+    return reservation;
+  }
+
+  /**
+   * Convert a memory budget as entered by the user to a number of bytes.
+   *
+   * @param budget A plain number of bytes or a size with a unit like 512MB
+   * @return The number of bytes or -1 if the budget is empty or invalid
+   */
+  public static long toBudgetBytes( String budget ) {
+    if ( Utils.isEmpty( budget ) ) {
+      return -1L;
+    }
+    long bytes = Const.toLong( budget.trim(), -1L );
+    if ( bytes < 0 ) {
+      bytes = new StorageUnitConverter().displaySizeToByteCount( budget.trim() );
+    }
+    return bytes;
+  }
+
+  /**
+   * @return The number of bytes that all reservations combined can claim without being forced
+   */
+  public long getPoolSize() {
+    int percentage = Const.toInt( System.getProperty( Const.HOP_TRANSFORM_MEMORY_POOL_PERCENTAGE ), DEFAULT_POOL_PERCENTAGE );
+    if ( percentage <= 0 || percentage > 100 ) {
+      percentage = DEFAULT_POOL_PERCENTAGE;
+    }
+    return Runtime.getRuntime().maxMemory() / 100 * percentage;
+  }
+
+  /**
+   * @return The number of bytes currently claimed by all reservations, pinned or not
+   */
+  public long getReservedBytes() {
+    return reservedBytes.get() + pinnedBytes.get();
+  }
+
+  /**
+   * @return The number of bytes claimed by transforms which can't spill
+   */
+  public long getPinnedBytes() {
+    return pinnedBytes.get();
+  }
+
+  /**
+   * @return The number of bytes which can still be claimed from the pool by transforms which can spill
+   */
+  public long getAvailableBytes() {
+    return Math.max( 0L, getSpillableLimit( getPoolSize() ) - reservedBytes.get() );
+  }
+
+  /**
+   * @return A copy of the list of open reservations
+   */
+  public List<MemoryReservation> getReservations() {
+    return new ArrayList<>( reservations );
+  }
+
+  /**
+   * The pinned memory shrinks the part of the pool the transforms which can spill compete for, but never below
+   * MIN_SPILLABLE_PERCENTAGE of the pool.
+   */
+  private long getSpillableLimit( long poolSize ) {
+    return Math.max( poolSize - pinnedBytes.get(), poolSize / 100 * MIN_SPILLABLE_PERCENTAGE );
+  }
+
+  boolean tryReserve( long bytes ) {
+    long limit = getSpillableLimit( getPoolSize() );
+    while ( true ) {
+      long current = reservedBytes.get();
+      if ( current + bytes > limit ) {
+        return false;
+      }
+      if ( reservedBytes.compareAndSet( current, current + bytes ) ) {
+        return true;
+      }
+    }
+  }
+
+  void release( long bytes ) {
+    reservedBytes.addAndGet( -bytes );
+  }
+
+  void pin( long bytes ) {
+    pinnedBytes.addAndGet( bytes );
+  }
+
+  void unpin( long bytes ) {
+    pinnedBytes.addAndGet( -bytes );
+  }
+
+  void remove( MemoryReservation reservation ) {
+    reservations.remove( reservation );
+  }
+}
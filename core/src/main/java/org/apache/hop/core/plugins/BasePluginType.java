@@ -303,25 +303,18 @@ public abstract class BasePluginType<T extends Annotation> implements IPluginTyp
       for (File jarFile : cache.getPluginJars()) {
 
         // These are the jar files : find annotations in it...
+        // The annotated classes come from the plugin jar snapshot or the annotation index
         //
-        IndexView index = cache.getIndex(jarFile);
-        // find annotations annotated with this meta-annotation
-        for (AnnotationInstance instance :
-            index.getAnnotations(DotName.createSimple(pluginClass.getName()))) {
-          if (instance.target() instanceof ClassInfo) {
-            try {
-              ClassInfo classInfo = (ClassInfo) instance.target();
-              String className = classInfo.name().toString();
+        for (String className : cache.getAnnotatedClasses(jarFile, pluginClass.getName())) {
+          try {
+            File folder = jarFile.getParentFile();
 
-              File folder = jarFile.getParentFile();
+            classFiles.add(
+                new PluginClassFile(className, jarFile.toURI().toURL(), folder.toURI().toURL()));
 
-              classFiles.add(
-                  new PluginClassFile(className, jarFile.toURI().toURL(), folder.toURI().toURL()));
-
-            } catch (Exception e) {
-              System.out.println(
-                  "Error searching annotation for " + pluginClass + " in " + jarFile);
-            }
+          } catch (Exception e) {
+            System.out.println(
+                "Error searching annotation for " + pluginClass + " in " + jarFile);
           }
         }
       }
@@ -29,6 +29,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 
@@ -44,18 +49,21 @@ public class JarCache {
   
   public static final String ANNOTATION_INDEX_LOCATION = "META-INF/jandex.idx";
 
+  public static final String DEFAULT_SNAPSHOT_FILENAME = "plugin-snapshot.dat";
+
   private static JarCache instance;
 
   private final Map<File, Index> indexCache;
   private final Map<File, Set<File>> jarFiles;
   private final Set<File> nativeFiles;
   private final Set<File> pluginFiles;
+  private PluginJarSnapshot snapshot;
   
   private JarCache() {
     nativeFiles = new HashSet<>();
     pluginFiles = new HashSet<>();
     jarFiles = new HashMap<>();
-    indexCache = new HashMap<>();
+    indexCache = new ConcurrentHashMap<>();
   }
 
   public static JarCache getInstance() {
@@ -135,22 +143,113 @@ public class JarCache {
     // Scan plugin jars only once
     //
     if (pluginFiles.isEmpty()) {
-            
+
+      PluginJarSnapshot pluginJarSnapshot = getSnapshot();
+
+      // Only the jar files which changed since the last run need their index read
+      //
+      List<File> changedFiles = new ArrayList<>();
       for (String pluginFolder : getPluginFolders()) {
         
         // System.out.println("Search plugin in folder: " + pluginFolder );
         
         for (File file : this.findJarFiles(new File(pluginFolder))) {
-          Index index = this.getIndex(file);
-          if (index != null) {
+          PluginJarSnapshot.Entry entry = pluginJarSnapshot.get(file);
+          if (entry == null) {
+            changedFiles.add(file);
+          } else if (entry.isIndexed()) {
             pluginFiles.add(file);
           }
         }
       }
+
+      for (File file : readIndexes(changedFiles)) {
+        pluginFiles.add(file);
+      }
+      pluginJarSnapshot.save();
     }
     return pluginFiles;
   }
 
+  /**
+   * Get the names of the classes in a plugin jar file with the given annotation
+   *
+   * @param jarFile The plugin jar file
+   * @param annotationClassName The class name of the annotation
+   * @return The names of the annotated classes
+   * @throws HopFileException
+   */
+  public List<String> getAnnotatedClasses(File jarFile, String annotationClassName) throws HopFileException {
+    PluginJarSnapshot pluginJarSnapshot = getSnapshot();
+    PluginJarSnapshot.Entry entry = pluginJarSnapshot.get(jarFile);
+    if (entry == null) {
+      entry = pluginJarSnapshot.put(jarFile, getIndex(jarFile));
+    }
+    return entry.getAnnotatedClasses(annotationClassName);
+  }
+
+  /**
+   * Read the annotation indexes of the given jar files in parallel and add them to the snapshot.
+   *
+   * @param files The jar files
+   * @return The jar files with an annotation index
+   * @throws HopFileException
+   */
+  private List<File> readIndexes(List<File> files) throws HopFileException {
+    List<File> indexedFiles = new ArrayList<>();
+    if (files.isEmpty()) {
+      return indexedFiles;
+    }
+
+    int nrThreads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(nrThreads);
+    try {
+      List<Future<Index>> futures = new ArrayList<>();
+      for (File file : files) {
+        futures.add(executor.submit(() -> getIndex(file)));
+      }
+      for (int i = 0; i < files.size(); i++) {
+        File file = files.get(i);
+        Index index = futures.get(i).get();
+        snapshot.put(file, index);
+        if (index != null) {
+          indexedFiles.add(file);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HopFileException("Interrupted while reading annotation indexes", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof HopFileException) {
+        throw (HopFileException) e.getCause();
+      }
+      throw new HopFileException("Error reading annotation indexes", e.getCause());
+    } finally {
+      executor.shutdown();
+    }
+    return indexedFiles;
+  }
+
+  /**
+   * The snapshot is kept in the file set with HOP_PLUGIN_SNAPSHOT_FILE or in the Hop config folder
+   * if it exists. Set HOP_PLUGIN_SNAPSHOT to N to always read the annotation indexes.
+   */
+  private PluginJarSnapshot getSnapshot() {
+    if (snapshot == null) {
+      File file = null;
+      if (!"N".equalsIgnoreCase(EnvUtil.getSystemProperty(Const.HOP_PLUGIN_SNAPSHOT, "Y"))) {
+        String filename = EnvUtil.getSystemProperty(Const.HOP_PLUGIN_SNAPSHOT_FILE);
+        if (StringUtils.isNotEmpty(filename)) {
+          file = new File(filename);
+        } else if (new File(Const.HOP_CONFIG_FOLDER).isDirectory()) {
+          file = new File(Const.HOP_CONFIG_FOLDER, DEFAULT_SNAPSHOT_FILENAME);
+        }
+      }
+      snapshot = PluginJarSnapshot.load(file);
+    }
+    return snapshot;
+  }
+
   public Index getIndex(File jarFile) throws HopFileException {
     
     // Search annotation index from cache
@@ -173,10 +272,6 @@ public class JarCache {
         throw new HopFileException(
             MessageFormat.format("Error reading annotation index from file ''{0}''", jarFile), e);
       }
-
-      // Cache annotation index of jars
-      //
-      indexCache.put(jarFile, index);
     }
 
     return index;
@@ -187,6 +282,7 @@ public class JarCache {
     pluginFiles.clear();
     indexCache.clear();
     jarFiles.clear();
+    snapshot = null;
   }
 
   public Set<File> findJarFiles(final File folder) throws HopFileException {
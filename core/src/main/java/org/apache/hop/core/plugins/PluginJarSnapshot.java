@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.plugins;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.Index;
+
+/**
+ * The annotated classes found in the plugin jar files, kept on disk between runs.
+ * An entry is only used as long as the jar file has the same size and modification time.
+ * This avoids opening every plugin jar to read its annotation index when nothing changed.
+ * The snapshot is written as plain strings and numbers, never as serialized Java objects.
+ */
+public class PluginJarSnapshot {
+
+  private static final String VERSION = "2";
+
+  private final File file;
+  private final Map<String, Entry> entries;
+  private volatile boolean changed;
+
+  private PluginJarSnapshot(File file, Map<String, Entry> entries) {
+    this.file = file;
+    this.entries = entries;
+  }
+
+  /**
+   * Read the snapshot from the given file. A missing or unreadable file gives an empty snapshot.
+   *
+   * @param file The snapshot file or null to keep the snapshot in memory only
+   * @return The snapshot
+   */
+  public static PluginJarSnapshot load(File file) {
+    Map<String, Entry> entries = new ConcurrentHashMap<>();
+    if (file != null && file.exists()) {
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+        if (VERSION.equals(in.readUTF())) {
+          readEntries(in, entries);
+        }
+      } catch (Exception e) {
+        // Start over with an empty snapshot, it will be written again
+        //
+        entries.clear();
+      }
+    }
+    return new PluginJarSnapshot(file, entries);
+  }
+
+  private static void readEntries(DataInputStream in, Map<String, Entry> entries) throws IOException {
+    int nrEntries = readCount(in);
+    for (int e = 0; e < nrEntries; e++) {
+      String path = in.readUTF();
+      long length = in.readLong();
+      long lastModified = in.readLong();
+      boolean indexed = in.readBoolean();
+      Map<String, List<String>> annotatedClasses = new HashMap<>();
+      int nrAnnotations = readCount(in);
+      for (int a = 0; a < nrAnnotations; a++) {
+        String annotationClassName = in.readUTF();
+        List<String> classNames = new ArrayList<>();
+        int nrClasses = readCount(in);
+        for (int c = 0; c < nrClasses; c++) {
+          classNames.add(in.readUTF());
+        }
+        annotatedClasses.put(annotationClassName, classNames);
+      }
+      entries.put(path, new Entry(length, lastModified, indexed, annotatedClasses));
+    }
+  }
+
+  private static int readCount(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    if (count < 0) {
+      throw new IOException("Invalid plugin snapshot");
+    }
+    return count;
+  }
+
+  /**
+   * @param jarFile The jar file
+   * @return The entry of the jar file or null if there is none or the jar file changed
+   */
+  public Entry get(File jarFile) {
+    Entry entry = entries.get(jarFile.getAbsolutePath());
+    if (entry != null && entry.length == jarFile.length() && entry.lastModified == jarFile.lastModified()) {
+      return entry;
+    }
+    return null;
+  }
+
+  /**
+   * Add the annotated classes of a jar file to the snapshot.
+   *
+   * @param jarFile The jar file
+   * @param index The annotation index of the jar file or null if it doesn't have one
+   * @return The new entry
+   */
+  public Entry put(File jarFile, Index index) {
+    Map<String, List<String>> annotatedClasses = new HashMap<>();
+    if (index != null) {
+      for (ClassInfo classInfo : index.getKnownClasses()) {
+        for (AnnotationInstance instance : classInfo.classAnnotations()) {
+          annotatedClasses
+              .computeIfAbsent(instance.name().toString(), name -> new ArrayList<>())
+              .add(classInfo.name().toString());
+        }
+      }
+    }
+    Entry entry = new Entry(jarFile.length(), jarFile.lastModified(), index != null, annotatedClasses);
+    entries.put(jarFile.getAbsolutePath(), entry);
+    changed = true;
+    return entry;
+  }
+
+  /**
+   * Write the snapshot to its file if it changed. The entries of jar files which no longer exist are
+   * dropped. The file is replaced in one go so processes starting at the same time never read half
+   * a snapshot.
+   */
+  public void save() {
+    if (file == null || !changed) {
+      return;
+    }
+    Iterator<String> paths = entries.keySet().iterator();
+    while (paths.hasNext()) {
+      if (!new File(paths.next()).exists()) {
+        paths.remove();
+      }
+    }
+    File tempFile = new File(file.getPath() + "." + System.nanoTime() + ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        out.writeUTF(VERSION);
+        writeEntries(out, new HashMap<>(entries));
+      }
+      Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      changed = false;
+    } catch (IOException e) {
+      // The snapshot is only there to speed things up
+      //
+      tempFile.delete();
+    }
+  }
+
+  private static void writeEntries(DataOutputStream out, Map<String, Entry> entries) throws IOException {
+    out.writeInt(entries.size());
+    for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+      Entry entry = mapEntry.getValue();
+      out.writeUTF(mapEntry.getKey());
+      out.writeLong(entry.length);
+      out.writeLong(entry.lastModified);
+      out.writeBoolean(entry.indexed);
+      out.writeInt(entry.annotatedClasses.size());
+      for (Map.Entry<String, List<String>> annotation : entry.annotatedClasses.entrySet()) {
+        out.writeUTF(annotation.getKey());
+        out.writeInt(annotation.getValue().size());
+        for (String className : annotation.getValue()) {
+          out.writeUTF(className);
+        }
+      }
+    }
+  }
+
+  /**
+   * The annotated classes of a single jar file
+   */
+  public static class Entry {
+    private final long length;
+    private final long lastModified;
+    private final boolean indexed;
+    private final Map<String, List<String>> annotatedClasses;
+
+    public Entry(long length, long lastModified, boolean indexed, Map<String, List<String>> annotatedClasses) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.indexed = indexed;
+      this.annotatedClasses = annotatedClasses;
+    }
+
+    /**
+     * @return true if the jar file has an annotation index
+     */
+    public boolean isIndexed() {
+      return indexed;
+    }
+
+    /**
+     * @param annotationClassName The class name of the annotation
+     * @return The names of the classes in the jar file with the given annotation
+     */
+    public List<String> getAnnotatedClasses(String annotationClassName) {
+      List<String> classNames = annotatedClasses.get(annotationClassName);
+      return classNames == null ? Collections.emptyList() : classNames;
+    }
+  }
+}
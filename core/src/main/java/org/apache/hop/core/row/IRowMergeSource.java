@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import org.apache.hop.core.exception.HopException;
+
+/**
+ * A sorted stream of rows which can be merged with other sorted streams by the LoserTreeRowMerger.
+ */
+public interface IRowMergeSource {
+
+  /**
+   * Read the next row from this source.
+   *
+   * @return the next row in sort order or null if this source is exhausted.
+   * @throws HopException in case the row could not be read.
+   */
+  Object[] getRow() throws HopException;
+}
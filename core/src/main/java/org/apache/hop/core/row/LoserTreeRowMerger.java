@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import org.apache.hop.core.exception.HopException;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Merges a number of sorted row sources into a single sorted stream of rows using a tournament (loser) tree.<br>
+ * Every row costs at most log2(k) comparisons for k sources and no data is moved around other than the tree indexes.
+ * Rows which compare equal are returned in the order of the sources, which keeps the merge stable.
+ * <p>
+ * This is the merge phase of an external sort: sorted runs which were spilled to disk are read back through one
+ * IRowMergeSource each.
+ */
+public class LoserTreeRowMerger {
+
+  private final Comparator<Object[]> comparator;
+  private final IRowMergeSource[] sources;
+  private final int nrSources;
+
+  /**
+   * The current (smallest unread) row of every source, null if the source is exhausted.
+   */
+  private final Object[][] heads;
+
+  /**
+   * The loser of the match played at every internal node. Index 0 holds the overall winner.
+   */
+  private final int[] tree;
+
+  private boolean initialized;
+
+  /**
+   * @param comparator The comparator which defines the sort order of the sources
+   * @param sources    The sources to merge, each one sorted according to the comparator
+   */
+  public LoserTreeRowMerger( Comparator<Object[]> comparator, List<? extends IRowMergeSource> sources ) {
+    this.comparator = comparator;
+    this.sources = sources.toArray( new IRowMergeSource[ 0 ] );
+    this.nrSources = this.sources.length;
+    this.heads = new Object[ nrSources ][];
+    this.tree = new int[ Math.max( 1, nrSources ) ];
+    this.initialized = false;
+  }
+
+  /**
+   * Get the next row in sort order over all sources.
+   *
+   * @return the next row or null if all sources are exhausted.
+   * @throws HopException in case a source couldn't deliver a row.
+   */
+  public Object[] getRow() throws HopException {
+    if ( nrSources == 0 ) {
+      return null;
+    }
+    if ( !initialized ) {
+      for ( int i = 0; i < nrSources; i++ ) {
+        heads[ i ] = sources[ i ].getRow();
+      }
+      tree[ 0 ] = build( 1 );
+      initialized = true;
+    }
+
+    int winner = tree[ 0 ];
+    Object[] row = heads[ winner ];
+    if ( row == null ) {
+      // The overall winner is exhausted so all sources are
+      //
+      return null;
+    }
+
+    // Refill the slot of the winner and replay its matches on the way up to the root
+    //
+    heads[ winner ] = sources[ winner ].getRow();
+    int candidate = winner;
+    for ( int node = ( winner + nrSources ) >> 1; node > 0; node >>= 1 ) {
+      if ( less( tree[ node ], candidate ) ) {
+        int loser = candidate;
+        candidate = tree[ node ];
+        tree[ node ] = loser;
+      }
+    }
+    tree[ 0 ] = candidate;
+
+    return row;
+  }
+
+  /**
+   * Play the initial tournament for the sub-tree at the given node. Nodes 1 to k-1 are internal, nodes k to 2k-1 are
+   * the leaves for sources 0 to k-1.
+   *
+   * @param node the node to build
+   * @return the index of the source winning the sub-tree
+   */
+  private int build( int node ) {
+    if ( node >= nrSources ) {
+      return node - nrSources;
+    }
+    int left = build( node << 1 );
+    int right = build( ( node << 1 ) + 1 );
+    if ( less( left, right ) ) {
+      tree[ node ] = right;
+      return left;
+    } else {
+      tree[ node ] = left;
+      return right;
+    }
+  }
+
+  /**
+   * @return true if the head of source a sorts before the head of source b. Exhausted sources sort last, ties are
+   * broken on the source index.
+   */
+  private boolean less( int a, int b ) {
+    Object[] rowA = heads[ a ];
+    Object[] rowB = heads[ b ];
+    if ( rowA == null ) {
+      return false;
+    }
+    if ( rowB == null ) {
+      return true;
+    }
+    int cmp = comparator.compare( rowA, rowB );
+    return cmp < 0 || ( cmp == 0 && a < b );
+  }
+
+  /**
+   * Gets the number of sources
+   *
+   * @return value of nrSources
+   */
+  public int getNrSources() {
+    return nrSources;
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import org.apache.hop.core.exception.HopValueException;
+
+/**
+ * Sums, averages and standard deviations of the group by transforms can be kept in primitive arrays instead of in
+ * aggregate objects. This avoids allocating a new Long or Double for every input row. The arrays are indexed by the
+ * number of the aggregate:
+ * <ul>
+ *   <li>counts: the number of non-null values</li>
+ *   <li>longSums: the sums of Integer values</li>
+ *   <li>doubleSums: the sums of Number values or the sums of squared differences from the mean</li>
+ *   <li>mean: the running mean of a standard deviation</li>
+ * </ul>
+ */
+public class PrimitiveAggregate {
+
+  /** The aggregate is kept as an object */
+  public static final int OBJECT = 0;
+  /** The aggregate is a sum of Integer values, kept in longSums */
+  public static final int LONG_SUM = 1;
+  /** The aggregate is a sum of Number values, kept in doubleSums */
+  public static final int DOUBLE_SUM = 2;
+  /** The aggregate is the sum of squared differences from the mean, kept in doubleSums */
+  public static final int VARIANCE = 3;
+
+  private PrimitiveAggregate() {
+  }
+
+  /**
+   * Only sums of Integer and Number values in normal storage with a result of the same type are kept in primitives.
+   *
+   * @param subjectMeta The metadata of the summed values, null if there are none
+   * @param valueMeta   The metadata of the sum
+   * @return How a sum or average over the subject is kept
+   */
+  public static int getSumAggregate( IValueMeta subjectMeta, IValueMeta valueMeta ) {
+    if ( subjectMeta == null || !subjectMeta.isStorageNormal() || !valueMeta.isStorageNormal()
+      || subjectMeta.getType() != valueMeta.getType() ) {
+      return OBJECT;
+    }
+    switch ( subjectMeta.getType() ) {
+      case IValueMeta.TYPE_INTEGER:
+        return LONG_SUM;
+      case IValueMeta.TYPE_NUMBER:
+        return DOUBLE_SUM;
+      default:
+        return OBJECT;
+    }
+  }
+
+  /**
+   * Add a value to an aggregate kept in primitives. Null values are skipped.
+   *
+   * @param aggregate   How the aggregate is kept
+   * @param i           The number of the aggregate
+   * @param subjectMeta The metadata of the value
+   * @param subject     The value
+   */
+  public static void add( int aggregate, int i, IValueMeta subjectMeta, Object subject, long[] counts,
+                          long[] longSums, double[] doubleSums, double[] mean ) throws HopValueException {
+    if ( subjectMeta.isNull( subject ) ) {
+      return;
+    }
+    switch ( aggregate ) {
+      case LONG_SUM:
+        longSums[ i ] += subjectMeta.getInteger( subject );
+        counts[ i ]++;
+        break;
+      case DOUBLE_SUM:
+        doubleSums[ i ] += subjectMeta.getNumber( subject );
+        counts[ i ]++;
+        break;
+      case VARIANCE:
+        counts[ i ]++;
+        double x = subjectMeta.getNumber( subject );
+        double delta = x - mean[ i ];
+        mean[ i ] += delta / counts[ i ];
+        doubleSums[ i ] += delta * ( x - mean[ i ] );
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * @param aggregate   How the aggregate is kept
+   * @param i           The number of the aggregate
+   * @param objectValue The value of the aggregate when it's kept as an object
+   * @return The current value of the aggregate, boxed if it's kept in primitives or null if there were no values
+   */
+  public static Object getValue( int aggregate, int i, long[] counts, long[] longSums, double[] doubleSums,
+                                 Object objectValue ) {
+    switch ( aggregate ) {
+      case LONG_SUM:
+        return counts[ i ] == 0 ? null : Long.valueOf( longSums[ i ] );
+      case DOUBLE_SUM:
+      case VARIANCE:
+        return counts[ i ] == 0 ? null : Double.valueOf( doubleSums[ i ] );
+      default:
+        return objectValue;
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row.value;
+
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+
+/**
+ * Converts between dates and strings using a date format, from any number of threads without locking.
+ * Dates are formatted with an immutable java.time formatter when the pattern only contains numeric fields.
+ * Parsing, and formatting of the other patterns and dates, uses a copy of the date format per thread so the results
+ * are exactly the same as those of the SimpleDateFormat it was created from.
+ */
+public class DateConverter {
+
+  /**
+   * Outside of these bounds the time zone offsets of java.util.TimeZone and java.time differ for some zones
+   * (local mean time, rules after 2037) and SimpleDateFormat switches to the Julian calendar before 1582.
+   */
+  private static final long MIN_TIME =
+    ZonedDateTime.of( 1900, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC ).toInstant().toEpochMilli();
+  private static final long MAX_TIME =
+    ZonedDateTime.of( 2037, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC ).toInstant().toEpochMilli();
+
+  private final SimpleDateFormat source;
+  private final SimpleDateFormat prototype;
+  private final String pattern;
+  private final ZoneId zoneId;
+  private final DateTimeFormatter formatter;
+  private final ThreadLocal<SimpleDateFormat> dateFormats;
+
+  /**
+   * @param dateFormat The date format to copy. Later changes to it are not picked up.
+   */
+  public DateConverter( SimpleDateFormat dateFormat ) {
+    this.source = dateFormat;
+
+    this.prototype = (SimpleDateFormat) dateFormat.clone();
+    this.pattern = prototype.toPattern();
+
+    // Subclasses can keep state their copies share, those are used under a lock
+    //
+    if ( dateFormat.getClass() == SimpleDateFormat.class ) {
+      this.dateFormats = ThreadLocal.withInitial( () -> (SimpleDateFormat) prototype.clone() );
+    } else {
+      this.dateFormats = null;
+    }
+
+    ZoneId zone;
+    try {
+      zone = prototype.getTimeZone().toZoneId();
+    } catch ( RuntimeException e ) {
+      // A custom time zone java.time doesn't know about
+      zone = null;
+    }
+    this.zoneId = zone;
+    this.formatter = zone == null ? null : getFormatter( prototype );
+  }
+
+  /**
+   * @param dateFormat The date format to check
+   * @return true if this converter was created from the given date format
+   */
+  public boolean isCreatedFrom( SimpleDateFormat dateFormat ) {
+    return source == dateFormat;
+  }
+
+  /**
+   * @return The pattern of the date format
+   */
+  public String toPattern() {
+    return pattern;
+  }
+
+  /**
+   * @param date The date to format, not null
+   * @return The formatted date
+   */
+  public String format( Date date ) {
+    long time = date.getTime();
+    if ( formatter != null && time >= MIN_TIME && time < MAX_TIME ) {
+      return formatter.format( Instant.ofEpochMilli( time ).atZone( zoneId ) );
+    }
+    if ( dateFormats == null ) {
+      synchronized ( prototype ) {
+        return prototype.format( date );
+      }
+    }
+    return dateFormats.get().format( date );
+  }
+
+  /**
+   * Parse a date the same way as {@link SimpleDateFormat#parse(String, ParsePosition)}
+   *
+   * @param string        The string to parse
+   * @param parsePosition The position to start at, updated with the parse result
+   * @return The parsed date or null in case of an error
+   */
+  public Date parse( String string, ParsePosition parsePosition ) {
+    if ( dateFormats == null ) {
+      synchronized ( prototype ) {
+        return prototype.parse( string, parsePosition );
+      }
+    }
+    return dateFormats.get().parse( string, parsePosition );
+  }
+
+  /**
+   * Translate a pattern with only numeric fields and literals into a java.time formatter giving the same output.
+   *
+   * @return The formatter or null if the pattern can't be translated
+   */
+  private static DateTimeFormatter getFormatter( SimpleDateFormat dateFormat ) {
+    // Subclasses, other calendars (Buddhist, Japanese, ...) and other digits are left to the date format
+    //
+    if ( dateFormat.getClass() != SimpleDateFormat.class
+      || dateFormat.getCalendar().getClass() != GregorianCalendar.class ) {
+      return null;
+    }
+    NumberFormat numberFormat = dateFormat.getNumberFormat();
+    if ( !( numberFormat instanceof DecimalFormat )
+      || ( (DecimalFormat) numberFormat ).getDecimalFormatSymbols().getZeroDigit() != '0' ) {
+      return null;
+    }
+
+    String pattern = dateFormat.toPattern();
+    DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+    int index = 0;
+    while ( index < pattern.length() ) {
+      char c = pattern.charAt( index );
+      int count = 1;
+      while ( index + count < pattern.length() && pattern.charAt( index + count ) == c ) {
+        count++;
+      }
+      if ( ( c >= 'a' && c <= 'z' ) || ( c >= 'A' && c <= 'Z' ) ) {
+        ChronoField field = getNumericField( c, count );
+        if ( field == null || count > 19 ) {
+          return null;
+        }
+        // Zero padded up to the number of letters, never truncated
+        //
+        builder.appendValue( field, count, 19, SignStyle.NORMAL );
+      } else if ( c == '\'' ) {
+        // Quoted text, keep it simple
+        return null;
+      } else {
+        builder.appendLiteral( pattern.substring( index, index + count ) );
+      }
+      index += count;
+    }
+    return builder.toFormatter( Locale.ROOT );
+  }
+
+  private static ChronoField getNumericField( char letter, int count ) {
+    switch ( letter ) {
+      case 'y':
+        // Two letters truncate the year
+        return count == 2 ? null : ChronoField.YEAR_OF_ERA;
+      case 'M':
+        // Three or more letters give the month name
+        return count > 2 ? null : ChronoField.MONTH_OF_YEAR;
+      case 'd':
+        return ChronoField.DAY_OF_MONTH;
+      case 'D':
+        return ChronoField.DAY_OF_YEAR;
+      case 'H':
+        return ChronoField.HOUR_OF_DAY;
+      case 'k':
+        return ChronoField.CLOCK_HOUR_OF_DAY;
+      case 'K':
+        return ChronoField.HOUR_OF_AMPM;
+      case 'h':
+        return ChronoField.CLOCK_HOUR_OF_AMPM;
+      case 'm':
+        return ChronoField.MINUTE_OF_HOUR;
+      case 's':
+        return ChronoField.SECOND_OF_MINUTE;
+      case 'S':
+        return ChronoField.MILLI_OF_SECOND;
+      default:
+        return null;
+    }
+  }
+}
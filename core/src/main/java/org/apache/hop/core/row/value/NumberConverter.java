@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row.value;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.ParseException;
+import java.text.ParsePosition;
+
+/**
+ * Converts between numbers and strings using a decimal format, from any number of threads without locking.
+ * Every thread uses its own copy of the decimal format.
+ * When the format has no prefix, suffix or multiplier, plain numbers like "-123" or "12.5" are parsed
+ * directly, giving the same result as the decimal format.
+ */
+public class NumberConverter {
+
+  /**
+   * Longer numbers can have more significant digits than a decimal format keeps while parsing
+   */
+  private static final int MAX_PLAIN_LENGTH = 18;
+
+  private final DecimalFormat source;
+  private final DecimalFormat prototype;
+  private final ThreadLocal<DecimalFormat> decimalFormats;
+  private final boolean plainParsing;
+  private final char decimalSeparator;
+
+  private volatile NumberConverter fullPrecisionConverter;
+
+  /**
+   * @param decimalFormat The decimal format to copy. Later changes to it are not picked up.
+   */
+  public NumberConverter( DecimalFormat decimalFormat ) {
+    this( decimalFormat, (DecimalFormat) decimalFormat.clone() );
+  }
+
+  private NumberConverter( DecimalFormat source, DecimalFormat prototype ) {
+    this.source = source;
+    this.prototype = prototype;
+    this.decimalFormats = ThreadLocal.withInitial( () -> (DecimalFormat) prototype.clone() );
+
+    DecimalFormatSymbols symbols = prototype.getDecimalFormatSymbols();
+    this.decimalSeparator = symbols.getDecimalSeparator();
+    this.plainParsing = !prototype.isParseBigDecimal()
+      && !prototype.isParseIntegerOnly()
+      && prototype.getMultiplier() == 1
+      && prototype.getPositivePrefix().isEmpty()
+      && prototype.getPositiveSuffix().isEmpty()
+      && "-".equals( prototype.getNegativePrefix() )
+      && prototype.getNegativeSuffix().isEmpty()
+      && symbols.getZeroDigit() == '0'
+      && decimalSeparator != symbols.getGroupingSeparator()
+      && !Character.isDigit( decimalSeparator )
+      && decimalSeparator != '-';
+  }
+
+  /**
+   * @param decimalFormat The decimal format to check
+   * @return true if this converter was created from the given decimal format
+   */
+  public boolean isCreatedFrom( DecimalFormat decimalFormat ) {
+    return source == decimalFormat;
+  }
+
+  /**
+   * @return A converter formatting numbers with up to 50 fraction digits
+   */
+  public NumberConverter getFullPrecisionConverter() {
+    NumberConverter converter = fullPrecisionConverter;
+    if ( converter == null ) {
+      DecimalFormat decimalFormat = (DecimalFormat) prototype.clone();
+      decimalFormat.setMaximumFractionDigits( 50 );
+      converter = new NumberConverter( source, decimalFormat );
+      fullPrecisionConverter = converter;
+    }
+    return converter;
+  }
+
+  /**
+   * @param number The number to format, not null
+   * @return The formatted number
+   */
+  public String format( Number number ) {
+    return decimalFormats.get().format( number );
+  }
+
+  /**
+   * Parse a number the same way as {@link DecimalFormat#parse(String)}
+   *
+   * @param string The string to parse
+   * @return The parsed number
+   * @throws ParseException if the start of the string can't be parsed
+   */
+  public Number parse( String string ) throws ParseException {
+    ParsePosition parsePosition = new ParsePosition( 0 );
+    Number number = parse( string, parsePosition );
+    if ( parsePosition.getIndex() == 0 ) {
+      throw new ParseException( "Unparseable number: \"" + string + "\"", parsePosition.getErrorIndex() );
+    }
+    return number;
+  }
+
+  /**
+   * Parse a number the same way as {@link DecimalFormat#parse(String, ParsePosition)}
+   *
+   * @param string        The string to parse
+   * @param parsePosition The position to start at, updated with the parse result
+   * @return The parsed number or null in case of an error
+   */
+  public Number parse( String string, ParsePosition parsePosition ) {
+    if ( plainParsing && parsePosition.getIndex() == 0 ) {
+      Number number = parsePlain( string );
+      if ( number != null ) {
+        parsePosition.setIndex( string.length() );
+        return number;
+      }
+    }
+    return decimalFormats.get().parse( string, parsePosition );
+  }
+
+  /**
+   * Parse an optional minus sign, digits and optionally the decimal separator followed by more digits.
+   * Like the decimal format it returns a Long for whole numbers and a Double otherwise, -0 included.
+   *
+   * @return The number or null if the string is anything else
+   */
+  private Number parsePlain( String string ) {
+    int length = string.length();
+    if ( length == 0 || length > MAX_PLAIN_LENGTH ) {
+      return null;
+    }
+    boolean negative = string.charAt( 0 ) == '-';
+    int start = negative ? 1 : 0;
+
+    long integerPart = 0;
+    int index = start;
+    while ( index < length && isDigit( string.charAt( index ) ) ) {
+      integerPart = integerPart * 10 + ( string.charAt( index ) - '0' );
+      index++;
+    }
+    if ( index == start ) {
+      return null;
+    }
+
+    boolean fraction = false;
+    if ( index < length ) {
+      if ( string.charAt( index ) != decimalSeparator ) {
+        return null;
+      }
+      int fractionStart = ++index;
+      while ( index < length && isDigit( string.charAt( index ) ) ) {
+        fraction |= string.charAt( index ) != '0';
+        index++;
+      }
+      if ( index == fractionStart || index < length ) {
+        return null;
+      }
+    }
+
+    if ( !fraction ) {
+      if ( negative && integerPart == 0 ) {
+        return -0.0d;
+      }
+      return negative ? -integerPart : integerPart;
+    }
+    return Double.parseDouble( decimalSeparator == '.' ? string : string.replace( decimalSeparator, '.' ) );
+  }
+
+  private static boolean isDigit( char c ) {
+    return c >= '0' && c <= '9';
+  }
+}
@@ -152,6 +152,11 @@ public class ValueMetaBase implements IValueMeta {
   protected DecimalFormat decimalFormat;
   protected boolean decimalFormatChanged;
 
+  // Thread-safe copies of the formats above, used by the conversions without locking
+  //
+  private volatile DateConverter dateConverter;
+  private volatile NumberConverter numberConverter;
+
   protected IValueMeta storageMetadata;
   protected boolean identicalFormat;
 
@@ -413,6 +418,8 @@ public class ValueMetaBase implements IValueMeta {
       ValueMetaBase valueMeta = (ValueMetaBase) super.clone();
       valueMeta.dateFormat = null;
       valueMeta.decimalFormat = null;
+      valueMeta.dateConverter = null;
+      valueMeta.numberConverter = null;
       if ( dateFormatLocale != null ) {
         valueMeta.dateFormatLocale = (Locale) dateFormatLocale.clone();
       }
@@ -841,24 +848,26 @@ public class ValueMetaBase implements IValueMeta {
 
   // DATE + STRING
 
-  protected synchronized String convertDateToString( Date date ) {
+  protected String convertDateToString( Date date ) {
     if ( date == null ) {
       return null;
     }
 
-    return getDateFormat().format( date );
+    return getDateConverter().format( date );
   }
 
   protected static SimpleDateFormat compatibleDateFormat = new SimpleDateFormat( COMPATIBLE_DATE_FORMAT_PATTERN );
 
-  protected synchronized String convertDateToCompatibleString( Date date ) {
+  private static final DateConverter compatibleDateConverter = new DateConverter( compatibleDateFormat );
+
+  protected String convertDateToCompatibleString( Date date ) {
     if ( date == null ) {
       return null;
     }
-    return compatibleDateFormat.format( date );
+    return compatibleDateConverter.format( date );
   }
 
-  public synchronized Date convertStringToDate( String string ) throws HopValueException {
+  public Date convertStringToDate( String string ) throws HopValueException {
     string = Const.trimToType( string, getTrimType() ); // see if trimming needs
     // to be performed before
     // conversion
@@ -867,9 +876,10 @@ public class ValueMetaBase implements IValueMeta {
       return null;
     }
 
+    DateConverter converter = getDateConverter( TYPE_DATE );
     try {
       ParsePosition pp = new ParsePosition( 0 );
-      Date result = getDateFormat( TYPE_DATE ).parse( string, pp );
+      Date result = converter.parse( string, pp );
       if ( pp.getErrorIndex() >= 0 ) {
         // error happen
         throw new ParseException( string, pp.getErrorIndex() );
@@ -879,9 +889,8 @@ public class ValueMetaBase implements IValueMeta {
       // If there are only spaces after pp.getIndex() - that means full values was parsed
       return result;
     } catch ( ParseException e ) {
-      String dateFormat = ( getDateFormat() != null ) ? getDateFormat().toPattern() : "null";
       throw new HopValueException( toString() + " : couldn't convert string [" + string
-        + "] to a date using format [" + dateFormat + "] on offset location " + e.getErrorOffset(), e );
+        + "] to a date using format [" + converter.toPattern() + "] on offset location " + e.getErrorOffset(), e );
     }
   }
 
@@ -915,7 +924,7 @@ public class ValueMetaBase implements IValueMeta {
     return new Date( number.longValue() );
   }
 
-  public synchronized String convertNumberToString( Double number ) throws HopValueException {
+  public String convertNumberToString( Double number ) throws HopValueException {
     if ( number == null ) {
       if ( !outputPaddingEnabled || length < 1 ) {
         return null;
@@ -934,27 +943,27 @@ public class ValueMetaBase implements IValueMeta {
     }
 
     try {
-      DecimalFormat format = getDecimalFormat( false );
+      NumberConverter converter = getNumberConverter( false );
 
       // When conversion masks are different, we must ensure the number precision is not lost
       if ( this.conversionMask != null && storageMetadata != null
         && !this.conversionMask.equals( storageMetadata.getConversionMask() ) ) {
-        format.setMaximumFractionDigits( 50 );
+        converter = converter.getFullPrecisionConverter();
       }
-      return format.format( number );
+      return converter.format( number );
     } catch ( Exception e ) {
       throw new HopValueException( toString() + " : couldn't convert Number to String ", e );
     }
   }
 
-  protected synchronized String convertNumberToCompatibleString( Double number ) throws HopValueException {
+  protected String convertNumberToCompatibleString( Double number ) throws HopValueException {
     if ( number == null ) {
       return null;
     }
     return Double.toString( number );
   }
 
-  protected synchronized Double convertStringToNumber( String string ) throws HopValueException {
+  protected Double convertStringToNumber( String string ) throws HopValueException {
     string = Const.trimToType( string, getTrimType() ); // see if trimming needs
     // to be performed before
     // conversion
@@ -964,13 +973,13 @@ public class ValueMetaBase implements IValueMeta {
     }
 
     try {
-      DecimalFormat format = getDecimalFormat( false );
+      NumberConverter converter = getNumberConverter( false );
       Number number;
       if ( lenientStringToNumber ) {
-        number = format.parse( string );
+        number = converter.parse( string );
       } else {
         ParsePosition parsePosition = new ParsePosition( 0 );
-        number = format.parse( string, parsePosition );
+        number = converter.parse( string, parsePosition );
 
         if ( parsePosition.getIndex() < string.length() ) {
           throw new HopValueException( toString()
@@ -1088,6 +1097,76 @@ public class ValueMetaBase implements IValueMeta {
     return decimalFormat;
   }
 
+  /**
+   * @return A thread-safe converter using the date format returned by {@link #getDateFormat()}
+   */
+  protected DateConverter getDateConverter() {
+    if ( conversionMetadata != null ) {
+      return getConversionDateConverter();
+    }
+    DateConverter converter = dateConverter;
+    if ( converter == null || dateFormatChanged || !converter.isCreatedFrom( dateFormat ) ) {
+      synchronized ( this ) {
+        converter = cacheDateConverter( getDateFormat() );
+      }
+    }
+    return converter;
+  }
+
+  private DateConverter getDateConverter( int valueMetaType ) {
+    if ( conversionMetadata != null ) {
+      return getConversionDateConverter();
+    }
+    DateConverter converter = dateConverter;
+    if ( converter == null || dateFormatChanged || !converter.isCreatedFrom( dateFormat ) ) {
+      synchronized ( this ) {
+        converter = cacheDateConverter( getDateFormat( valueMetaType ) );
+      }
+    }
+    return converter;
+  }
+
+  private DateConverter getConversionDateConverter() {
+    if ( conversionMetadata instanceof ValueMetaBase ) {
+      return ( (ValueMetaBase) conversionMetadata ).getDateConverter();
+    }
+    return new DateConverter( conversionMetadata.getDateFormat() );
+  }
+
+  private DateConverter cacheDateConverter( SimpleDateFormat format ) {
+    DateConverter converter = dateConverter;
+    if ( converter == null || !converter.isCreatedFrom( format ) ) {
+      converter = new DateConverter( format );
+      dateConverter = converter;
+    }
+    return converter;
+  }
+
+  /**
+   * @param useBigDecimal parse numbers as BigDecimal when the decimal format is created
+   * @return A thread-safe converter using the decimal format returned by {@link #getDecimalFormat(boolean)}
+   */
+  protected NumberConverter getNumberConverter( boolean useBigDecimal ) {
+    if ( conversionMetadata != null ) {
+      if ( conversionMetadata instanceof ValueMetaBase ) {
+        return ( (ValueMetaBase) conversionMetadata ).getNumberConverter( useBigDecimal );
+      }
+      return new NumberConverter( conversionMetadata.getDecimalFormat( useBigDecimal ) );
+    }
+    NumberConverter converter = numberConverter;
+    if ( converter == null || decimalFormatChanged || !converter.isCreatedFrom( decimalFormat ) ) {
+      synchronized ( this ) {
+        DecimalFormat format = getDecimalFormat( useBigDecimal );
+        converter = numberConverter;
+        if ( converter == null || !converter.isCreatedFrom( format ) ) {
+          converter = new NumberConverter( format );
+          numberConverter = converter;
+        }
+      }
+    }
+    return converter;
+  }
+
   @Override
   public String getFormatMask() {
     return getMask( getType() );
@@ -1235,7 +1314,7 @@ public class ValueMetaBase implements IValueMeta {
     return numberPattern.toString();
   }
 
-  protected synchronized String convertIntegerToString( Long integer ) throws HopValueException {
+  protected String convertIntegerToString( Long integer ) throws HopValueException {
     if ( integer == null ) {
       if ( !outputPaddingEnabled || length < 1 ) {
         return null;
@@ -1254,20 +1333,20 @@ public class ValueMetaBase implements IValueMeta {
     }
 
     try {
-      return getDecimalFormat( false ).format( integer );
+      return getNumberConverter( false ).format( integer );
     } catch ( Exception e ) {
       throw new HopValueException( toString() + " : couldn't convert Long to String ", e );
     }
   }
 
-  protected synchronized String convertIntegerToCompatibleString( Long integer ) throws HopValueException {
+  protected String convertIntegerToCompatibleString( Long integer ) throws HopValueException {
     if ( integer == null ) {
       return null;
     }
     return Long.toString( integer );
   }
 
-  protected synchronized Long convertStringToInteger( String string ) throws HopValueException {
+  protected Long convertStringToInteger( String string ) throws HopValueException {
     string = Const.trimToType( string, getTrimType() ); // see if trimming needs
     // to be performed before
     // conversion
@@ -1279,10 +1358,10 @@ public class ValueMetaBase implements IValueMeta {
     try {
       Number number;
       if ( lenientStringToNumber ) {
-        number = new Long( getDecimalFormat( false ).parse( string ).longValue() );
+        number = new Long( getNumberConverter( false ).parse( string ).longValue() );
       } else {
         ParsePosition parsePosition = new ParsePosition( 0 );
-        number = getDecimalFormat( false ).parse( string, parsePosition );
+        number = getNumberConverter( false ).parse( string, parsePosition );
 
         if ( parsePosition.getIndex() < string.length() ) {
           throw new HopValueException( toString()
@@ -1297,19 +1376,19 @@ public class ValueMetaBase implements IValueMeta {
     }
   }
 
-  protected synchronized String convertBigNumberToString( BigDecimal number ) throws HopValueException {
+  protected String convertBigNumberToString( BigDecimal number ) throws HopValueException {
     if ( number == null ) {
       return null;
     }
 
     try {
-      return getDecimalFormat( bigNumberFormatting ).format( number );
+      return getNumberConverter( bigNumberFormatting ).format( number );
     } catch ( Exception e ) {
       throw new HopValueException( toString() + " : couldn't convert BigNumber to String ", e );
     }
   }
 
-  protected synchronized BigDecimal convertStringToBigNumber( String string ) throws HopValueException {
+  protected BigDecimal convertStringToBigNumber( String string ) throws HopValueException {
     string = Const.trimToType( string, getTrimType() ); // see if trimming needs
     // to be performed before
     // conversion
@@ -1319,13 +1398,13 @@ public class ValueMetaBase implements IValueMeta {
     }
 
     try {
-      DecimalFormat format = getDecimalFormat( bigNumberFormatting );
+      NumberConverter converter = getNumberConverter( bigNumberFormatting );
       Number number;
       if ( lenientStringToNumber ) {
-        number = format.parse( string );
+        number = converter.parse( string );
       } else {
         ParsePosition parsePosition = new ParsePosition( 0 );
-        number = format.parse( string, parsePosition );
+        number = converter.parse( string, parsePosition );
 
         if ( parsePosition.getIndex() < string.length() ) {
           throw new HopValueException( toString()
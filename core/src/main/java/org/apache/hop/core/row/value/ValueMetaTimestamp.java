@@ -650,6 +650,16 @@ public class ValueMetaTimestamp extends ValueMetaDate {
     return getDateFormat( getType() );
   }
 
+  @Override
+  protected DateConverter getDateConverter() {
+    // The date format is created from the pattern of the conversion metadata on every call
+    //
+    if ( conversionMetadata != null ) {
+      return new DateConverter( getDateFormat() );
+    }
+    return super.getDateConverter();
+  }
+
   private synchronized SimpleDateFormat getDateFormat( int valueMetaType ) {
     if ( conversionMetadata != null ) {
       return new SimpleTimestampFormat( conversionMetadata.getDateFormat().toPattern() );
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.ValueMetaAndData;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.junit.rules.RestoreHopEnvironment;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConditionCompilerTest {
+  @ClassRule public static RestoreHopEnvironment env = new RestoreHopEnvironment();
+
+  private IRowMeta rowMeta;
+  private List<Object[]> rows;
+
+  @Before
+  public void setUp() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "int" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "num" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "str" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "big" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "int2" ) );
+
+    rows = new ArrayList<>();
+    rows.add( new Object[] { 5L, 5.0, "5", new Date( 5000L ), new BigDecimal( "5" ), 5L } );
+    rows.add( new Object[] { 3L, 7.5, "abc", new Date( 3000L ), new BigDecimal( "7.5" ), 8L } );
+    rows.add( new Object[] { -1L, -2.5, "xyz;abc", new Date( 9000L ), new BigDecimal( "-1" ), null } );
+    rows.add( new Object[] { null, null, null, null, null, 1L } );
+    rows.add( new Object[] { 10L, 0.0, "", new Date( 0L ), BigDecimal.ZERO, 10L } );
+  }
+
+  private static ValueMetaAndData exact( IValueMeta valueMeta, Object value ) {
+    return new ValueMetaAndData( valueMeta, value );
+  }
+
+  private void assertSameResults( Condition condition ) {
+    IRowPredicate predicate = condition.compile( rowMeta );
+    for ( Object[] row : rows ) {
+      assertEquals( condition.toString(), condition.evaluate( rowMeta, row ), predicate.evaluate( row ) );
+    }
+  }
+
+  @Test
+  public void testComparisons() {
+    for ( int function = Condition.FUNC_EQUAL; function <= Condition.FUNC_LARGER_EQUAL; function++ ) {
+      for ( boolean negate : new boolean[] { false, true } ) {
+        assertSameResults( new Condition( negate, "int", function, null,
+          exact( new ValueMetaInteger( "c" ), 5L ) ) );
+        assertSameResults( new Condition( negate, "num", function, null,
+          exact( new ValueMetaNumber( "c" ), 5.0 ) ) );
+        assertSameResults( new Condition( negate, "date", function, null,
+          exact( new ValueMetaDate( "c" ), new Date( 4000L ) ) ) );
+        assertSameResults( new Condition( negate, "big", function, null,
+          exact( new ValueMetaBigNumber( "c" ), new BigDecimal( "5.0" ) ) ) );
+        assertSameResults( new Condition( negate, "str", function, null,
+          exact( new ValueMetaString( "c" ), "abc" ) ) );
+
+        // Constants of another type, fields on both sides
+        //
+        assertSameResults( new Condition( negate, "int", function, null,
+          exact( new ValueMetaString( "c" ), "5" ) ) );
+        assertSameResults( new Condition( negate, "int", function, null,
+          exact( new ValueMetaNumber( "c" ), 4.5 ) ) );
+        assertSameResults( new Condition( negate, "int", function, "int2", null ) );
+        assertSameResults( new Condition( negate, "num", function, "int", null ) );
+      }
+    }
+  }
+
+  @Test
+  public void testStringFunctions() {
+    int[] functions = { Condition.FUNC_IN_LIST, Condition.FUNC_CONTAINS, Condition.FUNC_STARTS_WITH,
+      Condition.FUNC_ENDS_WITH, Condition.FUNC_REGEXP, Condition.FUNC_LIKE };
+    for ( int function : functions ) {
+      for ( boolean negate : new boolean[] { false, true } ) {
+        assertSameResults( new Condition( negate, "str", function, null,
+          exact( new ValueMetaString( "c" ), "abc;5;x%" ) ) );
+        assertSameResults( new Condition( negate, "str", function, null,
+          exact( new ValueMetaString( "c" ), "a" ) ) );
+        assertSameResults( new Condition( negate, "int", function, null,
+          exact( new ValueMetaString( "c" ), "5" ) ) );
+      }
+    }
+    assertSameResults( new Condition( "str", Condition.FUNC_LIKE, null, exact( new ValueMetaString( "c" ), "a?c%" ) ) );
+    assertSameResults( new Condition( "str", Condition.FUNC_REGEXP, null, exact( new ValueMetaString( "c" ), "[a-z]+" ) ) );
+  }
+
+  @Test
+  public void testNullFunctions() {
+    for ( boolean negate : new boolean[] { false, true } ) {
+      assertSameResults( new Condition( negate, "str", Condition.FUNC_NULL, null, null ) );
+      assertSameResults( new Condition( negate, "int", Condition.FUNC_NULL, null, null ) );
+      assertSameResults( new Condition( negate, "str", Condition.FUNC_NOT_NULL, null, null ) );
+      assertSameResults( new Condition( negate, "int", Condition.FUNC_NOT_NULL, null, null ) );
+    }
+  }
+
+  @Test
+  public void testComposite() {
+    for ( int operator : new int[] { Condition.OPERATOR_OR, Condition.OPERATOR_AND, Condition.OPERATOR_OR_NOT,
+      Condition.OPERATOR_AND_NOT, Condition.OPERATOR_XOR } ) {
+      Condition condition = new Condition();
+      condition.addCondition( new Condition( "int", Condition.FUNC_LARGER, null,
+        exact( new ValueMetaInteger( "c" ), 3L ) ) );
+      condition.addCondition( new Condition( operator, "str", Condition.FUNC_CONTAINS, null,
+        exact( new ValueMetaString( "c" ), "b" ) ) );
+      condition.addCondition( new Condition( operator, "num", Condition.FUNC_NULL, null, null ) );
+      assertSameResults( condition );
+
+      condition.setNegated( true );
+      assertSameResults( condition );
+    }
+  }
+
+  @Test
+  public void testTrueAndMissingFields() {
+    Condition condition = new Condition( "missing", Condition.FUNC_EQUAL, null, exact( new ValueMetaInteger( "c" ), 5L ) );
+    assertFalse( condition.compile( rowMeta ).evaluate( rows.get( 0 ) ) );
+    condition.setNegated( true );
+    assertFalse( condition.compile( rowMeta ).evaluate( rows.get( 0 ) ) );
+
+    condition = new Condition( "int", Condition.FUNC_TRUE, null, null );
+    assertTrue( condition.compile( rowMeta ).evaluate( rows.get( 0 ) ) );
+    condition.setNegated( true );
+    assertFalse( condition.compile( rowMeta ).evaluate( rows.get( 0 ) ) );
+  }
+
+  @Test
+  public void testPredicateIsIndependentOfRowMeta() {
+    Condition condition = new Condition( "int2", Condition.FUNC_EQUAL, null, exact( new ValueMetaInteger( "c" ), 10L ) );
+    IRowPredicate predicate = condition.compile( rowMeta );
+
+    IRowMeta otherRowMeta = new RowMeta();
+    otherRowMeta.addValueMeta( new ValueMetaInteger( "int2" ) );
+    IRowPredicate otherPredicate = condition.compile( otherRowMeta );
+
+    assertTrue( predicate.evaluate( rows.get( 4 ) ) );
+    assertTrue( otherPredicate.evaluate( new Object[] { 10L } ) );
+    assertFalse( otherPredicate.evaluate( new Object[] { 5L } ) );
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.junit.rules.RestoreHopEnvironment;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the lock-free single producer/single consumer row set.
+ */
+public class RingBufferRowSetTest {
+  @ClassRule public static RestoreHopEnvironment env = new RestoreHopEnvironment();
+
+  private IRowMeta createRowMeta() {
+    IRowMeta rm = new RowMeta();
+    rm.addValueMeta( new ValueMetaInteger( "ROWNR" ) );
+    return rm;
+  }
+
+  @Test
+  public void testBasicCreation() {
+    IRowSet set = new RingBufferRowSet( 10 );
+
+    assertFalse( set.isDone() );
+    assertEquals( 0, set.size() );
+    assertNull( set.getRowImmediate() );
+  }
+
+  @Test
+  public void testCapacityIsRespected() {
+    IRowSet set = new RingBufferRowSet( 3 );
+    IRowMeta rm = createRowMeta();
+
+    assertTrue( set.putRowWait( rm, new Object[] { 1L }, 1, TimeUnit.MILLISECONDS ) );
+    assertTrue( set.putRowWait( rm, new Object[] { 2L }, 1, TimeUnit.MILLISECONDS ) );
+    assertTrue( set.putRowWait( rm, new Object[] { 3L }, 1, TimeUnit.MILLISECONDS ) );
+    assertEquals( 3, set.size() );
+
+    // Full, even though the underlying array has room for 4 rows
+    //
+    assertFalse( set.putRowWait( rm, new Object[] { 4L }, 1, TimeUnit.MILLISECONDS ) );
+    assertEquals( 3, set.size() );
+
+    assertEquals( 1L, set.getRowImmediate()[ 0 ] );
+    assertTrue( set.putRowWait( rm, new Object[] { 4L }, 1, TimeUnit.MILLISECONDS ) );
+
+    assertEquals( 2L, set.getRow()[ 0 ] );
+    assertEquals( 3L, set.getRow()[ 0 ] );
+    assertEquals( 4L, set.getRow()[ 0 ] );
+    assertNull( set.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+    assertEquals( 0, set.size() );
+  }
+
+  @Test
+  public void testClear() {
+    IRowSet set = new RingBufferRowSet( 5 );
+    IRowMeta rm = createRowMeta();
+
+    set.putRow( rm, new Object[] { 1L } );
+    set.putRow( rm, new Object[] { 2L } );
+    set.setDone();
+    set.clear();
+
+    assertFalse( set.isDone() );
+    assertEquals( 0, set.size() );
+    assertNull( set.getRowImmediate() );
+  }
+
+  @Test
+  public void testProducerConsumer() throws Exception {
+    final int nrRows = 100000;
+    final IRowSet set = new RingBufferRowSet( 16 );
+    final IRowMeta rm = createRowMeta();
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    Thread producer = new Thread( () -> {
+      try {
+        for ( long i = 0; i < nrRows; i++ ) {
+          Object[] row = new Object[] { i };
+          while ( !set.putRow( rm, row ) ) {
+            // retry
+          }
+        }
+        set.setDone();
+      } catch ( Throwable e ) {
+        failure.set( e );
+      }
+    } );
+    producer.start();
+
+    long expected = 0;
+    Object[] row = set.getRow();
+    while ( row != null || !set.isDone() || set.size() > 0 ) {
+      if ( row != null ) {
+        assertEquals( expected++, row[ 0 ] );
+      }
+      row = set.getRow();
+    }
+    producer.join();
+
+    assertNull( failure.get() );
+    assertEquals( nrRows, expected );
+  }
+}
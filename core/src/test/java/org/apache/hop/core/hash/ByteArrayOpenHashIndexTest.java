@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByteArrayOpenHashIndexTest {
+
+  @Test
+  public void testGetAndPut() throws HopValueException {
+    ByteArrayOpenHashIndex index = new ByteArrayOpenHashIndex( 10 );
+    assertNull( index.get( new byte[] { 10 } ) );
+
+    index.put( new byte[] { 10 }, new byte[] { 53, 12 } );
+    assertArrayEquals( new byte[] { 53, 12 }, index.get( new byte[] { 10 } ) );
+    assertNull( index.get( new byte[] { 10, 0 } ) );
+    assertNull( index.get( new byte[] {} ) );
+  }
+
+  @Test
+  public void testManyEntries() throws HopValueException {
+    assertManyEntries( new ByteArrayOpenHashIndex( 0 ) );
+  }
+
+  @Test
+  public void testManyEntriesOffHeap() throws HopValueException {
+    ByteArrayOpenHashIndex index = new ByteArrayOpenHashIndex( 0, true );
+    assertTrue( index.isOffHeap() );
+    assertManyEntries( index );
+  }
+
+  @Test
+  public void testReplaceValue() throws HopValueException {
+    ByteArrayOpenHashIndex index = new ByteArrayOpenHashIndex();
+    index.put( bytes( "key" ), bytes( "one" ) );
+    index.put( bytes( "key" ), bytes( "two" ) );
+    assertArrayEquals( bytes( "two" ), index.get( bytes( "key" ) ) );
+    index.put( bytes( "key" ), bytes( "three" ) );
+    assertArrayEquals( bytes( "three" ), index.get( bytes( "key" ) ) );
+    assertEquals( 1, index.getSize() );
+  }
+
+  @Test
+  public void testLargeEntry() throws HopValueException {
+    ByteArrayOpenHashIndex index = new ByteArrayOpenHashIndex();
+    byte[] value = new byte[ 3 * 1024 * 1024 ];
+    value[ value.length - 1 ] = 7;
+    index.put( new byte[] {}, value );
+    index.put( bytes( "small" ), bytes( "value" ) );
+    assertArrayEquals( value, index.get( new byte[] {} ) );
+    assertArrayEquals( bytes( "value" ), index.get( bytes( "small" ) ) );
+  }
+
+  private static void assertManyEntries( ByteArrayOpenHashIndex index ) throws HopValueException {
+    for ( int i = 0; i < 100000; i++ ) {
+      index.put( bytes( "key" + i ), bytes( "value" + i ) );
+    }
+    assertEquals( 100000, index.getSize() );
+    for ( int i = 0; i < 100000; i++ ) {
+      assertArrayEquals( bytes( "value" + i ), index.get( bytes( "key" + i ) ) );
+    }
+    assertNull( index.get( bytes( "key" + 100000 ) ) );
+  }
+
+  private static byte[] bytes( String string ) {
+    return string.getBytes( StandardCharsets.UTF_8 );
+  }
+}
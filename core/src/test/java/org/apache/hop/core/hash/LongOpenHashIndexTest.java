@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.hash;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LongOpenHashIndexTest {
+
+  @Test
+  public void testPutAndGet() throws HopValueException {
+    LongOpenHashIndex index = new LongOpenHashIndex();
+    Map<Long, Long> expected = new HashMap<>();
+    Random random = new Random( 42 );
+    for ( int i = 0; i < 100000; i++ ) {
+      long key = i % 3 == 0 ? i : random.nextLong();
+      long value = random.nextLong();
+      index.put( key, value );
+      expected.put( key, value );
+    }
+
+    assertEquals( expected.size(), index.getSize() );
+    for ( Map.Entry<Long, Long> entry : expected.entrySet() ) {
+      assertEquals( entry.getValue(), index.get( entry.getKey() ) );
+    }
+    assertNull( index.get( -1L ) );
+  }
+
+  @Test
+  public void testZeroKey() throws HopValueException {
+    LongOpenHashIndex index = new LongOpenHashIndex();
+    assertNull( index.get( 0L ) );
+    index.put( 0L, 5L );
+    index.put( 0L, 6L );
+    assertEquals( Long.valueOf( 6L ), index.get( 0L ) );
+    assertEquals( 1, index.getSize() );
+  }
+
+  @Test
+  public void testReplaceValue() throws HopValueException {
+    LongOpenHashIndex index = new LongOpenHashIndex();
+    index.put( 3513L, 1L );
+    index.put( 8633L, 2L );
+    index.put( 3513L, 3L );
+    assertEquals( 2, index.getSize() );
+    assertEquals( Long.valueOf( 3L ), index.get( 3513L ) );
+    assertEquals( Long.valueOf( 2L ), index.get( 8633L ) );
+  }
+
+  @Test
+  public void testInitialSizeLessThanElementsCount() throws HopValueException {
+    LongOpenHashIndex index = new LongOpenHashIndex( 0 );
+    for ( long i = 1; i <= 1000; i++ ) {
+      index.put( i, -i );
+    }
+    assertEquals( 1000, index.getSize() );
+    for ( long i = 1; i <= 1000; i++ ) {
+      assertEquals( Long.valueOf( -i ), index.get( i ) );
+    }
+  }
+
+  @Test
+  public void testIsEmpty() throws HopValueException {
+    LongOpenHashIndex index = new LongOpenHashIndex();
+    assertTrue( index.isEmpty() );
+    index.put( 1L, 1L );
+    assertFalse( index.isEmpty() );
+  }
+}
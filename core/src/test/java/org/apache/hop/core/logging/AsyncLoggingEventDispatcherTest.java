@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.logging;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncLoggingEventDispatcherTest {
+
+  private static HopLoggingEvent event( String text ) {
+    return new HopLoggingEvent( new LogMessage( text, LogLevel.BASIC ), System.currentTimeMillis(), LogLevel.BASIC );
+  }
+
+  @Test
+  public void testDispatch() {
+    LoggingBuffer buffer = new LoggingBuffer( 1000 );
+    AsyncLoggingEventDispatcher dispatcher = new AsyncLoggingEventDispatcher( buffer, 10, AsyncLoggingEventDispatcher.Policy.BLOCK );
+    try {
+      for ( int i = 0; i < 100; i++ ) {
+        dispatcher.dispatch( event( "line " + i ) );
+      }
+      Assert.assertTrue( dispatcher.flush( 10000 ) );
+      Assert.assertEquals( 100, buffer.size() );
+      Assert.assertEquals( 0, dispatcher.getDroppedEvents() );
+    } finally {
+      dispatcher.shutdown();
+    }
+  }
+
+  @Test
+  public void testDropWhenFull() throws Exception {
+    LoggingBuffer buffer = new LoggingBuffer( 1000 );
+    CountDownLatch listening = new CountDownLatch( 1 );
+    CountDownLatch release = new CountDownLatch( 1 );
+    buffer.addLoggingEventListener( event -> {
+      listening.countDown();
+      try {
+        release.await( 10, TimeUnit.SECONDS );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+    } );
+
+    AsyncLoggingEventDispatcher dispatcher = new AsyncLoggingEventDispatcher( buffer, 1, AsyncLoggingEventDispatcher.Policy.DROP );
+    try {
+      // The dispatcher thread is kept busy with the first line, the second fills the queue
+      //
+      dispatcher.dispatch( event( "line 1" ) );
+      Assert.assertTrue( listening.await( 10, TimeUnit.SECONDS ) );
+      dispatcher.dispatch( event( "line 2" ) );
+      dispatcher.dispatch( event( "line 3" ) );
+      Assert.assertEquals( 1, dispatcher.getDroppedEvents() );
+
+      release.countDown();
+      Assert.assertTrue( dispatcher.flush( 10000 ) );
+      Assert.assertEquals( 2, buffer.size() );
+    } finally {
+      release.countDown();
+      dispatcher.shutdown();
+    }
+  }
+
+  @Test
+  public void testShutdown() {
+    LoggingBuffer buffer = new LoggingBuffer( 1000 );
+    AsyncLoggingEventDispatcher dispatcher = new AsyncLoggingEventDispatcher( buffer, 10, AsyncLoggingEventDispatcher.Policy.BLOCK );
+    dispatcher.dispatch( event( "line 1" ) );
+    dispatcher.shutdown();
+
+    // After shutdown the lines are handled right away
+    //
+    dispatcher.dispatch( event( "line 2" ) );
+    Assert.assertEquals( 2, buffer.size() );
+  }
+
+  @Test
+  public void testNoEventLostWhenShuttingDownWhileLogging() throws Exception {
+    LoggingBuffer buffer = new LoggingBuffer( 1000 );
+    AtomicInteger delivered = new AtomicInteger( 0 );
+    buffer.addLoggingEventListener( event -> delivered.incrementAndGet() );
+
+    // A small queue keeps the logging threads waiting for room while the dispatcher shuts down
+    //
+    AsyncLoggingEventDispatcher dispatcher = new AsyncLoggingEventDispatcher( buffer, 2, AsyncLoggingEventDispatcher.Policy.BLOCK );
+    int nrThreads = 4;
+    int nrEvents = 5000;
+    CountDownLatch started = new CountDownLatch( nrThreads );
+    List<Thread> threads = new ArrayList<>();
+    for ( int t = 0; t < nrThreads; t++ ) {
+      Thread thread = new Thread( () -> {
+        started.countDown();
+        for ( int i = 0; i < nrEvents; i++ ) {
+          dispatcher.dispatch( event( "line " + i ) );
+        }
+      } );
+      thread.start();
+      threads.add( thread );
+    }
+
+    Assert.assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+    dispatcher.shutdown();
+    for ( Thread thread : threads ) {
+      thread.join( 30000 );
+      Assert.assertFalse( "A logging thread is stuck", thread.isAlive() );
+    }
+
+    Assert.assertEquals( nrThreads * nrEvents, delivered.get() );
+  }
+
+  @Test
+  public void testShutdownTwice() {
+    LoggingBuffer buffer = new LoggingBuffer( 1000 );
+    AsyncLoggingEventDispatcher dispatcher = new AsyncLoggingEventDispatcher( buffer, 10, AsyncLoggingEventDispatcher.Policy.BLOCK );
+    dispatcher.dispatch( event( "line 1" ) );
+    dispatcher.shutdown();
+    dispatcher.shutdown();
+    Assert.assertEquals( 1, buffer.size() );
+  }
+}
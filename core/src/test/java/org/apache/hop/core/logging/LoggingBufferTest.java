@@ -22,7 +22,10 @@ import org.apache.hop.core.Const;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -172,4 +175,31 @@ public class LoggingBufferTest {
     Assert.assertEquals( 10, loggingBuffer.size() );
   }
 
+  @Test
+  public void testGetLogBufferFromToPerChannel() {
+    LoggingBuffer loggingBuffer = new LoggingBuffer( 10 );
+    for ( int i = 0; i < 15; i++ ) {
+      HopLoggingEvent event = new HopLoggingEvent();
+      event.setMessage( new LogMessage( "line " + i, i % 2 == 0 ? "even" : "odd", LogLevel.BASIC ) );
+      event.setTimeStamp( i );
+      loggingBuffer.addLogggingEvent( event );
+    }
+    Assert.assertEquals( 15, loggingBuffer.getLastBufferLineNr() );
+
+    // Only the last 10 lines are kept: 5 to 14
+    //
+    List<HopLoggingEvent> even = loggingBuffer.getLogBufferFromTo( Collections.singletonList( "even" ), false, 0, 15 );
+    Assert.assertEquals( 5, even.size() );
+    Assert.assertEquals( "line 6", ( (LogMessage) even.get( 0 ).getMessage() ).getMessage() );
+    Assert.assertEquals( "line 14", ( (LogMessage) even.get( 4 ).getMessage() ).getMessage() );
+
+    // Incremental fetching from a line number
+    //
+    List<HopLoggingEvent> odd = loggingBuffer.getLogBufferFromTo( Collections.singletonList( "odd" ), false, 10, 15 );
+    Assert.assertEquals( 2, odd.size() );
+    Assert.assertEquals( "line 11", ( (LogMessage) odd.get( 0 ).getMessage() ).getMessage() );
+
+    Assert.assertEquals( 10, loggingBuffer.getLogBufferFromTo( Arrays.asList( "even", "odd" ), false, 0, 15 ).size() );
+  }
+
 }
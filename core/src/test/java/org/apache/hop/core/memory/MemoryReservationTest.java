@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.memory;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryReservationTest {
+
+  @Test
+  public void testBudgetIsRespected() {
+    TransformMemoryManager manager = TransformMemoryManager.getInstance();
+    long reservedBefore = manager.getReservedBytes();
+
+    try ( MemoryReservation reservation = manager.createReservation( "test", 1000L ) ) {
+      assertTrue( reservation.tryAcquire( 600L ) );
+      assertTrue( reservation.tryAcquire( 400L ) );
+      assertFalse( reservation.tryAcquire( 1L ) );
+      assertEquals( 1000L, reservation.getUsedBytes() );
+      assertTrue( manager.getReservedBytes() >= reservedBefore + 1000L );
+
+      // Spilled to disk
+      //
+      reservation.releaseAll();
+      assertEquals( 0L, reservation.getUsedBytes() );
+      assertTrue( reservation.tryAcquire( 1L ) );
+    }
+
+    assertEquals( reservedBefore, manager.getReservedBytes() );
+  }
+
+  @Test
+  public void testForcedAcquireReducesThePool() {
+    TransformMemoryManager manager = TransformMemoryManager.getInstance();
+    long reservedBefore = manager.getReservedBytes();
+
+    MemoryReservation hog = manager.createReservation( "hog", -1L );
+    MemoryReservation sorter = manager.createReservation( "sorter", -1L );
+    try {
+      long available = manager.getAvailableBytes();
+      long pinnedBefore = manager.getPinnedBytes();
+      hog.acquire( 10L * MemoryReservation.CHUNK_SIZE );
+      assertEquals( pinnedBefore + 10L * MemoryReservation.CHUNK_SIZE, manager.getPinnedBytes() );
+      assertTrue( manager.getAvailableBytes() < available );
+      assertTrue( sorter.tryAcquire( MemoryReservation.CHUNK_SIZE ) );
+      assertTrue( manager.getReservations().contains( hog ) );
+    } finally {
+      hog.close();
+      sorter.close();
+    }
+
+    assertFalse( manager.getReservations().contains( hog ) );
+    assertEquals( reservedBefore, manager.getReservedBytes() );
+  }
+
+  @Test
+  public void testPinnedMemoryLeavesAShareToSpill() {
+    TransformMemoryManager manager = TransformMemoryManager.getInstance();
+    long share = manager.getPoolSize() / 100 * TransformMemoryManager.MIN_SPILLABLE_PERCENTAGE;
+
+    MemoryReservation hog = manager.createReservation( "hog", -1L );
+    MemoryReservation sorter = manager.createReservation( "sorter", -1L );
+    try {
+      // A lookup table bigger than the whole pool
+      //
+      hog.acquire( manager.getPoolSize() * 2 );
+      assertEquals( share - ( manager.getReservedBytes() - manager.getPinnedBytes() ), manager.getAvailableBytes() );
+
+      // The sorter can still fill its share before it has to spill
+      //
+      assertTrue( sorter.tryAcquire( share / 2 ) );
+      assertFalse( sorter.tryAcquire( share ) );
+
+      // Spilled to disk
+      //
+      sorter.releaseAll();
+      assertTrue( sorter.tryAcquire( share / 2 ) );
+    } finally {
+      hog.close();
+      sorter.close();
+    }
+  }
+
+  @Test
+  public void testEstimateRowSize() {
+    assertEquals( 0L, RowMemoryEstimator.estimateRowSize( null ) );
+    long empty = RowMemoryEstimator.estimateRowSize( new Object[] { null, null } );
+    long filled = RowMemoryEstimator.estimateRowSize( new Object[] { "Hop", 42L } );
+    assertTrue( filled > empty );
+    assertTrue( RowMemoryEstimator.estimateValueSize( "a longer string value" )
+      > RowMemoryEstimator.estimateValueSize( "short" ) );
+  }
+}
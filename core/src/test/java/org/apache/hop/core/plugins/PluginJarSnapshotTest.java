@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.plugins;
+
+import org.jboss.jandex.Indexer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PluginJarSnapshotTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Deprecated
+  public static class Annotated {
+  }
+
+  @Test
+  public void testSaveAndLoad() throws Exception {
+    File jarFile = folder.newFile( "plugin.jar" );
+    Files.write( jarFile.toPath(), new byte[] { 1, 2, 3 } );
+    File snapshotFile = new File( folder.getRoot(), "snapshot.dat" );
+
+    Indexer indexer = new Indexer();
+    try ( InputStream stream = getClass().getResourceAsStream( "PluginJarSnapshotTest$Annotated.class" ) ) {
+      indexer.index( stream );
+    }
+
+    PluginJarSnapshot snapshot = PluginJarSnapshot.load( snapshotFile );
+    assertNull( snapshot.get( jarFile ) );
+    snapshot.put( jarFile, indexer.complete() );
+    snapshot.save();
+    assertTrue( snapshotFile.exists() );
+
+    PluginJarSnapshot loaded = PluginJarSnapshot.load( snapshotFile );
+    PluginJarSnapshot.Entry entry = loaded.get( jarFile );
+    assertNotNull( entry );
+    assertTrue( entry.isIndexed() );
+    assertEquals( Collections.singletonList( Annotated.class.getName() ), entry.getAnnotatedClasses( Deprecated.class.getName() ) );
+    assertTrue( entry.getAnnotatedClasses( Override.class.getName() ).isEmpty() );
+  }
+
+  @Test
+  public void testChangedJarFile() throws Exception {
+    File jarFile = folder.newFile( "plugin.jar" );
+    Files.write( jarFile.toPath(), new byte[] { 1, 2, 3 } );
+
+    PluginJarSnapshot snapshot = PluginJarSnapshot.load( null );
+    snapshot.put( jarFile, null );
+    assertNotNull( snapshot.get( jarFile ) );
+    assertFalse( snapshot.get( jarFile ).isIndexed() );
+
+    // A different size invalidates the entry
+    //
+    Files.write( jarFile.toPath(), new byte[] { 1, 2, 3, 4 } );
+    assertNull( snapshot.get( jarFile ) );
+  }
+
+  @Test
+  public void testUnreadableSnapshot() throws Exception {
+    File snapshotFile = folder.newFile( "snapshot.dat" );
+    Files.write( snapshotFile.toPath(), new byte[] { 1, 2, 3 } );
+
+    PluginJarSnapshot snapshot = PluginJarSnapshot.load( snapshotFile );
+    assertNull( snapshot.get( snapshotFile ) );
+  }
+
+  @Test
+  public void testRemovedJarFileIsDropped() throws Exception {
+    File jarFile = folder.newFile( "plugin.jar" );
+    Files.write( jarFile.toPath(), new byte[] { 1, 2, 3 } );
+    jarFile.setLastModified( 1000000L );
+    File otherJarFile = folder.newFile( "other.jar" );
+    File snapshotFile = new File( folder.getRoot(), "snapshot.dat" );
+
+    PluginJarSnapshot snapshot = PluginJarSnapshot.load( snapshotFile );
+    snapshot.put( jarFile, null );
+    snapshot.save();
+    assertNotNull( PluginJarSnapshot.load( snapshotFile ).get( jarFile ) );
+
+    assertTrue( jarFile.delete() );
+    snapshot.put( otherJarFile, null );
+    snapshot.save();
+
+    // The same jar file again doesn't find the old entry
+    //
+    Files.write( jarFile.toPath(), new byte[] { 1, 2, 3 } );
+    jarFile.setLastModified( 1000000L );
+    PluginJarSnapshot loaded = PluginJarSnapshot.load( snapshotFile );
+    assertNull( loaded.get( jarFile ) );
+    assertNotNull( loaded.get( otherJarFile ) );
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class LoserTreeRowMergerTest {
+
+  private static final Comparator<Object[]> COMPARATOR = ( o1, o2 ) -> Long.compare( (Long) o1[ 0 ], (Long) o2[ 0 ] );
+
+  private static IRowMergeSource source( List<Object[]> rows ) {
+    Iterator<Object[]> iterator = rows.iterator();
+    return () -> iterator.hasNext() ? iterator.next() : null;
+  }
+
+  @Test
+  public void testNoSources() throws Exception {
+    LoserTreeRowMerger merger = new LoserTreeRowMerger( COMPARATOR, new ArrayList<IRowMergeSource>() );
+    assertNull( merger.getRow() );
+  }
+
+  @Test
+  public void testMergeRandomRuns() throws Exception {
+    Random random = new Random( 42 );
+    for ( int nrSources : new int[] { 1, 2, 3, 7, 10, 64, 100 } ) {
+      List<IRowMergeSource> sources = new ArrayList<>();
+      List<Long> expected = new ArrayList<>();
+      for ( int s = 0; s < nrSources; s++ ) {
+        List<Long> values = new ArrayList<>();
+        int nrRows = random.nextInt( 100 );
+        for ( int r = 0; r < nrRows; r++ ) {
+          values.add( (long) random.nextInt( 1000 ) );
+        }
+        Collections.sort( values );
+        expected.addAll( values );
+
+        List<Object[]> rows = new ArrayList<>();
+        for ( Long value : values ) {
+          rows.add( new Object[] { value } );
+        }
+        sources.add( source( rows ) );
+      }
+      Collections.sort( expected );
+
+      LoserTreeRowMerger merger = new LoserTreeRowMerger( COMPARATOR, sources );
+      List<Long> merged = new ArrayList<>();
+      Object[] row;
+      while ( ( row = merger.getRow() ) != null ) {
+        merged.add( (Long) row[ 0 ] );
+      }
+      assertEquals( "Merge of " + nrSources + " sources", expected, merged );
+    }
+  }
+
+  @Test
+  public void testStableOnEqualKeys() throws Exception {
+    Object[] a = new Object[] { 1L, "a" };
+    Object[] b = new Object[] { 1L, "b" };
+    Object[] c = new Object[] { 1L, "c" };
+    List<IRowMergeSource> sources = new ArrayList<>();
+    sources.add( source( Collections.singletonList( a ) ) );
+    sources.add( source( Collections.singletonList( b ) ) );
+    sources.add( source( Collections.singletonList( c ) ) );
+
+    LoserTreeRowMerger merger = new LoserTreeRowMerger( COMPARATOR, sources );
+    assertSame( a, merger.getRow() );
+    assertSame( b, merger.getRow() );
+    assertSame( c, merger.getRow() );
+    assertNull( merger.getRow() );
+  }
+}
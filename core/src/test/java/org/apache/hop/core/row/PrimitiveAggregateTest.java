@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row;
+
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PrimitiveAggregateTest {
+
+  @Test
+  public void testSumAggregate() {
+    assertEquals( PrimitiveAggregate.LONG_SUM,
+      PrimitiveAggregate.getSumAggregate( new ValueMetaInteger( "a" ), new ValueMetaInteger( "sum" ) ) );
+    assertEquals( PrimitiveAggregate.DOUBLE_SUM,
+      PrimitiveAggregate.getSumAggregate( new ValueMetaNumber( "a" ), new ValueMetaNumber( "sum" ) ) );
+
+    // Big numbers, a result of another type, binary strings or no subject at all
+    //
+    assertEquals( PrimitiveAggregate.OBJECT,
+      PrimitiveAggregate.getSumAggregate( new ValueMetaBigNumber( "a" ), new ValueMetaBigNumber( "sum" ) ) );
+    assertEquals( PrimitiveAggregate.OBJECT,
+      PrimitiveAggregate.getSumAggregate( new ValueMetaInteger( "a" ), new ValueMetaNumber( "sum" ) ) );
+    IValueMeta binaryString = new ValueMetaInteger( "a" );
+    binaryString.setStorageType( IValueMeta.STORAGE_TYPE_BINARY_STRING );
+    binaryString.setStorageMetadata( new ValueMetaString( "a" ) );
+    assertEquals( PrimitiveAggregate.OBJECT,
+      PrimitiveAggregate.getSumAggregate( binaryString, new ValueMetaInteger( "sum" ) ) );
+    assertEquals( PrimitiveAggregate.OBJECT, PrimitiveAggregate.getSumAggregate( null, new ValueMetaInteger( "sum" ) ) );
+  }
+
+  @Test
+  public void testAddAndGetValue() throws Exception {
+    long[] counts = new long[ 3 ];
+    long[] longSums = new long[ 3 ];
+    double[] doubleSums = new double[ 3 ];
+    double[] mean = new double[ 3 ];
+    IValueMeta integerMeta = new ValueMetaInteger( "i" );
+    IValueMeta numberMeta = new ValueMetaNumber( "n" );
+
+    assertNull( PrimitiveAggregate.getValue( PrimitiveAggregate.LONG_SUM, 0, counts, longSums, doubleSums, null ) );
+
+    for ( Long value : new Long[] { 1L, null, 3L } ) {
+      PrimitiveAggregate.add( PrimitiveAggregate.LONG_SUM, 0, integerMeta, value, counts, longSums, doubleSums, mean );
+    }
+    for ( Double value : new Double[] { 1.5, 2.5, null } ) {
+      PrimitiveAggregate.add( PrimitiveAggregate.DOUBLE_SUM, 1, numberMeta, value, counts, longSums, doubleSums, mean );
+    }
+    for ( Double value : new Double[] { 2.0, 4.0, 6.0 } ) {
+      PrimitiveAggregate.add( PrimitiveAggregate.VARIANCE, 2, numberMeta, value, counts, longSums, doubleSums, mean );
+    }
+
+    assertEquals( 4L, PrimitiveAggregate.getValue( PrimitiveAggregate.LONG_SUM, 0, counts, longSums, doubleSums, null ) );
+    assertEquals( 2L, counts[ 0 ] );
+    assertEquals( 4.0, PrimitiveAggregate.getValue( PrimitiveAggregate.DOUBLE_SUM, 1, counts, longSums, doubleSums,
+      null ) );
+    assertEquals( 2L, counts[ 1 ] );
+
+    // The sum of squared differences from the mean 4.0
+    //
+    assertEquals( 8.0, PrimitiveAggregate.getValue( PrimitiveAggregate.VARIANCE, 2, counts, longSums, doubleSums,
+      null ) );
+    assertEquals( 4.0, mean[ 2 ], 0.0 );
+
+    assertEquals( "object", PrimitiveAggregate.getValue( PrimitiveAggregate.OBJECT, 0, counts, longSums, doubleSums,
+      "object" ) );
+  }
+}
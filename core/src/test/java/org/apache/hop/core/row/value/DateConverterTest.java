@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row.value;
+
+import org.junit.Test;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DateConverterTest {
+
+  private static final String[] PATTERNS = {
+    "yyyy/MM/dd HH:mm:ss.SSS", "yyyy-MM-dd", "dd-MM-yyyy H:m:s", "yyyyMMddHHmmssSSS", "yyyy-M-d k K h D S",
+    "dd MMM yyyy", "yy/MM/dd hh:mm a", "yyyy-MM-dd'T'HH:mm:ss"
+  };
+
+  private static final String[] TIME_ZONES = {
+    "UTC", "Europe/Brussels", "America/New_York", "Asia/Kolkata", "Australia/Lord_Howe"
+  };
+
+  @Test
+  public void testFormatSameAsDateFormat() {
+    Random random = new Random( 42 );
+    for ( String pattern : PATTERNS ) {
+      for ( String timeZone : TIME_ZONES ) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat( pattern, Locale.US );
+        dateFormat.setTimeZone( TimeZone.getTimeZone( timeZone ) );
+        DateConverter converter = new DateConverter( dateFormat );
+        for ( int i = 0; i < 5000; i++ ) {
+          // Between the years 1653 and 2286, outside of the java.time range as well
+          Date date = new Date( (long) ( random.nextDouble() * 2e13 - 1e13 ) );
+          assertEquals( pattern + " " + timeZone + " " + date.getTime(), dateFormat.format( date ),
+            converter.format( date ) );
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testParseSameAsDateFormat() {
+    SimpleDateFormat dateFormat = new SimpleDateFormat( "yyyy/MM/dd HH:mm:ss" );
+    dateFormat.setLenient( false );
+    DateConverter converter = new DateConverter( dateFormat );
+    for ( String string : new String[] { "2020/01/05 10:11:12", "2020/1/5 1:2:3", "2020/13/05 10:11:12", "2020/01",
+      "2020/01/05 10:11:12 trailing" } ) {
+      ParsePosition expectedPosition = new ParsePosition( 0 );
+      ParsePosition position = new ParsePosition( 0 );
+      assertEquals( string, dateFormat.parse( string, expectedPosition ), converter.parse( string, position ) );
+      assertEquals( string, expectedPosition.getIndex(), position.getIndex() );
+      assertEquals( string, expectedPosition.getErrorIndex(), position.getErrorIndex() );
+    }
+  }
+
+  @Test
+  public void testCreatedFrom() {
+    SimpleDateFormat dateFormat = new SimpleDateFormat( "yyyy-MM-dd" );
+    DateConverter converter = new DateConverter( dateFormat );
+    assertTrue( converter.isCreatedFrom( dateFormat ) );
+    assertFalse( converter.isCreatedFrom( new SimpleDateFormat( "yyyy-MM-dd" ) ) );
+    assertEquals( "yyyy-MM-dd", converter.toPattern() );
+
+    // Later changes to the date format are not picked up
+    //
+    dateFormat.applyPattern( "dd/MM/yyyy" );
+    assertEquals( "yyyy-MM-dd", converter.toPattern() );
+  }
+
+  @Test
+  public void testConcurrentConversions() throws Exception {
+    SimpleDateFormat dateFormat = new SimpleDateFormat( "yyyy/MM/dd HH:mm:ss.SSS" );
+    DateConverter converter = new DateConverter( dateFormat );
+    List<Date> dates = new ArrayList<>();
+    List<String> strings = new ArrayList<>();
+    Random random = new Random( 1 );
+    for ( int i = 0; i < 1000; i++ ) {
+      Date date = new Date( (long) ( random.nextDouble() * 4e12 ) );
+      dates.add( date );
+      strings.add( dateFormat.format( date ) );
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool( 8 );
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for ( int t = 0; t < 8; t++ ) {
+        futures.add( executor.submit( () -> {
+          for ( int i = 0; i < dates.size(); i++ ) {
+            if ( !strings.get( i ).equals( converter.format( dates.get( i ) ) )
+              || !dates.get( i ).equals( converter.parse( strings.get( i ), new ParsePosition( 0 ) ) ) ) {
+              return false;
+            }
+          }
+          return true;
+        } ) );
+      }
+      for ( Future<Boolean> future : futures ) {
+        assertTrue( future.get( 1, TimeUnit.MINUTES ) );
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
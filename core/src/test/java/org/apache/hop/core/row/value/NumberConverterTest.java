@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.core.row.value;
+
+import org.junit.Test;
+
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class NumberConverterTest {
+
+  private static final String[] STRINGS = {
+    "0", "-0", "0.000", "-0.0", "12", "-12", "0005", "10.0", "12.5", "-12.50", "12,5", "1.234,5", "1,234.5",
+    "123456789012345678", "1234567890123456789", "12345678.123456789", ".5", "5.", "-", "", "12a", "1e5", "+1",
+    "--1", "0.1", "0.30000000000000004"
+  };
+
+  @Test
+  public void testParseSameAsDecimalFormat() {
+    for ( Locale locale : new Locale[] { Locale.US, Locale.GERMANY, Locale.FRANCE } ) {
+      for ( String pattern : new String[] { "#.#;-#.#", "#,##0.00", "0.###", "#", "#%", "$#.#" } ) {
+        DecimalFormat decimalFormat = (DecimalFormat) NumberFormat.getInstance( locale );
+        decimalFormat.applyPattern( pattern );
+        NumberConverter converter = new NumberConverter( decimalFormat );
+        for ( String string : STRINGS ) {
+          String message = locale + " " + pattern + " [" + string + "]";
+          ParsePosition expectedPosition = new ParsePosition( 0 );
+          ParsePosition position = new ParsePosition( 0 );
+          assertEquals( message, decimalFormat.parse( string, expectedPosition ), converter.parse( string, position ) );
+          assertEquals( message, expectedPosition.getIndex(), position.getIndex() );
+          assertEquals( message, expectedPosition.getErrorIndex(), position.getErrorIndex() );
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testParseException() throws Exception {
+    NumberConverter converter = new NumberConverter( new DecimalFormat( "#.#" ) );
+    assertEquals( 12L, converter.parse( "12" ) );
+    assertEquals( 12L, converter.parse( "12abc" ) );
+    try {
+      converter.parse( "abc" );
+      fail( "Expected a parse exception" );
+    } catch ( ParseException e ) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testFormat() {
+    DecimalFormat decimalFormat = new DecimalFormat( "0.00" );
+    NumberConverter converter = new NumberConverter( decimalFormat );
+    assertEquals( "1.23", converter.format( 1.23456 ) );
+    assertEquals( "1.23456", converter.getFullPrecisionConverter().format( 1.23456 ) );
+    assertEquals( "1.23", converter.format( 1.23456 ) );
+
+    // The decimal format itself is not changed
+    //
+    assertEquals( 2, decimalFormat.getMaximumFractionDigits() );
+  }
+}
@@ -138,6 +138,9 @@ public class LogChannelFileWriter {
   }
 
   public void stopLogging() {
+    // Lines which are still queued for the buffer of this file
+    //
+    HopLogStore.flush();
     flush();
     active.set( false );
     while ( !finished.get() ) {
@@ -30,6 +30,7 @@ import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.QueueRowSet;
 import org.apache.hop.core.Result;
 import org.apache.hop.core.ResultFile;
+import org.apache.hop.core.RingBufferRowSet;
 import org.apache.hop.core.RowMetaAndData;
 import org.apache.hop.core.database.Database;
 import org.apache.hop.core.database.DatabaseMeta;
@@ -465,6 +466,11 @@ public abstract class Pipeline implements IVariables, INamedParameters, IHasLogC
 
   protected int rowSetSize;
 
+  /**
+   * Whether the lock-free single producer/single consumer row sets are used between transform copies.
+   */
+  protected boolean ringBufferRowSetUsed;
+
   /**
    * Whether the feedback is shown.
    */
@@ -779,7 +785,11 @@ public abstract class Pipeline implements IVariables, INamedParameters, IHasLogC
                 //
                 Boolean batchingRowSet =
                   ValueMetaString.convertStringToBoolean( System.getProperty( Const.HOP_BATCHING_ROWSET ) );
-                if ( batchingRowSet != null && batchingRowSet.booleanValue() ) {
+                if ( ringBufferRowSetUsed ) {
+                  // Every row set here has exactly one producing and one consuming transform copy
+                  //
+                  rowSet = new RingBufferRowSet( rowSetSize );
+                } else if ( batchingRowSet != null && batchingRowSet.booleanValue() ) {
                   rowSet = new BlockingBatchingRowSet( rowSetSize );
                 } else {
                   rowSet = new BlockingRowSet( rowSetSize );
@@ -824,7 +834,7 @@ public abstract class Pipeline implements IVariables, INamedParameters, IHasLogC
           // distribution...
           for ( int s = 0; s < thisCopies; s++ ) {
             for ( int t = 0; t < nextCopies; t++ ) {
-              BlockingRowSet rowSet = new BlockingRowSet( rowSetSize );
+              IRowSet rowSet = ringBufferRowSetUsed ? new RingBufferRowSet( rowSetSize ) : new BlockingRowSet( rowSetSize );
               rowSet.setThreadNameFromToCopy( thisTransform.getName(), s, nextTransform.getName(), t );
               rowsets.add( rowSet );
               if ( log.isDetailed() ) {
@@ -3431,6 +3441,22 @@ public abstract class Pipeline implements IVariables, INamedParameters, IHasLogC
     this.rowSetSize = rowSetSize;
   }
 
+  /**
+   * Gets ringBufferRowSetUsed
+   *
+   * @return value of ringBufferRowSetUsed
+   */
+  public boolean isRingBufferRowSetUsed() {
+    return ringBufferRowSetUsed;
+  }
+
+  /**
+   * @param ringBufferRowSetUsed The ringBufferRowSetUsed to set
+   */
+  public void setRingBufferRowSetUsed( boolean ringBufferRowSetUsed ) {
+    this.ringBufferRowSetUsed = ringBufferRowSetUsed;
+  }
+
   /**
    * Gets feedbackShown
    *
@@ -382,6 +382,11 @@ public class PipelineMeta extends AbstractMeta
         pipelineMeta.notes = new ArrayList<>();
         pipelineMeta.namedParams = new NamedParameters();
         pipelineMeta.transformChangeListeners = new ArrayList<>();
+
+        // Don't share the caches with the original, the clone can be used in another thread
+        pipelineMeta.transformFieldsCache = new HashMap<>();
+        pipelineMeta.loopCache = new HashMap<>();
+        pipelineMeta.previousTransformCache = new HashMap<>();
       }
       for (TransformMeta transform : transforms) {
         pipelineMeta.addTransform((TransformMeta) transform.clone());
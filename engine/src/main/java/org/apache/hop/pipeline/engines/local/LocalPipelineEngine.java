@@ -80,6 +80,7 @@ public class LocalPipelineEngine extends Pipeline implements IPipelineEngine<Pip
 
     int sizeRowsSet = Const.toInt( resolve( config.getRowSetSize() ), Const.ROWS_IN_ROWSET );
     setRowSetSize( sizeRowsSet );
+    setRingBufferRowSetUsed( config.isRingBufferRowSetUsed() );
     setSafeModeEnabled( config.isSafeModeEnabled() );
     setSortingTransformsTopologically( config.isSortingTransformsTopologically() );
     setGatheringMetrics( config.isGatheringMetrics() );
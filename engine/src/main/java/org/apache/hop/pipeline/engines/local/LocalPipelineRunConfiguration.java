@@ -44,6 +44,16 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
   @HopMetadataProperty(key="rowset_size")
   protected String rowSetSize;
 
+  @GuiWidgetElement(
+    id = "ringBufferRowSetUsed",
+    order = "15",
+    parentId = PipelineRunConfiguration.GUI_PLUGIN_ELEMENT_PARENT_ID,
+    type = GuiElementType.CHECKBOX,
+    label = "i18n:org.apache.hop.ui.pipeline.config:PipelineRunConfigurationDialog.RingBufferRowSetUsed.Label"
+  )
+  @HopMetadataProperty(key="ring_buffer_rowset")
+  protected boolean ringBufferRowSetUsed;
+
   @GuiWidgetElement(
     id = "safeModeEnabled",
     order = "20",
@@ -143,6 +153,7 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
   public LocalPipelineRunConfiguration( LocalPipelineRunConfiguration config ) {
     super( config );
     this.rowSetSize = config.rowSetSize;
+    this.ringBufferRowSetUsed = config.ringBufferRowSetUsed;
     this.feedbackShown = config.feedbackShown;
     this.feedbackSize = config.feedbackSize;
     this.safeModeEnabled = config.safeModeEnabled;
@@ -179,6 +190,22 @@ public class LocalPipelineRunConfiguration extends EmptyPipelineRunConfiguration
     this.rowSetSize = rowSetSize;
   }
 
+  /**
+   * Gets ringBufferRowSetUsed
+   *
+   * @return value of ringBufferRowSetUsed
+   */
+  public boolean isRingBufferRowSetUsed() {
+    return ringBufferRowSetUsed;
+  }
+
+  /**
+   * @param ringBufferRowSetUsed The ringBufferRowSetUsed to set
+   */
+  public void setRingBufferRowSetUsed( boolean ringBufferRowSetUsed ) {
+    this.ringBufferRowSetUsed = ringBufferRowSetUsed;
+  }
+
   /**
    * Gets safeModeEnabled
    *
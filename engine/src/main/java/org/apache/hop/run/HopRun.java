@@ -27,6 +27,7 @@ import org.apache.hop.core.config.plugin.IConfigOptions;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.extension.ExtensionPointHandler;
 import org.apache.hop.core.extension.HopExtensionPoint;
+import org.apache.hop.core.logging.HopLogStore;
 import org.apache.hop.core.logging.ILogChannel;
 import org.apache.hop.core.logging.LogChannel;
 import org.apache.hop.core.logging.LogLevel;
@@ -732,6 +733,10 @@ public class HopRun implements Runnable, IHasHopMetadataProvider {
         System.exit(1);
       } else {
         hopRun.run();
+
+        // Write out the log lines which are still queued before the JVM stops
+        //
+        HopLogStore.flush();
         if (hopRun.isFinishedWithoutError()) {
           System.exit(0);
         } else {
@@ -43,7 +43,12 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 @HopServerServlet(id = "pipelineStatus", name = "Get the status of a pipeline")
 public class GetPipelineStatusServlet extends BaseHttpServlet implements IHopServerPlugin {
@@ -56,9 +61,17 @@ public class GetPipelineStatusServlet extends BaseHttpServlet implements IHopSer
 
   public static final String SEND_RESULT = "sendResult";
 
+  /**
+   * Only send the transforms which changed after this status sequence number
+   */
+  public static final String SINCE = "since";
+
   private static final byte[] XML_HEADER =
       XmlHandler.getXmlHeader(Const.XML_ENCODING).getBytes(Charset.forName(Const.XML_ENCODING));
 
+  private final transient Map<IPipelineEngine<PipelineMeta>, PipelineStatusTracker> statusTrackers =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
   public GetPipelineStatusServlet() {}
 
   public GetPipelineStatusServlet(PipelineMap pipelineMap) {
@@ -122,8 +135,56 @@ public class GetPipelineStatusServlet extends BaseHttpServlet implements IHopSer
       if (useXML) {
         try {
           boolean sendResultXmlWithStatus = "Y".equalsIgnoreCase(request.getParameter(SEND_RESULT));
+          long since = Const.toLong(request.getParameter(SINCE), -1L);
           int lastLineNr = HopLogStore.getLastBufferLineNr();
 
+          List<TransformStatus> transformStatuses = new ArrayList<>();
+          for (IEngineComponent component : pipeline.getComponents()) {
+            if ((component.isRunning())
+                || (component.getStatus() != ComponentExecutionStatus.STATUS_EMPTY)) {
+              transformStatuses.add(new TransformStatus(component));
+            }
+          }
+
+          // See what changed since the previous request for the status of this pipeline
+          //
+          PipelineStatusTracker tracker =
+              statusTrackers.computeIfAbsent(pipeline, p -> new PipelineStatusTracker());
+          long sequence =
+              tracker.update(
+                  pipeline.getStatusDescription()
+                      + "|"
+                      + pipeline.isPaused()
+                      + "|"
+                      + pipeline.getErrors()
+                      + "|"
+                      + pipeline.getExecutionEndDate(),
+                  transformStatuses);
+
+          // Nothing changed in the status or the log of this pipeline: the client is up to date.
+          // The log lines and the result in the response depend on the request parameters.
+          //
+          String eTag =
+              "\""
+                  + entry.getId()
+                  + "-"
+                  + sequence
+                  + "-"
+                  + Math.min(
+                      lastLineNr,
+                      HopLogStore.getAppender()
+                          .getLastBufferLineNr(pipeline.getLogChannel().getLogChannelId()))
+                  + "-"
+                  + startLineNr
+                  + "-"
+                  + (sendResultXmlWithStatus ? "Y" : "N")
+                  + "\"";
+          response.setHeader("ETag", eTag);
+          if (eTag.equals(request.getHeader("If-None-Match"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+          }
+
           String logText = getLogText(pipeline, startLineNr, lastLineNr);
 
           response.setContentType("text/xml");
@@ -134,14 +195,17 @@ public class GetPipelineStatusServlet extends BaseHttpServlet implements IHopSer
                   pipelineName, entry.getId(), pipeline.getStatusDescription());
           pipelineStatus.setFirstLoggingLineNr(startLineNr);
           pipelineStatus.setLastLoggingLineNr(lastLineNr);
+          pipelineStatus.setStatusSequence(sequence);
           pipelineStatus.setLogDate(new Date());
           pipelineStatus.setExecutionStartDate(pipeline.getExecutionStartDate());
           pipelineStatus.setExecutionEndDate(pipeline.getExecutionEndDate());
 
-          for (IEngineComponent component : pipeline.getComponents()) {
-            if ((component.isRunning())
-                || (component.getStatus() != ComponentExecutionStatus.STATUS_EMPTY)) {
-              TransformStatus transformStatus = new TransformStatus(component);
+          // Only send the transforms which changed if the client asks for it.
+          // A sequence number we never handed out gets the complete status.
+          //
+          boolean delta = since >= 0 && since <= sequence;
+          for (TransformStatus transformStatus : transformStatuses) {
+            if (!delta || tracker.isChangedSince(transformStatus, since)) {
               pipelineStatus.getTransformStatusList().add(transformStatus);
             }
           }
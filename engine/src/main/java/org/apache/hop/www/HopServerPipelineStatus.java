@@ -52,6 +52,8 @@ public class HopServerPipelineStatus {
 
   private int lastLoggingLineNr;
 
+  private long statusSequence;
+
   private Date logDate;
 
   private List<TransformStatus> transformStatusList;
@@ -105,6 +107,7 @@ public class HopServerPipelineStatus {
 
     xml.append( "  " ).append( XmlHandler.addTagValue( "first_log_line_nr", firstLoggingLineNr ) );
     xml.append( "  " ).append( XmlHandler.addTagValue( "last_log_line_nr", lastLoggingLineNr ) );
+    xml.append( "  " ).append( XmlHandler.addTagValue( "status_sequence", statusSequence ) );
 
     if ( result != null ) {
       String resultXML = sendResultXmlWithStatus ? result.getXml() : result.getBasicXml();
@@ -137,6 +140,7 @@ public class HopServerPipelineStatus {
 
     firstLoggingLineNr = Const.toInt( XmlHandler.getTagValue( pipelineStatusNode, "first_log_line_nr" ), 0 );
     lastLoggingLineNr = Const.toInt( XmlHandler.getTagValue( pipelineStatusNode, "last_log_line_nr" ), 0 );
+    statusSequence = Const.toLong( XmlHandler.getTagValue( pipelineStatusNode, "status_sequence" ), 0L );
 
     String loggingString64 = XmlHandler.getTagValue( pipelineStatusNode, "logging_string" );
 
@@ -353,6 +357,20 @@ public class HopServerPipelineStatus {
     this.lastLoggingLineNr = lastLoggingLineNr;
   }
 
+  /**
+   * @return The sequence number of the status, pass it as the since parameter to only get the transforms which changed
+   */
+  public long getStatusSequence() {
+    return statusSequence;
+  }
+
+  /**
+   * @param statusSequence The sequence number of the status
+   */
+  public void setStatusSequence( long statusSequence ) {
+    this.statusSequence = statusSequence;
+  }
+
   /**
    * @return the firstLoggingLineNr
    */
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www;
+
+import org.apache.hop.pipeline.transform.TransformStatus;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of the changes in the status of a pipeline between status requests. Every change gets
+ * a new sequence number so clients can ask for the transforms which changed since the status they
+ * already have.
+ */
+public class PipelineStatusTracker {
+
+  private long sequence;
+  private String pipelineFingerprint;
+  private final Map<String, String> fingerprints;
+  private final Map<String, Long> changes;
+
+  public PipelineStatusTracker() {
+    fingerprints = new HashMap<>();
+    changes = new HashMap<>();
+  }
+
+  /**
+   * Compare the current status with the previous one.
+   *
+   * @param pipelineFingerprint The pipeline level status: status description, paused, errors, ...
+   * @param transformStatuses   The current status of the transforms
+   * @return The sequence number of the current status
+   */
+  public synchronized long update( String pipelineFingerprint, Iterable<TransformStatus> transformStatuses ) {
+    boolean changed = !pipelineFingerprint.equals( this.pipelineFingerprint );
+    this.pipelineFingerprint = pipelineFingerprint;
+
+    Map<String, String> changedTransforms = new HashMap<>();
+    for ( TransformStatus transformStatus : transformStatuses ) {
+      String key = getKey( transformStatus );
+      String fingerprint = getFingerprint( transformStatus );
+      if ( !fingerprint.equals( fingerprints.get( key ) ) ) {
+        changedTransforms.put( key, fingerprint );
+      }
+    }
+
+    if ( changed || !changedTransforms.isEmpty() ) {
+      sequence++;
+      for ( Map.Entry<String, String> entry : changedTransforms.entrySet() ) {
+        fingerprints.put( entry.getKey(), entry.getValue() );
+        changes.put( entry.getKey(), sequence );
+      }
+    }
+    return sequence;
+  }
+
+  /**
+   * @param transformStatus The transform status
+   * @param since           The sequence number of the status the client has
+   * @return true if the transform changed after the given sequence number
+   */
+  public synchronized boolean isChangedSince( TransformStatus transformStatus, long since ) {
+    Long changed = changes.get( getKey( transformStatus ) );
+    return changed == null || changed > since;
+  }
+
+  /**
+   * @return The sequence number of the last change
+   */
+  public synchronized long getSequence() {
+    return sequence;
+  }
+
+  private static String getKey( TransformStatus transformStatus ) {
+    return transformStatus.getTransformName() + "." + transformStatus.getCopy();
+  }
+
+  /**
+   * The running time isn't part of the fingerprint: it changes with every request for a running transform.
+   */
+  private static String getFingerprint( TransformStatus transformStatus ) {
+    return transformStatus.getStatusDescription()
+      + "|" + transformStatus.getLinesRead()
+      + "|" + transformStatus.getLinesWritten()
+      + "|" + transformStatus.getLinesInput()
+      + "|" + transformStatus.getLinesOutput()
+      + "|" + transformStatus.getLinesUpdated()
+      + "|" + transformStatus.getLinesRejected()
+      + "|" + transformStatus.getErrors()
+      + "|" + transformStatus.getInputBufferSize()
+      + "|" + transformStatus.getOutputBufferSize()
+      + "|" + transformStatus.isStopped()
+      + "|" + transformStatus.isPaused();
+  }
+}
@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.annotations.HopServerServlet;
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.util.Utils;
+import org.apache.hop.i18n.BaseMessages;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engine.IEngineComponent;
+import org.apache.hop.pipeline.engine.IPipelineEngine;
+import org.apache.hop.pipeline.transform.RowAdapter;
+import org.apache.hop.pipeline.transform.TransformStatus;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the status of a pipeline as server-sent events until the pipeline finishes or the client
+ * disconnects. Instead of the full status document only the transforms which changed since the
+ * previous event are sent. Optionally the rows passing a transform are pushed as they occur.
+ * <p>
+ * Events:
+ * <ul>
+ *   <li>status : the pipeline status and the metrics of the transforms which changed</li>
+ *   <li>fields : the names of the sniffed fields, sent before the first rows</li>
+ *   <li>rows : the sniffed rows as arrays of strings and the number of rows dropped because the
+ *   client couldn't keep up</li>
+ *   <li>finished : the pipeline has finished</li>
+ * </ul>
+ */
+@HopServerServlet( id = "streamPipelineStatus", name = "Stream the status and sniffed rows of a pipeline" )
+public class StreamPipelineStatusServlet extends BaseHttpServlet implements IHopServerPlugin {
+  private static final Class<?> PKG = GetPipelineStatusServlet.class; // For Translator
+
+  private static final long serialVersionUID = -4126358397160853311L;
+  public static final String CONTEXT_PATH = "/hop/streamPipelineStatus";
+
+  public static final int DEFAULT_INTERVAL_MS = 1000;
+  public static final int MIN_INTERVAL_MS = 100;
+
+  /**
+   * Send a comment line after this period without events so the client can tell the connection is alive
+   */
+  private static final long KEEP_ALIVE_MS = 15000;
+
+  /**
+   * The maximum number of sniffed rows waiting to be sent, more rows are dropped
+   */
+  private static final int MAX_PENDING_ROWS = 1000;
+
+  public StreamPipelineStatusServlet() {
+  }
+
+  public StreamPipelineStatusServlet( PipelineMap pipelineMap ) {
+    super( pipelineMap );
+  }
+
+  public void doGet( HttpServletRequest request, HttpServletResponse response ) throws ServletException,
+    IOException {
+    if ( isJettyMode() && !request.getContextPath().startsWith( CONTEXT_PATH ) ) {
+      return;
+    }
+
+    if ( log.isDebug() ) {
+      logDebug( BaseMessages.getString( PKG, "PipelineStatusServlet.Log.PipelineStatusRequested" ) );
+    }
+
+    String pipelineName = request.getParameter( "name" );
+    String id = request.getParameter( "id" );
+    int interval = Math.max( MIN_INTERVAL_MS, Const.toInt( request.getParameter( "interval" ), DEFAULT_INTERVAL_MS ) );
+    String transformName = request.getParameter( "transform" );
+    int copyNr = Const.toInt( request.getParameter( "copynr" ), 0 );
+    int maxLines = Const.toInt( request.getParameter( "lines" ), 0 );
+    String type = Const.NVL( request.getParameter( "type" ), SniffTransformServlet.TYPE_OUTPUT );
+
+    // ID is optional...
+    //
+    IPipelineEngine<PipelineMeta> pipeline;
+    if ( Utils.isEmpty( id ) ) {
+      HopServerObjectEntry entry = getPipelineMap().getFirstServerObjectEntry( pipelineName );
+      pipeline = entry == null ? null : getPipelineMap().getPipeline( entry );
+    } else {
+      pipeline = getPipelineMap().getPipeline( new HopServerObjectEntry( pipelineName, id ) );
+    }
+
+    if ( pipeline == null ) {
+      response.sendError( HttpServletResponse.SC_NOT_FOUND, BaseMessages.getString(
+        PKG, "PipelineStatusServlet.Log.CoundNotFindSpecPipeline", pipelineName ) );
+      return;
+    }
+
+    // Find the transform to sniff, if any
+    //
+    IEngineComponent component = null;
+    if ( !Utils.isEmpty( transformName ) ) {
+      for ( IEngineComponent componentCopy : pipeline.getComponentCopies( transformName ) ) {
+        if ( componentCopy.getCopyNr() == copyNr ) {
+          component = componentCopy;
+        }
+      }
+      if ( component == null ) {
+        response.sendError( HttpServletResponse.SC_NOT_FOUND, BaseMessages.getString(
+          PKG, "SniffTransformServlet.Log.CoundNotFindSpecTransform", transformName ) );
+        return;
+      }
+    }
+
+    response.setStatus( HttpServletResponse.SC_OK );
+    response.setContentType( "text/event-stream" );
+    response.setCharacterEncoding( Const.XML_ENCODING );
+    response.setHeader( "Cache-Control", "no-cache" );
+
+    PrintWriter out = response.getWriter();
+
+    RowSniffer sniffer = null;
+    if ( component != null ) {
+      sniffer = new RowSniffer( SniffTransformServlet.TYPE_INPUT.equalsIgnoreCase( type ), maxLines );
+      component.addRowListener( sniffer );
+    }
+
+    try {
+      streamEvents( out, pipeline, sniffer, interval );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if ( sniffer != null ) {
+        component.removeRowListener( sniffer );
+      }
+    }
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private void streamEvents( PrintWriter out, IPipelineEngine<PipelineMeta> pipeline, RowSniffer sniffer, int interval )
+    throws InterruptedException {
+    Map<String, String> lastStatus = new HashMap<>();
+    String lastPipelineStatus = null;
+    boolean fieldsSent = false;
+    long nextStatusTime = 0;
+    long lastEventTime = System.currentTimeMillis();
+    List<Object[]> rows = new ArrayList<>();
+
+    while ( true ) {
+      boolean done = pipeline.isFinished() || pipeline.isStopped();
+      boolean sent = false;
+
+      // Send the transforms which changed since the previous status event
+      //
+      long now = System.currentTimeMillis();
+      if ( now >= nextStatusTime || done ) {
+        JSONArray transforms = new JSONArray();
+        for ( IEngineComponent component : pipeline.getComponents() ) {
+          JSONObject transform = getTransformJson( new TransformStatus( component ) );
+          String key = component.getName() + "." + component.getCopyNr();
+          String json = transform.toJSONString();
+          if ( !json.equals( lastStatus.put( key, json ) ) ) {
+            transforms.add( transform );
+          }
+        }
+        String pipelineStatus = Const.NVL( pipeline.getStatusDescription(), "" );
+        if ( !transforms.isEmpty() || !pipelineStatus.equals( lastPipelineStatus ) ) {
+          JSONObject status = new JSONObject();
+          status.put( "status", pipelineStatus );
+          status.put( "errors", pipeline.getErrors() );
+          status.put( "transforms", transforms );
+          writeEvent( out, "status", status );
+          lastPipelineStatus = pipelineStatus;
+          sent = true;
+        }
+        nextStatusTime = now + interval;
+      }
+
+      // Push the sniffed rows which arrived in the meantime
+      //
+      if ( sniffer != null ) {
+        sniffer.drainTo( rows );
+        if ( !rows.isEmpty() ) {
+          IRowMeta rowMeta = sniffer.rowMeta;
+          if ( !fieldsSent ) {
+            writeEvent( out, "fields", getFieldsJson( rowMeta ) );
+            fieldsSent = true;
+          }
+          JSONObject event = new JSONObject();
+          event.put( "rows", getRowsJson( rowMeta, rows ) );
+          event.put( "dropped", sniffer.dropped.get() );
+          writeEvent( out, "rows", event );
+          rows.clear();
+          sent = true;
+        }
+      }
+
+      if ( done ) {
+        JSONObject finished = new JSONObject();
+        finished.put( "status", pipeline.getStatusDescription() );
+        finished.put( "errors", pipeline.getErrors() );
+        writeEvent( out, "finished", finished );
+        out.flush();
+        return;
+      }
+
+      now = System.currentTimeMillis();
+      if ( sent ) {
+        lastEventTime = now;
+      } else if ( now - lastEventTime > KEEP_ALIVE_MS ) {
+        out.print( ": keep-alive\n\n" );
+        lastEventTime = now;
+      }
+
+      // checkError() flushes and tells us if the client went away
+      //
+      if ( out.checkError() ) {
+        return;
+      }
+
+      long wait = Math.max( 1, nextStatusTime - System.currentTimeMillis() );
+      if ( sniffer != null ) {
+        sniffer.await( wait );
+      } else {
+        Thread.sleep( wait );
+      }
+    }
+  }
+
+  private static void writeEvent( PrintWriter out, String event, JSONObject data ) {
+    out.print( "event: " );
+    out.print( event );
+    out.print( "\ndata: " );
+    out.print( data.toJSONString() );
+    out.print( "\n\n" );
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private static JSONObject getTransformJson( TransformStatus status ) {
+    JSONObject transform = new JSONObject();
+    transform.put( "name", status.getTransformName() );
+    transform.put( "copy", status.getCopy() );
+    transform.put( "status", status.getStatusDescription() );
+    transform.put( "read", status.getLinesRead() );
+    transform.put( "written", status.getLinesWritten() );
+    transform.put( "input", status.getLinesInput() );
+    transform.put( "output", status.getLinesOutput() );
+    transform.put( "updated", status.getLinesUpdated() );
+    transform.put( "rejected", status.getLinesRejected() );
+    transform.put( "errors", status.getErrors() );
+    transform.put( "inputBuffer", status.getInputBufferSize() );
+    transform.put( "outputBuffer", status.getOutputBufferSize() );
+    transform.put( "seconds", status.getSeconds() );
+    return transform;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private static JSONObject getFieldsJson( IRowMeta rowMeta ) {
+    JSONArray fields = new JSONArray();
+    for ( IValueMeta valueMeta : rowMeta.getValueMetaList() ) {
+      fields.add( valueMeta.getName() );
+    }
+    JSONObject event = new JSONObject();
+    event.put( "fields", fields );
+    return event;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private static JSONArray getRowsJson( IRowMeta rowMeta, List<Object[]> rows ) {
+    JSONArray jsonRows = new JSONArray();
+    for ( Object[] row : rows ) {
+      JSONArray jsonRow = new JSONArray();
+      for ( int i = 0; i < rowMeta.size(); i++ ) {
+        try {
+          jsonRow.add( rowMeta.getValueMeta( i ).getString( row[ i ] ) );
+        } catch ( HopValueException e ) {
+          jsonRow.add( null );
+        }
+      }
+      jsonRows.add( jsonRow );
+    }
+    return jsonRows;
+  }
+
+  /**
+   * Collects the rows of a transform without ever blocking it. Rows the client can't keep up with are dropped.
+   */
+  private static class RowSniffer extends RowAdapter {
+    private final boolean input;
+    private final int maxLines;
+    private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>( MAX_PENDING_ROWS );
+    private final AtomicLong sniffed = new AtomicLong( 0 );
+    private final AtomicLong dropped = new AtomicLong( 0 );
+    private final List<Object[]> pending = new ArrayList<>();
+    private volatile IRowMeta rowMeta;
+
+    private RowSniffer( boolean input, int maxLines ) {
+      this.input = input;
+      this.maxLines = maxLines;
+    }
+
+    @Override
+    public void rowReadEvent( IRowMeta rowMeta, Object[] row ) {
+      if ( input ) {
+        sniff( rowMeta, row );
+      }
+    }
+
+    @Override
+    public void rowWrittenEvent( IRowMeta rowMeta, Object[] row ) {
+      if ( !input ) {
+        sniff( rowMeta, row );
+      }
+    }
+
+    private void sniff( IRowMeta rowMeta, Object[] row ) {
+      if ( maxLines > 0 && sniffed.get() >= maxLines ) {
+        return;
+      }
+      if ( this.rowMeta == null ) {
+        this.rowMeta = rowMeta;
+      }
+      if ( queue.offer( row ) ) {
+        sniffed.incrementAndGet();
+      } else {
+        dropped.incrementAndGet();
+      }
+    }
+
+    /**
+     * Wait until a row arrives or the time is up
+     */
+    private void await( long timeoutMs ) throws InterruptedException {
+      Object[] row = queue.poll( timeoutMs, TimeUnit.MILLISECONDS );
+      if ( row != null ) {
+        pending.add( row );
+      }
+    }
+
+    private void drainTo( List<Object[]> rows ) {
+      rows.addAll( pending );
+      pending.clear();
+      queue.drainTo( rows );
+    }
+  }
+
+  public String toString() {
+    return "Stream Pipeline Status";
+  }
+
+  public String getService() {
+    return CONTEXT_PATH + " (" + toString() + ")";
+  }
+
+  public String getContextPath() {
+    return CONTEXT_PATH;
+  }
+}
@@ -41,6 +41,9 @@ import org.apache.hop.pipeline.engine.IEngineComponent;
 import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
 import org.apache.hop.pipeline.transform.RowAdapter;
 import org.apache.hop.www.service.WebService;
+import org.apache.hop.www.service.WebServiceMetrics;
+import org.apache.hop.www.service.WebServicePipelineCache;
+import org.apache.hop.www.service.WebServicePipelinePool;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -49,7 +52,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @HopServerServlet(id = "webService", name = "Output the content of a field in a transform")
 public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlugin {
@@ -60,6 +65,12 @@ public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlug
 
   public static final String CONTEXT_PATH = "/hop/webService";
 
+  private final transient WebServicePipelineCache pipelineCache = new WebServicePipelineCache();
+  private final transient WebServicePipelinePool pipelinePool = new WebServicePipelinePool(log);
+  private final transient Map<String, WebServiceMetrics> metrics = new ConcurrentHashMap<>();
+  private final transient Map<String, String> serviceDefinitions = new ConcurrentHashMap<>();
+  private transient MultiMetadataProvider metadataProvider;
+
   public WebServiceServlet() {}
 
   public WebServiceServlet(PipelineMap pipelineMap) {
@@ -78,19 +89,7 @@ public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlug
     }
 
     IVariables variables = pipelineMap.getHopServerConfig().getVariables();
-
-    MultiMetadataProvider metadataProvider =
-        new MultiMetadataProvider(Encr.getEncoder(), new ArrayList<>(), variables);
-    metadataProvider.getProviders().add(HopMetadataUtil.getStandardHopMetadataProvider(variables));
-
-    String metadataFolder = pipelineMap.getHopServerConfig().getMetadataFolder();
-    if (StringUtils.isNotEmpty(metadataFolder)) {
-      // Get the metadata from the specified metadata folder...
-      //
-      metadataProvider
-          .getProviders()
-          .add(new JsonMetadataProvider(Encr.getEncoder(), metadataFolder, variables));
-    }
+    MultiMetadataProvider metadataProvider = getMetadataProvider(variables);
 
     String webServiceName = request.getParameter("service");
     if (StringUtils.isEmpty(webServiceName)) {
@@ -98,11 +97,17 @@ public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlug
           "Please specify a service parameter pointing to the name of the web service object");
     }
 
+    long startTime = System.currentTimeMillis();
+    long prepareTime = 0;
+    boolean pooled = false;
+    boolean error = true;
+
     try {
       IHopMetadataSerializer<WebService> serializer =
           metadataProvider.getSerializer(WebService.class);
       WebService webService = serializer.load(webServiceName);
       if (webService == null) {
+        forgetWebService(webServiceName);
         throw new HopException(
             "Unable to find web service '"
                 + webServiceName
@@ -110,6 +115,7 @@ public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlug
       }
 
       if (!webService.isEnabled()) {
+        forgetWebService(webServiceName);
         throw new HopException("Web service '" + webServiceName + "' is disabled.");
       }
 
@@ -117,6 +123,8 @@ public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlug
       String transformName = variables.resolve(webService.getTransformName());
       String fieldName = variables.resolve(webService.getFieldName());
       String contentType = variables.resolve(webService.getContentType());
+      int poolSize = Const.toInt(variables.resolve(webService.getPoolSize()), 0);
+      checkWebServiceChanged(webServiceName, filename + "|" + poolSize);
 
       if (StringUtils.isEmpty(contentType)) {
         response.setContentType("text/plain");
@@ -125,35 +133,28 @@ public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlug
       }
       response.setCharacterEncoding(Const.XML_ENCODING);
 
-      String serverObjectId = UUID.randomUUID().toString();
-      SimpleLoggingObject servletLoggingObject =
-          new SimpleLoggingObject(CONTEXT_PATH, LoggingObjectType.HOP_SERVER, null);
-      servletLoggingObject.setContainerObjectId(serverObjectId);
-
-      // Load and start the pipeline
-      // Output the data to the response output stream...
-      //
-      PipelineMeta pipelineMeta = new PipelineMeta(filename, metadataProvider, true, variables);
-      LocalPipelineEngine pipeline =
-          new LocalPipelineEngine(pipelineMeta, variables, servletLoggingObject);
-      pipeline.setContainerId(serverObjectId);
-
-      // Set all the other parameters as variables/parameters...
+      // Pipelines in the pool are prepared without parameters.
+      // Calls passing parameters or variables always get a new pipeline.
       //
-      String[] pipelineParameters = pipelineMeta.listParameters();
-      pipeline.copyParametersFromDefinitions(pipelineMeta);
-      for (String requestParameter : request.getParameterMap().keySet()) {
-        if ("service".equals(requestParameter)) {
-          continue;
-        }
-        String requestParameterValue = request.getParameter(requestParameter);
-        if (Const.indexOfString(requestParameter, pipelineParameters) < 0) {
-          pipeline.setVariable(requestParameter, Const.NVL(requestParameterValue, ""));
-        } else {
-          pipeline.setParameterValue(requestParameter, Const.NVL(requestParameterValue, ""));
-        }
+      WebServicePipelinePool.PreparedPipeline prepared = null;
+      boolean usePool = poolSize > 0 && request.getParameterMap().size() == 1;
+      if (usePool) {
+        prepared =
+            pipelinePool.take(
+                webServiceName, filename, pipelineCache.getLastModified(filename));
+        pooled = prepared != null;
+      }
+      if (prepared == null) {
+        prepared = preparePipeline(filename, request, metadataProvider, variables);
       }
-      pipeline.activateParameters(pipeline);
+      if (usePool) {
+        pipelinePool.fill(
+            webServiceName,
+            poolSize,
+            () -> preparePipeline(filename, null, metadataProvider, variables));
+      }
+      PipelineMeta pipelineMeta = prepared.getPipelineMeta();
+      LocalPipelineEngine pipeline = prepared.getPipeline();
 
       // See if we need to add this to the status map...
       //
@@ -166,11 +167,13 @@ public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlug
                 pipelineExecutionConfiguration,
                 new SerializableMetadataProvider(metadataProvider));
         getPipelineMap()
-            .addPipeline(pipelineMeta.getName(), serverObjectId, pipeline, pipelineConfiguration);
+            .addPipeline(
+                pipelineMeta.getName(),
+                prepared.getServerObjectId(),
+                pipeline,
+                pipelineConfiguration);
       }
-
-      // Allocate the threads...
-      pipeline.prepareExecution();
+      prepareTime = System.currentTimeMillis() - startTime;
 
       final OutputStream outputStream = response.getOutputStream();
 
@@ -204,12 +207,139 @@ public class WebServiceServlet extends BaseHttpServlet implements IHopServerPlug
       pipeline.waitUntilFinished();
 
       response.setStatus(HttpServletResponse.SC_OK);
+      error = false;
 
     } catch (Exception e) {
       throw new ServletException("Error producing web service output", e);
+    } finally {
+      WebServiceMetrics serviceMetrics =
+          metrics.computeIfAbsent(webServiceName, WebServiceMetrics::new);
+      serviceMetrics.addCall(
+          prepareTime, System.currentTimeMillis() - startTime, pooled, error);
+      if (log.isDetailed()) {
+        logDetailed(serviceMetrics.toString());
+      }
     }
   }
 
+  /**
+   * Load the pipeline of a web service and prepare it for execution.
+   *
+   * @param filename The pipeline filename
+   * @param request The request to take the parameters and variables from or null to use the
+   *     defaults
+   * @param metadataProvider The metadata provider to use
+   * @param variables The variables of the server
+   * @return The prepared pipeline
+   * @throws HopException In case the pipeline can't be loaded or prepared
+   */
+  private WebServicePipelinePool.PreparedPipeline preparePipeline(
+      String filename,
+      HttpServletRequest request,
+      MultiMetadataProvider metadataProvider,
+      IVariables variables)
+      throws HopException {
+    String serverObjectId = UUID.randomUUID().toString();
+    SimpleLoggingObject servletLoggingObject =
+        new SimpleLoggingObject(CONTEXT_PATH, LoggingObjectType.HOP_SERVER, null);
+    servletLoggingObject.setContainerObjectId(serverObjectId);
+
+    // Load the pipeline, the parsed pipeline is cached until the file changes
+    //
+    long lastModified = pipelineCache.getLastModified(filename);
+    PipelineMeta pipelineMeta = pipelineCache.getPipelineMeta(filename, metadataProvider, variables);
+    LocalPipelineEngine pipeline =
+        new LocalPipelineEngine(pipelineMeta, variables, servletLoggingObject);
+    pipeline.setContainerId(serverObjectId);
+
+    // Set all the other parameters as variables/parameters...
+    //
+    String[] pipelineParameters = pipelineMeta.listParameters();
+    pipeline.copyParametersFromDefinitions(pipelineMeta);
+    if (request != null) {
+      for (String requestParameter : request.getParameterMap().keySet()) {
+        if ("service".equals(requestParameter)) {
+          continue;
+        }
+        String requestParameterValue = request.getParameter(requestParameter);
+        if (Const.indexOfString(requestParameter, pipelineParameters) < 0) {
+          pipeline.setVariable(requestParameter, Const.NVL(requestParameterValue, ""));
+        } else {
+          pipeline.setParameterValue(requestParameter, Const.NVL(requestParameterValue, ""));
+        }
+      }
+    }
+    pipeline.activateParameters(pipeline);
+
+    // Allocate the threads...
+    pipeline.prepareExecution();
+
+    return new WebServicePipelinePool.PreparedPipeline(
+        pipeline, pipelineMeta, serverObjectId, filename, lastModified);
+  }
+
+  /**
+   * The pipelines in the pool were prepared for the previous definition of the web service. When
+   * the pipeline file or the pool size changes they are disposed of.
+   *
+   * @param webServiceName The name of the web service
+   * @param definition The resolved pipeline filename and pool size of the web service
+   */
+  private void checkWebServiceChanged(String webServiceName, String definition) {
+    String previousDefinition = serviceDefinitions.put(webServiceName, definition);
+    if (previousDefinition != null && !previousDefinition.equals(definition)) {
+      pipelinePool.clear(webServiceName);
+      pipelineCache.clear();
+    }
+  }
+
+  /**
+   * Dispose of the prepared pipelines of a web service which was removed or disabled
+   *
+   * @param webServiceName The name of the web service
+   */
+  private void forgetWebService(String webServiceName) {
+    if (serviceDefinitions.remove(webServiceName) != null) {
+      pipelinePool.clear(webServiceName);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    pipelinePool.shutdown();
+    pipelineCache.clear();
+    serviceDefinitions.clear();
+    super.destroy();
+  }
+
+  private synchronized MultiMetadataProvider getMetadataProvider(IVariables variables) {
+    if (metadataProvider == null) {
+      metadataProvider =
+          new MultiMetadataProvider(Encr.getEncoder(), new ArrayList<>(), variables);
+      metadataProvider
+          .getProviders()
+          .add(HopMetadataUtil.getStandardHopMetadataProvider(variables));
+
+      String metadataFolder = pipelineMap.getHopServerConfig().getMetadataFolder();
+      if (StringUtils.isNotEmpty(metadataFolder)) {
+        // Get the metadata from the specified metadata folder...
+        //
+        metadataProvider
+            .getProviders()
+            .add(new JsonMetadataProvider(Encr.getEncoder(), metadataFolder, variables));
+      }
+    }
+    return metadataProvider;
+  }
+
+  /**
+   * @param webServiceName The name of the web service
+   * @return The call and latency metrics of the web service or null if it wasn't called yet
+   */
+  public WebServiceMetrics getMetrics(String webServiceName) {
+    return metrics.get(webServiceName);
+  }
+
   public String toString() {
     return "Web Service Servlet";
   }
@@ -36,6 +36,7 @@ public class WebService extends HopMetadataBase implements IHopMetadata {
   @HopMetadataProperty private String fieldName;
   @HopMetadataProperty private String contentType;
   @HopMetadataProperty private boolean listingStatus;
+  @HopMetadataProperty private String poolSize;
 
   public WebService() {
   }
@@ -145,4 +146,20 @@ public class WebService extends HopMetadataBase implements IHopMetadata {
   public void setListingStatus( boolean listingStatus ) {
     this.listingStatus = listingStatus;
   }
+
+  /**
+   * Gets poolSize
+   *
+   * @return value of poolSize
+   */
+  public String getPoolSize() {
+    return poolSize;
+  }
+
+  /**
+   * @param poolSize The number of prepared pipelines to keep ready for calls without parameters
+   */
+  public void setPoolSize( String poolSize ) {
+    this.poolSize = poolSize;
+  }
 }
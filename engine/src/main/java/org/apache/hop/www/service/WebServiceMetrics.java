@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.hop.www.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Keeps track of the number of calls and the latency of a web service */
+public class WebServiceMetrics {
+
+  private final String serviceName;
+  private final AtomicLong calls;
+  private final AtomicLong pooledCalls;
+  private final AtomicLong errors;
+  private final AtomicLong totalPrepareTimeMs;
+  private final AtomicLong totalTimeMs;
+  private final AtomicLong maxTimeMs;
+
+  public WebServiceMetrics(String serviceName) {
+    this.serviceName = serviceName;
+    this.calls = new AtomicLong(0);
+    this.pooledCalls = new AtomicLong(0);
+    this.errors = new AtomicLong(0);
+    this.totalPrepareTimeMs = new AtomicLong(0);
+    this.totalTimeMs = new AtomicLong(0);
+    this.maxTimeMs = new AtomicLong(0);
+  }
+
+  /**
+   * Register a call of the web service
+   *
+   * @param prepareTimeMs The time it took before the pipeline was ready to start
+   * @param timeMs The total time it took to handle the call
+   * @param pooled true if a prepared pipeline from the pool was used
+   * @param error true if the call failed
+   */
+  public void addCall(long prepareTimeMs, long timeMs, boolean pooled, boolean error) {
+    calls.incrementAndGet();
+    if (pooled) {
+      pooledCalls.incrementAndGet();
+    }
+    if (error) {
+      errors.incrementAndGet();
+    }
+    totalPrepareTimeMs.addAndGet(prepareTimeMs);
+    totalTimeMs.addAndGet(timeMs);
+    maxTimeMs.accumulateAndGet(timeMs, Math::max);
+  }
+
+  /** @return The average time it took before the pipeline was ready to start */
+  public long getAveragePrepareTimeMs() {
+    long count = calls.get();
+    return count == 0 ? 0 : totalPrepareTimeMs.get() / count;
+  }
+
+  /** @return The average time it took to handle a call */
+  public long getAverageTimeMs() {
+    long count = calls.get();
+    return count == 0 ? 0 : totalTimeMs.get() / count;
+  }
+
+  @Override
+  public String toString() {
+    return "Web service '"
+        + serviceName
+        + "' : calls="
+        + calls.get()
+        + ", pooled="
+        + pooledCalls.get()
+        + ", errors="
+        + errors.get()
+        + ", average prepare time="
+        + getAveragePrepareTimeMs()
+        + "ms, average time="
+        + getAverageTimeMs()
+        + "ms, maximum time="
+        + maxTimeMs.get()
+        + "ms";
+  }
+
+  /**
+   * Gets serviceName
+   *
+   * @return value of serviceName
+   */
+  public String getServiceName() {
+    return serviceName;
+  }
+
+  /**
+   * Gets calls
+   *
+   * @return value of calls
+   */
+  public long getCalls() {
+    return calls.get();
+  }
+
+  /**
+   * Gets pooledCalls
+   *
+   * @return value of pooledCalls
+   */
+  public long getPooledCalls() {
+    return pooledCalls.get();
+  }
+
+  /**
+   * Gets errors
+   *
+   * @return value of errors
+   */
+  public long getErrors() {
+    return errors.get();
+  }
+
+  /**
+   * Gets totalPrepareTimeMs
+   *
+   * @return value of totalPrepareTimeMs
+   */
+  public long getTotalPrepareTimeMs() {
+    return totalPrepareTimeMs.get();
+  }
+
+  /**
+   * Gets totalTimeMs
+   *
+   * @return value of totalTimeMs
+   */
+  public long getTotalTimeMs() {
+    return totalTimeMs.get();
+  }
+
+  /**
+   * Gets maxTimeMs
+   *
+   * @return value of maxTimeMs
+   */
+  public long getMaxTimeMs() {
+    return maxTimeMs.get();
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.hop.www.service;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.vfs.HopVfs;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.pipeline.PipelineMeta;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the pipelines of the web services loaded so they don't have to be parsed for every call.
+ * A pipeline is loaded again when its file changes.
+ */
+public class WebServicePipelineCache {
+
+  private final Map<String, CachedPipeline> cache;
+
+  public WebServicePipelineCache() {
+    cache = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Get a copy of the pipeline in the given file. Every caller gets its own copy to execute.
+   *
+   * @param filename The pipeline filename
+   * @param metadataProvider The metadata provider to load the pipeline with
+   * @param variables The variables to load the pipeline with
+   * @return A copy of the cached pipeline metadata
+   * @throws HopException In case the pipeline can't be loaded
+   */
+  public PipelineMeta getPipelineMeta(
+      String filename, IHopMetadataProvider metadataProvider, IVariables variables)
+      throws HopException {
+    long lastModified = getLastModified(filename);
+    CachedPipeline cachedPipeline = cache.get(filename);
+    if (cachedPipeline == null || cachedPipeline.lastModified != lastModified) {
+      PipelineMeta pipelineMeta = new PipelineMeta(filename, metadataProvider, true, variables);
+      cachedPipeline = new CachedPipeline(pipelineMeta, lastModified);
+      cache.put(filename, cachedPipeline);
+    }
+    return (PipelineMeta) cachedPipeline.pipelineMeta.realClone(false);
+  }
+
+  /**
+   * @param filename The pipeline filename
+   * @return The last modification time of the file, used to see if a cached pipeline is still
+   *     valid
+   * @throws HopException In case the file can't be read
+   */
+  public long getLastModified(String filename) throws HopException {
+    try {
+      return HopVfs.getFileObject(filename).getContent().getLastModifiedTime();
+    } catch (Exception e) {
+      throw new HopException("Unable to get the last modification time of file '" + filename + "'", e);
+    }
+  }
+
+  /** Remove all the cached pipelines */
+  public void clear() {
+    cache.clear();
+  }
+
+  private static class CachedPipeline {
+    private final PipelineMeta pipelineMeta;
+    private final long lastModified;
+
+    private CachedPipeline(PipelineMeta pipelineMeta, long lastModified) {
+      this.pipelineMeta = pipelineMeta;
+      this.lastModified = lastModified;
+    }
+  }
+}
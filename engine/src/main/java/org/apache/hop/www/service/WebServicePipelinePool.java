@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.hop.www.service;
+
+import org.apache.hop.core.logging.ILogChannel;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engine.IEngineComponent;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.transform.ITransform;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a number of prepared pipelines per web service ready to start. After a pipeline is taken
+ * from the pool a new one is prepared in the background. The prepared pipelines of a web service
+ * which isn't called for a while are disposed of.
+ */
+public class WebServicePipelinePool {
+
+  /** The time after which the prepared pipelines of a web service which isn't called are disposed */
+  public static final long DEFAULT_IDLE_TIMEOUT_MS = 10 * 60 * 1000L;
+
+  private final ILogChannel log;
+  private final Map<String, Pool> pools;
+  private final ScheduledExecutorService executor;
+  private final long idleTimeoutMs;
+
+  public WebServicePipelinePool(ILogChannel log) {
+    this(log, DEFAULT_IDLE_TIMEOUT_MS);
+  }
+
+  /**
+   * @param log The log channel to report preparation errors to
+   * @param idleTimeoutMs The time after which the prepared pipelines of a web service which isn't
+   *     called are disposed, 0 or less to keep them until the pool is cleared
+   */
+  public WebServicePipelinePool(ILogChannel log, long idleTimeoutMs) {
+    this.log = log;
+    this.pools = new ConcurrentHashMap<>();
+    this.idleTimeoutMs = idleTimeoutMs;
+    this.executor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "Web service pipeline preparation");
+              thread.setDaemon(true);
+              return thread;
+            });
+    if (idleTimeoutMs > 0) {
+      executor.scheduleWithFixedDelay(
+          () -> evictIdle(System.currentTimeMillis()),
+          idleTimeoutMs,
+          idleTimeoutMs,
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Take a prepared pipeline from the pool of a web service. Pipelines prepared from another
+   * version of the pipeline file are disposed of.
+   *
+   * @param serviceName The name of the web service
+   * @param filename The pipeline filename of the web service
+   * @param lastModified The last modification time of the pipeline file
+   * @return A prepared pipeline or null if none is available
+   */
+  public PreparedPipeline take(String serviceName, String filename, long lastModified) {
+    Pool pool = pools.get(serviceName);
+    if (pool == null) {
+      return null;
+    }
+    pool.lastUsed = System.currentTimeMillis();
+    PreparedPipeline prepared = pool.queue.poll();
+    while (prepared != null) {
+      if (prepared.filename.equals(filename) && prepared.lastModified == lastModified) {
+        return prepared;
+      }
+      prepared.dispose();
+      prepared = pool.queue.poll();
+    }
+    return null;
+  }
+
+  /**
+   * Prepare pipelines in the background until the pool of the web service has the given size.
+   * Nothing is prepared anymore after the pool is shut down.
+   *
+   * @param serviceName The name of the web service
+   * @param size The number of prepared pipelines to keep
+   * @param preparer Prepares a new pipeline
+   */
+  public void fill(String serviceName, int size, Callable<PreparedPipeline> preparer) {
+    while (!executor.isShutdown()) {
+      Pool pool = pools.computeIfAbsent(serviceName, name -> new Pool());
+      synchronized (pool) {
+        // An evicted or cleared pool is no longer in the map, take the new one
+        //
+        if (pool.closed) {
+          continue;
+        }
+        pool.lastUsed = System.currentTimeMillis();
+        while (pool.queue.size() + pool.pending.get() < size) {
+          pool.pending.incrementAndGet();
+          try {
+            executor.submit(() -> prepare(serviceName, pool, preparer));
+          } catch (RejectedExecutionException e) {
+            // Shut down in the mean time
+            //
+            pool.pending.decrementAndGet();
+            return;
+          }
+        }
+        return;
+      }
+    }
+  }
+
+  private void prepare(String serviceName, Pool pool, Callable<PreparedPipeline> preparer) {
+    try {
+      PreparedPipeline prepared = preparer.call();
+      if (!pool.offer(prepared)) {
+        prepared.dispose();
+      }
+    } catch (Exception e) {
+      log.logError("Error preparing a pipeline for web service '" + serviceName + "'", e);
+    } finally {
+      pool.pending.decrementAndGet();
+    }
+  }
+
+  /**
+   * Dispose of the prepared pipelines of the web services which weren't called since the idle
+   * timeout.
+   *
+   * @param now The current time in milliseconds
+   */
+  void evictIdle(long now) {
+    try {
+      for (Map.Entry<String, Pool> entry : pools.entrySet()) {
+        Pool pool = entry.getValue();
+        if (now - pool.lastUsed > idleTimeoutMs && pools.remove(entry.getKey(), pool)) {
+          pool.close();
+        }
+      }
+    } catch (Exception e) {
+      log.logError("Error disposing of idle web service pipelines", e);
+    }
+  }
+
+  /**
+   * Dispose of the prepared pipelines of a web service, for example when its definition changed.
+   *
+   * @param serviceName The name of the web service
+   */
+  public void clear(String serviceName) {
+    Pool pool = pools.remove(serviceName);
+    if (pool != null) {
+      pool.close();
+    }
+  }
+
+  /** Dispose of all the prepared pipelines */
+  public void clear() {
+    for (String serviceName : pools.keySet()) {
+      clear(serviceName);
+    }
+  }
+
+  /**
+   * Dispose of all the prepared pipelines and stop the background preparation. Pipelines which are
+   * being prepared are disposed of as soon as they are ready.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+    clear();
+  }
+
+  /**
+   * Used for junits in WebServicePipelinePoolTest
+   *
+   * @param serviceName The name of the web service
+   * @return The number of prepared pipelines in the pool of the web service
+   */
+  int size(String serviceName) {
+    Pool pool = pools.get(serviceName);
+    return pool == null ? 0 : pool.queue.size();
+  }
+
+  private static class Pool {
+    private final BlockingQueue<PreparedPipeline> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger(0);
+    private volatile long lastUsed = System.currentTimeMillis();
+    private boolean closed;
+
+    /** @return false if the pool was closed and the pipeline wasn't added */
+    private synchronized boolean offer(PreparedPipeline prepared) {
+      if (closed) {
+        return false;
+      }
+      return queue.offer(prepared);
+    }
+
+    private synchronized void close() {
+      closed = true;
+      PreparedPipeline prepared = queue.poll();
+      while (prepared != null) {
+        prepared.dispose();
+        prepared = queue.poll();
+      }
+    }
+  }
+
+  /** A pipeline of a web service which is prepared for execution */
+  public static class PreparedPipeline {
+    private final LocalPipelineEngine pipeline;
+    private final PipelineMeta pipelineMeta;
+    private final String serverObjectId;
+    private final String filename;
+    private final long lastModified;
+
+    public PreparedPipeline(
+        LocalPipelineEngine pipeline,
+        PipelineMeta pipelineMeta,
+        String serverObjectId,
+        String filename,
+        long lastModified) {
+      this.pipeline = pipeline;
+      this.pipelineMeta = pipelineMeta;
+      this.serverObjectId = serverObjectId;
+      this.filename = filename;
+      this.lastModified = lastModified;
+    }
+
+    /** Release the resources the transforms opened during initialization */
+    public void dispose() {
+      for (IEngineComponent component : pipeline.getComponents()) {
+        if (component instanceof ITransform) {
+          ((ITransform) component).dispose();
+        }
+      }
+      pipeline.cleanup();
+    }
+
+    /**
+     * Gets pipeline
+     *
+     * @return value of pipeline
+     */
+    public LocalPipelineEngine getPipeline() {
+      return pipeline;
+    }
+
+    /**
+     * Gets pipelineMeta
+     *
+     * @return value of pipelineMeta
+     */
+    public PipelineMeta getPipelineMeta() {
+      return pipelineMeta;
+    }
+
+    /**
+     * Gets serverObjectId
+     *
+     * @return value of serverObjectId
+     */
+    public String getServerObjectId() {
+      return serverObjectId;
+    }
+  }
+}
@@ -22,26 +22,39 @@ import org.apache.hop.core.logging.HopLogStore;
 import org.apache.hop.core.logging.ILogChannel;
 import org.apache.hop.pipeline.Pipeline;
 import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engine.EngineComponent.ComponentExecutionStatus;
+import org.apache.hop.pipeline.engine.IEngineComponent;
+import org.apache.hop.pipeline.engine.IPipelineEngine;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.owasp.encoder.Encode;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(PowerMockRunner.class)
@@ -109,4 +122,89 @@ public class GetPipelineStatusServletTest {
     PowerMockito.verifyStatic(atLeastOnce());
     Encode.forHtml(anyString());
   }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGetPipelineStatusServletSendsChangedTransformsOnly() throws Exception {
+    HopLogStore.init();
+    IPipelineEngine<PipelineMeta> mockPipeline = mock(IPipelineEngine.class);
+    ILogChannel mockChannelInterface = mock(ILogChannel.class);
+    IEngineComponent componentA = mockComponent("A");
+    IEngineComponent componentB = mockComponent("B");
+    when(mockPipelineMap.getPipeline(any(HopServerObjectEntry.class))).thenReturn(mockPipeline);
+    when(mockPipeline.getLogChannel()).thenReturn(mockChannelInterface);
+    when(mockPipeline.getStatusDescription()).thenReturn("Running");
+    when(mockPipeline.getComponents()).thenReturn(Arrays.asList(componentA, componentB));
+
+    HttpServletResponse firstResponse = mock(HttpServletResponse.class);
+    String firstXml = getStatusXml(null, null, firstResponse);
+    assertTrue(firstXml.contains("<transformName>A</transformName>"));
+    assertTrue(firstXml.contains("<transformName>B</transformName>"));
+    assertTrue(firstXml.contains("<status_sequence>1</status_sequence>"));
+
+    // Only A changes
+    //
+    when(componentA.getLinesWritten()).thenReturn(10L);
+    HttpServletResponse secondResponse = mock(HttpServletResponse.class);
+    String secondXml = getStatusXml("1", null, secondResponse);
+    assertTrue(secondXml.contains("<transformName>A</transformName>"));
+    assertFalse(secondXml.contains("<transformName>B</transformName>"));
+    assertTrue(secondXml.contains("<status_sequence>2</status_sequence>"));
+
+    // Nothing changed since the second response
+    //
+    ArgumentCaptor<String> eTag = ArgumentCaptor.forClass(String.class);
+    verify(secondResponse).setHeader(eq("ETag"), eTag.capture());
+    HttpServletResponse thirdResponse = mock(HttpServletResponse.class);
+    getStatusXml("2", eTag.getValue(), thirdResponse);
+    verify(thirdResponse).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    verify(thirdResponse, never()).getOutputStream();
+
+    // The running time of a transform isn't a change
+    //
+    when(componentA.getExecutionDuration()).thenReturn(5000L);
+    HttpServletResponse fourthResponse = mock(HttpServletResponse.class);
+    getStatusXml("2", eTag.getValue(), fourthResponse);
+    verify(fourthResponse).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+    // Other log lines give another response
+    //
+    HttpServletResponse fifthResponse = mock(HttpServletResponse.class);
+    String fifthXml = getStatusXml("2", eTag.getValue(), "5", fifthResponse);
+    verify(fifthResponse, never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    assertTrue(fifthXml.contains("<first_log_line_nr>5</first_log_line_nr>"));
+  }
+
+  private IEngineComponent mockComponent(String name) {
+    IEngineComponent component = mock(IEngineComponent.class);
+    when(component.getName()).thenReturn(name);
+    when(component.getStatus()).thenReturn(ComponentExecutionStatus.STATUS_RUNNING);
+    return component;
+  }
+
+  private String getStatusXml(String since, String eTag, HttpServletResponse response)
+      throws Exception {
+    return getStatusXml(since, eTag, null, response);
+  }
+
+  private String getStatusXml(
+      String since, String eTag, String from, HttpServletResponse response) throws Exception {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getContextPath()).thenReturn(GetPipelineStatusServlet.CONTEXT_PATH);
+    when(request.getParameter("name")).thenReturn("test");
+    when(request.getParameter("id")).thenReturn("id");
+    when(request.getParameter("xml")).thenReturn("Y");
+    when(request.getParameter(GetPipelineStatusServlet.SINCE)).thenReturn(since);
+    when(request.getParameter("from")).thenReturn(from);
+    when(request.getHeader("If-None-Match")).thenReturn(eTag);
+    ServletOutputStream outputStream = mock(ServletOutputStream.class);
+    when(response.getOutputStream()).thenReturn(outputStream);
+
+    getPipelineStatusServlet.doGet(request, response);
+
+    ArgumentCaptor<byte[]> data = ArgumentCaptor.forClass(byte[].class);
+    verify(outputStream, atLeast(0)).write(data.capture());
+    List<byte[]> writes = data.getAllValues();
+    return writes.isEmpty() ? "" : new String(writes.get(writes.size() - 1), StandardCharsets.UTF_8);
+  }
 }
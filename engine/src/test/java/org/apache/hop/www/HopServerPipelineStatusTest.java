@@ -91,7 +91,7 @@ public class HopServerPipelineStatusTest {
   public void testSerialization() throws HopException {
     // TODO Add TransformStatusList
     List<String> attributes = Arrays.asList( "PipelineName", "Id", "StatusDescription", "ErrorDescription",
-      "LogDate", "Paused", "FirstLoggingLineNr", "LastLoggingLineNr", "LoggingString" );
+      "LogDate", "Paused", "FirstLoggingLineNr", "LastLoggingLineNr", "StatusSequence", "LoggingString" );
     Map<String, IFieldLoadSaveValidator<?>> attributeMap = new HashMap<>();
     attributeMap.put( "LoggingString", new LoggingStringLoadSaveValidator() );
 
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www;
+
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engine.IEngineComponent;
+import org.apache.hop.pipeline.engine.IPipelineEngine;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StreamPipelineStatusServletTest {
+  private PipelineMap mockPipelineMap;
+
+  private StreamPipelineStatusServlet servlet;
+
+  @Before
+  public void setup() {
+    mockPipelineMap = mock( PipelineMap.class );
+    servlet = new StreamPipelineStatusServlet( mockPipelineMap );
+  }
+
+  @Test
+  public void testPipelineNotFound() throws Exception {
+    HttpServletRequest mockHttpServletRequest = mock( HttpServletRequest.class );
+    HttpServletResponse mockHttpServletResponse = mock( HttpServletResponse.class );
+    when( mockHttpServletRequest.getContextPath() ).thenReturn( StreamPipelineStatusServlet.CONTEXT_PATH );
+    when( mockHttpServletRequest.getParameter( "name" ) ).thenReturn( "missing" );
+
+    servlet.doGet( mockHttpServletRequest, mockHttpServletResponse );
+
+    verify( mockHttpServletResponse ).sendError( eq( HttpServletResponse.SC_NOT_FOUND ), anyString() );
+  }
+
+  @Test
+  @SuppressWarnings( "unchecked" )
+  public void testStreamFinishedPipeline() throws Exception {
+    HttpServletRequest mockHttpServletRequest = mock( HttpServletRequest.class );
+    HttpServletResponse mockHttpServletResponse = mock( HttpServletResponse.class );
+    IPipelineEngine<PipelineMeta> mockPipeline = mock( IPipelineEngine.class );
+    IEngineComponent mockComponent = mock( IEngineComponent.class );
+    StringWriter out = new StringWriter();
+
+    when( mockHttpServletRequest.getContextPath() ).thenReturn( StreamPipelineStatusServlet.CONTEXT_PATH );
+    when( mockHttpServletRequest.getParameter( "name" ) ).thenReturn( "test" );
+    when( mockHttpServletRequest.getParameter( "id" ) ).thenReturn( "id" );
+    when( mockHttpServletResponse.getWriter() ).thenReturn( new PrintWriter( out ) );
+    when( mockPipelineMap.getPipeline( any( HopServerObjectEntry.class ) ) ).thenReturn( mockPipeline );
+    when( mockPipeline.isFinished() ).thenReturn( true );
+    when( mockPipeline.getStatusDescription() ).thenReturn( "Finished" );
+    when( mockPipeline.getComponents() ).thenReturn( Collections.singletonList( mockComponent ) );
+    when( mockComponent.getName() ).thenReturn( "transform" );
+    when( mockComponent.getLinesWritten() ).thenReturn( 42L );
+
+    servlet.doGet( mockHttpServletRequest, mockHttpServletResponse );
+
+    String events = out.toString();
+    assertTrue( events, events.contains( "event: status\ndata: " ) );
+    assertTrue( events, events.contains( "\"written\":42" ) );
+    assertTrue( events, events.contains( "event: finished\ndata: " ) );
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WebServiceMetricsTest {
+
+  @Test
+  public void testNoCalls() {
+    WebServiceMetrics metrics = new WebServiceMetrics("service");
+    assertEquals("service", metrics.getServiceName());
+    assertEquals(0, metrics.getCalls());
+    assertEquals(0, metrics.getAveragePrepareTimeMs());
+    assertEquals(0, metrics.getAverageTimeMs());
+    assertEquals(0, metrics.getMaxTimeMs());
+  }
+
+  @Test
+  public void testAddCall() {
+    WebServiceMetrics metrics = new WebServiceMetrics("service");
+    metrics.addCall(10, 100, false, false);
+    metrics.addCall(2, 40, true, false);
+    metrics.addCall(0, 10, false, true);
+
+    assertEquals(3, metrics.getCalls());
+    assertEquals(1, metrics.getPooledCalls());
+    assertEquals(1, metrics.getErrors());
+    assertEquals(12, metrics.getTotalPrepareTimeMs());
+    assertEquals(150, metrics.getTotalTimeMs());
+    assertEquals(4, metrics.getAveragePrepareTimeMs());
+    assertEquals(50, metrics.getAverageTimeMs());
+    assertEquals(100, metrics.getMaxTimeMs());
+
+    String string = metrics.toString();
+    assertTrue(string, string.contains("'service'"));
+    assertTrue(string, string.contains("calls=3"));
+    assertTrue(string, string.contains("maximum time=100ms"));
+  }
+
+  @Test
+  public void testConcurrentCalls() throws Exception {
+    WebServiceMetrics metrics = new WebServiceMetrics("service");
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      final long time = t + 1;
+      threads[t] =
+          new Thread(
+              () -> {
+                for (int i = 0; i < 1000; i++) {
+                  metrics.addCall(1, time, i % 2 == 0, false);
+                }
+              });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(4000, metrics.getCalls());
+    assertEquals(2000, metrics.getPooledCalls());
+    assertEquals(4000, metrics.getTotalPrepareTimeMs());
+    assertEquals(10000, metrics.getTotalTimeMs());
+    assertEquals(4, metrics.getMaxTimeMs());
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www.service;
+
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.variables.IVariables;
+import org.apache.hop.core.variables.Variables;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.metadata.serializer.memory.MemoryMetadataProvider;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class WebServicePipelineCacheTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private IHopMetadataProvider metadataProvider;
+  private IVariables variables;
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    metadataProvider = new MemoryMetadataProvider();
+    variables = new Variables();
+    file = new File(folder.getRoot(), "service.hpl");
+  }
+
+  private void writePipeline(String description, long lastModified) throws Exception {
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    pipelineMeta.setName("service");
+    pipelineMeta.setDescription(description);
+    Files.write(file.toPath(), pipelineMeta.getXml().getBytes(StandardCharsets.UTF_8));
+    file.setLastModified(lastModified);
+  }
+
+  @Test
+  public void testEveryCallerGetsACopy() throws Exception {
+    writePipeline("first", 1000000L);
+    WebServicePipelineCache cache = new WebServicePipelineCache();
+
+    PipelineMeta first = cache.getPipelineMeta(file.getPath(), metadataProvider, variables);
+    PipelineMeta second = cache.getPipelineMeta(file.getPath(), metadataProvider, variables);
+    assertNotSame(first, second);
+    assertEquals("first", first.getDescription());
+    assertEquals("first", second.getDescription());
+  }
+
+  @Test
+  public void testChangedFileIsLoadedAgain() throws Exception {
+    writePipeline("first", 1000000L);
+    WebServicePipelineCache cache = new WebServicePipelineCache();
+    assertEquals(
+        "first",
+        cache.getPipelineMeta(file.getPath(), metadataProvider, variables).getDescription());
+
+    // Same modification time: the cached version is still used
+    //
+    writePipeline("second", 1000000L);
+    assertEquals(
+        "first",
+        cache.getPipelineMeta(file.getPath(), metadataProvider, variables).getDescription());
+
+    writePipeline("second", 2000000L);
+    assertEquals(2000000L, cache.getLastModified(file.getPath()));
+    assertEquals(
+        "second",
+        cache.getPipelineMeta(file.getPath(), metadataProvider, variables).getDescription());
+  }
+
+  @Test
+  public void testClear() throws Exception {
+    writePipeline("first", 1000000L);
+    WebServicePipelineCache cache = new WebServicePipelineCache();
+    cache.getPipelineMeta(file.getPath(), metadataProvider, variables);
+
+    writePipeline("second", 1000000L);
+    cache.clear();
+    assertEquals(
+        "second",
+        cache.getPipelineMeta(file.getPath(), metadataProvider, variables).getDescription());
+  }
+
+  @Test(expected = HopException.class)
+  public void testMissingFile() throws Exception {
+    new WebServicePipelineCache()
+        .getPipelineMeta(
+            new File(folder.getRoot(), "missing.hpl").getPath(), metadataProvider, variables);
+  }
+}
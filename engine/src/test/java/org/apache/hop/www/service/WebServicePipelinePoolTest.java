@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.www.service;
+
+import org.apache.hop.core.logging.ILogChannel;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class WebServicePipelinePoolTest {
+
+  private static final String SERVICE = "service";
+  private static final String FILENAME = "service.hpl";
+  private static final long IDLE_TIMEOUT_MS = 60000L;
+
+  private WebServicePipelinePool pool;
+  private List<LocalPipelineEngine> pipelines;
+
+  @Before
+  public void setUp() {
+    pool = new WebServicePipelinePool(mock(ILogChannel.class), IDLE_TIMEOUT_MS);
+    pipelines = new CopyOnWriteArrayList<>();
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  private WebServicePipelinePool.PreparedPipeline prepare(long lastModified) {
+    LocalPipelineEngine pipeline = mock(LocalPipelineEngine.class);
+    pipelines.add(pipeline);
+    return new WebServicePipelinePool.PreparedPipeline(
+        pipeline, null, "id", FILENAME, lastModified);
+  }
+
+  private void fillAndWait(String serviceName, int size) throws Exception {
+    pool.fill(serviceName, size, () -> prepare(1L));
+    long deadline = System.currentTimeMillis() + 10000L;
+    while (pool.size(serviceName) < size && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(size, pool.size(serviceName));
+  }
+
+  @Test
+  public void testTakeFromEmptyPool() {
+    assertNull(pool.take(SERVICE, FILENAME, 1L));
+  }
+
+  @Test
+  public void testFillAndTake() throws Exception {
+    fillAndWait(SERVICE, 2);
+    assertEquals(2, pipelines.size());
+
+    // The pool is already full
+    //
+    fillAndWait(SERVICE, 2);
+    assertEquals(2, pipelines.size());
+
+    WebServicePipelinePool.PreparedPipeline first = pool.take(SERVICE, FILENAME, 1L);
+    assertNotNull(first);
+    assertSame(pipelines.get(0), first.getPipeline());
+    assertNotNull(pool.take(SERVICE, FILENAME, 1L));
+    assertNull(pool.take(SERVICE, FILENAME, 1L));
+    for (LocalPipelineEngine pipeline : pipelines) {
+      verify(pipeline, never()).cleanup();
+    }
+  }
+
+  @Test
+  public void testChangedFileDisposesPreparedPipelines() throws Exception {
+    fillAndWait(SERVICE, 2);
+
+    assertNull(pool.take(SERVICE, FILENAME, 2L));
+    assertNull(pool.take(SERVICE, "other.hpl", 1L));
+    assertEquals(0, pool.size(SERVICE));
+    for (LocalPipelineEngine pipeline : pipelines) {
+      verify(pipeline).cleanup();
+    }
+  }
+
+  @Test
+  public void testIdlePoolIsEvicted() throws Exception {
+    fillAndWait(SERVICE, 1);
+    WebServicePipelinePool.PreparedPipeline taken = pool.take(SERVICE, FILENAME, 1L);
+    fillAndWait(SERVICE, 1);
+
+    // Still in use
+    //
+    pool.evictIdle(System.currentTimeMillis());
+    assertEquals(1, pool.size(SERVICE));
+
+    pool.evictIdle(System.currentTimeMillis() + IDLE_TIMEOUT_MS + 1);
+    assertEquals(0, pool.size(SERVICE));
+    verify(pipelines.get(1)).cleanup();
+
+    // The pipeline which was taken is in use and is left alone
+    //
+    verify(taken.getPipeline(), never()).cleanup();
+
+    // The web service is called again
+    //
+    assertNull(pool.take(SERVICE, FILENAME, 1L));
+    fillAndWait(SERVICE, 1);
+  }
+
+  @Test
+  public void testClear() throws Exception {
+    fillAndWait(SERVICE, 1);
+    fillAndWait("other", 1);
+
+    pool.clear(SERVICE);
+    verify(pipelines.get(0)).cleanup();
+    assertNull(pool.take(SERVICE, FILENAME, 1L));
+    assertEquals(1, pool.size("other"));
+
+    pool.clear();
+    verify(pipelines.get(1)).cleanup();
+    assertEquals(0, pool.size("other"));
+  }
+
+  @Test
+  public void testPipelinePreparedDuringShutdownIsDisposed() throws Exception {
+    CountDownLatch preparing = new CountDownLatch(1);
+    CountDownLatch shutDown = new CountDownLatch(1);
+    CountDownLatch disposed = new CountDownLatch(1);
+    LocalPipelineEngine pipeline = mock(LocalPipelineEngine.class);
+    doAnswer(
+            invocation -> {
+              disposed.countDown();
+              return null;
+            })
+        .when(pipeline)
+        .cleanup();
+
+    pool.fill(
+        SERVICE,
+        1,
+        () -> {
+          preparing.countDown();
+          // The shutdown interrupts this thread, keep preparing anyway
+          //
+          while (shutDown.getCount() > 0) {
+            Thread.yield();
+          }
+          return new WebServicePipelinePool.PreparedPipeline(pipeline, null, "id", FILENAME, 1L);
+        });
+    assertTrue(preparing.await(10, TimeUnit.SECONDS));
+    pool.shutdown();
+    shutDown.countDown();
+
+    assertTrue(disposed.await(10, TimeUnit.SECONDS));
+    assertEquals(0, pool.size(SERVICE));
+
+    // Nothing is prepared after a shutdown
+    //
+    pool.fill(SERVICE, 1, () -> prepare(1L));
+    Thread.sleep(100);
+    assertEquals(Collections.emptyList(), pipelines);
+    assertNull(pool.take(SERVICE, FILENAME, 1L));
+  }
+}
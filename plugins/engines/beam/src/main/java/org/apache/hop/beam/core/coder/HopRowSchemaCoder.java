@@ -0,0 +1,424 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.beam.core.coder;
+
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.CustomCoder;
+import org.apache.beam.sdk.util.VarInt;
+import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * A coder for rows of which the layout is known when the pipeline is converted. Only the value types are kept so
+ * every row is written as:
+ * <ul>
+ *   <li>the length of the row plus one as a varint, 0 for a null row</li>
+ *   <li>a mode byte: 0 when all values match their column type, 1 otherwise</li>
+ *   <li>in schema mode: a null bitmap followed by the non-null values without any type information</li>
+ *   <li>in tagged mode: a type byte followed by the value for every position, for rows which don't fit the layout</li>
+ * </ul>
+ * Strings, binaries and big numbers are written with varint lengths so there is no size limit, integers and dates as
+ * zigzag varints.
+ */
+public class HopRowSchemaCoder extends CustomCoder<HopRow> {
+
+  private static final int KIND_NULL = 0;
+  private static final int KIND_STRING = 1;
+  private static final int KIND_INTEGER = 2;
+  private static final int KIND_NUMBER = 3;
+  private static final int KIND_DATE = 4;
+  private static final int KIND_TIMESTAMP = 5;
+  private static final int KIND_BOOLEAN = 6;
+  private static final int KIND_BIGNUMBER = 7;
+  private static final int KIND_BINARY = 8;
+  private static final int KIND_INET = 9;
+
+  /** A column of which the values can't be written without a type byte */
+  private static final int KIND_ANY = -1;
+
+  private static final int MODE_SCHEMA = 0;
+  private static final int MODE_TAGGED = 1;
+
+  private final int[] kinds;
+
+  public HopRowSchemaCoder( int[] kinds ) {
+    this.kinds = kinds;
+  }
+
+  /**
+   * Create a coder for rows with the given layout
+   *
+   * @param rowMeta The layout of the rows
+   * @return The coder
+   */
+  public static HopRowSchemaCoder of( IRowMeta rowMeta ) {
+    int[] kinds = new int[ rowMeta.size() ];
+    for ( int i = 0; i < kinds.length; i++ ) {
+      kinds[ i ] = getKind( rowMeta.getValueMeta( i ) );
+    }
+    return new HopRowSchemaCoder( kinds );
+  }
+
+  private static int getKind( IValueMeta valueMeta ) {
+    switch ( valueMeta.getStorageType() ) {
+      case IValueMeta.STORAGE_TYPE_NORMAL:
+        break;
+      case IValueMeta.STORAGE_TYPE_BINARY_STRING:
+        return KIND_BINARY;
+      default:
+        return KIND_ANY;
+    }
+    switch ( valueMeta.getType() ) {
+      case IValueMeta.TYPE_STRING:
+        return KIND_STRING;
+      case IValueMeta.TYPE_INTEGER:
+        return KIND_INTEGER;
+      case IValueMeta.TYPE_NUMBER:
+        return KIND_NUMBER;
+      case IValueMeta.TYPE_DATE:
+        return KIND_DATE;
+      case IValueMeta.TYPE_TIMESTAMP:
+        return KIND_TIMESTAMP;
+      case IValueMeta.TYPE_BOOLEAN:
+        return KIND_BOOLEAN;
+      case IValueMeta.TYPE_BIGNUMBER:
+        return KIND_BIGNUMBER;
+      case IValueMeta.TYPE_BINARY:
+        return KIND_BINARY;
+      case IValueMeta.TYPE_INET:
+        return KIND_INET;
+      default:
+        return KIND_ANY;
+    }
+  }
+
+  @Override public void encode( HopRow value, OutputStream outStream ) throws CoderException, IOException {
+    Object[] row = value.getRow();
+    if ( row == null ) {
+      VarInt.encode( 0, outStream );
+      return;
+    }
+    VarInt.encode( row.length + 1, outStream );
+
+    DataOutputStream out = new DataOutputStream( outStream );
+    if ( fitsLayout( row ) ) {
+      out.writeByte( MODE_SCHEMA );
+
+      // The null bitmap
+      //
+      byte[] nulls = new byte[ ( row.length + 7 ) / 8 ];
+      for ( int i = 0; i < row.length; i++ ) {
+        if ( row[ i ] == null ) {
+          nulls[ i >> 3 ] |= 1 << ( i & 7 );
+        }
+      }
+      out.write( nulls );
+
+      for ( int i = 0; i < row.length; i++ ) {
+        if ( row[ i ] != null ) {
+          write( out, kinds[ i ], row[ i ] );
+        }
+      }
+    } else {
+      out.writeByte( MODE_TAGGED );
+      for ( Object object : row ) {
+        int kind = getKind( object );
+        out.writeByte( kind );
+        if ( kind != KIND_NULL ) {
+          write( out, kind, object );
+        }
+      }
+    }
+    out.flush();
+  }
+
+  @Override public HopRow decode( InputStream inStream ) throws CoderException, IOException {
+    int length = VarInt.decodeInt( inStream ) - 1;
+    if ( length < 0 ) {
+      return new HopRow( null );
+    }
+    Object[] row = new Object[ length ];
+
+    DataInputStream in = new DataInputStream( inStream );
+    int mode = in.readUnsignedByte();
+    if ( mode == MODE_SCHEMA ) {
+      byte[] nulls = new byte[ ( length + 7 ) / 8 ];
+      in.readFully( nulls );
+      for ( int i = 0; i < length; i++ ) {
+        if ( ( nulls[ i >> 3 ] & ( 1 << ( i & 7 ) ) ) == 0 ) {
+          row[ i ] = read( in, kinds[ i ] );
+        }
+      }
+    } else {
+      for ( int i = 0; i < length; i++ ) {
+        int kind = in.readUnsignedByte();
+        if ( kind != KIND_NULL ) {
+          row[ i ] = read( in, kind );
+        }
+      }
+    }
+    return new HopRow( row );
+  }
+
+  /**
+   * @return true if every non-null value is in a column of the layout and matches the column type
+   */
+  private boolean fitsLayout( Object[] row ) {
+    for ( int i = 0; i < row.length; i++ ) {
+      Object object = row[ i ];
+      if ( object == null ) {
+        continue;
+      }
+      if ( i >= kinds.length ) {
+        return false;
+      }
+      switch ( kinds[ i ] ) {
+        case KIND_STRING:
+          if ( !( object instanceof String ) ) {
+            return false;
+          }
+          break;
+        case KIND_INTEGER:
+          if ( !( object instanceof Long ) ) {
+            return false;
+          }
+          break;
+        case KIND_NUMBER:
+          if ( !( object instanceof Double ) ) {
+            return false;
+          }
+          break;
+        case KIND_DATE:
+          // A timestamp would lose its nanoseconds
+          if ( !( object instanceof Date ) || object instanceof Timestamp ) {
+            return false;
+          }
+          break;
+        case KIND_TIMESTAMP:
+          if ( !( object instanceof Timestamp ) ) {
+            return false;
+          }
+          break;
+        case KIND_BOOLEAN:
+          if ( !( object instanceof Boolean ) ) {
+            return false;
+          }
+          break;
+        case KIND_BIGNUMBER:
+          if ( !( object instanceof BigDecimal ) ) {
+            return false;
+          }
+          break;
+        case KIND_BINARY:
+          if ( !( object instanceof byte[] ) ) {
+            return false;
+          }
+          break;
+        case KIND_INET:
+          if ( !( object instanceof InetAddress ) ) {
+            return false;
+          }
+          break;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  private static int getKind( Object object ) throws CoderException {
+    if ( object == null ) {
+      return KIND_NULL;
+    }
+    if ( object instanceof String ) {
+      return KIND_STRING;
+    }
+    if ( object instanceof Long ) {
+      return KIND_INTEGER;
+    }
+    if ( object instanceof Double ) {
+      return KIND_NUMBER;
+    }
+    if ( object instanceof Timestamp ) {
+      return KIND_TIMESTAMP;
+    }
+    if ( object instanceof Date ) {
+      return KIND_DATE;
+    }
+    if ( object instanceof Boolean ) {
+      return KIND_BOOLEAN;
+    }
+    if ( object instanceof BigDecimal ) {
+      return KIND_BIGNUMBER;
+    }
+    if ( object instanceof byte[] ) {
+      return KIND_BINARY;
+    }
+    if ( object instanceof InetAddress ) {
+      return KIND_INET;
+    }
+    throw new CoderException( "Data type for object class " + object.getClass().getName() + " isn't supported yet" );
+  }
+
+  private static void write( DataOutputStream out, int kind, Object object ) throws IOException {
+    switch ( kind ) {
+      case KIND_STRING:
+        writeBytes( out, ( (String) object ).getBytes( StandardCharsets.UTF_8 ) );
+        break;
+      case KIND_INTEGER:
+        writeZigZag( out, (Long) object );
+        break;
+      case KIND_NUMBER:
+        out.writeDouble( (Double) object );
+        break;
+      case KIND_DATE:
+        writeZigZag( out, ( (Date) object ).getTime() );
+        break;
+      case KIND_TIMESTAMP: {
+        Timestamp timestamp = (Timestamp) object;
+        writeZigZag( out, timestamp.getTime() );
+        VarInt.encode( timestamp.getNanos(), out );
+      }
+      break;
+      case KIND_BOOLEAN:
+        out.writeBoolean( (Boolean) object );
+        break;
+      case KIND_BIGNUMBER: {
+        BigDecimal bigDecimal = (BigDecimal) object;
+        writeBytes( out, bigDecimal.unscaledValue().toByteArray() );
+        writeZigZag( out, bigDecimal.scale() );
+      }
+      break;
+      case KIND_BINARY:
+        writeBytes( out, (byte[]) object );
+        break;
+      case KIND_INET:
+        writeBytes( out, ( (InetAddress) object ).getAddress() );
+        break;
+      default:
+        throw new CoderException( "Unable to encode value of kind " + kind + " : " + object );
+    }
+  }
+
+  private static Object read( DataInputStream in, int kind ) throws IOException {
+    switch ( kind ) {
+      case KIND_STRING:
+        return new String( readBytes( in ), StandardCharsets.UTF_8 );
+      case KIND_INTEGER:
+        return readZigZag( in );
+      case KIND_NUMBER:
+        return in.readDouble();
+      case KIND_DATE:
+        return new Date( readZigZag( in ) );
+      case KIND_TIMESTAMP: {
+        Timestamp timestamp = new Timestamp( readZigZag( in ) );
+        timestamp.setNanos( VarInt.decodeInt( in ) );
+        return timestamp;
+      }
+      case KIND_BOOLEAN:
+        return in.readBoolean();
+      case KIND_BIGNUMBER: {
+        BigInteger unscaled = new BigInteger( readBytes( in ) );
+        return new BigDecimal( unscaled, (int) readZigZag( in ) );
+      }
+      case KIND_BINARY:
+        return readBytes( in );
+      case KIND_INET:
+        return InetAddress.getByAddress( readBytes( in ) );
+      default:
+        throw new CoderException( "Unable to decode value of kind " + kind );
+    }
+  }
+
+  private static void writeBytes( DataOutputStream out, byte[] bytes ) throws IOException {
+    VarInt.encode( bytes.length, out );
+    out.write( bytes );
+  }
+
+  private static byte[] readBytes( DataInputStream in ) throws IOException {
+    byte[] bytes = new byte[ VarInt.decodeInt( in ) ];
+    in.readFully( bytes );
+    return bytes;
+  }
+
+  private static void writeZigZag( DataOutputStream out, long value ) throws IOException {
+    VarInt.encode( ( value << 1 ) ^ ( value >> 63 ), out );
+  }
+
+  private static long readZigZag( DataInputStream in ) throws IOException {
+    long value = VarInt.decodeLong( in );
+    return ( value >>> 1 ) ^ -( value & 1 );
+  }
+
+  /**
+   * Strings, integers, timestamps, booleans, binaries and internet addresses have a single encoding for equal values.
+   * That isn't the case for the other column types:
+   * <ul>
+   *   <li>numbers: floating point encodings are not guaranteed to be deterministic, 0.0 and -0.0 compare equal</li>
+   *   <li>big numbers: the scale is written so 1.0 and 1.00 are encoded differently</li>
+   *   <li>dates: a timestamp in a date column is written in tagged mode</li>
+   *   <li>other types or storage types: the values are always written with their type</li>
+   * </ul>
+   *
+   * @throws NonDeterministicException when the layout contains one of these columns
+   */
+  @Override public void verifyDeterministic() throws NonDeterministicException {
+    for ( int i = 0; i < kinds.length; i++ ) {
+      switch ( kinds[ i ] ) {
+        case KIND_NUMBER:
+          throw new NonDeterministicException( this, "Column " + i + " is a number, floating point encodings are not guaranteed to be deterministic" );
+        case KIND_BIGNUMBER:
+          throw new NonDeterministicException( this, "Column " + i + " is a big number, equal values with a different scale are encoded differently" );
+        case KIND_DATE:
+          throw new NonDeterministicException( this, "Column " + i + " is a date, equal dates and timestamps are encoded differently" );
+        case KIND_ANY:
+          throw new NonDeterministicException( this, "Column " + i + " has no fixed encoding" );
+        default:
+          break;
+      }
+    }
+  }
+
+  @Override public boolean equals( Object obj ) {
+    if ( this == obj ) {
+      return true;
+    }
+    if ( !( obj instanceof HopRowSchemaCoder ) ) {
+      return false;
+    }
+    return Arrays.equals( kinds, ( (HopRowSchemaCoder) obj ).kinds );
+  }
+
+  @Override public int hashCode() {
+    return Arrays.hashCode( kinds );
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.beam.core.fn;
+
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CoderRegistry;
+import org.apache.beam.sdk.transforms.Combine;
+import org.apache.hop.beam.core.BeamHop;
+import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.beam.core.coder.HopRowSchemaCoder;
+import org.apache.hop.beam.core.shared.AggregationType;
+import org.apache.hop.beam.core.util.JsonRowMeta;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.ValueDataUtil;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Aggregates the subject rows of a group with a combiner so that runners can calculate partial results before the
+ * shuffle. Only aggregations which don't depend on the order of the rows can be combined: see {@link #canCombine(String[])}.
+ * <br>
+ * The accumulator is a row with the partial result of every aggregation followed by the number of non-null values
+ * of every aggregation.
+ */
+public class GroupByCombineFn extends Combine.CombineFn<HopRow, HopRow, HopRow> {
+
+  private String subjectRowMetaJson; // The data types of the subject fields
+  private String[] aggregations; // The aggregation types
+  private List<String> transformPluginClasses;
+  private List<String> xpPluginClasses;
+
+  private static final Logger LOG = LoggerFactory.getLogger( GroupByCombineFn.class );
+
+  private transient IRowMeta subjectRowMeta;
+  private transient AggregationType[] aggregationTypes;
+
+  public GroupByCombineFn() {
+  }
+
+  public GroupByCombineFn( String subjectRowMetaJson, List<String> transformPluginClasses, List<String> xpPluginClasses, String[] aggregations ) {
+    this.subjectRowMetaJson = subjectRowMetaJson;
+    this.transformPluginClasses = transformPluginClasses;
+    this.xpPluginClasses = xpPluginClasses;
+    this.aggregations = aggregations;
+  }
+
+  /**
+   * @param aggregations The names of the aggregation types
+   * @return true if all aggregations can be calculated from partial results in any order
+   */
+  public static boolean canCombine( String[] aggregations ) {
+    for ( String aggregation : aggregations ) {
+      switch ( aggregation ) {
+        case "SUM":
+        case "AVERAGE":
+        case "COUNT_ALL":
+        case "MIN":
+        case "MAX":
+          break;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  private void init() {
+    if ( aggregationTypes != null ) {
+      return;
+    }
+    try {
+      BeamHop.init( transformPluginClasses, xpPluginClasses );
+      subjectRowMeta = JsonRowMeta.fromJson( subjectRowMetaJson );
+      AggregationType[] types = new AggregationType[ aggregations.length ];
+      for ( int i = 0; i < types.length; i++ ) {
+        types[ i ] = AggregationType.getTypeFromName( aggregations[ i ] );
+      }
+      aggregationTypes = types;
+    } catch ( Exception e ) {
+      LOG.error( "Error setup of combining group by ", e );
+      throw new RuntimeException( "Unable setup of combining group by ", e );
+    }
+  }
+
+  @Override public HopRow createAccumulator() {
+    init();
+    Object[] accumulator = new Object[ aggregationTypes.length * 2 ];
+    for ( int i = 0; i < aggregationTypes.length; i++ ) {
+      accumulator[ aggregationTypes.length + i ] = 0L;
+    }
+    return new HopRow( accumulator );
+  }
+
+  @Override public HopRow addInput( HopRow accumulator, HopRow input ) {
+    init();
+    try {
+      Object[] partial = accumulator.getRow();
+      Object[] subjectRow = input.getRow();
+      int nrAggregations = aggregationTypes.length;
+      for ( int i = 0; i < nrAggregations; i++ ) {
+        IValueMeta subjectValueMeta = subjectRowMeta.getValueMeta( i );
+        Object subject = subjectRow[ i ];
+        if ( subjectValueMeta.isNull( subject ) ) {
+          continue;
+        }
+        partial[ nrAggregations + i ] = (Long) partial[ nrAggregations + i ] + 1;
+        partial[ i ] = combine( aggregationTypes[ i ], subjectValueMeta, partial[ i ], subject );
+      }
+      return accumulator;
+    } catch ( Exception e ) {
+      LOG.error( "Error combining group by ", e );
+      throw new RuntimeException( "Unable to aggregate subject row ", e );
+    }
+  }
+
+  @Override public HopRow mergeAccumulators( Iterable<HopRow> accumulators ) {
+    init();
+    try {
+      Iterator<HopRow> iterator = accumulators.iterator();
+      if ( !iterator.hasNext() ) {
+        return createAccumulator();
+      }
+      HopRow merged = iterator.next();
+      Object[] mergedRow = merged.getRow();
+      int nrAggregations = aggregationTypes.length;
+      while ( iterator.hasNext() ) {
+        Object[] partial = iterator.next().getRow();
+        for ( int i = 0; i < nrAggregations; i++ ) {
+          mergedRow[ nrAggregations + i ] = (Long) mergedRow[ nrAggregations + i ] + (Long) partial[ nrAggregations + i ];
+          if ( partial[ i ] == null ) {
+            continue;
+          }
+          if ( aggregationTypes[ i ] == AggregationType.COUNT_ALL ) {
+            mergedRow[ i ] = mergedRow[ i ] == null ? partial[ i ] : (Long) mergedRow[ i ] + (Long) partial[ i ];
+          } else {
+            mergedRow[ i ] = combine( aggregationTypes[ i ], subjectRowMeta.getValueMeta( i ), mergedRow[ i ], partial[ i ] );
+          }
+        }
+      }
+      return merged;
+    } catch ( Exception e ) {
+      LOG.error( "Error merging group by results ", e );
+      throw new RuntimeException( "Unable to merge partial group by results ", e );
+    }
+  }
+
+  @Override public HopRow extractOutput( HopRow accumulator ) {
+    init();
+    try {
+      Object[] partial = accumulator.getRow();
+      int nrAggregations = aggregationTypes.length;
+      Object[] results = new Object[ nrAggregations ];
+      for ( int i = 0; i < nrAggregations; i++ ) {
+        results[ i ] = partial[ i ];
+        if ( aggregationTypes[ i ] == AggregationType.AVERAGE && partial[ i ] != null ) {
+          results[ i ] = average( subjectRowMeta.getValueMeta( i ), partial[ i ], (Long) partial[ nrAggregations + i ] );
+        }
+      }
+      return new HopRow( results );
+    } catch ( Exception e ) {
+      LOG.error( "Error calculating group by results ", e );
+      throw new RuntimeException( "Unable to calculate group by results ", e );
+    }
+  }
+
+  @Override public Coder<HopRow> getAccumulatorCoder( CoderRegistry registry, Coder<HopRow> inputCoder ) {
+    init();
+    return HopRowSchemaCoder.of( getAccumulatorRowMeta() );
+  }
+
+  /**
+   * @return The layout of the accumulator: the partial results, of the subject type or an integer for counts, followed
+   * by the integer number of non-null values of every aggregation
+   */
+  IRowMeta getAccumulatorRowMeta() {
+    init();
+    IRowMeta accumulatorRowMeta = new RowMeta();
+    for ( int i = 0; i < aggregationTypes.length; i++ ) {
+      if ( aggregationTypes[ i ] == AggregationType.COUNT_ALL ) {
+        accumulatorRowMeta.addValueMeta( new ValueMetaInteger( "count_" + i ) );
+      } else {
+        accumulatorRowMeta.addValueMeta( subjectRowMeta.getValueMeta( i ).clone() );
+      }
+    }
+    for ( int i = 0; i < aggregationTypes.length; i++ ) {
+      accumulatorRowMeta.addValueMeta( new ValueMetaInteger( "nr_values_" + i ) );
+    }
+    return accumulatorRowMeta;
+  }
+
+  /**
+   * Add a non-null value to a partial result
+   */
+  private static Object combine( AggregationType type, IValueMeta valueMeta, Object result, Object value ) throws HopException {
+    if ( result == null ) {
+      return type == AggregationType.COUNT_ALL ? Long.valueOf( 1L ) : value;
+    }
+    switch ( type ) {
+      case SUM:
+      case AVERAGE:
+        switch ( valueMeta.getType() ) {
+          case IValueMeta.TYPE_INTEGER:
+            return (Long) result + (Long) value;
+          case IValueMeta.TYPE_NUMBER:
+            return (Double) result + (Double) value;
+          case IValueMeta.TYPE_BIGNUMBER:
+            return ( (BigDecimal) result ).add( (BigDecimal) value );
+          default:
+            throw new HopException( "SUM aggregation not yet implemented for field and data type : " + valueMeta.toString() );
+        }
+      case COUNT_ALL:
+        return (Long) result + 1L;
+      case MIN:
+        return valueMeta.compare( value, result ) < 0 ? value : result;
+      case MAX:
+        return valueMeta.compare( value, result ) > 0 ? value : result;
+      default:
+        throw new HopException( "Aggregation type " + type.name() + " can't be combined" );
+    }
+  }
+
+  /**
+   * The average of BigNumber values, also used by {@link GroupByFn} so both ways of grouping give the same result.
+   *
+   * @param sum   The sum of the values
+   * @param count The number of values
+   * @return The average, not limited to the scale of the sum
+   */
+  static BigDecimal averageBigNumber( BigDecimal sum, long count ) {
+    return ValueDataUtil.divideBigDecimals( sum, BigDecimal.valueOf( count ), MathContext.DECIMAL128 );
+  }
+
+  private static Object average( IValueMeta valueMeta, Object sum, long count ) throws HopException {
+    switch ( valueMeta.getType() ) {
+      case IValueMeta.TYPE_NUMBER:
+        return (Double) sum / count;
+      case IValueMeta.TYPE_INTEGER:
+        return (Long) sum / count;
+      case IValueMeta.TYPE_BIGNUMBER:
+        return averageBigNumber( (BigDecimal) sum, count );
+      default:
+        throw new HopException( "Unable to calculate average on data type : " + valueMeta.getTypeDesc() );
+    }
+  }
+}
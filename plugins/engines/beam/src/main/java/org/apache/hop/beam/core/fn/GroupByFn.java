@@ -236,9 +236,10 @@ public class GroupByFn extends DoFn<KV<HopRow, Iterable<HopRow>>, HopRow> {
               case IValueMeta.TYPE_BIGNUMBER:
                 BigDecimal bd = (BigDecimal) results[i];
                 if (counts[i]!=0) {
-                  bd = bd.divide( BigDecimal.valueOf( counts[i] ) );
+                  bd = GroupByCombineFn.averageBigNumber( bd, counts[i] );
                 }
                 results[i] = bd;
+                break;
               default:
                 throw new HopException( "Unable to calculate average on data type : "+subjectValueMeta.getTypeDesc() );
             }
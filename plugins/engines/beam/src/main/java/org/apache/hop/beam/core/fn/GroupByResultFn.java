@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.beam.core.fn;
+
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Metrics;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.values.KV;
+import org.apache.hop.beam.core.BeamHop;
+import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.beam.core.util.JsonRowMeta;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowDataUtil;
+import org.apache.hop.pipeline.Pipeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Concatenates the group row and the results calculated by {@link GroupByCombineFn}
+ */
+public class GroupByResultFn extends DoFn<KV<HopRow, HopRow>, HopRow> {
+
+  private String counterName;
+  private String groupRowMetaJson; // The data types of the group fields
+  private String subjectRowMetaJson; // The data types of the subject fields
+  private List<String> transformPluginClasses;
+  private List<String> xpPluginClasses;
+
+  private static final Logger LOG = LoggerFactory.getLogger( GroupByResultFn.class );
+
+  private transient IRowMeta groupRowMeta;
+  private transient IRowMeta subjectRowMeta;
+
+  private transient Counter writtenCounter;
+  private transient Counter errorCounter;
+
+  public GroupByResultFn() {
+  }
+
+  public GroupByResultFn( String counterName, String groupRowMetaJson, List<String> transformPluginClasses, List<String> xpPluginClasses, String subjectRowMetaJson ) {
+    this.counterName = counterName;
+    this.groupRowMetaJson = groupRowMetaJson;
+    this.transformPluginClasses = transformPluginClasses;
+    this.xpPluginClasses = xpPluginClasses;
+    this.subjectRowMetaJson = subjectRowMetaJson;
+  }
+
+  @Setup
+  public void setUp() {
+    try {
+      writtenCounter = Metrics.counter( Pipeline.METRIC_NAME_WRITTEN, counterName );
+      errorCounter = Metrics.counter( Pipeline.METRIC_NAME_ERROR, counterName );
+
+      // Initialize Hop Beam
+      //
+      BeamHop.init( transformPluginClasses, xpPluginClasses );
+      groupRowMeta = JsonRowMeta.fromJson( groupRowMetaJson );
+      subjectRowMeta = JsonRowMeta.fromJson( subjectRowMetaJson );
+
+      Metrics.counter( Pipeline.METRIC_NAME_INIT, counterName ).inc();
+    } catch ( Exception e ) {
+      errorCounter.inc();
+      LOG.error( "Error setup of group by results ", e );
+      throw new RuntimeException( "Unable setup of group by results ", e );
+    }
+  }
+
+  @ProcessElement
+  public void processElement( ProcessContext processContext ) {
+    try {
+      KV<HopRow, HopRow> element = processContext.element();
+      Object[] groupRow = element.getKey().getRow();
+      Object[] results = element.getValue().getRow();
+
+      // Concatenate both group and result...
+      //
+      Object[] resultRow = RowDataUtil.allocateRowData( groupRowMeta.size() + subjectRowMeta.size() );
+      int index = 0;
+      for ( int i = 0; i < groupRowMeta.size(); i++ ) {
+        resultRow[ index++ ] = groupRow[ i ];
+      }
+      for ( int i = 0; i < subjectRowMeta.size(); i++ ) {
+        resultRow[ index++ ] = results[ i ];
+      }
+
+      processContext.output( new HopRow( resultRow ) );
+      writtenCounter.inc();
+    } catch ( Exception e ) {
+      errorCounter.inc();
+      LOG.error( "Error assembling group by results ", e );
+      throw new RuntimeException( "Unable to assemble group and result row ", e );
+    }
+  }
+}
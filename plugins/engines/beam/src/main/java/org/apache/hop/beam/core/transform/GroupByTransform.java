@@ -19,6 +19,7 @@ package org.apache.hop.beam.core.transform;
 
 import org.apache.beam.sdk.metrics.Counter;
 import org.apache.beam.sdk.metrics.Metrics;
+import org.apache.beam.sdk.transforms.Combine;
 import org.apache.beam.sdk.transforms.GroupByKey;
 import org.apache.beam.sdk.transforms.PTransform;
 import org.apache.beam.sdk.transforms.ParDo;
@@ -26,7 +27,9 @@ import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.hop.beam.core.BeamHop;
 import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.beam.core.fn.GroupByCombineFn;
 import org.apache.hop.beam.core.fn.GroupByFn;
+import org.apache.hop.beam.core.fn.GroupByResultFn;
 import org.apache.hop.beam.core.fn.HopKeyValueFn;
 import org.apache.hop.beam.core.util.JsonRowMeta;
 import org.apache.hop.core.row.RowMeta;
@@ -94,6 +97,20 @@ public class GroupByTransform extends PTransform<PCollection<HopRow>, PCollectio
         new HopKeyValueFn( rowMetaJson, transformPluginClasses, xpPluginClasses, groupFields, subjects, transformName )
       ) );
 
+      String counterName = transformName+" AGG";
+
+      // Sum, count, min, max and average don't depend on the order of the rows.
+      // Calculate those with a combiner so runners can pre-aggregate before the shuffle.
+      //
+      if ( GroupByCombineFn.canCombine( aggregations ) ) {
+        String subjectRowMetaJson = JsonRowMeta.toJson( subjectRowMeta );
+        PCollection<KV<HopRow, HopRow>> combined = groupSubjects.apply( Combine.perKey(
+          new GroupByCombineFn( subjectRowMetaJson, transformPluginClasses, xpPluginClasses, aggregations ) ) );
+
+        return combined.apply( ParDo.of(
+          new GroupByResultFn( counterName, JsonRowMeta.toJson( groupRowMeta ), transformPluginClasses, xpPluginClasses, subjectRowMetaJson ) ) );
+      }
+
       // Now we need to aggregate the groups with a Combine
       GroupByKey<HopRow, HopRow> byKey = GroupByKey.<HopRow, HopRow>create();
       PCollection<KV<HopRow, Iterable<HopRow>>> grouped = groupSubjects.apply( byKey );
@@ -104,7 +121,6 @@ public class GroupByTransform extends PTransform<PCollection<HopRow>, PCollectio
       //   We need to calculate the aggregation of these subject lists
       //   Then we output group values with result values behind it.
       //
-      String counterName = transformName+" AGG";
       PCollection<HopRow> output = grouped.apply( ParDo.of(
         new GroupByFn(counterName, JsonRowMeta.toJson(groupRowMeta), transformPluginClasses, xpPluginClasses,
           JsonRowMeta.toJson(subjectRowMeta), aggregations ) ) );
@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.beam.core.transform;
+
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Metrics;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.PTransform;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.hop.beam.core.BeamHop;
+import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.beam.core.shared.VariableValue;
+import org.apache.hop.beam.core.util.HopBeamUtil;
+import org.apache.hop.beam.core.util.JsonRowMeta;
+import org.apache.hop.beam.core.util.SingleThreadedPipelineUtil;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.metadata.SerializableMetadataProvider;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineHopMeta;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.RowProducer;
+import org.apache.hop.pipeline.SingleThreadedPipelineExecutor;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.transform.RowAdapter;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.hop.beam.core.util.SingleThreadedPipelineUtil.INJECTOR_TRANSFORM_NAME;
+import static org.apache.hop.beam.core.util.SingleThreadedPipelineUtil.findCombi;
+
+/**
+ * Runs a linear chain of generic Hop transforms in a single DoFn.
+ * All transforms of the chain are placed in the same single threaded pipeline so rows are passed from one transform
+ * to the next in memory instead of being encoded and decoded by Beam in between every pair of transforms.
+ * <br>
+ * The transforms in the chain can't have info or target transforms and only the last transform can be read by other
+ * transforms.
+ */
+public class TransformChainTransform extends PTransform<PCollection<HopRow>, PCollection<HopRow>> {
+
+  protected List<VariableValue> variableValues;
+  protected String metastoreJson;
+  protected List<String> transformPluginClasses;
+  protected List<String> xpPluginClasses;
+  protected List<String> transformNames;
+  protected List<String> transformPluginIds;
+  protected List<String> transformMetaInterfaceXmls;
+  protected String inputRowMetaJson;
+  protected boolean inputTransform;
+
+  // Log and count errors.
+  protected static final Logger LOG = LoggerFactory.getLogger( TransformChainTransform.class );
+  protected static final Counter numErrors = Metrics.counter( "main", "TransformChainErrors" );
+
+  public TransformChainTransform() {
+    variableValues = new ArrayList<>();
+  }
+
+  public TransformChainTransform( List<VariableValue> variableValues, String metastoreJson, List<String> transformPluginClasses, List<String> xpPluginClasses,
+                                  List<String> transformNames, List<String> transformPluginIds, List<String> transformMetaInterfaceXmls,
+                                  String inputRowMetaJson, boolean inputTransform ) {
+    this.variableValues = variableValues;
+    this.metastoreJson = metastoreJson;
+    this.transformPluginClasses = transformPluginClasses;
+    this.xpPluginClasses = xpPluginClasses;
+    this.transformNames = transformNames;
+    this.transformPluginIds = transformPluginIds;
+    this.transformMetaInterfaceXmls = transformMetaInterfaceXmls;
+    this.inputRowMetaJson = inputRowMetaJson;
+    this.inputTransform = inputTransform;
+  }
+
+  @Override public PCollection<HopRow> expand( PCollection<HopRow> input ) {
+    try {
+      // Only initialize once on this node/vm
+      //
+      BeamHop.init( transformPluginClasses, xpPluginClasses );
+
+      return input.apply( ParDo.of( new TransformChainFn( variableValues, metastoreJson, transformPluginClasses, xpPluginClasses,
+        transformNames, transformPluginIds, transformMetaInterfaceXmls, inputRowMetaJson, inputTransform ) ) );
+    } catch ( Exception e ) {
+      numErrors.inc();
+      LOG.error( "Error transforming data in transform chain " + transformNames, e );
+      throw new RuntimeException( "Error transforming data in transform chain", e );
+    }
+  }
+
+  private static class TransformChainFn extends DoFn<HopRow, HopRow> {
+
+    private static final long serialVersionUID = 95700000000000002L;
+
+    private List<VariableValue> variableValues;
+    private String metastoreJson;
+    private List<String> transformPluginClasses;
+    private List<String> xpPluginClasses;
+    private List<String> transformNames;
+    private List<String> transformPluginIds;
+    private List<String> transformMetaInterfaceXmls;
+    private String inputRowMetaJson;
+    private boolean inputTransform;
+    private boolean initialize;
+
+    // Log and count parse errors.
+    private final Counter numErrors = Metrics.counter( "main", "TransformChainProcessErrors" );
+
+    private transient IRowMeta inputRowMeta;
+    private transient LocalPipelineEngine pipeline;
+    private transient RowProducer rowProducer;
+    private transient List<Object[]> resultRows;
+    private transient SingleThreadedPipelineExecutor executor;
+
+    private transient Counter readCounter;
+
+    public TransformChainFn() {
+    }
+
+    public TransformChainFn( List<VariableValue> variableValues, String metastoreJson, List<String> transformPluginClasses, List<String> xpPluginClasses,
+                             List<String> transformNames, List<String> transformPluginIds, List<String> transformMetaInterfaceXmls,
+                             String inputRowMetaJson, boolean inputTransform ) {
+      this.variableValues = variableValues;
+      this.metastoreJson = metastoreJson;
+      this.transformPluginClasses = transformPluginClasses;
+      this.xpPluginClasses = xpPluginClasses;
+      this.transformNames = transformNames;
+      this.transformPluginIds = transformPluginIds;
+      this.transformMetaInterfaceXmls = transformMetaInterfaceXmls;
+      this.inputRowMetaJson = inputRowMetaJson;
+      this.inputTransform = inputTransform;
+      this.initialize = true;
+    }
+
+    /**
+     * Same as for a single transform: scripts are re-initialized for every bundle
+     *
+     * @param startBundleContext
+     */
+    @StartBundle
+    public void startBundle( StartBundleContext startBundleContext ) {
+      if ( transformPluginIds.contains( "ScriptValueMod" ) && pipeline != null ) {
+        initialize = true;
+      }
+    }
+
+    @ProcessElement
+    public void processElement( ProcessContext context ) {
+      try {
+        if ( initialize ) {
+          initialize = false;
+          initializeChain();
+        }
+
+        // Get one row from the context main input and make a copy so we can change it.
+        //
+        HopRow inputRow = HopBeamUtil.copyHopRow( context.element(), inputRowMeta );
+        readCounter.inc();
+
+        resultRows.clear();
+        if ( !inputTransform ) {
+          rowProducer.putRow( inputRowMeta, inputRow.getRow() );
+        }
+
+        // Pass the row through all the transforms of the chain
+        //
+        executor.oneIteration();
+
+        for ( Object[] resultRow : resultRows ) {
+          context.output( new HopRow( resultRow ) );
+        }
+      } catch ( Exception e ) {
+        numErrors.inc();
+        LOG.info( "Transform chain execution error :" + e.getMessage() );
+        throw new RuntimeException( "Error executing TransformChainFn", e );
+      }
+    }
+
+    private void initializeChain() throws HopException {
+      // Initialize Hop and load extra plugins as well
+      //
+      BeamHop.init( transformPluginClasses, xpPluginClasses );
+
+      // The content of the metadata is JSON serialized and inflated below.
+      //
+      IHopMetadataProvider metadataProvider = new SerializableMetadataProvider( metastoreJson );
+
+      PipelineMeta pipelineMeta = SingleThreadedPipelineUtil.createPipelineMeta( metadataProvider );
+
+      inputRowMeta = JsonRowMeta.fromJson( inputRowMetaJson );
+
+      // An Injector transform with the input row layout in front of the chain
+      //
+      TransformMeta previousTransformMeta = null;
+      if ( !inputTransform ) {
+        previousTransformMeta = SingleThreadedPipelineUtil.addInjectorTransform( pipelineMeta, INJECTOR_TRANSFORM_NAME, inputRowMeta, 200, 200 );
+      }
+
+      // Then all the transforms of the chain, one after the other
+      //
+      for ( int i = 0; i < transformNames.size(); i++ ) {
+        TransformMeta transformMeta = SingleThreadedPipelineUtil.addTransform( pipelineMeta, transformNames.get( i ), transformPluginIds.get( i ),
+          transformMetaInterfaceXmls.get( i ), 400 + 200 * i, 200 );
+        if ( previousTransformMeta != null ) {
+          pipelineMeta.addPipelineHop( new PipelineHopMeta( previousTransformMeta, transformMeta ) );
+        }
+        previousTransformMeta = transformMeta;
+      }
+      for ( TransformMeta transformMeta : pipelineMeta.getTransforms() ) {
+        transformMeta.getTransform().searchInfoAndTargetTransforms( pipelineMeta.getTransforms() );
+      }
+
+      // Create the pipeline...
+      //
+      pipeline = SingleThreadedPipelineUtil.createPipeline( pipelineMeta, variableValues );
+
+      rowProducer = null;
+      if ( !inputTransform ) {
+        rowProducer = pipeline.addRowProducer( INJECTOR_TRANSFORM_NAME, 0 );
+      }
+
+      // Keep the metrics of every transform in the chain up to date.
+      // The rows written by the last transform are the output of the chain.
+      //
+      resultRows = new ArrayList<>();
+      for ( int i = 0; i < transformNames.size(); i++ ) {
+        String transformName = transformNames.get( i );
+        final Counter transformReadCounter = Metrics.counter( Pipeline.METRIC_NAME_READ, transformName );
+        final Counter transformWrittenCounter = Metrics.counter( Pipeline.METRIC_NAME_WRITTEN, transformName );
+        final boolean first = i == 0;
+        final boolean last = i == transformNames.size() - 1;
+
+        findCombi( pipeline, transformName ).transform.addRowListener( new RowAdapter() {
+          @Override public void rowReadEvent( IRowMeta rowMeta, Object[] row ) throws HopTransformException {
+            if ( !first ) {
+              transformReadCounter.inc();
+            }
+          }
+
+          @Override public void rowWrittenEvent( IRowMeta rowMeta, Object[] row ) throws HopTransformException {
+            transformWrittenCounter.inc();
+            if ( last ) {
+              resultRows.add( row );
+            }
+          }
+        } );
+      }
+
+      executor = new SingleThreadedPipelineExecutor( pipeline );
+
+      // Initialize the transforms...
+      //
+      executor.init();
+
+      readCounter = Metrics.counter( Pipeline.METRIC_NAME_READ, transformNames.get( 0 ) );
+      for ( String transformName : transformNames ) {
+        Metrics.counter( Pipeline.METRIC_NAME_INIT, transformName ).inc();
+      }
+
+      // Doesn't really start the threads in single threaded mode
+      // Just sets some flags all over the place
+      //
+      pipeline.startThreads();
+    }
+  }
+}
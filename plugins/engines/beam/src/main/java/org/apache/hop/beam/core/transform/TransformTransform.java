@@ -28,7 +28,6 @@ import org.apache.beam.sdk.values.PCollectionTuple;
 import org.apache.beam.sdk.values.PCollectionView;
 import org.apache.beam.sdk.values.TupleTag;
 import org.apache.beam.sdk.values.TupleTagList;
-import org.apache.commons.lang.StringUtils;
 import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
 import org.joda.time.Instant;
 import org.apache.hop.beam.core.BeamHop;
@@ -36,14 +35,11 @@ import org.apache.hop.beam.core.HopRow;
 import org.apache.hop.core.metadata.SerializableMetadataProvider;
 import org.apache.hop.beam.core.shared.VariableValue;
 import org.apache.hop.beam.core.util.JsonRowMeta;
+import org.apache.hop.beam.core.util.SingleThreadedPipelineUtil;
 import org.apache.hop.beam.core.util.HopBeamUtil;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
-import org.apache.hop.core.logging.LogLevel;
-import org.apache.hop.core.plugins.PluginRegistry;
-import org.apache.hop.core.plugins.TransformPluginType;
 import org.apache.hop.core.row.IRowMeta;
-import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.pipeline.RowProducer;
 import org.apache.hop.pipeline.SingleThreadedPipelineExecutor;
 import org.apache.hop.pipeline.Pipeline;
@@ -53,9 +49,7 @@ import org.apache.hop.pipeline.transform.RowAdapter;
 import org.apache.hop.pipeline.transform.IRowListener;
 import org.apache.hop.pipeline.transform.TransformMeta;
 import org.apache.hop.pipeline.transform.TransformMetaDataCombi;
-import org.apache.hop.pipeline.transform.ITransformMeta;
 import org.apache.hop.pipeline.transforms.dummy.DummyMeta;
-import org.apache.hop.pipeline.transforms.injector.InjectorMeta;
 import org.apache.hop.metadata.api.IHopMetadataProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,6 +57,9 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.apache.hop.beam.core.util.SingleThreadedPipelineUtil.INJECTOR_TRANSFORM_NAME;
+import static org.apache.hop.beam.core.util.SingleThreadedPipelineUtil.findCombi;
+
 public class TransformTransform extends PTransform<PCollection<HopRow>, PCollectionTuple> {
 
   protected List<VariableValue> variableValues;
@@ -180,8 +177,6 @@ public class TransformTransform extends PTransform<PCollection<HopRow>, PCollect
 
     private static final long serialVersionUID = 95700000000000001L;
 
-    public static final String INJECTOR_TRANSFORM_NAME = "_INJECTOR_";
-
     protected List<VariableValue> variableValues;
     protected String metastoreJson;
     protected List<String> transformPluginClasses;
@@ -291,9 +286,7 @@ public class TransformTransform extends PTransform<PCollection<HopRow>, PCollect
           // Create a very simple new transformation to run single threaded...
           // Single threaded...
           //
-          pipelineMeta = new PipelineMeta();
-          pipelineMeta.setPipelineType( PipelineMeta.PipelineType.SingleThreaded );
-          pipelineMeta.setMetadataProvider( metadataProvider );
+          pipelineMeta = SingleThreadedPipelineUtil.createPipelineMeta( metadataProvider );
 
           // Input row metadata...
           //
@@ -309,7 +302,7 @@ public class TransformTransform extends PTransform<PCollection<HopRow>, PCollect
           //
           TransformMeta mainInjectorTransformMeta = null;
           if ( !inputTransform ) {
-            mainInjectorTransformMeta = createInjectorTransform( pipelineMeta, INJECTOR_TRANSFORM_NAME, inputRowMeta, 200, 200 );
+            mainInjectorTransformMeta = SingleThreadedPipelineUtil.addInjectorTransform( pipelineMeta, INJECTOR_TRANSFORM_NAME, inputRowMeta, 200, 200 );
           }
 
           // Our main transform writes to a bunch of targets
@@ -346,7 +339,7 @@ public class TransformTransform extends PTransform<PCollection<HopRow>, PCollect
 
             // Add an Injector transform for every info transform so the transform can read from it
             //
-            TransformMeta infoTransformMeta = createInjectorTransform( pipelineMeta, infoTransform, infoRowMeta, 200, 350 + 150 * i );
+            TransformMeta infoTransformMeta = SingleThreadedPipelineUtil.addInjectorTransform( pipelineMeta, infoTransform, infoRowMeta, 200, 350 + 150 * i );
             infoTransformMetas.add( infoTransformMeta );
           }
 
@@ -354,18 +347,7 @@ public class TransformTransform extends PTransform<PCollection<HopRow>, PCollect
 
           // The main transform inflated from XML metadata...
           //
-          PluginRegistry registry = PluginRegistry.getInstance();
-          ITransformMeta iTransformMeta = registry.loadClass( TransformPluginType.class, transformPluginId, ITransformMeta.class );
-          if ( iTransformMeta == null ) {
-            throw new HopException( "Unable to load transform plugin with ID " + transformPluginId + ", this plugin isn't in the plugin registry or classpath" );
-          }
-
-          HopBeamUtil.loadTransformMetadataFromXml( transformName, iTransformMeta, transformMetaInterfaceXml, pipelineMeta.getMetadataProvider() );
-
-          transformMeta = new TransformMeta( transformName, iTransformMeta );
-          transformMeta.setTransformPluginId( transformPluginId );
-          transformMeta.setLocation( 400, 200 );
-          pipelineMeta.addTransform( transformMeta );
+          transformMeta = SingleThreadedPipelineUtil.addTransform( pipelineMeta, transformName, transformPluginId, transformMetaInterfaceXml, 400, 200 );
           if ( !inputTransform ) {
             pipelineMeta.addPipelineHop( new PipelineHopMeta( mainInjectorTransformMeta, transformMeta ) );
           }
@@ -381,22 +363,11 @@ public class TransformTransform extends PTransform<PCollection<HopRow>, PCollect
             pipelineMeta.addPipelineHop( new PipelineHopMeta( infoTransformMeta, transformMeta ) );
           }
 
-          iTransformMeta.searchInfoAndTargetTransforms( pipelineMeta.getTransforms() );
+          transformMeta.getTransform().searchInfoAndTargetTransforms( pipelineMeta.getTransforms() );
 
           // Create the transformation...
           //
-          pipeline = new LocalPipelineEngine( pipelineMeta );
-          pipeline.setLogLevel( LogLevel.ERROR );
-          pipeline.setMetadataProvider( pipelineMeta.getMetadataProvider() );
-          pipeline.prepareExecution();
-
-          // Give transforms variables from above
-          //
-          for ( VariableValue variableValue : variableValues ) {
-            if ( StringUtils.isNotEmpty( variableValue.getVariable() ) ) {
-              pipeline.setVariable( variableValue.getVariable(), variableValue.getValue() );
-            }
-          }
+          pipeline = SingleThreadedPipelineUtil.createPipeline( pipelineMeta, variableValues );
 
           // Create producers so we can efficiently pass data
           //
@@ -585,32 +556,6 @@ public class TransformTransform extends PTransform<PCollection<HopRow>, PCollect
         }
       }
     }
-
-    private TransformMeta createInjectorTransform( PipelineMeta pipelineMeta, String injectorTransformName, IRowMeta injectorRowMeta, int x, int y ) {
-      InjectorMeta injectorMeta = new InjectorMeta();
-      injectorMeta.allocate( injectorRowMeta.size() );
-      for ( int i = 0; i < injectorRowMeta.size(); i++ ) {
-        IValueMeta valueMeta = injectorRowMeta.getValueMeta( i );
-        injectorMeta.getFieldname()[ i ] = valueMeta.getName();
-        injectorMeta.getType()[ i ] = valueMeta.getType();
-        injectorMeta.getLength()[ i ] = valueMeta.getLength();
-        injectorMeta.getPrecision()[ i ] = valueMeta.getPrecision();
-      }
-      TransformMeta injectorTransformMeta = new TransformMeta( injectorTransformName, injectorMeta );
-      injectorTransformMeta.setLocation( x, y );
-      pipelineMeta.addTransform( injectorTransformMeta );
-
-      return injectorTransformMeta;
-    }
-
-    private TransformMetaDataCombi findCombi( Pipeline pipeline, String transformName ) {
-      for ( TransformMetaDataCombi combi : pipeline.getTransforms() ) {
-        if ( combi.transformName.equals( transformName ) ) {
-          return combi;
-        }
-      }
-      throw new RuntimeException( "Configuration error, transform '" + transformName + "' not found in transformation" );
-    }
   }
 
   private interface TupleOutputContext<T> {
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.beam.core.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.hop.beam.core.shared.VariableValue;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.logging.LogLevel;
+import org.apache.hop.core.plugins.PluginRegistry;
+import org.apache.hop.core.plugins.TransformPluginType;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.pipeline.Pipeline;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.engines.local.LocalPipelineEngine;
+import org.apache.hop.pipeline.transform.ITransformMeta;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.apache.hop.pipeline.transform.TransformMetaDataCombi;
+import org.apache.hop.pipeline.transforms.injector.InjectorMeta;
+
+import java.util.List;
+
+/**
+ * Builds the small single threaded pipelines in which the generic transforms are executed inside a DoFn.
+ */
+public class SingleThreadedPipelineUtil {
+
+  public static final String INJECTOR_TRANSFORM_NAME = "_INJECTOR_";
+
+  /**
+   * @param metadataProvider The metadata to give the transforms
+   * @return An empty single threaded pipeline
+   */
+  public static PipelineMeta createPipelineMeta( IHopMetadataProvider metadataProvider ) {
+    PipelineMeta pipelineMeta = new PipelineMeta();
+    pipelineMeta.setPipelineType( PipelineMeta.PipelineType.SingleThreaded );
+    pipelineMeta.setMetadataProvider( metadataProvider );
+    return pipelineMeta;
+  }
+
+  /**
+   * Add an Injector transform with the given row layout so that the transforms reading from it see the layout
+   * statically.
+   */
+  public static TransformMeta addInjectorTransform( PipelineMeta pipelineMeta, String injectorTransformName, IRowMeta injectorRowMeta, int x, int y ) {
+    InjectorMeta injectorMeta = new InjectorMeta();
+    injectorMeta.allocate( injectorRowMeta.size() );
+    for ( int i = 0; i < injectorRowMeta.size(); i++ ) {
+      IValueMeta valueMeta = injectorRowMeta.getValueMeta( i );
+      injectorMeta.getFieldname()[ i ] = valueMeta.getName();
+      injectorMeta.getType()[ i ] = valueMeta.getType();
+      injectorMeta.getLength()[ i ] = valueMeta.getLength();
+      injectorMeta.getPrecision()[ i ] = valueMeta.getPrecision();
+    }
+    TransformMeta injectorTransformMeta = new TransformMeta( injectorTransformName, injectorMeta );
+    injectorTransformMeta.setLocation( x, y );
+    pipelineMeta.addTransform( injectorTransformMeta );
+
+    return injectorTransformMeta;
+  }
+
+  /**
+   * Add a transform inflated from its XML metadata
+   *
+   * @throws HopException In case the plugin can't be found or the metadata can't be loaded
+   */
+  public static TransformMeta addTransform( PipelineMeta pipelineMeta, String transformName, String transformPluginId, String transformMetaInterfaceXml, int x, int y )
+    throws HopException {
+    PluginRegistry registry = PluginRegistry.getInstance();
+    ITransformMeta iTransformMeta = registry.loadClass( TransformPluginType.class, transformPluginId, ITransformMeta.class );
+    if ( iTransformMeta == null ) {
+      throw new HopException( "Unable to load transform plugin with ID " + transformPluginId + ", this plugin isn't in the plugin registry or classpath" );
+    }
+    HopBeamUtil.loadTransformMetadataFromXml( transformName, iTransformMeta, transformMetaInterfaceXml, pipelineMeta.getMetadataProvider() );
+
+    TransformMeta transformMeta = new TransformMeta( transformName, iTransformMeta );
+    transformMeta.setTransformPluginId( transformPluginId );
+    transformMeta.setLocation( x, y );
+    pipelineMeta.addTransform( transformMeta );
+
+    return transformMeta;
+  }
+
+  /**
+   * Create the pipeline, ready to add row producers and listeners
+   *
+   * @param pipelineMeta   The single threaded pipeline
+   * @param variableValues The variables to give the transforms
+   * @return The prepared pipeline
+   * @throws HopException
+   */
+  public static LocalPipelineEngine createPipeline( PipelineMeta pipelineMeta, List<VariableValue> variableValues ) throws HopException {
+    LocalPipelineEngine pipeline = new LocalPipelineEngine( pipelineMeta );
+    pipeline.setLogLevel( LogLevel.ERROR );
+    pipeline.setMetadataProvider( pipelineMeta.getMetadataProvider() );
+    pipeline.prepareExecution();
+
+    // Give transforms variables from above
+    //
+    for ( VariableValue variableValue : variableValues ) {
+      if ( StringUtils.isNotEmpty( variableValue.getVariable() ) ) {
+        pipeline.setVariable( variableValue.getVariable(), variableValue.getValue() );
+      }
+    }
+    return pipeline;
+  }
+
+  public static TransformMetaDataCombi findCombi( Pipeline pipeline, String transformName ) {
+    for ( TransformMetaDataCombi combi : pipeline.getTransforms() ) {
+      if ( combi.transformName.equals( transformName ) ) {
+        return combi;
+      }
+    }
+    throw new RuntimeException( "Configuration error, transform '" + transformName + "' not found in pipeline" );
+  }
+}
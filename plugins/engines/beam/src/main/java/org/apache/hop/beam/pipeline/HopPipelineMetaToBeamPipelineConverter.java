@@ -30,6 +30,7 @@ import org.apache.beam.sdk.values.PCollectionList;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hop.beam.core.HopRow;
 import org.apache.hop.beam.core.coder.HopRowCoder;
+import org.apache.hop.beam.core.coder.HopRowSchemaCoder;
 import org.apache.hop.beam.core.util.HopBeamUtil;
 import org.apache.hop.beam.engines.IBeamPipelineEngineRunConfiguration;
 import org.apache.hop.beam.metadata.RunnerType;
@@ -91,11 +92,13 @@ public class HopPipelineMetaToBeamPipelineConverter<T extends IBeamPipelineEngin
   protected Map<String, IBeamTransformHandler> transformHandlers;
   protected IBeamTransformHandler genericTransformHandler;
   protected T pipelineRunConfiguration;
+  protected boolean fusingTransforms;
 
   public HopPipelineMetaToBeamPipelineConverter() {
     this.transformHandlers = new HashMap<>();
     this.transformPluginClasses = new ArrayList<>();
     this.xpPluginClasses = new ArrayList<>();
+    this.fusingTransforms = true;
   }
 
   public HopPipelineMetaToBeamPipelineConverter( IVariables variables, PipelineMeta pipelineMeta, IHopMetadataProvider metadataProvider, T pipelineRunConfiguration ) throws HopException, HopException {
@@ -257,6 +260,7 @@ public class HopPipelineMetaToBeamPipelineConverter<T extends IBeamPipelineEngin
     for ( TransformMeta transformMeta : beamInputTransformMetas ) {
       IBeamTransformHandler transformHandler = transformHandlers.get( transformMeta.getTransformPluginId() );
       transformHandler.handleTransform( log, transformMeta, transformCollectionMap, pipeline, pipelineMeta.getTransformFields( variables, transformMeta ), null, null );
+      setRowCoders( transformMeta, transformCollectionMap );
     }
   }
 
@@ -292,6 +296,10 @@ public class HopPipelineMetaToBeamPipelineConverter<T extends IBeamPipelineEngin
     //
     List<TransformMeta> transforms = getSortedTransformsList();
 
+    // Linear chains of generic transforms are executed together
+    //
+    Map<String, List<TransformMeta>> transformChains = findTransformChains( transforms );
+
     for ( TransformMeta transformMeta : transforms ) {
 
       // Input and output transforms are handled else where.
@@ -303,6 +311,13 @@ public class HopPipelineMetaToBeamPipelineConverter<T extends IBeamPipelineEngin
         //
         validateTransformBeamUsage( transformMeta.getTransform() );
 
+        // The other transforms of a chain are handled together with the first one
+        //
+        List<TransformMeta> transformChain = transformChains.get( transformMeta.getName() );
+        if ( transformChain != null && transformChain.get( 0 ) != transformMeta ) {
+          continue;
+        }
+
         // Lookup all the previous transforms for this one, excluding info transforms like StreamLookup...
         // So the usecase is : we read from multiple io transforms and join to one location...
         //
@@ -371,10 +386,17 @@ public class HopPipelineMetaToBeamPipelineConverter<T extends IBeamPipelineEngin
             // Flatten all the collections.  It's business as usual behind this.
             //
             input = inputList.apply( transformMeta.getName() + " Flatten", Flatten.<HopRow>pCollections() );
+            input.setCoder( HopRowSchemaCoder.of( rowMeta ) );
           }
         }
 
-        if ( transformHandler != null ) {
+        if ( transformChain != null ) {
+
+          ( (BeamGenericTransformHandler) genericTransformHandler ).handleTransformChain( log, transformChain, transformCollectionMap, pipeline, rowMeta, input );
+          setRowCoders( transformChain.get( transformChain.size() - 1 ), transformCollectionMap );
+          continue;
+
+        } else if ( transformHandler != null ) {
 
           transformHandler.handleTransform( log, transformMeta, transformCollectionMap, pipeline, rowMeta, previousTransforms, input );
 
@@ -383,9 +405,67 @@ public class HopPipelineMetaToBeamPipelineConverter<T extends IBeamPipelineEngin
           genericTransformHandler.handleTransform( log, transformMeta, transformCollectionMap, pipeline, rowMeta, previousTransforms, input );
 
         }
+        setRowCoders( transformMeta, transformCollectionMap );
+      }
+    }
+
+  }
+
+  /**
+   * Find the linear chains of generic transforms which can run in a single DoFn.
+   * A transform joins the chain of the transform before it if that transform is its only input and it's the only
+   * transform reading from it. This saves encoding and decoding the rows in between the transforms of the chain.
+   *
+   * @param transforms The transforms sorted from start to finish
+   * @return The chains with more than one transform, by the name of every transform in it
+   */
+  Map<String, List<TransformMeta>> findTransformChains( List<TransformMeta> transforms ) {
+    Map<String, List<TransformMeta>> transformChains = new HashMap<>();
+    if ( !fusingTransforms || !( genericTransformHandler instanceof BeamGenericTransformHandler ) ) {
+      return transformChains;
+    }
+
+    for ( TransformMeta transformMeta : transforms ) {
+      if ( transformHandlers.containsKey( transformMeta.getTransformPluginId() )
+        || !BeamGenericTransformHandler.canBeFused( pipelineMeta, transformMeta ) ) {
+        continue;
+      }
+      List<TransformMeta> transformChain = null;
+      List<TransformMeta> previousTransforms = pipelineMeta.findPreviousTransforms( transformMeta, false );
+      if ( previousTransforms.size() == 1 && pipelineMeta.findNextTransforms( previousTransforms.get( 0 ) ).size() == 1 ) {
+        transformChain = transformChains.get( previousTransforms.get( 0 ).getName() );
       }
+      if ( transformChain == null ) {
+        transformChain = new ArrayList<>();
+      }
+      transformChain.add( transformMeta );
+      transformChains.put( transformMeta.getName(), transformChain );
     }
 
+    // A single transform is handled as usual
+    //
+    transformChains.values().removeIf( transformChain -> transformChain.size() < 2 );
+
+    return transformChains;
+  }
+
+  /**
+   * The layout of the rows a transform produces is known at this point so we can encode them with the compact
+   * schema aware coder instead of the generic one which writes the type of every value.
+   *
+   * @param transformMeta          The transform which was just handled
+   * @param transformCollectionMap The collections produced so far
+   * @throws HopException In case the output fields of the transform can't be determined
+   */
+  private void setRowCoders( TransformMeta transformMeta, Map<String, PCollection<HopRow>> transformCollectionMap ) throws HopException {
+    HopRowSchemaCoder coder = HopRowSchemaCoder.of( pipelineMeta.getTransformFields( variables, transformMeta ) );
+
+    String targetPrefix = HopBeamUtil.createTargetTupleId( transformMeta.getName(), "" );
+    for ( Map.Entry<String, PCollection<HopRow>> entry : transformCollectionMap.entrySet() ) {
+      if ( entry.getKey().equals( transformMeta.getName() ) || entry.getKey().startsWith( targetPrefix ) ) {
+        entry.getValue().setCoder( coder );
+      }
+    }
   }
 
   private void validateTransformBeamUsage( ITransformMeta meta ) throws HopException {
@@ -607,4 +687,20 @@ public class HopPipelineMetaToBeamPipelineConverter<T extends IBeamPipelineEngin
   public void setGenericTransformHandler( IBeamTransformHandler genericTransformHandler ) {
     this.genericTransformHandler = genericTransformHandler;
   }
+
+  /**
+   * Gets fusingTransforms
+   *
+   * @return true if linear chains of generic transforms are executed in a single DoFn
+   */
+  public boolean isFusingTransforms() {
+    return fusingTransforms;
+  }
+
+  /**
+   * @param fusingTransforms The fusingTransforms to set
+   */
+  public void setFusingTransforms( boolean fusingTransforms ) {
+    this.fusingTransforms = fusingTransforms;
+  }
 }
@@ -37,6 +37,7 @@ import org.apache.hop.beam.core.HopRow;
 import org.apache.hop.beam.core.fn.StringToHopRowFn;
 import org.apache.hop.beam.core.shared.VariableValue;
 import org.apache.hop.beam.core.transform.TransformBatchTransform;
+import org.apache.hop.beam.core.transform.TransformChainTransform;
 import org.apache.hop.beam.core.transform.TransformTransform;
 import org.apache.hop.beam.core.util.HopBeamUtil;
 import org.apache.hop.beam.core.util.JsonRowMeta;
@@ -137,6 +138,115 @@ public class BeamGenericTransformHandler extends BeamBaseTransformHandler implem
         targetTransforms, infoTransforms, infoRowMetaJsons, infoCollectionViews );
     }
 
+    input = prepareInput( transformMeta, transformCollectionMap, pipeline, rowMeta, input, reduceParallelism );
+
+    // Apply the transform transform to the previous io transform PCollection(s)
+    //
+    PCollectionTuple tuple = input.apply( transformMeta.getName(), transformTransform );
+
+    // The main collection
+    //
+    PCollection<HopRow> mainPCollection = tuple.get( new TupleTag<>( HopBeamUtil.createMainOutputTupleId( transformMeta.getName() ) ) );
+
+    // Save this in the map
+    //
+    transformCollectionMap.put( transformMeta.getName(), mainPCollection );
+
+    // Were there any targeted transforms in this transform?
+    //
+    for ( String targetTransform : targetTransforms ) {
+      String tupleId = HopBeamUtil.createTargetTupleId( transformMeta.getName(), targetTransform );
+      PCollection<HopRow> targetPCollection = tuple.get( new TupleTag<>( tupleId ) );
+
+      // Store this in the map as well
+      //
+      transformCollectionMap.put( tupleId, targetPCollection );
+    }
+
+    log.logBasic( "Handled generic transform (TRANSFORM) : " + transformMeta.getName() + ", gets data from " + previousTransforms.size() + " previous transform(s), targets=" + targetTransforms.size() + ", infos=" + infoTransforms.size() );
+  }
+
+  /**
+   * Handle a linear chain of generic transforms found with {@link #canBeFused(PipelineMeta, TransformMeta)}.
+   * The transforms are executed together in a single DoFn. Only the collection of the last transform is stored.
+   *
+   * @param log
+   * @param chain The transforms of the chain in order, the first one reads from the given input
+   * @param transformCollectionMap
+   * @param pipeline
+   * @param rowMeta The layout of the rows going into the first transform
+   * @param input The input of the first transform or null if it's an input transform
+   * @throws HopException
+   */
+  public void handleTransformChain( ILogChannel log, List<TransformMeta> chain, Map<String, PCollection<HopRow>> transformCollectionMap,
+                                    Pipeline pipeline, IRowMeta rowMeta, PCollection<HopRow> input ) throws HopException {
+
+    TransformMeta firstTransformMeta = chain.get( 0 );
+    TransformMeta lastTransformMeta = chain.get( chain.size() - 1 );
+    boolean inputTransform = input == null;
+
+    List<String> transformNames = new ArrayList<>();
+    List<String> transformPluginIds = new ArrayList<>();
+    List<String> transformMetaInterfaceXmls = new ArrayList<>();
+    for ( TransformMeta transformMeta : chain ) {
+      transformNames.add( transformMeta.getName() );
+      transformPluginIds.add( transformMeta.getTransformPluginId() );
+      transformMetaInterfaceXmls.add( XmlHandler.openTag( TransformMeta.XML_TAG ) + transformMeta.getTransform().getXml() + XmlHandler.closeTag( TransformMeta.XML_TAG ) );
+    }
+
+    TransformChainTransform chainTransform = new TransformChainTransform( getVariableValues( variables ), metaStoreJson, transformPluginClasses, xpPluginClasses,
+      transformNames, transformPluginIds, transformMetaInterfaceXmls, JsonRowMeta.toJson( rowMeta ), inputTransform );
+
+    input = prepareInput( firstTransformMeta, transformCollectionMap, pipeline, rowMeta, input, false );
+
+    PCollection<HopRow> output = input.apply( firstTransformMeta.getName() + " - " + lastTransformMeta.getName(), chainTransform );
+
+    // Transforms after the chain read from the last transform
+    //
+    transformCollectionMap.put( lastTransformMeta.getName(), output );
+
+    log.logBasic( "Handled generic transforms (TRANSFORM CHAIN) : " + transformNames );
+  }
+
+  /**
+   * See if a generic transform can be executed in the same DoFn as the transforms before or after it.
+   * This is not possible for transforms with info or target transforms, error handling, more than one copy or special
+   * threading needs.
+   *
+   * @param pipelineMeta The pipeline of the transform
+   * @param transformMeta The transform to check
+   * @return true if the transform can be part of a chain of fused transforms
+   */
+  public static boolean canBeFused( PipelineMeta pipelineMeta, TransformMeta transformMeta ) {
+    if ( needsBatching( transformMeta ) || needsSingleThreading( transformMeta ) || checkTransformCopiesForReducedParallelism( transformMeta ) ) {
+      return false;
+    }
+    if ( transformMeta.isDoingErrorHandling() ) {
+      return false;
+    }
+    // More than one copy asks for the rows to be spread over the copies in their own DoFn
+    //
+    String copiesString = Const.NVL( transformMeta.getCopiesString(), "1" ).trim();
+    if ( !copiesString.isEmpty() && !"1".equals( copiesString ) ) {
+      return false;
+    }
+    if ( pipelineMeta.findPreviousTransforms( transformMeta, true ).size() != pipelineMeta.findPreviousTransforms( transformMeta, false ).size() ) {
+      return false;
+    }
+    for ( IStream targetStream : transformMeta.getTransform().getTransformIOMeta().getTargetStreams() ) {
+      if ( targetStream.getTransformMeta() != null ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Without a previous transform we start from a single dummy row.
+   * If the transform needs to run single threaded all rows are grouped together first.
+   */
+  private PCollection<HopRow> prepareInput( TransformMeta transformMeta, Map<String, PCollection<HopRow>> transformCollectionMap, Pipeline pipeline,
+                                            IRowMeta rowMeta, PCollection<HopRow> input, boolean reduceParallelism ) throws HopException {
     if ( input == null ) {
       // Start from a dummy row and group over it.
       // Trick Beam into only running a single thread of the transform that comes next.
@@ -177,31 +287,7 @@ public class BeamGenericTransformHandler extends BeamBaseTransformHandler implem
         throw new HopException( "Unable to reduce parallel in an unbounded (streaming) pipeline in transform : "+transformMeta.getName() );
       }
     }
-
-    // Apply the transform transform to the previous io transform PCollection(s)
-    //
-    PCollectionTuple tuple = input.apply( transformMeta.getName(), transformTransform );
-
-    // The main collection
-    //
-    PCollection<HopRow> mainPCollection = tuple.get( new TupleTag<>( HopBeamUtil.createMainOutputTupleId( transformMeta.getName() ) ) );
-
-    // Save this in the map
-    //
-    transformCollectionMap.put( transformMeta.getName(), mainPCollection );
-
-    // Were there any targeted transforms in this transform?
-    //
-    for ( String targetTransform : targetTransforms ) {
-      String tupleId = HopBeamUtil.createTargetTupleId( transformMeta.getName(), targetTransform );
-      PCollection<HopRow> targetPCollection = tuple.get( new TupleTag<>( tupleId ) );
-
-      // Store this in the map as well
-      //
-      transformCollectionMap.put( tupleId, targetPCollection );
-    }
-
-    log.logBasic( "Handled generic transform (TRANSFORM) : " + transformMeta.getName() + ", gets data from " + previousTransforms.size() + " previous transform(s), targets=" + targetTransforms.size() + ", infos=" + infoTransforms.size() );
+    return input;
   }
 
   public static boolean needsBatching( TransformMeta transformMeta ) {
@@ -214,7 +300,7 @@ public class BeamGenericTransformHandler extends BeamBaseTransformHandler implem
     return value!=null && "true".equalsIgnoreCase( value );
   }
 
-  private boolean checkTransformCopiesForReducedParallelism( TransformMeta transformMeta ) {
+  private static boolean checkTransformCopiesForReducedParallelism( TransformMeta transformMeta ) {
     if ( transformMeta.getCopiesString() == null ) {
       return false;
     }
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.beam.core.coder;
+
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaBinary;
+import org.apache.hop.core.row.value.ValueMetaBoolean;
+import org.apache.hop.core.row.value.ValueMetaDate;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.row.value.ValueMetaTimestamp;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HopRowSchemaCoderTest {
+
+  private HopRowSchemaCoder coder;
+
+  @Before
+  public void setUp() {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "number" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date" ) );
+    rowMeta.addValueMeta( new ValueMetaTimestamp( "timestamp" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "boolean" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "bignumber" ) );
+    rowMeta.addValueMeta( new ValueMetaBinary( "binary" ) );
+    coder = HopRowSchemaCoder.of( rowMeta );
+  }
+
+  private byte[] encode( HopRow row ) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    coder.encode( row, outputStream );
+    return outputStream.toByteArray();
+  }
+
+  private Object[] roundTrip( Object[] row ) throws IOException {
+    return coder.decode( new ByteArrayInputStream( encode( new HopRow( row ) ) ) ).getRow();
+  }
+
+  @Test
+  public void testAllValueTypes() throws Exception {
+    Timestamp timestamp = new Timestamp( 876876868L );
+    timestamp.setNanos( 123456789 );
+    Object[] row = new Object[] { "AAA", -100L, 1.234, new Date( 876876868L ), timestamp, true,
+      new BigDecimal( "-12345678901234567890.0123456789" ), new byte[] { 1, 2, 3 } };
+
+    assertArrayEquals( row, roundTrip( row ) );
+  }
+
+  @Test
+  public void testNullsAndOverAllocatedRows() throws Exception {
+    Object[] row = new Object[] { null, 1L, null, null, null, false, null, null, null, null, null };
+    assertArrayEquals( row, roundTrip( row ) );
+
+    assertNull( roundTrip( null ) );
+  }
+
+  @Test
+  public void testLongStrings() throws Exception {
+    char[] chars = new char[ 100000 ];
+    Arrays.fill( chars, '\u00e9' );
+    Object[] row = new Object[] { new String( chars ), 1L };
+
+    assertArrayEquals( row, roundTrip( row ) );
+  }
+
+  @Test
+  public void testValuesNotMatchingTheLayout() throws Exception {
+    // A timestamp in a date column and a value past the end of the layout
+    //
+    Timestamp timestamp = new Timestamp( 5L );
+    timestamp.setNanos( 5 );
+    Object[] row = new Object[] { "AAA", 1L, 2.0, timestamp, null, null, null, null, "extra" };
+
+    assertArrayEquals( row, roundTrip( row ) );
+  }
+
+  @Test
+  public void testMoreCompactThanGenericCoder() throws Exception {
+    Object[] row = new Object[] { "AAA", 100L, 1.234, new Date( 876876868L ), null, true, null, null };
+
+    ByteArrayOutputStream generic = new ByteArrayOutputStream();
+    new HopRowCoder().encode( new HopRow( row ), generic );
+
+    assertTrue( encode( new HopRow( row ) ).length < generic.size() / 2 );
+  }
+
+  @Test
+  public void testDeterministicLayout() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    rowMeta.addValueMeta( new ValueMetaTimestamp( "timestamp" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "boolean" ) );
+    rowMeta.addValueMeta( new ValueMetaBinary( "binary" ) );
+    HopRowSchemaCoder keyCoder = HopRowSchemaCoder.of( rowMeta );
+
+    keyCoder.verifyDeterministic();
+
+    // Equal rows give the same bytes
+    //
+    Timestamp timestamp = new Timestamp( 5L );
+    timestamp.setNanos( 5 );
+    Timestamp sameTimestamp = new Timestamp( 5L );
+    sameTimestamp.setNanos( 5 );
+    assertArrayEquals( encode( keyCoder, new Object[] { "AAA", 1L, timestamp, true, new byte[] { 1, 2 } } ),
+      encode( keyCoder, new Object[] { new String( "AAA" ), 1L, sameTimestamp, true, new byte[] { 1, 2 } } ) );
+  }
+
+  @Test
+  public void testNonDeterministicLayout() {
+    // The full layout has number, date and big number columns
+    //
+    assertNonDeterministic( coder );
+
+    assertNonDeterministic( HopRowSchemaCoder.of( singleColumn( new ValueMetaNumber( "number" ) ) ) );
+    assertNonDeterministic( HopRowSchemaCoder.of( singleColumn( new ValueMetaDate( "date" ) ) ) );
+    assertNonDeterministic( HopRowSchemaCoder.of( singleColumn( new ValueMetaBigNumber( "bignumber" ) ) ) );
+  }
+
+  @Test
+  public void testEqualBigNumbersAreEncodedDifferently() throws Exception {
+    HopRowSchemaCoder keyCoder = HopRowSchemaCoder.of( singleColumn( new ValueMetaBigNumber( "bignumber" ) ) );
+
+    assertFalse( Arrays.equals( encode( keyCoder, new Object[] { new BigDecimal( "1.0" ) } ),
+      encode( keyCoder, new Object[] { new BigDecimal( "1.00" ) } ) ) );
+  }
+
+  private static IRowMeta singleColumn( IValueMeta valueMeta ) {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( valueMeta );
+    return rowMeta;
+  }
+
+  private static byte[] encode( HopRowSchemaCoder keyCoder, Object[] row ) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    keyCoder.encode( new HopRow( row ), outputStream );
+    return outputStream.toByteArray();
+  }
+
+  private static void assertNonDeterministic( HopRowSchemaCoder keyCoder ) {
+    try {
+      keyCoder.verifyDeterministic();
+      fail( "The layout should not be deterministic" );
+    } catch ( Coder.NonDeterministicException e ) {
+      // Expected
+    }
+  }
+}
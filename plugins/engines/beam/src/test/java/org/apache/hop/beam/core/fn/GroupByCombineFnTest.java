@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.beam.core.fn;
+
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CoderRegistry;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.hop.beam.core.HopRow;
+import org.apache.hop.beam.core.coder.HopRowCoder;
+import org.apache.hop.beam.core.coder.HopRowSchemaCoder;
+import org.apache.hop.beam.core.util.JsonRowMeta;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaBigNumber;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GroupByCombineFnTest {
+
+  private GroupByCombineFn combineFn;
+
+  @Before
+  public void setUp() throws Exception {
+    IRowMeta subjectRowMeta = new RowMeta();
+    subjectRowMeta.addValueMeta( new ValueMetaInteger( "sum" ) );
+    subjectRowMeta.addValueMeta( new ValueMetaNumber( "average" ) );
+    subjectRowMeta.addValueMeta( new ValueMetaString( "count" ) );
+    subjectRowMeta.addValueMeta( new ValueMetaString( "min" ) );
+    subjectRowMeta.addValueMeta( new ValueMetaBigNumber( "max" ) );
+
+    combineFn = new GroupByCombineFn( JsonRowMeta.toJson( subjectRowMeta ), new ArrayList<>(), new ArrayList<>(),
+      new String[] { "SUM", "AVERAGE", "COUNT_ALL", "MIN", "MAX" } );
+  }
+
+  private HopRow accumulate( Object[]... rows ) {
+    HopRow accumulator = combineFn.createAccumulator();
+    for ( Object[] row : rows ) {
+      accumulator = combineFn.addInput( accumulator, new HopRow( row ) );
+    }
+    return accumulator;
+  }
+
+  @Test
+  public void testCanCombine() {
+    assertTrue( GroupByCombineFn.canCombine( new String[] { "SUM", "AVERAGE", "COUNT_ALL", "MIN", "MAX" } ) );
+    assertFalse( GroupByCombineFn.canCombine( new String[] { "SUM", "FIRST" } ) );
+    assertFalse( GroupByCombineFn.canCombine( new String[] { "LAST_INCL_NULL" } ) );
+  }
+
+  @Test
+  public void testAddInput() {
+    HopRow accumulator = accumulate(
+      new Object[] { 1L, 1.0, "a", "b", new BigDecimal( "1.5" ) },
+      new Object[] { 2L, 2.0, null, "a", new BigDecimal( "2.5" ) },
+      new Object[] { null, null, "c", null, null }
+    );
+
+    assertArrayEquals( new Object[] { 3L, 1.5, 2L, "a", new BigDecimal( "2.5" ) }, combineFn.extractOutput( accumulator ).getRow() );
+  }
+
+  @Test
+  public void testMergeAccumulators() {
+    HopRow left = accumulate(
+      new Object[] { 1L, 1.0, "a", "b", new BigDecimal( "1.5" ) },
+      new Object[] { 2L, 2.0, null, "c", null }
+    );
+    HopRow right = accumulate(
+      new Object[] { 3L, 6.0, "a", "a", new BigDecimal( "0.5" ) }
+    );
+    HopRow empty = combineFn.createAccumulator();
+
+    HopRow merged = combineFn.mergeAccumulators( Arrays.asList( left, empty, right ) );
+
+    assertArrayEquals( new Object[] { 6L, 3.0, 2L, "a", new BigDecimal( "1.5" ) }, combineFn.extractOutput( merged ).getRow() );
+  }
+
+  @Test
+  public void testAccumulatorCoder() throws Exception {
+    Coder<HopRow> coder = combineFn.getAccumulatorCoder( CoderRegistry.createDefault(), new HopRowCoder() );
+    assertEquals( HopRowSchemaCoder.of( combineFn.getAccumulatorRowMeta() ), coder );
+
+    HopRow accumulator = accumulate(
+      new Object[] { 1L, 1.0, "a", "b", new BigDecimal( "1.5" ) },
+      new Object[] { null, null, null, null, null }
+    );
+    HopRow decoded = CoderUtils.clone( coder, accumulator );
+    assertArrayEquals( accumulator.getRow(), decoded.getRow() );
+
+    HopRow empty = CoderUtils.clone( coder, combineFn.createAccumulator() );
+    assertArrayEquals( combineFn.createAccumulator().getRow(), empty.getRow() );
+  }
+
+  @Test
+  public void testBigNumberAverage() throws Exception {
+    IRowMeta subjectRowMeta = new RowMeta();
+    subjectRowMeta.addValueMeta( new ValueMetaBigNumber( "average" ) );
+    GroupByCombineFn averageFn = new GroupByCombineFn( JsonRowMeta.toJson( subjectRowMeta ), new ArrayList<>(),
+      new ArrayList<>(), new String[] { "AVERAGE" } );
+
+    // The average isn't limited to the scale of the sum
+    //
+    HopRow accumulator = averageFn.createAccumulator();
+    accumulator = averageFn.addInput( accumulator, new HopRow( new Object[] { new BigDecimal( "1" ) } ) );
+    accumulator = averageFn.addInput( accumulator, new HopRow( new Object[] { new BigDecimal( "2" ) } ) );
+    assertEquals( 0, new BigDecimal( "1.5" ).compareTo( (BigDecimal) averageFn.extractOutput( accumulator ).getRow()[ 0 ] ) );
+
+    // A repeating decimal doesn't fail
+    //
+    accumulator = averageFn.addInput( accumulator, new HopRow( new Object[] { new BigDecimal( "2" ) } ) );
+    BigDecimal average = (BigDecimal) averageFn.extractOutput( accumulator ).getRow()[ 0 ];
+    assertTrue( average.toString(), average.toString().startsWith( "1.6666666666" ) );
+    assertEquals( average, GroupByCombineFn.averageBigNumber( new BigDecimal( "5" ), 3 ) );
+  }
+
+  @Test
+  public void testEmptyGroup() {
+    Object[] results = combineFn.extractOutput( combineFn.createAccumulator() ).getRow();
+    assertEquals( 5, results.length );
+    for ( Object result : results ) {
+      assertEquals( null, result );
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.beam.pipeline;
+
+import org.apache.beam.sdk.Pipeline;
+import org.apache.hop.beam.engines.direct.BeamDirectPipelineRunConfiguration;
+import org.apache.hop.beam.pipeline.handler.BeamGenericTransformHandler;
+import org.apache.hop.beam.transform.PipelineTestBase;
+import org.apache.hop.beam.util.BeamPipelineMetaUtil;
+import org.apache.hop.pipeline.PipelineMeta;
+import org.apache.hop.pipeline.transform.TransformMeta;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HopPipelineMetaToBeamPipelineConverterTest extends PipelineTestBase {
+
+  private static final String OUTPUT_FOLDER = "/tmp/customers/output";
+
+  private HopPipelineMetaToBeamPipelineConverter createConverter( PipelineMeta pipelineMeta ) throws Exception {
+    BeamDirectPipelineRunConfiguration beamRunConfig = new BeamDirectPipelineRunConfiguration();
+    beamRunConfig.setTempLocation( System.getProperty( "java.io.tmpdir" ) );
+    return new HopPipelineMetaToBeamPipelineConverter( variables, pipelineMeta, metadataProvider, beamRunConfig );
+  }
+
+  private List<String> getNames( List<TransformMeta> transforms ) {
+    List<String> names = new ArrayList<>();
+    for ( TransformMeta transformMeta : transforms ) {
+      names.add( transformMeta.getName() );
+    }
+    return names;
+  }
+
+  @Test
+  public void testLinearChainIsFused() throws Exception {
+    PipelineMeta pipelineMeta = BeamPipelineMetaUtil.generateTransformChainPipelineMeta( "io-chain", "INPUT", "OUTPUT", "chain", metadataProvider );
+
+    for ( String name : Arrays.asList( "Filter", "Label", "Dummy" ) ) {
+      assertTrue( name, BeamGenericTransformHandler.canBeFused( pipelineMeta, pipelineMeta.findTransform( name ) ) );
+    }
+
+    Map<String, List<TransformMeta>> chains = createConverter( pipelineMeta ).findTransformChains( pipelineMeta.getTransforms() );
+
+    // Every transform of the chain finds the same chain, the input and output transforms are never part of it
+    //
+    assertEquals( 3, chains.size() );
+    List<TransformMeta> chain = chains.get( "Filter" );
+    assertNotNull( chain );
+    assertEquals( Arrays.asList( "Filter", "Label", "Dummy" ), getNames( chain ) );
+    assertSame( chain, chains.get( "Label" ) );
+    assertSame( chain, chains.get( "Dummy" ) );
+  }
+
+  @Test
+  public void testNoChainWhenFusingIsDisabled() throws Exception {
+    PipelineMeta pipelineMeta = BeamPipelineMetaUtil.generateTransformChainPipelineMeta( "io-chain", "INPUT", "OUTPUT", "chain", metadataProvider );
+
+    HopPipelineMetaToBeamPipelineConverter converter = createConverter( pipelineMeta );
+    converter.setFusingTransforms( false );
+    assertTrue( converter.findTransformChains( pipelineMeta.getTransforms() ).isEmpty() );
+  }
+
+  @Test
+  public void testTransformWithCopiesSplitsTheChain() throws Exception {
+    PipelineMeta pipelineMeta = BeamPipelineMetaUtil.generateTransformChainPipelineMeta( "io-chain", "INPUT", "OUTPUT", "chain", metadataProvider );
+    TransformMeta labelMeta = pipelineMeta.findTransform( "Label" );
+    labelMeta.setCopiesString( "2" );
+    assertFalse( BeamGenericTransformHandler.canBeFused( pipelineMeta, labelMeta ) );
+
+    // Filter and Dummy are left on their own
+    //
+    assertTrue( createConverter( pipelineMeta ).findTransformChains( pipelineMeta.getTransforms() ).isEmpty() );
+
+    labelMeta.setCopiesString( "BEAM_SINGLE" );
+    assertFalse( BeamGenericTransformHandler.canBeFused( pipelineMeta, labelMeta ) );
+  }
+
+  @Test
+  public void testTransformWithTargetsIsNotFused() throws Exception {
+    PipelineMeta pipelineMeta = BeamPipelineMetaUtil.generateFilterRowsPipelineMeta( "io-filter-rows-output", "INPUT", "OUTPUT", metadataProvider );
+
+    assertFalse( BeamGenericTransformHandler.canBeFused( pipelineMeta, pipelineMeta.findTransform( "Filter" ) ) );
+
+    // A and B share their input, Flatten reads from both
+    //
+    assertTrue( createConverter( pipelineMeta ).findTransformChains( pipelineMeta.getTransforms() ).isEmpty() );
+  }
+
+  @Test
+  public void testTransformWithInfoStreamIsNotFused() throws Exception {
+    PipelineMeta pipelineMeta = BeamPipelineMetaUtil.generateStreamLookupPipelineMeta( "io-stream-lookup", "INPUT", "OUTPUT", metadataProvider );
+
+    assertFalse( BeamGenericTransformHandler.canBeFused( pipelineMeta, pipelineMeta.findTransform( "Stream Lookup" ) ) );
+    assertTrue( createConverter( pipelineMeta ).findTransformChains( pipelineMeta.getTransforms() ).isEmpty() );
+  }
+
+  @Test
+  public void testFusedChainGivesTheSameRows() throws Exception {
+    List<String> fused = runChainPipeline( "chain-fused", true );
+    List<String> unfused = runChainPipeline( "chain-unfused", false );
+
+    assertFalse( fused.isEmpty() );
+    assertEquals( unfused, fused );
+    for ( String line : fused ) {
+      assertTrue( line, line.endsWith( "before-k" ) );
+    }
+  }
+
+  private List<String> runChainPipeline( String filePrefix, boolean fusingTransforms ) throws Exception {
+    deleteOutputFiles( filePrefix );
+
+    PipelineMeta pipelineMeta = BeamPipelineMetaUtil.generateTransformChainPipelineMeta( "io-" + filePrefix, "INPUT", "OUTPUT", filePrefix, metadataProvider );
+    HopPipelineMetaToBeamPipelineConverter converter = createConverter( pipelineMeta );
+    converter.setFusingTransforms( fusingTransforms );
+    Pipeline pipeline = converter.createPipeline();
+    pipeline.run().waitUntilFinish();
+
+    // The rows are spread over any number of files in any order
+    //
+    List<String> lines = new ArrayList<>();
+    for ( File file : getOutputFiles( filePrefix ) ) {
+      lines.addAll( Files.readAllLines( file.toPath(), StandardCharsets.UTF_8 ) );
+    }
+    Collections.sort( lines );
+    return lines;
+  }
+
+  private File[] getOutputFiles( String filePrefix ) {
+    File[] files = new File( OUTPUT_FOLDER ).listFiles( ( dir, name ) -> name.startsWith( filePrefix + "-" ) );
+    return files == null ? new File[ 0 ] : files;
+  }
+
+  private void deleteOutputFiles( String filePrefix ) {
+    for ( File file : getOutputFiles( filePrefix ) ) {
+      file.delete();
+    }
+  }
+}
@@ -220,6 +220,67 @@ public class BeamPipelineMetaUtil {
     return pipelineMeta;
   }
 
+  public static final PipelineMeta generateTransformChainPipelineMeta( String transname, String inputTransformName, String outputTransformName, String outputFilePrefix, IHopMetadataProvider metadataProvider ) throws Exception {
+
+    IHopMetadataSerializer<FileDefinition> serializer = metadataProvider.getSerializer( FileDefinition.class );
+    FileDefinition customerFileDefinition = createCustomersInputFileDefinition();
+    serializer.save( customerFileDefinition );
+
+    PipelineMeta pipelineMeta = new PipelineMeta(  );
+    pipelineMeta.setName( transname );
+    pipelineMeta.setMetadataProvider( metadataProvider );
+
+    // Add the io transform
+    //
+    BeamInputMeta beamInputMeta = new BeamInputMeta();
+    beamInputMeta.setInputLocation( PipelineTestBase.INPUT_CUSTOMERS_FILE );
+    beamInputMeta.setFileDefinitionName( customerFileDefinition.getName() );
+    TransformMeta beamInputTransformMeta = new TransformMeta(inputTransformName, beamInputMeta);
+    beamInputTransformMeta.setTransformPluginId( BeamConst.STRING_BEAM_INPUT_PLUGIN_ID );
+    pipelineMeta.addTransform( beamInputTransformMeta );
+
+    // Keep the customers with a name before "k", without true or false targets
+    //
+    FilterRowsMeta filter = new FilterRowsMeta();
+    filter.getCondition().setLeftValuename( "name" );
+    filter.getCondition().setFunction( Condition.FUNC_SMALLER );
+    filter.getCondition().setRightExact( new ValueMetaAndData( "value", "k" ) );
+    TransformMeta filterMeta = new TransformMeta("Filter", filter);
+    pipelineMeta.addTransform( filterMeta );
+    pipelineMeta.addPipelineHop( new PipelineHopMeta( beamInputTransformMeta, filterMeta ) );
+
+    // Add a constant and pass the rows through a dummy: a linear chain of 3 generic transforms
+    //
+    ConstantMeta constant = new ConstantMeta();
+    constant.allocate( 1 );
+    constant.getFieldName()[0]="label";
+    constant.getFieldType()[0]="String";
+    constant.getValue()[0]="before-k";
+    TransformMeta constantMeta = new TransformMeta("Label", constant);
+    pipelineMeta.addTransform(constantMeta);
+    pipelineMeta.addPipelineHop( new PipelineHopMeta( filterMeta, constantMeta ) );
+
+    DummyMeta dummyPipelineMeta = new DummyMeta();
+    TransformMeta dummyTransformMeta = new TransformMeta("Dummy", dummyPipelineMeta);
+    pipelineMeta.addTransform( dummyTransformMeta );
+    pipelineMeta.addPipelineHop(new PipelineHopMeta( constantMeta, dummyTransformMeta ) );
+
+    // Add the output transform
+    //
+    BeamOutputMeta beamOutputMeta = new BeamOutputMeta();
+    beamOutputMeta.setOutputLocation( "/tmp/customers/output/" );
+    beamOutputMeta.setFileDefinitionName( null );
+    beamOutputMeta.setFilePrefix( outputFilePrefix );
+    beamOutputMeta.setFileSuffix( ".csv" );
+    beamOutputMeta.setWindowed( false ); // Not yet supported
+    TransformMeta beamOutputTransformMeta = new TransformMeta(outputTransformName, beamOutputMeta);
+    beamOutputTransformMeta.setTransformPluginId( "BeamOutput" );
+    pipelineMeta.addTransform( beamOutputTransformMeta );
+    pipelineMeta.addPipelineHop(new PipelineHopMeta( dummyTransformMeta, beamOutputTransformMeta ) );
+
+    return pipelineMeta;
+  }
+
   public static final PipelineMeta generateSwitchCasePipelineMeta( String transname, String inputTransformName, String outputTransformName, IHopMetadataProvider metadataProvider ) throws Exception {
 
     IHopMetadataSerializer<FileDefinition> serializer = metadataProvider.getSerializer( FileDefinition.class );
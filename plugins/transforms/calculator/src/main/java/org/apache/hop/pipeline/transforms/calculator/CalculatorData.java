@@ -39,6 +39,8 @@ public class CalculatorData extends BaseTransformData implements ITransformData
 
   private int[] tempIndexes;
 
+  private CalculatorPlan plan;
+
   private final Map<Integer, IValueMeta> resultMetaMapping;
 
   public CalculatorData() {
@@ -78,6 +80,14 @@ public class CalculatorData extends BaseTransformData implements ITransformData
     this.tempIndexes = tempIndexes;
   }
 
+  public CalculatorPlan getPlan() {
+    return plan;
+  }
+
+  public void setPlan( CalculatorPlan plan ) {
+    this.plan = plan;
+  }
+
   public IValueMeta getValueMetaFor( int resultType, String name ) throws HopPluginException {
     // don't need any synchronization as data instance belongs only to one transform instance
     IValueMeta meta = resultMetaMapping.get( resultType );
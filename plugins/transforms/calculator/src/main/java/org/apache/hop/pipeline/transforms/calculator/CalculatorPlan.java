@@ -0,0 +1,364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.calculator;
+
+import org.apache.hop.core.exception.HopFileNotFoundException;
+import org.apache.hop.core.exception.HopPluginException;
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.value.ValueMetaFactory;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.util.Utils;
+
+import java.math.BigDecimal;
+
+/**
+ * The calculations of a Calculator transform, prepared once for the layout of the input rows.
+ * Field indexes, data types and the conversions of the results are resolved up front.
+ * Copies, constants and arithmetic on Integer and Number fields are done by specialised operations working on the
+ * primitive values, all other calculations are left to {@link Calculator}.
+ */
+public class CalculatorPlan {
+
+  /**
+   * A single calculation, storing its result in the row with the layout of the calculation row metadata.
+   */
+  public interface ICalculation {
+    void calculate( Object[] calcData ) throws HopValueException, HopFileNotFoundException;
+  }
+
+  private final ICalculation[] calculations;
+
+  private CalculatorPlan( ICalculation[] calculations ) {
+    this.calculations = calculations;
+  }
+
+  /**
+   * Perform all calculations in order. Later calculations can use the results of earlier ones.
+   *
+   * @param calcData The input row data, resized to the calculation row metadata
+   */
+  public void calculate( Object[] calcData ) throws HopValueException, HopFileNotFoundException {
+    for ( ICalculation calculation : calculations ) {
+      calculation.calculate( calcData );
+    }
+  }
+
+  /**
+   * @return The number of calculations
+   */
+  public int size() {
+    return calculations.length;
+  }
+
+  /**
+   * @param calculationNr The calculation number
+   * @return true if the calculation is done by a specialised operation
+   */
+  public boolean isSpecialised( int calculationNr ) {
+    return !( calculations[ calculationNr ] instanceof GenericCalculation );
+  }
+
+  /**
+   * Prepare the calculations of a Calculator transform.
+   *
+   * @param calculator   The transform, doing the calculations the plan has no specialised operation for
+   * @param functions    The calculations
+   * @param inputSize    The number of fields in the input rows
+   * @param calcRowMeta  The metadata of the input fields followed by the calculated fields
+   * @param fieldIndexes The indexes of the arguments of the calculations in the calculation row
+   * @return The plan
+   */
+  public static CalculatorPlan compile( Calculator calculator, CalculatorMetaFunction[] functions, int inputSize,
+                                        IRowMeta calcRowMeta, Calculator.FieldIndexes[] fieldIndexes ) {
+    ICalculation[] calculations = new ICalculation[ functions.length ];
+    for ( int i = 0; i < functions.length; i++ ) {
+      ICalculation generic = new GenericCalculation( calculator, i, inputSize + i );
+      ICalculation specialised = null;
+      try {
+        specialised = compile( functions[ i ], inputSize + i, calcRowMeta, fieldIndexes[ i ], generic );
+      } catch ( HopValueException | HopPluginException e ) {
+        // A constant which can't be converted or a missing value type: leave it to the transform, it reports
+        // problems row by row
+        //
+        if ( calculator.isDebug() ) {
+          calculator.logDebug( "Calculation #" + ( i + 1 ) + " is left to the generic calculation: " + e.getMessage() );
+        }
+      }
+      calculations[ i ] = specialised != null ? specialised : generic;
+    }
+    return new CalculatorPlan( calculations );
+  }
+
+  private static ICalculation compile( CalculatorMetaFunction fn, int index, IRowMeta calcRowMeta,
+                                       Calculator.FieldIndexes indexes, ICalculation generic )
+    throws HopValueException, HopPluginException {
+    if ( Utils.isEmpty( fn.getFieldName() ) ) {
+      // Nothing is calculated, the calculation row has no field for it
+      return null;
+    }
+    IValueMeta targetMeta = calcRowMeta.getValueMeta( index );
+    if ( targetMeta == null || targetMeta.getType() == IValueMeta.TYPE_NONE ) {
+      // An error for every row
+      return null;
+    }
+    IValueMeta metaA = indexes.indexA >= 0 ? calcRowMeta.getValueMeta( indexes.indexA ) : null;
+    IValueMeta metaB = indexes.indexB >= 0 ? calcRowMeta.getValueMeta( indexes.indexB ) : null;
+
+    switch ( fn.getCalcType() ) {
+      case CalculatorMetaFunction.CALC_COPY_OF_FIELD:
+        if ( metaA.getType() != targetMeta.getType() ) {
+          return null;
+        }
+        return new CopyCalculation( index, indexes.indexA );
+      case CalculatorMetaFunction.CALC_CONSTANT:
+        return compileConstant( fn, index, targetMeta );
+      case CalculatorMetaFunction.CALC_ADD:
+      case CalculatorMetaFunction.CALC_SUBTRACT:
+      case CalculatorMetaFunction.CALC_MULTIPLY:
+      case CalculatorMetaFunction.CALC_DIVIDE:
+        return compileArithmetic( fn, index, targetMeta, metaA, indexes.indexA, metaB, indexes.indexB, generic );
+      case CalculatorMetaFunction.CALC_SQUARE:
+        return compileArithmetic( fn, index, targetMeta, metaA, indexes.indexA, metaA, indexes.indexA, generic );
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * The constant is a string, converted to the target type only once if the result can be shared between rows.
+   */
+  private static ICalculation compileConstant( CalculatorMetaFunction fn, int index, IValueMeta targetMeta )
+    throws HopValueException, HopPluginException {
+    Object value = fn.getFieldA();
+    int resultType = CalculatorMetaFunction.calcDefaultResultType[ CalculatorMetaFunction.CALC_CONSTANT ];
+    if ( value != null && targetMeta.getType() != resultType ) {
+      value = targetMeta.convertData( getResultMeta( fn, resultType ), value );
+      if ( !isImmutable( value ) ) {
+        return null;
+      }
+    }
+    return new ConstantCalculation( index, value );
+  }
+
+  private static ICalculation compileArithmetic( CalculatorMetaFunction fn, int index, IValueMeta targetMeta,
+                                                 IValueMeta metaA, int indexA, IValueMeta metaB, int indexB,
+                                                 ICalculation generic ) throws HopPluginException {
+    if ( !isPlain( metaA ) || !isPlain( metaB ) || metaA.getType() != metaB.getType() ) {
+      return null;
+    }
+    int resultType = metaA.getType();
+    IValueMeta resultMeta = targetMeta.getType() == resultType ? null : getResultMeta( fn, resultType );
+
+    if ( resultType == IValueMeta.TYPE_INTEGER ) {
+      return new IntegerCalculation( fn.getCalcType(), index, indexA, indexB, targetMeta, resultMeta, generic );
+    } else {
+      return new NumberCalculation( fn.getCalcType(), index, indexA, indexB, targetMeta, resultMeta, generic );
+    }
+  }
+
+  /**
+   * @return true for Integer and Number values the data of which is a Long or a Double
+   */
+  private static boolean isPlain( IValueMeta valueMeta ) {
+    return valueMeta != null
+      && ( valueMeta.getClass() == ValueMetaInteger.class || valueMeta.getClass() == ValueMetaNumber.class )
+      && valueMeta.getStorageType() == IValueMeta.STORAGE_TYPE_NORMAL;
+  }
+
+  private static boolean isImmutable( Object value ) {
+    return value instanceof String || value instanceof Long || value instanceof Double
+      || value instanceof BigDecimal || value instanceof Boolean;
+  }
+
+  /**
+   * The metadata describing a calculation result before it is converted to the target type, like the transform does.
+   */
+  private static IValueMeta getResultMeta( CalculatorMetaFunction fn, int resultType ) throws HopPluginException {
+    IValueMeta resultMeta = ValueMetaFactory.createValueMeta( "result", resultType );
+    resultMeta.setConversionMask( fn.getConversionMask() );
+    resultMeta.setGroupingSymbol( fn.getGroupingSymbol() );
+    resultMeta.setDecimalSymbol( fn.getDecimalSymbol() );
+    resultMeta.setCurrencySymbol( fn.getCurrencySymbol() );
+    return resultMeta;
+  }
+
+  private static class GenericCalculation implements ICalculation {
+    private final Calculator calculator;
+    private final int calculationNr;
+    private final int index;
+
+    GenericCalculation( Calculator calculator, int calculationNr, int index ) {
+      this.calculator = calculator;
+      this.calculationNr = calculationNr;
+      this.index = index;
+    }
+
+    @Override
+    public void calculate( Object[] calcData ) throws HopValueException, HopFileNotFoundException {
+      calculator.calcField( calculationNr, index, calcData );
+    }
+  }
+
+  private static class CopyCalculation implements ICalculation {
+    private final int index;
+    private final int indexA;
+
+    CopyCalculation( int index, int indexA ) {
+      this.index = index;
+      this.indexA = indexA;
+    }
+
+    @Override
+    public void calculate( Object[] calcData ) {
+      calcData[ index ] = calcData[ indexA ];
+    }
+  }
+
+  private static class ConstantCalculation implements ICalculation {
+    private final int index;
+    private final Object value;
+
+    ConstantCalculation( int index, Object value ) {
+      this.index = index;
+      this.value = value;
+    }
+
+    @Override
+    public void calculate( Object[] calcData ) {
+      calcData[ index ] = value;
+    }
+  }
+
+  /**
+   * Arithmetic on two values of the same type. Other data, nulls included, is left to the transform.
+   */
+  private abstract static class ArithmeticCalculation implements ICalculation {
+    protected final int calcType;
+    protected final int index;
+    protected final int indexA;
+    protected final int indexB;
+    private final IValueMeta targetMeta;
+    private final IValueMeta resultMeta;
+    private final ICalculation generic;
+
+    ArithmeticCalculation( int calcType, int index, int indexA, int indexB, IValueMeta targetMeta,
+                           IValueMeta resultMeta, ICalculation generic ) {
+      this.calcType = calcType;
+      this.index = index;
+      this.indexA = indexA;
+      this.indexB = indexB;
+      this.targetMeta = targetMeta;
+      this.resultMeta = resultMeta;
+      this.generic = generic;
+    }
+
+    protected void calculateGeneric( Object[] calcData ) throws HopValueException, HopFileNotFoundException {
+      generic.calculate( calcData );
+    }
+
+    protected void store( Object[] calcData, Object result ) throws HopValueException {
+      if ( resultMeta == null ) {
+        calcData[ index ] = result;
+        return;
+      }
+      try {
+        calcData[ index ] = targetMeta.convertData( resultMeta, result );
+      } catch ( Exception ex ) {
+        throw new HopValueException( "resultType: "
+          + resultMeta.getType() + "; targetMeta: " + targetMeta.getType(), ex );
+      }
+    }
+  }
+
+  private static class IntegerCalculation extends ArithmeticCalculation {
+
+    IntegerCalculation( int calcType, int index, int indexA, int indexB, IValueMeta targetMeta,
+                        IValueMeta resultMeta, ICalculation generic ) {
+      super( calcType, index, indexA, indexB, targetMeta, resultMeta, generic );
+    }
+
+    @Override
+    public void calculate( Object[] calcData ) throws HopValueException, HopFileNotFoundException {
+      Object dataA = calcData[ indexA ];
+      Object dataB = calcData[ indexB ];
+      if ( !( dataA instanceof Long ) || !( dataB instanceof Long ) ) {
+        calculateGeneric( calcData );
+        return;
+      }
+      long a = (Long) dataA;
+      long b = (Long) dataB;
+      long result;
+      switch ( calcType ) {
+        case CalculatorMetaFunction.CALC_ADD:
+          result = a + b;
+          break;
+        case CalculatorMetaFunction.CALC_SUBTRACT:
+          result = a - b;
+          break;
+        case CalculatorMetaFunction.CALC_DIVIDE:
+          result = a / b;
+          break;
+        default:
+          // Multiply and square
+          result = a * b;
+          break;
+      }
+      store( calcData, result );
+    }
+  }
+
+  private static class NumberCalculation extends ArithmeticCalculation {
+
+    NumberCalculation( int calcType, int index, int indexA, int indexB, IValueMeta targetMeta,
+                       IValueMeta resultMeta, ICalculation generic ) {
+      super( calcType, index, indexA, indexB, targetMeta, resultMeta, generic );
+    }
+
+    @Override
+    public void calculate( Object[] calcData ) throws HopValueException, HopFileNotFoundException {
+      Object dataA = calcData[ indexA ];
+      Object dataB = calcData[ indexB ];
+      if ( !( dataA instanceof Double ) || !( dataB instanceof Double ) ) {
+        calculateGeneric( calcData );
+        return;
+      }
+      double a = (Double) dataA;
+      double b = (Double) dataB;
+      double result;
+      switch ( calcType ) {
+        case CalculatorMetaFunction.CALC_ADD:
+          result = a + b;
+          break;
+        case CalculatorMetaFunction.CALC_SUBTRACT:
+          result = a - b;
+          break;
+        case CalculatorMetaFunction.CALC_DIVIDE:
+          result = a / b;
+          break;
+        default:
+          // Multiply and square
+          result = a * b;
+          break;
+      }
+      store( calcData, result );
+    }
+  }
+}
@@ -51,6 +51,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
@@ -214,6 +215,94 @@ public class CalculatorUnitTest {
     }
   }
 
+  @Test
+  public void testPlanWithTemporaryFields() throws HopException {
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "A" ) );
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "B" ) );
+
+    IRowSet inputRowSet = smh.getMockInputRowSet( new Object[][] {
+      { 3L, 4L }, { null, 4L }, { 7L, 2L } } );
+    inputRowSet.setRowMeta( inputRowMeta );
+
+    CalculatorMeta meta = new CalculatorMeta();
+    meta.setCalculation( new CalculatorMetaFunction[] {
+      new CalculatorMetaFunction( "sum", CalculatorMetaFunction.CALC_ADD, "A", "B", null,
+        IValueMeta.TYPE_INTEGER, 0, 0, true, "", "", "", "" ),
+      new CalculatorMetaFunction( "product", CalculatorMetaFunction.CALC_MULTIPLY, "sum", "B", null,
+        IValueMeta.TYPE_INTEGER, 0, 0, false, "", "", "", "" ),
+      new CalculatorMetaFunction( "ratio", CalculatorMetaFunction.CALC_DIVIDE, "product", "B", null,
+        IValueMeta.TYPE_NUMBER, 0, 0, false, "", "", "", "" ),
+      new CalculatorMetaFunction( "ten", CalculatorMetaFunction.CALC_CONSTANT, "10", null, null,
+        IValueMeta.TYPE_INTEGER, 0, 0, false, "", "", "", "" ),
+      new CalculatorMetaFunction( "root", CalculatorMetaFunction.CALC_SQUARE_ROOT, "ten", null, null,
+        IValueMeta.TYPE_NUMBER, 0, 0, false, "", "", "", "" ) } );
+
+    CalculatorData data = new CalculatorData();
+
+    Calculator calculator = new Calculator( smh.transformMeta, meta, data, 0, smh.pipelineMeta, smh.pipeline );
+    calculator.addRowSetToInputRowSets( inputRowSet );
+    calculator.setInputRowMeta( inputRowMeta );
+    calculator.init();
+
+    final List<Object[]> rows = new ArrayList<>();
+    calculator.addRowListener( new RowAdapter() {
+      @Override public void rowWrittenEvent( IRowMeta rowMeta, Object[] row ) {
+        assertEquals( 6, rowMeta.size() );
+        rows.add( row );
+      }
+    } );
+    for ( int i = 0; i < 3; i++ ) {
+      calculator.processRow();
+    }
+
+    for ( int i = 0; i < 4; i++ ) {
+      assertTrue( data.getPlan().isSpecialised( i ) );
+    }
+    assertFalse( data.getPlan().isSpecialised( 4 ) );
+
+    assertEquals( 3, rows.size() );
+    assertEquals( 28L, rows.get( 0 )[ 2 ] );
+    assertEquals( 7.0, rows.get( 0 )[ 3 ] );
+    assertEquals( 10L, rows.get( 0 )[ 4 ] );
+    assertEquals( null, rows.get( 1 )[ 2 ] );
+    assertEquals( null, rows.get( 1 )[ 3 ] );
+    assertEquals( 10L, rows.get( 1 )[ 4 ] );
+    assertEquals( 18L, rows.get( 2 )[ 2 ] );
+    assertEquals( 9.0, rows.get( 2 )[ 3 ] );
+  }
+
+  @Test
+  public void testPlanWithoutFieldName() throws HopException {
+    RowMeta calcRowMeta = new RowMeta();
+    calcRowMeta.addValueMeta( new ValueMetaInteger( "A" ) );
+
+    CalculatorMeta meta = new CalculatorMeta();
+    CalculatorMetaFunction[] functions = new CalculatorMetaFunction[] {
+      new CalculatorMetaFunction( "", CalculatorMetaFunction.CALC_COPY_OF_FIELD, "A", null, null,
+        IValueMeta.TYPE_INTEGER, 0, 0, false, "", "", "", "" ) };
+    meta.setCalculation( functions );
+
+    Calculator calculator = new Calculator( smh.transformMeta, meta, new CalculatorData(), 0, smh.pipelineMeta,
+      smh.pipeline );
+    Calculator.FieldIndexes indexes = calculator.new FieldIndexes();
+    indexes.indexName = -1;
+    indexes.indexA = 0;
+    indexes.indexB = -1;
+    indexes.indexC = -1;
+
+    // The calculation row has no field for the unnamed calculation, it is left to the transform which skips it
+    //
+    CalculatorPlan plan = CalculatorPlan.compile( calculator, functions, 1, calcRowMeta,
+      new Calculator.FieldIndexes[] { indexes } );
+    assertEquals( 1, plan.size() );
+    assertFalse( plan.isSpecialised( 0 ) );
+
+    Object[] calcData = new Object[] { 5L };
+    plan.calculate( calcData );
+    assertEquals( 5L, calcData[ 0 ] );
+  }
+
   @Test
   public void calculatorShouldClearDataInstance() throws Exception {
     RowMeta inputRowMeta = new RowMeta();
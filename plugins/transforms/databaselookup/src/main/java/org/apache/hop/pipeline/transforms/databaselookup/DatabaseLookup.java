@@ -24,6 +24,8 @@ import org.apache.hop.core.database.DatabaseMeta;
 import org.apache.hop.core.exception.HopDatabaseException;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.logging.Metrics;
+import org.apache.hop.core.memory.TransformMemoryManager;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.row.RowMeta;
@@ -353,7 +355,19 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
       }
 
       if ( meta.isCached() ) {
-        data.cache = DefaultCache.newCache( data, meta.getCacheSize() );
+        if ( meta.isLoadingAllDataInCache() ) {
+          // The database isn't queried for rows missing from the cache: they can't expire or be evicted
+          //
+          data.cache = DefaultCache.newCache( data, meta.getCacheSize() );
+          if ( log.isDetailed() && ( !Utils.isEmpty( meta.getCacheMaxMemory() )
+            || !Utils.isEmpty( meta.getCacheTimeToLive() ) ) ) {
+            logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.CacheLimitsIgnored" ) );
+          }
+        } else {
+          data.cache = DefaultCache.newCache( data, meta.getCacheSize(),
+            TransformMemoryManager.toBudgetBytes( resolve( meta.getCacheMaxMemory() ) ),
+            Const.toLong( resolve( meta.getCacheTimeToLive() ), 0L ) * 1000L );
+        }
       }
 
       determineFieldsTypesQueryingDb();
@@ -586,6 +600,17 @@ public class DatabaseLookup extends BaseTransform<DatabaseLookupMeta, DatabaseLo
       data.db.disconnect();
     }
 
+    if ( data.cache instanceof DefaultCache ) {
+      DefaultCache cache = (DefaultCache) data.cache;
+      log.snap( Metrics.METRIC_TRANSFORM_CACHE_HITS, cache.getHits() );
+      log.snap( Metrics.METRIC_TRANSFORM_CACHE_MISSES, cache.getMisses() );
+      log.snap( Metrics.METRIC_TRANSFORM_CACHE_EVICTIONS, cache.getEvictions() );
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.CacheStatistics",
+          cache.getHits(), cache.getMisses(), cache.getEvictions(), cache.size() ) );
+      }
+    }
+
     // Recover memory immediately, allow in-memory data to be garbage collected
     //
     data.cache = null;
@@ -77,6 +77,12 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
   private Label wlCachesize;
   private Text wCachesize;
 
+  private Label wlCacheMaxMemory;
+  private TextVar wCacheMaxMemory;
+
+  private Label wlCacheTimeToLive;
+  private TextVar wCacheTimeToLive;
+
   private TableView wKey;
 
   private TextVar wSchema;
@@ -266,6 +272,43 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
     fdCachesize.top = new FormAttachment( wCache, margin );
     wCachesize.setLayoutData( fdCachesize );
 
+    // ICache memory limit line
+    wlCacheMaxMemory = new Label( shell, SWT.RIGHT );
+    wlCacheMaxMemory.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.CacheMaxMemory.Label" ) );
+    wlCacheMaxMemory.setToolTipText( BaseMessages.getString( PKG, "DatabaseLookupDialog.CacheMaxMemory.Tooltip" ) );
+    props.setLook( wlCacheMaxMemory );
+    FormData fdlCacheMaxMemory = new FormData();
+    fdlCacheMaxMemory.left = new FormAttachment( 0, 0 );
+    fdlCacheMaxMemory.right = new FormAttachment( middle, -margin );
+    fdlCacheMaxMemory.top = new FormAttachment( wCachesize, margin );
+    wlCacheMaxMemory.setLayoutData( fdlCacheMaxMemory );
+    wCacheMaxMemory = new TextVar( variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wCacheMaxMemory );
+    wCacheMaxMemory.addModifyListener( lsMod );
+    FormData fdCacheMaxMemory = new FormData();
+    fdCacheMaxMemory.left = new FormAttachment( middle, 0 );
+    fdCacheMaxMemory.right = new FormAttachment( 100, 0 );
+    fdCacheMaxMemory.top = new FormAttachment( wCachesize, margin );
+    wCacheMaxMemory.setLayoutData( fdCacheMaxMemory );
+
+    // ICache time to live line
+    wlCacheTimeToLive = new Label( shell, SWT.RIGHT );
+    wlCacheTimeToLive.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.CacheTimeToLive.Label" ) );
+    props.setLook( wlCacheTimeToLive );
+    FormData fdlCacheTimeToLive = new FormData();
+    fdlCacheTimeToLive.left = new FormAttachment( 0, 0 );
+    fdlCacheTimeToLive.right = new FormAttachment( middle, -margin );
+    fdlCacheTimeToLive.top = new FormAttachment( wCacheMaxMemory, margin );
+    wlCacheTimeToLive.setLayoutData( fdlCacheTimeToLive );
+    wCacheTimeToLive = new TextVar( variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wCacheTimeToLive );
+    wCacheTimeToLive.addModifyListener( lsMod );
+    FormData fdCacheTimeToLive = new FormData();
+    fdCacheTimeToLive.left = new FormAttachment( middle, 0 );
+    fdCacheTimeToLive.right = new FormAttachment( 100, 0 );
+    fdCacheTimeToLive.top = new FormAttachment( wCacheMaxMemory, margin );
+    wCacheTimeToLive.setLayoutData( fdCacheTimeToLive );
+
     // ICache : Load all?
     wlCacheLoadAll = new Label( shell, SWT.RIGHT );
     wlCacheLoadAll.setText( BaseMessages.getString( PKG, "DatabaseLookupDialog.CacheLoadAll.Label" ) );
@@ -273,7 +316,7 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
     FormData fdlCacheLoadAll = new FormData();
     fdlCacheLoadAll.left = new FormAttachment( 0, 0 );
     fdlCacheLoadAll.right = new FormAttachment( middle, -margin );
-    fdlCacheLoadAll.top = new FormAttachment( wCachesize, margin );
+    fdlCacheLoadAll.top = new FormAttachment( wCacheTimeToLive, margin );
     wlCacheLoadAll.setLayoutData( fdlCacheLoadAll );
     wCacheLoadAll = new Button( shell, SWT.CHECK );
     props.setLook( wCacheLoadAll );
@@ -575,6 +618,10 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
 
     wCachesize.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
     wlCachesize.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
+    wCacheMaxMemory.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
+    wlCacheMaxMemory.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
+    wCacheTimeToLive.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
+    wlCacheTimeToLive.setEnabled( wCache.getSelection() && !wCacheLoadAll.getSelection() );
     wCacheLoadAll.setEnabled( wCache.getSelection() );
     wlCacheLoadAll.setEnabled( wCache.getSelection() );
     wFailMultiple.setEnabled( !wCache.getSelection() );
@@ -589,6 +636,8 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
 
     wCache.setSelection( input.isCached() );
     wCachesize.setText( "" + input.getCacheSize() );
+    wCacheMaxMemory.setText( Const.NVL( input.getCacheMaxMemory(), "" ) );
+    wCacheTimeToLive.setText( Const.NVL( input.getCacheTimeToLive(), "" ) );
     wCacheLoadAll.setSelection( input.isLoadingAllDataInCache() );
 
     if ( input.getStreamKeyField1() != null ) {
@@ -671,6 +720,8 @@ public class DatabaseLookupDialog extends BaseTransformDialog implements ITransf
 
     input.setCached( wCache.getSelection() );
     input.setCacheSize( Const.toInt( wCachesize.getText(), 0 ) );
+    input.setCacheMaxMemory( wCacheMaxMemory.getText() );
+    input.setCacheTimeToLive( wCacheTimeToLive.getText() );
     input.setLoadingAllDataInCache( wCacheLoadAll.getSelection() );
 
     logDebug( BaseMessages.getString( PKG, "DatabaseLookupDialog.Log.FoundKeys", String.valueOf( nrkeys ) ) );
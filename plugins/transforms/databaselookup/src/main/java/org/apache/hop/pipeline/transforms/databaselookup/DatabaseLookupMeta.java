@@ -119,6 +119,12 @@ public class DatabaseLookupMeta extends BaseTransformMeta
   /** Limit the cache size to this! */
   private int cacheSize;
 
+  /** Limit the memory used by the cache to this (bytes or 100MB, 2GB, ...) */
+  private String cacheMaxMemory;
+
+  /** Expire cached rows after this number of seconds */
+  private String cacheTimeToLive;
+
   /** Flag to make it load all data into the cache at startup */
   private boolean loadingAllDataInCache;
 
@@ -152,6 +158,26 @@ public class DatabaseLookupMeta extends BaseTransformMeta
     this.cacheSize = cacheSize;
   }
 
+  /** @return The memory the cache can use (bytes or 100MB, 2GB, ...), empty for no limit */
+  public String getCacheMaxMemory() {
+    return cacheMaxMemory;
+  }
+
+  /** @param cacheMaxMemory The memory the cache can use */
+  public void setCacheMaxMemory(String cacheMaxMemory) {
+    this.cacheMaxMemory = cacheMaxMemory;
+  }
+
+  /** @return The number of seconds after which cached rows expire, empty to keep them */
+  public String getCacheTimeToLive() {
+    return cacheTimeToLive;
+  }
+
+  /** @param cacheTimeToLive The number of seconds after which cached rows expire */
+  public void setCacheTimeToLive(String cacheTimeToLive) {
+    this.cacheTimeToLive = cacheTimeToLive;
+  }
+
   /** @return Returns the database. */
   @Override
   public DatabaseMeta getDatabaseMeta() {
@@ -328,6 +354,8 @@ public class DatabaseLookupMeta extends BaseTransformMeta
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "cache_load_all"));
       csize = XmlHandler.getTagValue(transformNode, "cache_size");
       cacheSize = Const.toInt(csize, 0);
+      cacheMaxMemory = XmlHandler.getTagValue(transformNode, "cache_max_memory");
+      cacheTimeToLive = XmlHandler.getTagValue(transformNode, "cache_time_to_live");
       schemaName = XmlHandler.getTagValue(transformNode, "lookup", "schema");
       tableName = XmlHandler.getTagValue(transformNode, "lookup", "table");
 
@@ -386,6 +414,8 @@ public class DatabaseLookupMeta extends BaseTransformMeta
     databaseMeta = null;
     cached = false;
     cacheSize = 0;
+    cacheMaxMemory = null;
+    cacheTimeToLive = null;
     schemaName = "";
     tableName = BaseMessages.getString(PKG, "DatabaseLookupMeta.Default.TableName");
 
@@ -464,6 +494,8 @@ public class DatabaseLookupMeta extends BaseTransformMeta
     retval.append("    ").append(XmlHandler.addTagValue("cache", cached));
     retval.append("    ").append(XmlHandler.addTagValue("cache_load_all", loadingAllDataInCache));
     retval.append("    ").append(XmlHandler.addTagValue("cache_size", cacheSize));
+    retval.append("    ").append(XmlHandler.addTagValue("cache_max_memory", cacheMaxMemory));
+    retval.append("    ").append(XmlHandler.addTagValue("cache_time_to_live", cacheTimeToLive));
     retval.append("    <lookup>").append(Const.CR);
     retval.append("      ").append(XmlHandler.addTagValue("schema", schemaName));
     retval.append("      ").append(XmlHandler.addTagValue("table", tableName));
@@ -18,124 +18,177 @@
 package org.apache.hop.pipeline.transforms.databaselookup;
 
 import org.apache.hop.core.RowMetaAndData;
-import org.apache.hop.core.TimedRow;
 import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.memory.RowMemoryEstimator;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Date;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.Map;
 
 /**
- * Old code, copied from {@linkplain DatabaseLookup}
+ * The cache of looked up rows, bounded by a number of entries and/or an estimated amount of memory. When all
+ * conditions are equalities the least recently used entry is evicted first, otherwise the entry which was stored
+ * first. Either way eviction takes constant time. Entries can also expire after a time to live.
  *
  * @author Andrey Khayrutdinov
  */
 public class DefaultCache implements DatabaseLookupData.ICache {
 
+  /**
+   * Rough size of the map entry, the key and the cache entry objects around a cached row
+   */
+  static final long ENTRY_OVERHEAD = 96L;
+
   public static DefaultCache newCache( DatabaseLookupData data, int cacheSize ) {
+    return newCache( data, cacheSize, -1L, -1L );
+  }
+
+  /**
+   * @param data       the data of the transform
+   * @param cacheSize  the maximum number of entries or <= 0 for no limit
+   * @param maxMemory  the maximum estimated size of the entries in bytes or <= 0 for no limit
+   * @param timeToLive the number of milliseconds after which an entry expires or <= 0 to keep entries forever
+   * @return a new cache
+   */
+  public static DefaultCache newCache( DatabaseLookupData data, int cacheSize, long maxMemory, long timeToLive ) {
+    int capacity;
     if ( cacheSize > 0 ) {
-      cacheSize = (int) ( cacheSize * 1.5 );
+      capacity = (int) ( cacheSize * 1.5 );
     } else {
-      cacheSize = 16;
+      capacity = 16;
     }
-    return new DefaultCache( data, cacheSize );
+    return new DefaultCache( data, capacity, cacheSize, maxMemory, timeToLive );
   }
 
 
   private final DatabaseLookupData data;
-  private final LinkedHashMap<RowMetaAndData, TimedRow> map;
+  private final LinkedHashMap<RowMetaAndData, CacheEntry> map;
+  private final int maxEntries;
+  private final long maxMemory;
+  private final long timeToLive;
+
+  private long usedMemory;
+  private long hits;
+  private long misses;
+  private long evictions;
 
   DefaultCache( DatabaseLookupData data, int capacity ) {
+    this( data, capacity, -1, -1L, -1L );
+  }
+
+  DefaultCache( DatabaseLookupData data, int capacity, int maxEntries, long maxMemory, long timeToLive ) {
     this.data = data;
-    map = new LinkedHashMap<>( capacity );
+    this.maxEntries = maxEntries;
+    this.maxMemory = maxMemory;
+    this.timeToLive = timeToLive;
+
+    // Only equality lookups can move an entry to the back on a hit.
+    // Other conditions return the first matching row so the order in which rows were stored has to stay intact.
+    //
+    map = new LinkedHashMap<>( capacity, 0.75f, data.allEquals );
   }
 
   @Override
   public Object[] getRowFromCache( IRowMeta lookupMeta, Object[] lookupRow ) throws HopException {
     if ( data.allEquals ) {
       // only do the map lookup when all equals otherwise conditions >, <, <> will give wrong results
-      TimedRow timedRow = map.get( new RowMetaAndData( data.lookupMeta, lookupRow ) );
-      if ( timedRow != null ) {
-        return timedRow.getRow();
+      RowMetaAndData key = new RowMetaAndData( data.lookupMeta, lookupRow );
+      CacheEntry entry = map.get( key );
+      if ( entry != null ) {
+        if ( !isExpired( entry, now() ) ) {
+          hits++;
+          return entry.row;
+        }
+        remove( key, entry );
       }
     } else { // special handling of conditions <,>, <> etc.
-      if ( !data.hasDBCondition ) { // e.g. LIKE not handled by this routine, yet
-        // TODO: find an alternative way to look up the data based on the condition.
-        // Not all conditions are "=" so we are going to have to evaluate row by row
-        // A sorted list or index might be a good solution here...
+      if ( data.hasDBCondition ) { // e.g. LIKE not handled by this routine, yet
+        // The cache isn't searched so this is neither a hit nor a miss
         //
-        for ( RowMetaAndData key : map.keySet() ) {
-          // Now verify that the key is matching our conditions...
-          //
-          boolean match = true;
-          int lookupIndex = 0;
-          for ( int i = 0; i < data.conditions.length && match; i++ ) {
-            IValueMeta cmpMeta = lookupMeta.getValueMeta( lookupIndex );
-            Object cmpData = lookupRow[ lookupIndex ];
-            IValueMeta keyMeta = key.getValueMeta( i );
-            Object keyData = key.getData()[ i ];
-
-            switch ( data.conditions[ i ] ) {
-              case DatabaseLookupMeta.CONDITION_EQ:
-                match = ( cmpMeta.compare( cmpData, keyMeta, keyData ) == 0 );
-                break;
-              case DatabaseLookupMeta.CONDITION_NE:
-                match = ( cmpMeta.compare( cmpData, keyMeta, keyData ) != 0 );
-                break;
-              case DatabaseLookupMeta.CONDITION_LT:
-                match = ( cmpMeta.compare( cmpData, keyMeta, keyData ) > 0 );
-                break;
-              case DatabaseLookupMeta.CONDITION_LE:
-                match = ( cmpMeta.compare( cmpData, keyMeta, keyData ) >= 0 );
-                break;
-              case DatabaseLookupMeta.CONDITION_GT:
-                match = ( cmpMeta.compare( cmpData, keyMeta, keyData ) < 0 );
-                break;
-              case DatabaseLookupMeta.CONDITION_GE:
-                match = ( cmpMeta.compare( cmpData, keyMeta, keyData ) <= 0 );
-                break;
-              case DatabaseLookupMeta.CONDITION_IS_NULL:
-                match = keyMeta.isNull( keyData );
-                break;
-              case DatabaseLookupMeta.CONDITION_IS_NOT_NULL:
-                match = !keyMeta.isNull( keyData );
-                break;
-              case DatabaseLookupMeta.CONDITION_BETWEEN:
-                // Between key >= cmp && key <= cmp2
-                IValueMeta cmpMeta2 = lookupMeta.getValueMeta( lookupIndex + 1 );
-                Object cmpData2 = lookupRow[ lookupIndex + 1 ];
-                match = ( keyMeta.compare( keyData, cmpMeta, cmpData ) >= 0 );
-                if ( match ) {
-                  match = ( keyMeta.compare( keyData, cmpMeta2, cmpData2 ) <= 0 );
-                }
-                lookupIndex++;
-                break;
-              // TODO: add LIKE operator (think of changing the hasDBCondition logic then)
-              default:
-                match = false;
-                data.hasDBCondition = true; // avoid looping in here the next time, also safety when a new condition
-                // will be introduced
-                break;
-
-            }
-            lookupIndex++;
-          }
-          if ( match ) {
-            TimedRow timedRow = map.get( key );
-            if ( timedRow != null ) {
-              return timedRow.getRow();
-            }
-          }
+        return null;
+      }
+      // Not all conditions are "=" so we are going to have to evaluate row by row
+      //
+      long now = now();
+      Iterator<Map.Entry<RowMetaAndData, CacheEntry>> iterator = map.entrySet().iterator();
+      while ( iterator.hasNext() ) {
+        Map.Entry<RowMetaAndData, CacheEntry> mapEntry = iterator.next();
+        if ( isExpired( mapEntry.getValue(), now ) ) {
+          usedMemory -= mapEntry.getValue().size;
+          evictions++;
+          iterator.remove();
+          continue;
+        }
+        if ( matches( lookupMeta, lookupRow, mapEntry.getKey() ) ) {
+          hits++;
+          return mapEntry.getValue().row;
         }
       }
     }
+    misses++;
     return null;
   }
 
+  private boolean matches( IRowMeta lookupMeta, Object[] lookupRow, RowMetaAndData key ) throws HopException {
+    // Now verify that the key is matching our conditions...
+    //
+    boolean match = true;
+    int lookupIndex = 0;
+    for ( int i = 0; i < data.conditions.length && match; i++ ) {
+      IValueMeta cmpMeta = lookupMeta.getValueMeta( lookupIndex );
+      Object cmpData = lookupRow[ lookupIndex ];
+      IValueMeta keyMeta = key.getValueMeta( i );
+      Object keyData = key.getData()[ i ];
+
+      switch ( data.conditions[ i ] ) {
+        case DatabaseLookupMeta.CONDITION_EQ:
+          match = ( cmpMeta.compare( cmpData, keyMeta, keyData ) == 0 );
+          break;
+        case DatabaseLookupMeta.CONDITION_NE:
+          match = ( cmpMeta.compare( cmpData, keyMeta, keyData ) != 0 );
+          break;
+        case DatabaseLookupMeta.CONDITION_LT:
+          match = ( cmpMeta.compare( cmpData, keyMeta, keyData ) > 0 );
+          break;
+        case DatabaseLookupMeta.CONDITION_LE:
+          match = ( cmpMeta.compare( cmpData, keyMeta, keyData ) >= 0 );
+          break;
+        case DatabaseLookupMeta.CONDITION_GT:
+          match = ( cmpMeta.compare( cmpData, keyMeta, keyData ) < 0 );
+          break;
+        case DatabaseLookupMeta.CONDITION_GE:
+          match = ( cmpMeta.compare( cmpData, keyMeta, keyData ) <= 0 );
+          break;
+        case DatabaseLookupMeta.CONDITION_IS_NULL:
+          match = keyMeta.isNull( keyData );
+          break;
+        case DatabaseLookupMeta.CONDITION_IS_NOT_NULL:
+          match = !keyMeta.isNull( keyData );
+          break;
+        case DatabaseLookupMeta.CONDITION_BETWEEN:
+          // Between key >= cmp && key <= cmp2
+          IValueMeta cmpMeta2 = lookupMeta.getValueMeta( lookupIndex + 1 );
+          Object cmpData2 = lookupRow[ lookupIndex + 1 ];
+          match = ( keyMeta.compare( keyData, cmpMeta, cmpData ) >= 0 );
+          if ( match ) {
+            match = ( keyMeta.compare( keyData, cmpMeta2, cmpData2 ) <= 0 );
+          }
+          lookupIndex++;
+          break;
+        // TODO: add LIKE operator (think of changing the hasDBCondition logic then)
+        default:
+          match = false;
+          data.hasDBCondition = true; // avoid looping in here the next time, also safety when a new condition
+          // will be introduced
+          break;
+      }
+      lookupIndex++;
+    }
+    return match;
+  }
+
   @Override
   public void storeRowInCache( DatabaseLookupMeta meta, IRowMeta lookupMeta, Object[] lookupRow,
                                Object[] add ) {
@@ -150,43 +203,117 @@ public class DefaultCache implements DatabaseLookupData.ICache {
     // if (!data.look.containsKey(rowMetaAndData)) {
     // data.look.put(rowMetaAndData, new TimedRow(add));
     // }
-    map.put( rowMetaAndData, new TimedRow( add ) );
-
-    // See if we have to limit the cache_size.
-    // Sample 10% of the rows in the cache.
-    // Remove everything below the second lowest date.
-    // That should on average remove more than 10% of the entries
-    // It's not exact science, but it will be faster than the old algorithm
+    long size = 0L;
+    if ( maxMemory > 0 ) {
+      size = ENTRY_OVERHEAD + RowMemoryEstimator.estimateRowSize( lookupRow ) + RowMemoryEstimator.estimateRowSize( add );
+    }
+    CacheEntry previous = map.put( rowMetaAndData, new CacheEntry( add, timeToLive > 0 ? now() : 0L, size ) );
+    if ( previous != null ) {
+      usedMemory -= previous.size;
+    }
+    usedMemory += size;
 
     // DEinspanjer 2009-02-01: If you had previously set a cache size and then turned on load all, this
     // method would throw out entries if the previous cache size wasn't big enough.
-    if ( !meta.isLoadingAllDataInCache() && meta.getCacheSize() > 0 && map.size() > meta.getCacheSize() ) {
-      List<RowMetaAndData> keys = new ArrayList<>( map.keySet() );
-      List<Date> samples = new ArrayList<>();
-      int incr = keys.size() / 10;
-      if ( incr == 0 ) {
-        incr = 1;
+    if ( !meta.isLoadingAllDataInCache() ) {
+      evict();
+    }
+  }
+
+  /**
+   * Remove entries from the head of the map (least recently used or stored first) until the cache fits its bounds
+   * again. Expired entries at the head are removed as well.
+   */
+  private void evict() {
+    long now = now();
+    Iterator<CacheEntry> iterator = map.values().iterator();
+    while ( iterator.hasNext() ) {
+      boolean overflow = ( maxEntries > 0 && map.size() > maxEntries ) || ( maxMemory > 0 && usedMemory > maxMemory );
+      CacheEntry eldest = iterator.next();
+      if ( !overflow && !isExpired( eldest, now ) ) {
+        break;
       }
-      for ( int k = 0; k < keys.size(); k += incr ) {
-        RowMetaAndData key = keys.get( k );
-        TimedRow timedRow = map.get( key );
-        samples.add( timedRow.getLogDate() );
+      if ( !iterator.hasNext() ) {
+        break; // Always keep the row we just stored
       }
+      usedMemory -= eldest.size;
+      evictions++;
+      iterator.remove();
+    }
+  }
 
-      Collections.sort( samples );
+  private void remove( RowMetaAndData key, CacheEntry entry ) {
+    map.remove( key );
+    usedMemory -= entry.size;
+    evictions++;
+  }
+
+  private boolean isExpired( CacheEntry entry, long now ) {
+    return timeToLive > 0 && now - entry.storedAt > timeToLive;
+  }
 
-      if ( samples.size() > 1 ) {
-        Date smallest = samples.get( 1 );
+  private long now() {
+    return timeToLive > 0 ? System.currentTimeMillis() : 0L;
+  }
 
-        // Everything below the smallest date goes away...
-        for ( RowMetaAndData key : keys ) {
-          TimedRow timedRow = map.get( key );
+  /**
+   * @return The number of entries in the cache
+   */
+  public int size() {
+    return map.size();
+  }
 
-          if ( timedRow.getLogDate().compareTo( smallest ) < 0 ) {
-            map.remove( key );
-          }
-        }
-      }
+  /**
+   * @return The maximum estimated size of the entries in bytes or <= 0 for no limit
+   */
+  public long getMaxMemory() {
+    return maxMemory;
+  }
+
+  /**
+   * @return The number of milliseconds after which an entry expires or <= 0 to keep entries forever
+   */
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  /**
+   * @return The estimated size of the cached entries in bytes, only kept track of with a memory limit
+   */
+  public long getUsedMemory() {
+    return usedMemory;
+  }
+
+  /**
+   * @return The number of lookups answered from the cache
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return The number of lookups which weren't found in the cache
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return The number of entries removed because the cache was full or because they expired
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  private static final class CacheEntry {
+    private final Object[] row;
+    private final long storedAt;
+    private final long size;
+
+    private CacheEntry( Object[] row, long storedAt, long size ) {
+      this.row = row;
+      this.storedAt = storedAt;
+      this.size = size;
     }
   }
 }
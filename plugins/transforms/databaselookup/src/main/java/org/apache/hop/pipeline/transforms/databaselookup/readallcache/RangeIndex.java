@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.databaselookup.readallcache;
+
+import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.pipeline.transforms.databaselookup.DatabaseLookupMeta;
+
+import java.util.Arrays;
+
+/**
+ * An index for the most common kind of range lookups, like effective date lookups on slowly changing dimensions:
+ * any number of "=" conditions plus exactly one "<", "<=", ">", ">=" or "BETWEEN" condition.<br>
+ * The rows are sorted on the equality columns and then on the range column, so the rows which match a lookup are
+ * always a contiguous part of the sorted rows and can be found with binary searches. The first of those rows in the
+ * original order is found with a segment tree holding the minimum row number of every part of the sorted rows. That
+ * makes every lookup O(log n) instead of building bit sets over all rows.
+ */
+class RangeIndex {
+
+  private final IRowMeta keysMeta;
+  private final Object[][] keys;
+
+  private final int[] eqColumns;
+  private final int[] eqLookupIndexes;
+  private final int rangeColumn;
+  private final int rangeLookupIndex;
+  private final int rangeCondition;
+
+  /**
+   * The row numbers, sorted on the equality columns, the range column and the row number
+   */
+  private final int[] sorted;
+
+  /**
+   * Bottom-up segment tree over {@code sorted}: leaf i is stored at {@code sorted.length + i}
+   */
+  private final int[] minRowTree;
+
+  /**
+   * Create a range index if the conditions are suited for it.
+   *
+   * @param conditions The lookup conditions, see DatabaseLookupMeta.CONDITION_*
+   * @param keysMeta   The layout of the keys
+   * @param keys       The keys of all rows
+   * @return The index or null if the conditions can't be answered by a range index
+   */
+  static RangeIndex create( int[] conditions, IRowMeta keysMeta, Object[][] keys ) {
+    int rangeColumn = -1;
+    int nrEquals = 0;
+    for ( int i = 0; i < conditions.length; i++ ) {
+      switch ( conditions[ i ] ) {
+        case DatabaseLookupMeta.CONDITION_EQ:
+          nrEquals++;
+          break;
+        case DatabaseLookupMeta.CONDITION_LT:
+        case DatabaseLookupMeta.CONDITION_LE:
+        case DatabaseLookupMeta.CONDITION_GT:
+        case DatabaseLookupMeta.CONDITION_GE:
+        case DatabaseLookupMeta.CONDITION_BETWEEN:
+          if ( rangeColumn >= 0 ) {
+            return null;
+          }
+          rangeColumn = i;
+          break;
+        default:
+          return null;
+      }
+    }
+    if ( rangeColumn < 0 ) {
+      return null;
+    }
+
+    // A BETWEEN condition takes 2 values in the lookup row, the columns after it shift by one
+    //
+    int[] eqColumns = new int[ nrEquals ];
+    int[] eqLookupIndexes = new int[ nrEquals ];
+    int shift = 0;
+    for ( int i = 0, e = 0; i < conditions.length; i++ ) {
+      if ( i == rangeColumn ) {
+        if ( conditions[ i ] == DatabaseLookupMeta.CONDITION_BETWEEN ) {
+          shift = 1;
+        }
+      } else {
+        eqColumns[ e ] = i;
+        eqLookupIndexes[ e ] = i + shift;
+        e++;
+      }
+    }
+    return new RangeIndex( keysMeta, keys, eqColumns, eqLookupIndexes, rangeColumn, conditions[ rangeColumn ] );
+  }
+
+  private RangeIndex( IRowMeta keysMeta, Object[][] keys, int[] eqColumns, int[] eqLookupIndexes, int rangeColumn,
+                      int rangeCondition ) {
+    this.keysMeta = keysMeta;
+    this.keys = keys;
+    this.eqColumns = eqColumns;
+    this.eqLookupIndexes = eqLookupIndexes;
+    this.rangeColumn = rangeColumn;
+    this.rangeLookupIndex = rangeColumn;
+    this.rangeCondition = rangeCondition;
+
+    final int length = keys.length;
+    Integer[] rows = new Integer[ length ];
+    for ( int i = 0; i < length; i++ ) {
+      rows[ i ] = i;
+    }
+    Arrays.sort( rows, ( row1, row2 ) -> {
+      try {
+        for ( int column : eqColumns ) {
+          int c = keysMeta.getValueMeta( column ).compare( keys[ row1 ][ column ], keys[ row2 ][ column ] );
+          if ( c != 0 ) {
+            return c;
+          }
+        }
+        int c = keysMeta.getValueMeta( rangeColumn ).compare( keys[ row1 ][ rangeColumn ], keys[ row2 ][ rangeColumn ] );
+        return ( c == 0 ) ? Integer.compare( row1, row2 ) : c;
+      } catch ( HopValueException e ) {
+        throw new RuntimeException( e );
+      }
+    } );
+
+    sorted = new int[ length ];
+    minRowTree = new int[ 2 * length ];
+    for ( int i = 0; i < length; i++ ) {
+      sorted[ i ] = rows[ i ];
+      minRowTree[ length + i ] = rows[ i ];
+    }
+    for ( int i = length - 1; i > 0; i-- ) {
+      minRowTree[ i ] = Math.min( minRowTree[ 2 * i ], minRowTree[ 2 * i + 1 ] );
+    }
+  }
+
+  /**
+   * Find the first row, in the original order, matching all conditions.
+   *
+   * @param lookupMeta The layout of the lookup row
+   * @param lookupRow  The values to look up
+   * @return The row number or -1 if no row matches
+   * @throws HopValueException In case the values can't be compared
+   */
+  int findFirstMatch( IRowMeta lookupMeta, Object[] lookupRow ) throws HopValueException {
+    // The rows with the same values for the equality columns
+    //
+    int from = searchEquals( 0, sorted.length, lookupMeta, lookupRow, false );
+    int to = searchEquals( from, sorted.length, lookupMeta, lookupRow, true );
+    if ( from >= to ) {
+      return -1;
+    }
+
+    // Within that group the rows are sorted on the range column
+    //
+    IValueMeta cmpMeta = lookupMeta.getValueMeta( rangeLookupIndex );
+    Object cmpData = lookupRow[ rangeLookupIndex ];
+    switch ( rangeCondition ) {
+      case DatabaseLookupMeta.CONDITION_LT: // key < value
+        to = searchRange( from, to, cmpMeta, cmpData, false );
+        break;
+      case DatabaseLookupMeta.CONDITION_LE: // key <= value
+        to = searchRange( from, to, cmpMeta, cmpData, true );
+        break;
+      case DatabaseLookupMeta.CONDITION_GT: // key > value
+        from = searchRange( from, to, cmpMeta, cmpData, true );
+        break;
+      case DatabaseLookupMeta.CONDITION_GE: // key >= value
+        from = searchRange( from, to, cmpMeta, cmpData, false );
+        break;
+      default: // BETWEEN: value <= key <= value2
+        IValueMeta cmpMeta2 = lookupMeta.getValueMeta( rangeLookupIndex + 1 );
+        Object cmpData2 = lookupRow[ rangeLookupIndex + 1 ];
+        int end = searchRange( from, to, cmpMeta2, cmpData2, true );
+        from = searchRange( from, end, cmpMeta, cmpData, false );
+        to = end;
+        break;
+    }
+    if ( from >= to ) {
+      return -1;
+    }
+    return findMinimumRow( from, to );
+  }
+
+  /**
+   * @return The first position in [from, to) where the equality columns of the row are greater than (or equal to,
+   * when {@code after} is false) the lookup values.
+   */
+  private int searchEquals( int from, int to, IRowMeta lookupMeta, Object[] lookupRow, boolean after )
+    throws HopValueException {
+    while ( from < to ) {
+      int mid = ( from + to ) >>> 1;
+      Object[] key = keys[ sorted[ mid ] ];
+      int c = 0;
+      for ( int e = 0; e < eqColumns.length && c == 0; e++ ) {
+        int column = eqColumns[ e ];
+        int lookupIndex = eqLookupIndexes[ e ];
+        c = keysMeta.getValueMeta( column ).compare( key[ column ], lookupMeta.getValueMeta( lookupIndex ),
+          lookupRow[ lookupIndex ] );
+      }
+      if ( c < 0 || ( after && c == 0 ) ) {
+        from = mid + 1;
+      } else {
+        to = mid;
+      }
+    }
+    return from;
+  }
+
+  /**
+   * @return The first position in [from, to) where the range column of the row is greater than (or equal to, when
+   * {@code after} is false) the lookup value.
+   */
+  private int searchRange( int from, int to, IValueMeta cmpMeta, Object cmpData, boolean after )
+    throws HopValueException {
+    IValueMeta keyMeta = keysMeta.getValueMeta( rangeColumn );
+    while ( from < to ) {
+      int mid = ( from + to ) >>> 1;
+      int c = keyMeta.compare( keys[ sorted[ mid ] ][ rangeColumn ], cmpMeta, cmpData );
+      if ( c < 0 || ( after && c == 0 ) ) {
+        from = mid + 1;
+      } else {
+        to = mid;
+      }
+    }
+    return from;
+  }
+
+  private int findMinimumRow( int from, int to ) {
+    int minimum = Integer.MAX_VALUE;
+    from += sorted.length;
+    to += sorted.length;
+    while ( from < to ) {
+      if ( ( from & 1 ) == 1 ) {
+        minimum = Math.min( minimum, minRowTree[ from++ ] );
+      }
+      if ( ( to & 1 ) == 1 ) {
+        minimum = Math.min( minimum, minRowTree[ --to ] );
+      }
+      from >>>= 1;
+      to >>>= 1;
+    }
+    return minimum;
+  }
+}
@@ -50,15 +50,24 @@ public class ReadAllCache implements DatabaseLookupData.ICache {
   // such structure was chosen not to introduce separate data-container class
   private final int[][] otherConditions;
 
+  // when the conditions are "=" plus one range condition, this index answers lookups on its own
+  private final RangeIndex rangeIndex;
+
   ReadAllCache( DatabaseLookupData transformData, Object[][] keys, IRowMeta keysMeta, Object[][] data ) {
     this.transformData = transformData;
     this.keys = keys;
     this.keysMeta = keysMeta;
     this.data = data;
 
-    Object[] pair = createIndexes( transformData, keysMeta, keys );
-    indexes = (Index[]) pair[ 0 ];
-    otherConditions = (int[][]) pair[ 1 ];
+    rangeIndex = RangeIndex.create( transformData.conditions, keysMeta, keys );
+    if ( rangeIndex == null ) {
+      Object[] pair = createIndexes( transformData, keysMeta, keys );
+      indexes = (Index[]) pair[ 0 ];
+      otherConditions = (int[][]) pair[ 1 ];
+    } else {
+      indexes = new Index[ 0 ];
+      otherConditions = new int[ 0 ][];
+    }
   }
 
 
@@ -122,6 +131,11 @@ public class ReadAllCache implements DatabaseLookupData.ICache {
       return null;
     }
 
+    if ( rangeIndex != null ) {
+      int row = rangeIndex.findFirstMatch( lookupMeta, lookupRow );
+      return ( row < 0 ) ? null : data[ row ];
+    }
+
     SearchingContext context = new SearchingContext();
     context.init( keys.length );
 
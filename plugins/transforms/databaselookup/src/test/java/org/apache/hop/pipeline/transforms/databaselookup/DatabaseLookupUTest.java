@@ -319,7 +319,26 @@ public class DatabaseLookupUTest {
     assertThat( data.cache, is( instanceOf( DefaultCache.class ) ) );
   }
 
+  @Test
+  public void createsReadDefaultCache_WithoutMemoryLimitAndTimeToLive_WhenReadAll() throws Exception {
+    DatabaseLookupMeta meta = createTestMeta();
+    meta.setCacheMaxMemory( "1" );
+    meta.setCacheTimeToLive( "1" );
+    DatabaseLookupData data = getCreatedData( meta, true );
+
+    // Rows which expire or are evicted would not be found anymore, the database isn't queried
+    //
+    DefaultCache cache = (DefaultCache) data.cache;
+    assertTrue( cache.getMaxMemory() <= 0 );
+    assertTrue( cache.getTimeToLive() <= 0 );
+    assertEquals( 1, cache.size() );
+  }
+
   private DatabaseLookupData getCreatedData( boolean allEquals ) throws Exception {
+    return getCreatedData( createTestMeta(), allEquals );
+  }
+
+  private DatabaseLookupData getCreatedData( DatabaseLookupMeta meta, boolean allEquals ) throws Exception {
     Database db = mock( Database.class );
     when( db.getRows( anyString(), anyInt() ) )
       .thenReturn( Collections.singletonList( new Object[] { 1L } ) );
@@ -328,7 +347,6 @@ public class DatabaseLookupUTest {
     returnRowMeta.addValueMeta( new ValueMetaInteger() );
     when( db.getReturnRowMeta() ).thenReturn( returnRowMeta );
 
-    DatabaseLookupMeta meta = createTestMeta();
     DatabaseLookupData data = new DatabaseLookupData();
 
     DatabaseLookup transform = createSpiedTransform( db, mockHelper, meta, data );
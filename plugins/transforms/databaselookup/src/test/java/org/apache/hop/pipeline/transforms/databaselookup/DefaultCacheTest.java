@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.databaselookup;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DefaultCacheTest {
+
+  private DatabaseLookupData data;
+  private DatabaseLookupMeta meta;
+  private IRowMeta keyMeta;
+
+  @Before
+  public void setUp() {
+    keyMeta = new RowMeta();
+    keyMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    data = new DatabaseLookupData();
+    data.allEquals = true;
+    data.lookupMeta = keyMeta;
+    data.conditions = new int[] { DatabaseLookupMeta.CONDITION_EQ };
+
+    meta = new DatabaseLookupMeta();
+    meta.setDefault();
+  }
+
+  private Object[] lookup( DefaultCache cache, long id ) throws Exception {
+    return cache.getRowFromCache( keyMeta, new Object[] { id } );
+  }
+
+  private void store( DefaultCache cache, long id ) {
+    cache.storeRowInCache( meta, keyMeta, new Object[] { id }, new Object[] { "value" + id } );
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEntryIsEvicted() throws Exception {
+    DefaultCache cache = DefaultCache.newCache( data, 3 );
+    store( cache, 1L );
+    store( cache, 2L );
+    store( cache, 3L );
+
+    // Use 1 again so that 2 becomes the least recently used entry
+    //
+    assertNotNull( lookup( cache, 1L ) );
+    store( cache, 4L );
+
+    assertEquals( 3, cache.size() );
+    assertNull( lookup( cache, 2L ) );
+    assertNotNull( lookup( cache, 1L ) );
+    assertNotNull( lookup( cache, 3L ) );
+    assertNotNull( lookup( cache, 4L ) );
+
+    assertEquals( 4L, cache.getHits() );
+    assertEquals( 1L, cache.getMisses() );
+    assertEquals( 1L, cache.getEvictions() );
+  }
+
+  @Test
+  public void testDatabaseConditionIsNotCountedAsMiss() throws Exception {
+    data.allEquals = false;
+    data.hasDBCondition = true;
+    data.conditions = new int[] { DatabaseLookupMeta.CONDITION_LIKE };
+
+    DefaultCache cache = DefaultCache.newCache( data, 3 );
+    store( cache, 1L );
+
+    // LIKE is evaluated by the database, the cache is bypassed
+    //
+    assertNull( lookup( cache, 1L ) );
+    assertEquals( 0L, cache.getHits() );
+    assertEquals( 0L, cache.getMisses() );
+  }
+
+  @Test
+  public void testMemoryLimit() throws Exception {
+    DefaultCache cache = DefaultCache.newCache( data, 0, 10000L, -1L );
+    for ( long id = 0; id < 1000; id++ ) {
+      store( cache, id );
+      assertTrue( cache.getUsedMemory() <= 10000L );
+    }
+    assertTrue( cache.size() < 1000 );
+    assertTrue( cache.getEvictions() > 0 );
+    assertNotNull( lookup( cache, 999L ) );
+    assertNull( lookup( cache, 0L ) );
+  }
+
+  @Test
+  public void testEntriesExpire() throws Exception {
+    DefaultCache cache = DefaultCache.newCache( data, 0, -1L, 50L );
+    store( cache, 1L );
+    assertNotNull( lookup( cache, 1L ) );
+
+    Thread.sleep( 100L );
+    assertNull( lookup( cache, 1L ) );
+    assertEquals( 0, cache.size() );
+    assertEquals( 1L, cache.getEvictions() );
+  }
+
+  @Test
+  public void testLoadingAllDataNeverEvicts() throws Exception {
+    meta.setLoadingAllDataInCache( true );
+    DefaultCache cache = DefaultCache.newCache( data, 2 );
+    for ( long id = 0; id < 10; id++ ) {
+      store( cache, id );
+    }
+    assertEquals( 10, cache.size() );
+    assertEquals( 0L, cache.getEvictions() );
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.databaselookup.readallcache;
+
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.pipeline.transforms.databaselookup.DatabaseLookupMeta;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class RangeIndexTest {
+
+  private RowMeta keysMeta;
+  private Object[][] keys;
+
+  @Before
+  public void setUp() {
+    keysMeta = new RowMeta();
+    keysMeta.addValueMeta( new ValueMetaString( "code" ) );
+    keysMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+
+    keys = new Object[][] {
+      new Object[] { "b", 30L },
+      new Object[] { "a", 10L },
+      new Object[] { "b", 10L },
+      new Object[] { "a", 20L },
+      new Object[] { "a", 20L },
+      new Object[] { "b", 20L }
+    };
+  }
+
+  @Test
+  public void onlyEqualityAndOneRangeConditionAreSupported() {
+    assertNotNull( RangeIndex.create( conditions( DatabaseLookupMeta.CONDITION_EQ, DatabaseLookupMeta.CONDITION_LE ),
+      keysMeta, keys ) );
+    assertNull( RangeIndex.create( conditions( DatabaseLookupMeta.CONDITION_EQ, DatabaseLookupMeta.CONDITION_EQ ),
+      keysMeta, keys ) );
+    assertNull( RangeIndex.create( conditions( DatabaseLookupMeta.CONDITION_LT, DatabaseLookupMeta.CONDITION_GT ),
+      keysMeta, keys ) );
+    assertNull( RangeIndex.create( conditions( DatabaseLookupMeta.CONDITION_NE, DatabaseLookupMeta.CONDITION_LT ),
+      keysMeta, keys ) );
+    assertNull( RangeIndex.create( conditions( DatabaseLookupMeta.CONDITION_EQ, DatabaseLookupMeta.CONDITION_LIKE ),
+      keysMeta, keys ) );
+  }
+
+  @Test
+  public void findsFirstMatchingRowInOriginalOrder() throws Exception {
+    RangeIndex index =
+      RangeIndex.create( conditions( DatabaseLookupMeta.CONDITION_EQ, DatabaseLookupMeta.CONDITION_GE ), keysMeta, keys );
+
+    assertEquals( "(code == 'b') && (value >= 20) --> row 0", 0, index.findFirstMatch( keysMeta, row( "b", 20L ) ) );
+    assertEquals( "(code == 'a') && (value >= 15) --> row 3", 3, index.findFirstMatch( keysMeta, row( "a", 15L ) ) );
+    assertEquals( "(code == 'a') && (value >= 25) --> none", -1, index.findFirstMatch( keysMeta, row( "a", 25L ) ) );
+    assertEquals( "(code == 'c') --> none", -1, index.findFirstMatch( keysMeta, row( "c", 0L ) ) );
+  }
+
+  @Test
+  public void findsWithBetweenOperatorBeforeEquality() throws Exception {
+    RowMeta lookupMeta = new RowMeta();
+    lookupMeta.addValueMeta( new ValueMetaInteger( "from" ) );
+    lookupMeta.addValueMeta( new ValueMetaInteger( "to" ) );
+    lookupMeta.addValueMeta( new ValueMetaString( "code" ) );
+
+    RowMeta meta = new RowMeta();
+    meta.addValueMeta( keysMeta.getValueMeta( 1 ) );
+    meta.addValueMeta( keysMeta.getValueMeta( 0 ) );
+    Object[][] swapped = new Object[ keys.length ][];
+    for ( int i = 0; i < keys.length; i++ ) {
+      swapped[ i ] = new Object[] { keys[ i ][ 1 ], keys[ i ][ 0 ] };
+    }
+
+    RangeIndex index =
+      RangeIndex.create( conditions( DatabaseLookupMeta.CONDITION_BETWEEN, DatabaseLookupMeta.CONDITION_EQ ), meta,
+        swapped );
+    assertEquals( "(15 <= value <= 25) && (code == 'b') --> row 5", 5,
+      index.findFirstMatch( lookupMeta, new Object[] { 15L, 25L, "b" } ) );
+    assertEquals( "(0 <= value <= 100) && (code == 'a') --> row 1", 1,
+      index.findFirstMatch( lookupMeta, new Object[] { 0L, 100L, "a" } ) );
+    assertEquals( "(21 <= value <= 29) && (code == 'b') --> none", -1,
+      index.findFirstMatch( lookupMeta, new Object[] { 21L, 29L, "b" } ) );
+  }
+
+  @Test
+  public void matchesLinearScan() throws Exception {
+    Random random = new Random( 42 );
+    keys = new Object[ 500 ][];
+    for ( int i = 0; i < keys.length; i++ ) {
+      keys[ i ] = new Object[] { String.valueOf( random.nextInt( 5 ) ), (long) random.nextInt( 100 ) };
+    }
+
+    int[] rangeConditions = {
+      DatabaseLookupMeta.CONDITION_LT, DatabaseLookupMeta.CONDITION_LE,
+      DatabaseLookupMeta.CONDITION_GT, DatabaseLookupMeta.CONDITION_GE
+    };
+    for ( int condition : rangeConditions ) {
+      RangeIndex index = RangeIndex.create( conditions( DatabaseLookupMeta.CONDITION_EQ, condition ), keysMeta, keys );
+      for ( int i = 0; i < 200; i++ ) {
+        Object[] lookup = row( String.valueOf( random.nextInt( 6 ) ), (long) random.nextInt( 110 ) - 5 );
+        assertEquals( scan( condition, lookup ), index.findFirstMatch( keysMeta, lookup ) );
+      }
+    }
+  }
+
+  private int scan( int condition, Object[] lookup ) {
+    long value = (Long) lookup[ 1 ];
+    for ( int i = 0; i < keys.length; i++ ) {
+      if ( !keys[ i ][ 0 ].equals( lookup[ 0 ] ) ) {
+        continue;
+      }
+      long key = (Long) keys[ i ][ 1 ];
+      boolean matches;
+      switch ( condition ) {
+        case DatabaseLookupMeta.CONDITION_LT:
+          matches = key < value;
+          break;
+        case DatabaseLookupMeta.CONDITION_LE:
+          matches = key <= value;
+          break;
+        case DatabaseLookupMeta.CONDITION_GT:
+          matches = key > value;
+          break;
+        default:
+          matches = key >= value;
+          break;
+      }
+      if ( matches ) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int[] conditions( int... conditions ) {
+    return conditions;
+  }
+
+  private static Object[] row( Object... values ) {
+    return values;
+  }
+}
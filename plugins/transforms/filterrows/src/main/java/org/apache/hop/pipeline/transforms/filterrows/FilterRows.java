@@ -48,9 +48,9 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> im
     super( transformMeta, meta, data, copyNr, pipelineMeta, pipeline );
   }
 
-  private synchronized boolean keepRow( IRowMeta rowMeta, Object[] row ) throws HopException {
+  private boolean keepRow( IRowMeta rowMeta, Object[] row ) throws HopException {
     try {
-      return meta.getCondition().evaluate( rowMeta, row );
+      return data.predicate.evaluate( row );
     } catch ( Exception e ) {
       String message =
         BaseMessages.getString( PKG, "FilterRows.Exception.UnexpectedErrorFoundInEvaluationFuction" );
@@ -81,6 +81,10 @@ public class FilterRows extends BaseTransform<FilterRowsMeta, FilterRowsData> im
       // if filter refers to non-existing fields, throw exception
       checkNonExistingFields();
 
+      // Look up the fields once, every copy gets its own predicate
+      //
+      data.predicate = meta.getCondition().compile( getInputRowMeta() );
+
       // Cache the position of the IRowSet for the output.
       //
       if ( data.chosesTargetTransforms ) {
@@ -17,6 +17,7 @@
 
 package org.apache.hop.pipeline.transforms.filterrows;
 
+import org.apache.hop.core.IRowPredicate;
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
@@ -34,6 +35,7 @@ public class FilterRowsData extends BaseTransformData implements ITransformData
   public boolean chosesTargetTransforms;
   public String trueTransformName;
   public String falseTransformName;
+  public IRowPredicate predicate;
 
   public FilterRowsData() {
     super();
@@ -20,14 +20,17 @@ package org.apache.hop.pipeline.transforms.groupby;
 import org.apache.commons.math3.stat.descriptive.rank.Percentile;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.hop.core.Const;
+import org.apache.hop.core.compress.CompressionProviderFactory;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopFileException;
 import org.apache.hop.core.exception.HopPluginException;
 import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.memory.TransformMemoryManager;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.row.RowMeta;
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.PrimitiveAggregate;
 import org.apache.hop.core.row.ValueDataUtil;
 import org.apache.hop.core.row.value.ValueMetaBase;
 import org.apache.hop.core.row.value.ValueMetaFactory;
@@ -44,14 +47,8 @@ import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.ITransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -71,6 +68,9 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
   private boolean allNullsAreZero = false;
   private boolean minNullIsValued = false;
 
+  /** Sums, averages and standard deviations are kept in primitive arrays where possible */
+  private boolean primitiveAggregation = true;
+
   public GroupBy(
       TransformMeta transformMeta,
       GroupByMeta meta,
@@ -113,6 +113,10 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
       // Calculate indexes, loop up fields, etc.
       //
       data.counts = new long[meta.getAggregations().size()];
+      data.primitiveAggregates =
+          primitiveAggregation ? new int[meta.getAggregations().size()] : null;
+      data.longSums = new long[meta.getAggregations().size()];
+      data.doubleSums = new double[meta.getAggregations().size()];
       data.subjectnrs = new int[meta.getAggregations().size()];
 
       data.cumulativeSumSourceIndexes = new ArrayList<>();
@@ -246,7 +250,6 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
           putRow(data.outputRowMeta, row);
           row = getRowFromBuffer();
         }
-        closeInput();
       } else {
         Object[] result = buildResult(data.previous);
         if (result != null) {
@@ -301,7 +304,6 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
         putRow(data.outputRowMeta, row);
         row = getRowFromBuffer();
       }
-      closeInput();
     } else {
       // JUST THE GROUP + AGGREGATE
 
@@ -413,6 +415,16 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
     return data.inputRowMeta.compare(previous, r, data.groupnrs) == 0;
   }
 
+  /**
+   * Used for junits in GroupByPrimitiveAggregationTest, to compare the primitive aggregates with the
+   * generic calculation
+   *
+   * @param primitiveAggregation false to calculate all aggregates through data.agg
+   */
+  void setPrimitiveAggregation(boolean primitiveAggregation) {
+    this.primitiveAggregation = primitiveAggregation;
+  }
+
   /**
    * used for junits in GroupByAggregationNullsTest
    *
@@ -426,6 +438,20 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
 
       Object subj = row[data.subjectnrs[i]];
       IValueMeta subjMeta = data.inputRowMeta.getValueMeta(data.subjectnrs[i]);
+      if (data.primitiveAggregates != null
+          && data.primitiveAggregates[i] != PrimitiveAggregate.OBJECT) {
+        PrimitiveAggregate.add(
+            data.primitiveAggregates[i],
+            i,
+            subjMeta,
+            subj,
+            data.counts,
+            data.longSums,
+            data.doubleSums,
+            data.mean);
+        continue;
+      }
+
       Object value = data.agg[i];
       IValueMeta valueMeta = data.aggMeta.getValueMeta(i);
 
@@ -574,6 +600,32 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
     }
   }
 
+  /**
+   * Sums and averages of Integer and Number values in normal storage, as well as standard
+   * deviations, can be calculated in primitive arrays. Everything else goes through data.agg.
+   */
+  private int getPrimitiveAggregate(int aggType, IValueMeta subjMeta, IValueMeta vMeta) {
+    switch (aggType) {
+      case GroupByMeta.TYPE_GROUP_SUM:
+      case GroupByMeta.TYPE_GROUP_AVERAGE:
+        return PrimitiveAggregate.getSumAggregate(subjMeta, vMeta);
+      case GroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
+      case GroupByMeta.TYPE_GROUP_STANDARD_DEVIATION_SAMPLE:
+        return PrimitiveAggregate.VARIANCE;
+      default:
+        return PrimitiveAggregate.OBJECT;
+    }
+  }
+
+  /** @return the current aggregate value of subject i, boxing it if it's kept in a primitive */
+  private Object getAggregateValue(int i) {
+    if (data.primitiveAggregates == null) {
+      return data.agg[i];
+    }
+    return PrimitiveAggregate.getValue(
+        data.primitiveAggregates[i], i, data.counts, data.longSums, data.doubleSums, data.agg[i]);
+  }
+
   /**
    * used for junits in GroupByAggregationNullsTest
    *
@@ -584,6 +636,10 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
     for (int i = 0; i < data.counts.length; i++) {
       data.counts[i] = 0;
     }
+    if (data.primitiveAggregates != null) {
+      Arrays.fill(data.longSums, 0L);
+      Arrays.fill(data.doubleSums, 0.0);
+    }
     data.distinctObjs = null;
     data.agg = new Object[data.subjectnrs.length];
     data.mean = new double[data.subjectnrs.length]; // sets all doubles to 0.0
@@ -660,6 +716,9 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
       }
       data.agg[i] = v;
       data.aggMeta.addValueMeta(vMeta);
+      if (data.primitiveAggregates != null) {
+        data.primitiveAggregates[i] = getPrimitiveAggregate(aggType, subjMeta, vMeta);
+      }
     }
 
     // Also clear the cumulative data...
@@ -712,7 +771,7 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
 
     for (int i = 0; i < data.subjectnrs.length; i++) {
       Aggregation aggregation = meta.getAggregations().get(i);
-      Object ag = data.agg[i];
+      Object ag = getAggregateValue(i);
       int aggType = aggregation.getType();
       String fieldName = aggregation.getField();
       switch (aggType) {
@@ -803,32 +862,27 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
 
   // Method is defined as package-protected in order to be accessible by unit tests
   void addToBuffer(Object[] row) throws HopFileException {
-    data.bufferList.add(row);
-    if (data.bufferList.size() > 5000 && data.rowsOnFile == 0) {
-      String pathToTmp = resolve(getMeta().getDirectory());
-      try {
-        File ioFile = new File(pathToTmp);
-        if (!ioFile.exists()) {
-          // try to resolve as Apache VFS file
-          pathToTmp = retrieveVfsPath(pathToTmp);
-        }
-        data.tempFile = File.createTempFile(getMeta().getPrefix(), ".tmp", new File(pathToTmp));
-        data.fosToTempFile = new FileOutputStream(data.tempFile);
-        data.dosToTempFile = new DataOutputStream(data.fosToTempFile);
-        data.firstRead = true;
-      } catch (IOException e) {
-        throw new HopFileException(
-            BaseMessages.getString(PKG, "GroupBy.Exception.UnableToCreateTemporaryFile"), e);
-      }
-      // OK, save the oldest rows to disk!
-      Object[] oldest = data.bufferList.get(0);
-      data.inputRowMeta.writeData(data.dosToTempFile, oldest);
-      data.bufferList.remove(0);
-      data.rowsOnFile++;
+    if (data.spillManager == null) {
+      data.spillManager =
+          new GroupBySpillManager(
+              data.inputRowMeta,
+              data.spillDirectories,
+              Const.NVL(resolve(meta.getPrefix()), "grp"),
+              data.spillThresholdRows,
+              data.memoryReservation,
+              data.compressionProvider,
+              data.spillBufferSize);
     }
+    data.spillManager.addRow(row);
   }
 
-  // Method is defined as public in order to be accessible by unit tests
+  /**
+   * @param pathToTmp A VFS path
+   * @return The path part of the VFS path
+   * @deprecated The spill manager creates its temporary files through {@link HopVfs} so the transform
+   *     no longer needs the local path.
+   */
+  @Deprecated
   public String retrieveVfsPath(String pathToTmp) throws HopFileException {
     FileObject vfsFile = HopVfs.getFileObject(pathToTmp);
     String path = vfsFile.getName().getPath();
@@ -836,75 +890,15 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
   }
 
   private Object[] getRowFromBuffer() throws HopFileException {
-    if (data.rowsOnFile > 0) {
-      if (data.firstRead) {
-        // Open the inputstream first...
-        try {
-          data.fisToTmpFile = new FileInputStream(data.tempFile);
-          data.disToTmpFile = new DataInputStream(data.fisToTmpFile);
-          data.firstRead = false;
-        } catch (IOException e) {
-          throw new HopFileException(
-              BaseMessages.getString(PKG, "GroupBy.Exception.UnableToReadBackRowFromTemporaryFile"),
-              e);
-        }
-      }
-
-      // Read one row from the file!
-      Object[] row;
-      try {
-        row = data.inputRowMeta.readData(data.disToTmpFile);
-      } catch (SocketTimeoutException e) {
-        throw new HopFileException(e); // Shouldn't happen on files
-      }
-      data.rowsOnFile--;
-
-      return row;
-    } else {
-      if (data.bufferList.size() > 0) {
-        Object[] row = data.bufferList.get(0);
-        data.bufferList.remove(0);
-        return row;
-      } else {
-        return null; // Nothing left!
-      }
+    if (data.spillManager == null) {
+      return null;
     }
+    return data.spillManager.getRow();
   }
 
   private void closeOutput() throws HopFileException {
-    try {
-      if (data.dosToTempFile != null) {
-        data.dosToTempFile.close();
-        data.dosToTempFile = null;
-      }
-      if (data.fosToTempFile != null) {
-        data.fosToTempFile.close();
-        data.fosToTempFile = null;
-      }
-      data.firstRead = true;
-    } catch (IOException e) {
-      throw new HopFileException(
-          BaseMessages.getString(
-              PKG, "GroupBy.Exception.UnableToCloseInputStream", data.tempFile.getPath()),
-          e);
-    }
-  }
-
-  private void closeInput() throws HopFileException {
-    try {
-      if (data.fisToTmpFile != null) {
-        data.fisToTmpFile.close();
-        data.fisToTmpFile = null;
-      }
-      if (data.disToTmpFile != null) {
-        data.disToTmpFile.close();
-        data.disToTmpFile = null;
-      }
-    } catch (IOException e) {
-      throw new HopFileException(
-          BaseMessages.getString(
-              PKG, "GroupBy.Exception.UnableToCloseInputStream", data.tempFile.getPath()),
-          e);
+    if (data.spillManager != null) {
+      data.spillManager.finishWriting();
     }
   }
 
@@ -912,9 +906,49 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
   public boolean init() {
 
     if (super.init()) {
-      data.bufferList = new ArrayList<>();
+      // Temporary files can be spread over several directories, separated by ;
+      //
+      List<String> directories = new ArrayList<>();
+      for (String directory : Const.NVL(resolve(meta.getDirectory()), "").split(";")) {
+        if (!Utils.isEmpty(directory.trim())) {
+          directories.add(directory.trim());
+        }
+      }
+      if (directories.isEmpty()) {
+        directories.add(System.getProperty("java.io.tmpdir"));
+      }
+      data.spillDirectories = directories.toArray(new String[0]);
+
+      data.spillThresholdRows =
+          Const.toLong(
+              resolve(meta.getSpillThresholdRows()), GroupByMeta.DEFAULT_SPILL_THRESHOLD_ROWS);
+      data.spillBufferSize =
+          (int) TransformMemoryManager.toBudgetBytes(resolve(meta.getSpillBufferSize()));
+
+      long memoryBudget =
+          TransformMemoryManager.toBudgetBytes(resolve(meta.getSpillThresholdSize()));
+      if (memoryBudget > 0) {
+        data.memoryReservation =
+            TransformMemoryManager.getInstance()
+                .createReservation(getTransformName() + "." + getCopy(), memoryBudget);
+      }
 
-      data.rowsOnFile = 0;
+      String compressionType =
+          Const.NVL(resolve(meta.getCompressionType()), GroupByMeta.DEFAULT_COMPRESSION_TYPE);
+      if (GroupByMeta.DEFAULT_COMPRESSION_TYPE.equalsIgnoreCase(compressionType)) {
+        data.compressionProvider = null;
+      } else {
+        data.compressionProvider =
+            CompressionProviderFactory.getInstance().getCompressionProviderByName(compressionType);
+        if (data.compressionProvider == null
+            || !data.compressionProvider.supportsInput()
+            || !data.compressionProvider.supportsOutput()) {
+          logError(
+              BaseMessages.getString(
+                  PKG, "GroupBy.Error.CompressionTypeNotSupported", compressionType));
+          return false;
+        }
+      }
 
       return true;
     }
@@ -923,21 +957,21 @@ public class GroupBy extends BaseTransform<GroupByMeta, GroupByData>
 
   @Override
   public void dispose() {
-    if (data.tempFile != null) {
-      try {
-        closeInput();
-        closeOutput();
-      } catch (HopFileException e) {
-        log.logError(e.getLocalizedMessage());
-      }
-
-      boolean tempFileDeleted = data.tempFile.delete();
-
-      if (!tempFileDeleted && log.isDetailed()) {
-        log.logDetailed(
+    if (data.spillManager != null) {
+      if (data.spillManager.getNrSpilledRows() > 0 && log.isDetailed()) {
+        logDetailed(
             BaseMessages.getString(
-                PKG, "GroupBy.Exception.UnableToDeleteTemporaryFile", data.tempFile.getPath()));
+                PKG,
+                "GroupBy.Detailed.SpilledRows",
+                data.spillManager.getNrSpilledRows(),
+                data.spillManager.getNrSpillFiles()));
       }
+      data.spillManager.clear();
+      data.spillManager = null;
+    }
+    if (data.memoryReservation != null) {
+      data.memoryReservation.close();
+      data.memoryReservation = null;
     }
 
     super.dispose();
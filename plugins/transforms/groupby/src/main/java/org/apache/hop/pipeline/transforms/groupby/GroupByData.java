@@ -17,17 +17,13 @@
 
 package org.apache.hop.pipeline.transforms.groupby;
 
+import org.apache.hop.core.compress.ICompressionProvider;
+import org.apache.hop.core.memory.MemoryReservation;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -55,20 +51,15 @@ public class GroupByData extends BaseTransformData implements ITransformData {
 
   public Set<Object>[] distinctObjs;
 
-  public ArrayList<Object[]> bufferList;
+  /** Keeps the rows of the current group when all rows are passed */
+  public GroupBySpillManager spillManager;
 
-  public File tempFile;
+  public MemoryReservation memoryReservation;
 
-  public FileOutputStream fosToTempFile;
-
-  public DataOutputStream dosToTempFile;
-
-  public int rowsOnFile;
-
-  public boolean firstRead;
-
-  public FileInputStream fisToTmpFile;
-  public DataInputStream disToTmpFile;
+  public String[] spillDirectories;
+  public long spillThresholdRows;
+  public int spillBufferSize;
+  public ICompressionProvider compressionProvider;
 
   public Object[] groupResult;
 
@@ -94,6 +85,12 @@ public class GroupByData extends BaseTransformData implements ITransformData {
 
   public double[] mean;
 
+  /** How every aggregate is calculated, see PrimitiveAggregate */
+  public int[] primitiveAggregates;
+
+  public long[] longSums;
+  public double[] doubleSums;
+
   public boolean newBatch;
 
   public GroupByData() {
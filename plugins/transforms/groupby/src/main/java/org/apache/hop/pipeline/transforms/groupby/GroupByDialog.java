@@ -19,6 +19,7 @@
 package org.apache.hop.pipeline.transforms.groupby;
 
 import org.apache.hop.core.Const;
+import org.apache.hop.core.compress.CompressionProviderFactory;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.plugins.IPlugin;
 import org.apache.hop.core.row.IRowMeta;
@@ -38,6 +39,7 @@ import org.apache.hop.ui.core.widget.TableView;
 import org.apache.hop.ui.core.widget.TextVar;
 import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.CCombo;
 import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
@@ -100,6 +102,22 @@ public class GroupByDialog extends BaseTransformDialog implements ITransformDial
 
   private FormData fdlPrefix, fdPrefix;
 
+  private Label wlSpillThresholdRows;
+
+  private TextVar wSpillThresholdRows;
+
+  private Label wlSpillThresholdSize;
+
+  private TextVar wSpillThresholdSize;
+
+  private Label wlCompressionType;
+
+  private CCombo wCompressionType;
+
+  private Label wlSpillBufferSize;
+
+  private TextVar wSpillBufferSize;
+
   private Label wlAddLineNr;
 
   private Button wAddLineNr;
@@ -229,6 +247,7 @@ public class GroupByDialog extends BaseTransformDialog implements ITransformDial
     fdSortDir.top = new FormAttachment(wAllRows, margin);
     fdSortDir.right = new FormAttachment(wbSortDir, -margin);
     wSortDir.setLayoutData(fdSortDir);
+    wlSortDir.setToolTipText(BaseMessages.getString(PKG, "GroupByDialog.TempDir.Tooltip"));
 
     wbSortDir.addSelectionListener(
         new SelectionAdapter() {
@@ -263,13 +282,93 @@ public class GroupByDialog extends BaseTransformDialog implements ITransformDial
     fdPrefix.right = new FormAttachment(100, 0);
     wPrefix.setLayoutData(fdPrefix);
 
+    // Number of rows of a group to keep in memory
+    wlSpillThresholdRows = new Label(shell, SWT.RIGHT);
+    wlSpillThresholdRows.setText(
+        BaseMessages.getString(PKG, "GroupByDialog.SpillThresholdRows.Label"));
+    wlSpillThresholdRows.setToolTipText(
+        BaseMessages.getString(PKG, "GroupByDialog.SpillThresholdRows.Tooltip"));
+    props.setLook(wlSpillThresholdRows);
+    FormData fdlSpillThresholdRows = new FormData();
+    fdlSpillThresholdRows.left = new FormAttachment(0, 0);
+    fdlSpillThresholdRows.right = new FormAttachment(middle, -margin);
+    fdlSpillThresholdRows.top = new FormAttachment(wPrefix, margin);
+    wlSpillThresholdRows.setLayoutData(fdlSpillThresholdRows);
+    wSpillThresholdRows = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    props.setLook(wSpillThresholdRows);
+    wSpillThresholdRows.addModifyListener(lsMod);
+    FormData fdSpillThresholdRows = new FormData();
+    fdSpillThresholdRows.left = new FormAttachment(middle, 0);
+    fdSpillThresholdRows.top = new FormAttachment(wPrefix, margin);
+    fdSpillThresholdRows.right = new FormAttachment(100, 0);
+    wSpillThresholdRows.setLayoutData(fdSpillThresholdRows);
+
+    // Memory a group can take
+    wlSpillThresholdSize = new Label(shell, SWT.RIGHT);
+    wlSpillThresholdSize.setText(
+        BaseMessages.getString(PKG, "GroupByDialog.SpillThresholdSize.Label"));
+    wlSpillThresholdSize.setToolTipText(
+        BaseMessages.getString(PKG, "GroupByDialog.SpillThresholdSize.Tooltip"));
+    props.setLook(wlSpillThresholdSize);
+    FormData fdlSpillThresholdSize = new FormData();
+    fdlSpillThresholdSize.left = new FormAttachment(0, 0);
+    fdlSpillThresholdSize.right = new FormAttachment(middle, -margin);
+    fdlSpillThresholdSize.top = new FormAttachment(wSpillThresholdRows, margin);
+    wlSpillThresholdSize.setLayoutData(fdlSpillThresholdSize);
+    wSpillThresholdSize = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    props.setLook(wSpillThresholdSize);
+    wSpillThresholdSize.addModifyListener(lsMod);
+    FormData fdSpillThresholdSize = new FormData();
+    fdSpillThresholdSize.left = new FormAttachment(middle, 0);
+    fdSpillThresholdSize.top = new FormAttachment(wSpillThresholdRows, margin);
+    fdSpillThresholdSize.right = new FormAttachment(100, 0);
+    wSpillThresholdSize.setLayoutData(fdSpillThresholdSize);
+
+    // Which compression to use for temporary files?
+    wlCompressionType = new Label(shell, SWT.RIGHT);
+    wlCompressionType.setText(BaseMessages.getString(PKG, "GroupByDialog.CompressionType.Label"));
+    props.setLook(wlCompressionType);
+    FormData fdlCompressionType = new FormData();
+    fdlCompressionType.left = new FormAttachment(0, 0);
+    fdlCompressionType.right = new FormAttachment(middle, -margin);
+    fdlCompressionType.top = new FormAttachment(wSpillThresholdSize, margin);
+    wlCompressionType.setLayoutData(fdlCompressionType);
+    wCompressionType = new CCombo(shell, SWT.BORDER | SWT.READ_ONLY);
+    wCompressionType.setItems(
+        CompressionProviderFactory.getInstance().getCompressionProviderNames());
+    props.setLook(wCompressionType);
+    wCompressionType.addModifyListener(lsMod);
+    FormData fdCompressionType = new FormData();
+    fdCompressionType.left = new FormAttachment(middle, 0);
+    fdCompressionType.top = new FormAttachment(wSpillThresholdSize, margin);
+    fdCompressionType.right = new FormAttachment(100, 0);
+    wCompressionType.setLayoutData(fdCompressionType);
+
+    // Buffer size of the temporary files
+    wlSpillBufferSize = new Label(shell, SWT.RIGHT);
+    wlSpillBufferSize.setText(BaseMessages.getString(PKG, "GroupByDialog.SpillBufferSize.Label"));
+    props.setLook(wlSpillBufferSize);
+    FormData fdlSpillBufferSize = new FormData();
+    fdlSpillBufferSize.left = new FormAttachment(0, 0);
+    fdlSpillBufferSize.right = new FormAttachment(middle, -margin);
+    fdlSpillBufferSize.top = new FormAttachment(wCompressionType, margin);
+    wlSpillBufferSize.setLayoutData(fdlSpillBufferSize);
+    wSpillBufferSize = new TextVar(variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    props.setLook(wSpillBufferSize);
+    wSpillBufferSize.addModifyListener(lsMod);
+    FormData fdSpillBufferSize = new FormData();
+    fdSpillBufferSize.left = new FormAttachment(middle, 0);
+    fdSpillBufferSize.top = new FormAttachment(wCompressionType, margin);
+    fdSpillBufferSize.right = new FormAttachment(100, 0);
+    wSpillBufferSize.setLayoutData(fdSpillBufferSize);
+
     // Include all rows?
     wlAddLineNr = new Label(shell, SWT.RIGHT);
     wlAddLineNr.setText(BaseMessages.getString(PKG, "GroupByDialog.AddLineNr.Label"));
     props.setLook(wlAddLineNr);
     fdlAddLineNr = new FormData();
     fdlAddLineNr.left = new FormAttachment(0, 0);
-    fdlAddLineNr.top = new FormAttachment(wPrefix, margin);
+    fdlAddLineNr.top = new FormAttachment(wSpillBufferSize, margin);
     fdlAddLineNr.right = new FormAttachment(middle, -margin);
     wlAddLineNr.setLayoutData(fdlAddLineNr);
     wAddLineNr = new Button(shell, SWT.CHECK);
@@ -535,6 +634,14 @@ public class GroupByDialog extends BaseTransformDialog implements ITransformDial
     wSortDir.setEnabled(wAllRows.getSelection());
     wlPrefix.setEnabled(wAllRows.getSelection());
     wPrefix.setEnabled(wAllRows.getSelection());
+    wlSpillThresholdRows.setEnabled(wAllRows.getSelection());
+    wSpillThresholdRows.setEnabled(wAllRows.getSelection());
+    wlSpillThresholdSize.setEnabled(wAllRows.getSelection());
+    wSpillThresholdSize.setEnabled(wAllRows.getSelection());
+    wlCompressionType.setEnabled(wAllRows.getSelection());
+    wCompressionType.setEnabled(wAllRows.getSelection());
+    wlSpillBufferSize.setEnabled(wAllRows.getSelection());
+    wSpillBufferSize.setEnabled(wAllRows.getSelection());
     wlAddLineNr.setEnabled(wAllRows.getSelection());
     wAddLineNr.setEnabled(wAllRows.getSelection());
 
@@ -554,6 +661,11 @@ public class GroupByDialog extends BaseTransformDialog implements ITransformDial
     if (input.getDirectory() != null) {
       wSortDir.setText(input.getDirectory());
     }
+    wSpillThresholdRows.setText(Const.NVL(input.getSpillThresholdRows(), ""));
+    wSpillThresholdSize.setText(Const.NVL(input.getSpillThresholdSize(), ""));
+    wCompressionType.setText(
+        Const.NVL(input.getCompressionType(), GroupByMeta.DEFAULT_COMPRESSION_TYPE));
+    wSpillBufferSize.setText(Const.NVL(input.getSpillBufferSize(), ""));
     wAddLineNr.setSelection(input.isAddingLineNrInGroup());
     if (input.getLineNrInGroupField() != null) {
       wLineNrField.setText(input.getLineNrInGroupField());
@@ -606,6 +718,10 @@ public class GroupByDialog extends BaseTransformDialog implements ITransformDial
     int nrFields = wAgg.nrNonEmpty();
     input.setPrefix(wPrefix.getText());
     input.setDirectory(wSortDir.getText());
+    input.setSpillThresholdRows(wSpillThresholdRows.getText());
+    input.setSpillThresholdSize(wSpillThresholdSize.getText());
+    input.setCompressionType(wCompressionType.getText());
+    input.setSpillBufferSize(wSpillBufferSize.getText());
 
     input.setLineNrInGroupField(wLineNrField.getText());
     input.setAlwaysGivingBackOneRow(wAlwaysAddResult.getSelection());
@@ -64,6 +64,10 @@ public class GroupByMeta extends BaseTransformMeta implements ITransformMeta<Gro
 
   private static final Class<?> PKG = GroupByMeta.class; // For Translator
 
+  public static final int DEFAULT_SPILL_THRESHOLD_ROWS = 5000;
+
+  public static final String DEFAULT_COMPRESSION_TYPE = "None";
+
   public static final int TYPE_GROUP_NONE = 0;
 
   public static final int TYPE_GROUP_SUM = 1;
@@ -173,6 +177,22 @@ public class GroupByMeta extends BaseTransformMeta implements ITransformMeta<Gro
   @Injection(name = "TEMP_FILE_PREFIX")
   private String prefix;
 
+  /** The number of rows of a group to keep in memory before spilling them to a temp file */
+  @Injection(name = "SPILL_THRESHOLD_ROWS")
+  private String spillThresholdRows;
+
+  /** The memory (bytes or 100MB, 2GB, ...) a group can take before spilling it to a temp file */
+  @Injection(name = "SPILL_THRESHOLD_SIZE")
+  private String spillThresholdSize;
+
+  /** The compression to use for the temp files */
+  @Injection(name = "COMPRESSION_TYPE")
+  private String compressionType;
+
+  /** The size of the read and write buffers of the temp files */
+  @Injection(name = "SPILL_BUFFER_SIZE")
+  private String spillBufferSize;
+
   /** Indicate that some rows don't need to be considered : TODO: make work in GUI & worker */
   private boolean aggregateIgnored;
 
@@ -284,6 +304,10 @@ public class GroupByMeta extends BaseTransformMeta implements ITransformMeta<Gro
 
       directory = XmlHandler.getTagValue(transformNode, "directory");
       prefix = XmlHandler.getTagValue(transformNode, "prefix");
+      spillThresholdRows = XmlHandler.getTagValue(transformNode, "spill_threshold_rows");
+      spillThresholdSize = XmlHandler.getTagValue(transformNode, "spill_threshold_size");
+      compressionType = XmlHandler.getTagValue(transformNode, "compression_type");
+      spillBufferSize = XmlHandler.getTagValue(transformNode, "spill_buffer_size");
 
       addingLineNrInGroup =
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "add_linenr"));
@@ -363,6 +387,10 @@ public class GroupByMeta extends BaseTransformMeta implements ITransformMeta<Gro
   public void setDefault() {
     directory = "${java.io.tmpdir}";
     prefix = "grp";
+    spillThresholdRows = Integer.toString(DEFAULT_SPILL_THRESHOLD_ROWS);
+    spillThresholdSize = null;
+    compressionType = DEFAULT_COMPRESSION_TYPE;
+    spillBufferSize = Integer.toString(GroupBySpillManager.DEFAULT_BUFFER_SIZE);
 
     passAllRows = false;
     aggregateIgnored = false;
@@ -515,6 +543,14 @@ public class GroupByMeta extends BaseTransformMeta implements ITransformMeta<Gro
     retval.append("      ").append(XmlHandler.addTagValue("field_ignore", aggregateIgnoredField));
     retval.append("      ").append(XmlHandler.addTagValue("directory", directory));
     retval.append("      ").append(XmlHandler.addTagValue("prefix", prefix));
+    retval
+        .append("      ")
+        .append(XmlHandler.addTagValue("spill_threshold_rows", spillThresholdRows));
+    retval
+        .append("      ")
+        .append(XmlHandler.addTagValue("spill_threshold_size", spillThresholdSize));
+    retval.append("      ").append(XmlHandler.addTagValue("compression_type", compressionType));
+    retval.append("      ").append(XmlHandler.addTagValue("spill_buffer_size", spillBufferSize));
     retval.append("      ").append(XmlHandler.addTagValue("add_linenr", addingLineNrInGroup));
     retval.append("      ").append(XmlHandler.addTagValue("linenr_fieldname", lineNrInGroupField));
     retval.append("      ").append(XmlHandler.addTagValue("give_back_row", alwaysGivingBackOneRow));
@@ -614,6 +650,46 @@ public class GroupByMeta extends BaseTransformMeta implements ITransformMeta<Gro
     this.prefix = prefix;
   }
 
+  /** @return The number of rows of a group to keep in memory before spilling to disk */
+  public String getSpillThresholdRows() {
+    return spillThresholdRows;
+  }
+
+  /** @param spillThresholdRows The number of rows of a group to keep in memory */
+  public void setSpillThresholdRows(String spillThresholdRows) {
+    this.spillThresholdRows = spillThresholdRows;
+  }
+
+  /** @return The memory a group can take before spilling to disk, empty for no limit */
+  public String getSpillThresholdSize() {
+    return spillThresholdSize;
+  }
+
+  /** @param spillThresholdSize The memory a group can take before spilling to disk */
+  public void setSpillThresholdSize(String spillThresholdSize) {
+    this.spillThresholdSize = spillThresholdSize;
+  }
+
+  /** @return The compression to use for the temp files */
+  public String getCompressionType() {
+    return compressionType;
+  }
+
+  /** @param compressionType The compression to use for the temp files */
+  public void setCompressionType(String compressionType) {
+    this.compressionType = compressionType;
+  }
+
+  /** @return The size of the read and write buffers of the temp files */
+  public String getSpillBufferSize() {
+    return spillBufferSize;
+  }
+
+  /** @param spillBufferSize The size of the read and write buffers of the temp files */
+  public void setSpillBufferSize(String spillBufferSize) {
+    this.spillBufferSize = spillBufferSize;
+  }
+
   /** @return the addingLineNrInGroup */
   public boolean isAddingLineNrInGroup() {
     return addingLineNrInGroup;
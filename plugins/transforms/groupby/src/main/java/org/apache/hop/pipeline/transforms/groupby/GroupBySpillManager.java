@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.groupby;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.compress.CompressionInputStream;
+import org.apache.hop.core.compress.CompressionOutputStream;
+import org.apache.hop.core.compress.ICompressionProvider;
+import org.apache.hop.core.exception.HopFileException;
+import org.apache.hop.core.memory.MemoryReservation;
+import org.apache.hop.core.memory.RowMemoryEstimator;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.vfs.HopVfs;
+import org.apache.hop.i18n.BaseMessages;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+
+/**
+ * Keeps the rows of the current group for the "include all rows" option. Rows are kept in memory
+ * until the row threshold or the memory reservation is exceeded. From then on all rows of the
+ * group, the ones in memory first, go to a temporary file which is read back in the same order.
+ * <br>
+ * Every spill file is created in the next directory of the list so that large groups are spread
+ * over several disks.
+ */
+public class GroupBySpillManager {
+  private static final Class<?> PKG = GroupByMeta.class; // For Translator
+
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private final IRowMeta rowMeta;
+  private final String[] directories;
+  private final String prefix;
+  private final long maxRows;
+  private final MemoryReservation memoryReservation;
+  private final ICompressionProvider compressionProvider;
+  private final int bufferSize;
+
+  private final ArrayDeque<Object[]> memoryRows;
+  private int nextDirectory;
+
+  private FileObject spillFile;
+  private DataOutputStream output;
+  private DataInputStream input;
+  private long rowsOnFile;
+
+  private long nrSpilledRows;
+  private int nrSpillFiles;
+
+  /**
+   * @param rowMeta The layout of the buffered rows
+   * @param directories The directories to create spill files in, used one after the other
+   * @param prefix The prefix of the spill file names
+   * @param maxRows The maximum number of rows to keep in memory or <= 0 for no limit
+   * @param memoryReservation The reservation to claim the memory of the rows from or null
+   * @param compressionProvider The compression for the spill files or null to not compress them
+   * @param bufferSize The size of the read and write buffers of the spill files
+   */
+  public GroupBySpillManager(
+      IRowMeta rowMeta,
+      String[] directories,
+      String prefix,
+      long maxRows,
+      MemoryReservation memoryReservation,
+      ICompressionProvider compressionProvider,
+      int bufferSize) {
+    this.rowMeta = rowMeta;
+    this.directories = directories;
+    this.prefix = prefix;
+    this.maxRows = maxRows;
+    this.memoryReservation = memoryReservation;
+    this.compressionProvider = compressionProvider;
+    this.bufferSize = bufferSize > 0 ? bufferSize : DEFAULT_BUFFER_SIZE;
+    this.memoryRows = new ArrayDeque<>();
+  }
+
+  /**
+   * Add a row to the current group.
+   *
+   * @param row The row to keep
+   * @throws HopFileException In case the row couldn't be written to the spill file
+   */
+  public void addRow(Object[] row) throws HopFileException {
+    if (output != null) {
+      writeRow(row);
+      return;
+    }
+    memoryRows.add(row);
+
+    boolean spill = maxRows > 0 && memoryRows.size() > maxRows;
+    if (!spill && memoryReservation != null) {
+      spill = !memoryReservation.tryAcquire(RowMemoryEstimator.estimateRowSize(row));
+    }
+    if (spill) {
+      spill();
+    }
+  }
+
+  /** Move the rows in memory to a new spill file, the rows to come are added to the same file. */
+  private void spill() throws HopFileException {
+    String directory = directories[nextDirectory];
+    nextDirectory = (nextDirectory + 1) % directories.length;
+    try {
+      spillFile = HopVfs.createTempFile(prefix, ".tmp", directory);
+      OutputStream outputStream = HopVfs.getOutputStream(spillFile, false);
+      if (compressionProvider != null) {
+        CompressionOutputStream compressionOutputStream =
+            compressionProvider.createOutputStream(outputStream);
+        compressionOutputStream.addEntry(spillFile.getName().getBaseName(), null);
+        outputStream = compressionOutputStream;
+      }
+      output = new DataOutputStream(new BufferedOutputStream(outputStream, bufferSize));
+    } catch (IOException e) {
+      deleteSpillFile();
+      throw new HopFileException(
+          BaseMessages.getString(PKG, "GroupBy.Exception.UnableToCreateTemporaryFile"), e);
+    }
+    nrSpillFiles++;
+
+    while (!memoryRows.isEmpty()) {
+      writeRow(memoryRows.poll());
+    }
+    if (memoryReservation != null) {
+      memoryReservation.releaseAll();
+    }
+  }
+
+  private void writeRow(Object[] row) throws HopFileException {
+    rowMeta.writeData(output, row);
+    rowsOnFile++;
+    nrSpilledRows++;
+  }
+
+  /**
+   * Stop adding rows to the current group: flush and close the spill file, if any.
+   *
+   * @throws HopFileException In case the spill file couldn't be closed
+   */
+  public void finishWriting() throws HopFileException {
+    if (output == null) {
+      return;
+    }
+    try {
+      output.close();
+    } catch (IOException e) {
+      throw new HopFileException(
+          BaseMessages.getString(PKG, "GroupBy.Exception.UnableToCloseInputStream", spillFile), e);
+    } finally {
+      output = null;
+    }
+  }
+
+  /**
+   * Read back the next row of the current group, in the order in which they were added. Once all
+   * rows are read the spill file is removed and the next group can be added.
+   *
+   * @return The next row or null if there are no rows left
+   * @throws HopFileException In case the row couldn't be read from the spill file
+   */
+  public Object[] getRow() throws HopFileException {
+    finishWriting();
+    if (rowsOnFile > 0) {
+      try {
+        if (input == null) {
+          InputStream inputStream = HopVfs.getInputStream(spillFile);
+          if (compressionProvider != null) {
+            CompressionInputStream compressionInputStream =
+                compressionProvider.createInputStream(
+                    new BufferedInputStream(inputStream, bufferSize));
+            compressionInputStream.nextEntry();
+            inputStream = compressionInputStream;
+          }
+          input = new DataInputStream(new BufferedInputStream(inputStream, bufferSize));
+        }
+        Object[] row = rowMeta.readData(input);
+        if (--rowsOnFile == 0) {
+          closeInput();
+          deleteSpillFile();
+        }
+        return row;
+      } catch (SocketTimeoutException e) {
+        throw new HopFileException(e); // Shouldn't happen on files
+      } catch (IOException e) {
+        throw new HopFileException(
+            BaseMessages.getString(PKG, "GroupBy.Exception.UnableToReadBackRowFromTemporaryFile"),
+            e);
+      }
+    }
+
+    Object[] row = memoryRows.poll();
+    if (row == null && memoryReservation != null) {
+      memoryReservation.releaseAll();
+    }
+    return row;
+  }
+
+  /** Forget about all rows, close and remove the spill file. */
+  public void clear() {
+    memoryRows.clear();
+    if (memoryReservation != null) {
+      memoryReservation.releaseAll();
+    }
+    if (output != null) {
+      try {
+        output.close();
+      } catch (IOException e) {
+        // Ignore, we remove the file below
+      }
+      output = null;
+    }
+    closeInput();
+    deleteSpillFile();
+    rowsOnFile = 0;
+  }
+
+  private void closeInput() {
+    if (input != null) {
+      try {
+        input.close();
+      } catch (IOException e) {
+        // Ignore, it's a temporary file which we're done with
+      }
+      input = null;
+    }
+  }
+
+  private void deleteSpillFile() {
+    if (spillFile != null) {
+      try {
+        spillFile.delete();
+      } catch (IOException e) {
+        // Nothing more we can do, it's a temporary file
+      }
+      spillFile = null;
+    }
+  }
+
+  /**
+   * Gets nrSpilledRows
+   *
+   * @return The total number of rows written to spill files
+   */
+  public long getNrSpilledRows() {
+    return nrSpilledRows;
+  }
+
+  /**
+   * Gets nrSpillFiles
+   *
+   * @return The total number of spill files created
+   */
+  public int getNrSpillFiles() {
+    return nrSpillFiles;
+  }
+
+  /**
+   * Gets spillFile
+   *
+   * @return The spill file of the current group or null if the group fits in memory
+   */
+  public FileObject getSpillFile() {
+    return spillFile;
+  }
+}
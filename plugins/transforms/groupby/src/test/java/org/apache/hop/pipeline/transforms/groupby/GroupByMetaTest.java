@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.groupby;
+
+import org.apache.hop.core.HopEnvironment;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.plugins.PluginRegistry;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.transforms.loadsave.LoadSaveTester;
+import org.apache.hop.pipeline.transforms.loadsave.validator.ArrayLoadSaveValidator;
+import org.apache.hop.pipeline.transforms.loadsave.validator.IFieldLoadSaveValidator;
+import org.apache.hop.pipeline.transforms.loadsave.validator.ListLoadSaveValidator;
+import org.apache.hop.pipeline.transforms.loadsave.validator.StringLoadSaveValidator;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+
+public class GroupByMetaTest {
+  LoadSaveTester<GroupByMeta> loadSaveTester;
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  @Before
+  public void setUpLoadSave() throws Exception {
+    HopEnvironment.init();
+    PluginRegistry.init(false);
+    List<String> attributes =
+        Arrays.asList(
+            "passAllRows",
+            "directory",
+            "prefix",
+            "spillThresholdRows",
+            "spillThresholdSize",
+            "compressionType",
+            "spillBufferSize",
+            "aggregateIgnored",
+            "aggregateIgnoredField",
+            "groupField",
+            "aggregations",
+            "addingLineNrInGroup",
+            "lineNrInGroupField",
+            "alwaysGivingBackOneRow");
+
+    Map<String, String> getterMap = new HashMap<>();
+    getterMap.put("passAllRows", "passAllRows");
+
+    Map<String, IFieldLoadSaveValidator<?>> attrValidatorMap = new HashMap<>();
+    attrValidatorMap.put(
+        "groupField", new ArrayLoadSaveValidator<>(new StringLoadSaveValidator(), 5));
+    attrValidatorMap.put(
+        "aggregations", new ListLoadSaveValidator<>(new AggregationLoadSaveValidator(), 5));
+
+    loadSaveTester =
+        new LoadSaveTester<>(
+            GroupByMeta.class,
+            attributes,
+            new ArrayList<>(),
+            getterMap,
+            new HashMap<>(),
+            attrValidatorMap,
+            new HashMap<>());
+  }
+
+  @Test
+  public void testSerialization() throws HopException {
+    loadSaveTester.testSerialization();
+  }
+
+  private static class AggregationLoadSaveValidator implements IFieldLoadSaveValidator<Aggregation> {
+    private final Random random = new Random();
+
+    @Override
+    public Aggregation getTestObject() {
+      return new Aggregation(
+          UUID.randomUUID().toString(),
+          UUID.randomUUID().toString(),
+          random.nextInt(GroupByMeta.TYPE_GROUP_CONCAT_STRING_CRLF) + 1,
+          UUID.randomUUID().toString());
+    }
+
+    @Override
+    public boolean validateTestObject(Aggregation testObject, Object actual) {
+      if (!(actual instanceof Aggregation)) {
+        return false;
+      }
+      Aggregation aggregation = (Aggregation) actual;
+      return Objects.equals(testObject.getField(), aggregation.getField())
+          && Objects.equals(testObject.getSubject(), aggregation.getSubject())
+          && testObject.getType() == aggregation.getType()
+          && Objects.equals(testObject.getValue(), aggregation.getValue());
+    }
+  }
+}
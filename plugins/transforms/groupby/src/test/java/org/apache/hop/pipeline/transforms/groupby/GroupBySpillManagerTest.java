@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.groupby;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GroupBySpillManagerTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private IRowMeta createRowMeta() {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta(new ValueMetaString("key"));
+    rowMeta.addValueMeta(new ValueMetaInteger("value"));
+    return rowMeta;
+  }
+
+  @Test
+  public void testSmallGroupStaysInMemory() throws Exception {
+    GroupBySpillManager manager =
+        new GroupBySpillManager(
+            createRowMeta(),
+            new String[] {folder.getRoot().getAbsolutePath()},
+            "grp",
+            10,
+            null,
+            null,
+            0);
+    for (long i = 0; i < 10; i++) {
+      manager.addRow(new Object[] {"a", i});
+    }
+    manager.finishWriting();
+    assertNull(manager.getSpillFile());
+
+    for (long i = 0; i < 10; i++) {
+      assertEquals(i, manager.getRow()[1]);
+    }
+    assertNull(manager.getRow());
+    assertEquals(0L, manager.getNrSpilledRows());
+  }
+
+  @Test
+  public void testLargeGroupsAreSpilledInOrderOverAllDirectories() throws Exception {
+    String[] directories = {
+      folder.newFolder("disk1").getAbsolutePath(), folder.newFolder("disk2").getAbsolutePath()
+    };
+    GroupBySpillManager manager =
+        new GroupBySpillManager(createRowMeta(), directories, "grp", 10, null, null, 0);
+
+    for (int group = 0; group < 2; group++) {
+      for (long i = 0; i < 1000; i++) {
+        manager.addRow(new Object[] {"group" + group, i});
+      }
+      manager.finishWriting();
+
+      FileObject spillFile = manager.getSpillFile();
+      assertNotNull(spillFile);
+      assertTrue(spillFile.getName().getPath().contains("disk" + (group + 1)));
+
+      for (long i = 0; i < 1000; i++) {
+        Object[] row = manager.getRow();
+        assertEquals("group" + group, row[0]);
+        assertEquals(i, row[1]);
+      }
+      assertNull(manager.getRow());
+      assertFalse(spillFile.exists());
+    }
+
+    assertEquals(2000L, manager.getNrSpilledRows());
+    assertEquals(2, manager.getNrSpillFiles());
+  }
+}
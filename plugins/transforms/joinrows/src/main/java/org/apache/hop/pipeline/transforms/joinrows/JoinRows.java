@@ -288,6 +288,9 @@ public class JoinRows extends BaseTransform<JoinRowsMeta, JoinRowsData> implemen
     if ( data.filenr >= data.file.length - 1 ) {
       if ( data.outputRowMeta == null ) {
         data.outputRowMeta = createOutputRowMeta( data.fileRowMeta );
+        if ( meta.getCondition() != null && !meta.getCondition().isEmpty() ) {
+          data.predicate = meta.getCondition().compile( data.outputRowMeta );
+        }
       }
 
       // Stich the output row together
@@ -300,9 +303,9 @@ public class JoinRows extends BaseTransform<JoinRowsMeta, JoinRowsData> implemen
         }
       }
 
-      if ( meta.getCondition() != null && !meta.getCondition().isEmpty() ) {
+      if ( data.predicate != null ) {
         // Test the specified condition...
-        if ( meta.getCondition().evaluate( data.outputRowMeta, sum ) ) {
+        if ( data.predicate.evaluate( sum ) ) {
           putRow( data.outputRowMeta, sum );
         }
       } else {
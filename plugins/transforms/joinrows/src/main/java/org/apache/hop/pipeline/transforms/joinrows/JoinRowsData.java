@@ -17,6 +17,7 @@
 
 package org.apache.hop.pipeline.transforms.joinrows;
 
+import org.apache.hop.core.IRowPredicate;
 import org.apache.hop.core.IRowSet;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
@@ -59,6 +60,8 @@ public class JoinRowsData extends BaseTransformData implements ITransformData {
 
   public IRowMeta outputRowMeta;
 
+  public IRowPredicate predicate;
+
   public JoinRowsData() {
     super();
   }
@@ -25,4 +25,9 @@ public class Aggregate {
   public Set<Object>[] distinctObjs;
   public double[] mean;
 
+  /** Sums of Integer values, see MemoryGroupByData.primitiveAggregates */
+  public long[] longSums;
+  /** Sums of Number values or squared differences from the mean */
+  public double[] doubleSums;
+
 }
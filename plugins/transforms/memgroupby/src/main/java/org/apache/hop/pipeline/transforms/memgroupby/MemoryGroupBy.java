@@ -21,9 +21,12 @@ import org.apache.commons.math3.stat.descriptive.rank.Percentile;
 import org.apache.hop.core.Const;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.memory.RowMemoryEstimator;
+import org.apache.hop.core.memory.TransformMemoryManager;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.row.RowMeta;
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.PrimitiveAggregate;
 import org.apache.hop.core.row.ValueDataUtil;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.value.ValueMetaBase;
@@ -54,9 +57,21 @@ import java.util.TreeSet;
 public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupByData> implements ITransform<MemoryGroupByMeta, MemoryGroupByData> {
   private static final Class<?> PKG = MemoryGroupByMeta.class; // For Translator
 
+  /**
+   * The estimated number of bytes used by a group besides its key and aggregate values: the hash map entry, the hash
+   * key and the aggregate object.
+   */
+  private static final long GROUP_OVERHEAD = 96L;
+
+  /**
+   * The estimated number of bytes used by a single aggregate value of a group
+   */
+  private static final long AGGREGATE_VALUE_SIZE = 32L;
+
   private boolean allNullsAreZero = false;
   private boolean minNullIsValued = false;
   private boolean compatibilityMode = false;
+  private boolean primitiveAggregation = true;
 
   public MemoryGroupBy(TransformMeta transformMeta, MemoryGroupByMeta meta, MemoryGroupByData data, int copyNr, PipelineMeta pipelineMeta,
                        Pipeline pipeline ) {
@@ -148,6 +163,9 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
       // Only calculate data.aggMeta here, not for every new aggregate.
       //
       newAggregate( r, null );
+      if ( primitiveAggregation ) {
+        initPrimitiveAggregates();
+      }
 
       // for speed: groupMeta+aggMeta
       //
@@ -184,20 +202,7 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
   private void handleLastOfGroup() throws HopException {
     // Dump the content of the map...
     //
-    for ( HashEntry entry : data.map.keySet() ) {
-      Aggregate aggregate = data.map.get( entry );
-      Object[] aggregateResult = getAggregateResult( aggregate );
-
-      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
-      int index = 0;
-      for ( int i = 0; i < data.groupMeta.size(); i++ ) {
-        outputRowData[ index++ ] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( entry.getGroupData()[ i ] );
-      }
-      for ( int i = 0; i < data.aggMeta.size(); i++ ) {
-        outputRowData[ index++ ] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[ i ] );
-      }
-      putRow( data.outputRowMeta, outputRowData );
-    }
+    outputGroups();
 
     // What if we always need to give back one row?
     // This means we give back 0 for count all, count distinct, null for everything else
@@ -219,6 +224,101 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
       }
       putRow( data.outputRowMeta, outputRowData );
     }
+
+    // Now handle the groups which didn't fit in memory
+    //
+    aggregateSpilledRows();
+  }
+
+  private void outputGroups() throws HopException {
+    for ( HashEntry entry : data.map.keySet() ) {
+      Aggregate aggregate = data.map.get( entry );
+      Object[] aggregateResult = getAggregateResult( aggregate );
+
+      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+      int index = 0;
+      for ( int i = 0; i < data.groupMeta.size(); i++ ) {
+        outputRowData[ index++ ] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( entry.getGroupData()[ i ] );
+      }
+      for ( int i = 0; i < data.aggMeta.size(); i++ ) {
+        outputRowData[ index++ ] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[ i ] );
+      }
+      putRow( data.outputRowMeta, outputRowData );
+    }
+  }
+
+  /**
+   * Aggregate the rows which were written to disk because the memory budget was exceeded, one partition at a time.
+   * A partition which still doesn't fit in memory is spilled again to a new set of partitions.
+   */
+  private void aggregateSpilledRows() throws HopException {
+    queueSpilledPartitions();
+
+    while ( !data.spilledPartitions.isEmpty() && !isStopped() ) {
+      MemoryGroupBySpiller.Partition partition = data.spilledPartitions.removeFirst();
+
+      data.map.clear();
+      data.memoryReservation.releaseAll();
+      data.spilling = false;
+      data.spillLevel = partition.getLevel() + 1;
+
+      try {
+        for ( long i = 0; i < partition.getNrRows(); i++ ) {
+          addToAggregate( partition.readRow( data.inputRowMeta ) );
+        }
+      } finally {
+        partition.delete();
+      }
+
+      outputGroups();
+      queueSpilledPartitions();
+    }
+  }
+
+  private void queueSpilledPartitions() throws HopException {
+    if ( data.spiller == null ) {
+      return;
+    }
+    MemoryGroupBySpiller spiller = data.spiller;
+    data.spiller = null;
+    List<MemoryGroupBySpiller.Partition> partitions = spiller.close();
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.RowsSpilled", spiller.getNrRows(),
+        partitions.size(), data.spillLevel ) );
+    }
+    data.spilledPartitions.addAll( partitions );
+  }
+
+  /**
+   * Claim the memory for a new group.
+   *
+   * @param groupSize the estimated size of the group
+   * @return false if we're over the memory budget and the rows of the group need to be written to disk
+   */
+  private boolean claimGroupMemory( long groupSize ) {
+    if ( data.spillingEnabled ) {
+      if ( data.spilling ) {
+        return false;
+      }
+      if ( data.memoryReservation.tryAcquire( groupSize ) ) {
+        return true;
+      }
+      // Always keep at least one group in memory so that every pass over a partition makes progress
+      //
+      if ( !data.map.isEmpty() ) {
+        data.spilling = true;
+        return false;
+      }
+    }
+    data.memoryReservation.acquire( groupSize );
+    return true;
+  }
+
+  private void spillRow( HashEntry entry, Object[] r ) throws HopException {
+    if ( data.spiller == null ) {
+      data.spiller = new MemoryGroupBySpiller( data.inputRowMeta, data.spillDirectory, data.spillLevel );
+    }
+    data.spiller.writeRow( entry.hashCode(), r );
   }
 
   /**
@@ -237,6 +337,18 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
 
     Aggregate aggregate = data.map.get( entry );
     if ( aggregate == null ) {
+      // Tell the other transforms how much memory we're using.
+      // Over budget we write the rows of new groups to disk and aggregate them later
+      //
+      if ( data.memoryReservation != null ) {
+        long groupSize = GROUP_OVERHEAD + RowMemoryEstimator.estimateRowSize( groupData )
+          + AGGREGATE_VALUE_SIZE * data.subjectnrs.length;
+        if ( !claimGroupMemory( groupSize ) ) {
+          spillRow( entry, r );
+          return;
+        }
+      }
+
       // Create a new value...
       //
       aggregate = new Aggregate();
@@ -250,6 +362,11 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
     for ( int i = 0; i < data.subjectnrs.length; i++ ) {
       Object subj = r[ data.subjectnrs[ i ] ];
       IValueMeta subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[ i ] );
+      if ( data.primitiveAggregates != null && data.primitiveAggregates[ i ] != PrimitiveAggregate.OBJECT ) {
+        PrimitiveAggregate.add( data.primitiveAggregates[ i ], i, subjMeta, subj, aggregate.counts, aggregate.longSums,
+          aggregate.doubleSums, aggregate.mean );
+        continue;
+      }
       Object value = aggregate.agg[ i ];
       IValueMeta valueMeta = data.aggMeta.getValueMeta( i );
 
@@ -399,6 +516,10 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
       aggregate.distinctObjs = null;
       aggregate.agg = new Object[ data.subjectnrs.length ];
       aggregate.mean = new double[ data.subjectnrs.length ]; // sets all doubles to 0.0
+      if ( data.primitiveAggregates != null ) {
+        aggregate.longSums = new long[ data.subjectnrs.length ];
+        aggregate.doubleSums = new double[ data.subjectnrs.length ];
+      }
     }
 
     for ( int i = 0; i < data.subjectnrs.length; i++ ) {
@@ -459,6 +580,41 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
     }
   }
 
+  /**
+   * Sums and averages of Integer and Number values in normal storage, as well as standard deviations, are calculated in
+   * primitive arrays to avoid allocating a new Long or Double for every input row. Everything else goes through
+   * Aggregate.agg.
+   */
+  private void initPrimitiveAggregates() {
+    data.primitiveAggregates = new int[ data.subjectnrs.length ];
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      IValueMeta subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[ i ] );
+      IValueMeta valueMeta = data.aggMeta.getValueMeta( i );
+      switch ( meta.getAggregateType()[ i ] ) {
+        case MemoryGroupByMeta.TYPE_GROUP_SUM:
+        case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+          data.primitiveAggregates[ i ] = PrimitiveAggregate.getSumAggregate( subjMeta, valueMeta );
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
+          data.primitiveAggregates[ i ] = PrimitiveAggregate.VARIANCE;
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * @return the current aggregate value of subject i, boxing it if it's kept in a primitive
+   */
+  private Object getAggregateValue( Aggregate aggregate, int i ) {
+    if ( data.primitiveAggregates == null || aggregate.longSums == null ) {
+      return aggregate.agg[ i ];
+    }
+    return PrimitiveAggregate.getValue( data.primitiveAggregates[ i ], i, aggregate.counts, aggregate.longSums,
+      aggregate.doubleSums, aggregate.agg[ i ] );
+  }
+
   private void initGroupMeta( IRowMeta previousRowMeta ) throws HopValueException {
     data.groupMeta = new RowMeta();
     data.entryMeta = new RowMeta();
@@ -486,7 +642,7 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
 
     if ( data.subjectnrs != null ) {
       for ( int i = 0; i < data.subjectnrs.length; i++ ) {
-        Object ag = aggregate.agg[ i ];
+        Object ag = getAggregateValue( aggregate, i );
         switch ( meta.getAggregateType()[ i ] ) {
           case MemoryGroupByMeta.TYPE_GROUP_SUM:
             break;
@@ -520,6 +676,10 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
           case MemoryGroupByMeta.TYPE_GROUP_MAX:
             break;
           case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
+            if ( ag == null ) {
+              // All input data was null
+              break;
+            }
             double sum = (Double) ag / aggregate.counts[ i ];
             ag = Double.valueOf( Math.sqrt( sum ) );
             break;
@@ -548,6 +708,14 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
 
     if ( super.init() ) {
       data.map = new HashMap<>( 5000 );
+
+      // Without a memory budget all groups are kept in memory, no matter what
+      //
+      long memoryBudget = TransformMemoryManager.toBudgetBytes( resolve( meta.getMemoryBudget() ) );
+      data.spillingEnabled = memoryBudget > 0;
+      data.spillDirectory = resolve( meta.getSpillDirectory() );
+      data.memoryReservation =
+        TransformMemoryManager.getInstance().createReservation( getTransformName() + "." + getCopy(), memoryBudget );
       return true;
     }
     return false;
@@ -557,6 +725,18 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
   public void dispose() {
     super.dispose();
     ( (MemoryGroupByData) data ).clear();
+    if ( data.spiller != null ) {
+      data.spiller.discard();
+      data.spiller = null;
+    }
+    for ( MemoryGroupBySpiller.Partition partition : data.spilledPartitions ) {
+      partition.delete();
+    }
+    data.spilledPartitions.clear();
+    if ( data.memoryReservation != null ) {
+      data.memoryReservation.close();
+      data.memoryReservation = null;
+    }
   }
 
   @Override
@@ -568,6 +748,11 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
     // Clear the complete cache...
     //
     data.map.clear();
+    if ( data.memoryReservation != null ) {
+      data.memoryReservation.releaseAll();
+    }
+    data.spilling = false;
+    data.spillLevel = 0;
 
     data.newBatch = true;
   }
@@ -589,4 +774,13 @@ public class MemoryGroupBy extends BaseTransform<MemoryGroupByMeta, MemoryGroupB
   void setMinNullIsValued( boolean minNullIsValued ) {
     this.minNullIsValued = minNullIsValued;
   }
+
+  /**
+   * Used for junits in MemoryGroupByPrimitiveAggregationTest
+   *
+   * @param primitiveAggregation false to calculate all aggregates through Aggregate.agg
+   */
+  void setPrimitiveAggregation( boolean primitiveAggregation ) {
+    this.primitiveAggregation = primitiveAggregation;
+  }
 }
@@ -18,11 +18,14 @@
 package org.apache.hop.pipeline.transforms.memgroupby;
 
 import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.memory.MemoryReservation;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 
 /**
@@ -93,8 +96,23 @@ public class MemoryGroupByData extends BaseTransformData implements ITransformDa
 
   public boolean newBatch;
 
+  /** How every aggregate is calculated, see PrimitiveAggregate */
+  public int[] primitiveAggregates;
+
+  public MemoryReservation memoryReservation;
+
+  /** Write the rows of new groups to disk when the memory budget is exceeded */
+  public boolean spillingEnabled;
+  /** The memory budget was exceeded during the current pass */
+  public boolean spilling;
+  public int spillLevel;
+  public String spillDirectory;
+  public MemoryGroupBySpiller spiller;
+  public Deque<MemoryGroupBySpiller.Partition> spilledPartitions;
+
   public MemoryGroupByData() {
     super();
+    spilledPartitions = new ArrayDeque<>();
 
   }
 
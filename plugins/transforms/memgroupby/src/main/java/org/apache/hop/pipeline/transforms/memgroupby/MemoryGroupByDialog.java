@@ -30,6 +30,7 @@ import org.apache.hop.pipeline.transform.TransformMeta;
 import org.apache.hop.ui.core.dialog.ErrorDialog;
 import org.apache.hop.ui.core.widget.ColumnInfo;
 import org.apache.hop.ui.core.widget.TableView;
+import org.apache.hop.ui.core.widget.TextVar;
 import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.*;
@@ -50,6 +51,10 @@ public class MemoryGroupByDialog extends BaseTransformDialog implements ITransfo
 
   private Button wAlwaysAddResult;
 
+  private TextVar wMemoryBudget;
+
+  private TextVar wSpillDirectory;
+
   private final MemoryGroupByMeta input;
 
   private ColumnInfo[] ciKey;
@@ -131,12 +136,54 @@ public class MemoryGroupByDialog extends BaseTransformDialog implements ITransfo
     wAlwaysAddResult.setLayoutData(fdAlwaysAddResult);
     wAlwaysAddResult.addSelectionListener( lsSel );
 
+    // The memory budget for the groups
+    //
+    Label wlMemoryBudget = new Label(shell, SWT.RIGHT);
+    wlMemoryBudget.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MemoryBudget.Label" ) );
+    wlMemoryBudget.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MemoryBudget.ToolTip" ) );
+    props.setLook(wlMemoryBudget);
+    FormData fdlMemoryBudget = new FormData();
+    fdlMemoryBudget.left = new FormAttachment( 0, 0 );
+    fdlMemoryBudget.top = new FormAttachment( wAlwaysAddResult, margin );
+    fdlMemoryBudget.right = new FormAttachment( middle, -margin );
+    wlMemoryBudget.setLayoutData(fdlMemoryBudget);
+    wMemoryBudget = new TextVar( variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wMemoryBudget.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.MemoryBudget.ToolTip" ) );
+    props.setLook( wMemoryBudget );
+    wMemoryBudget.addModifyListener( lsMod );
+    FormData fdMemoryBudget = new FormData();
+    fdMemoryBudget.left = new FormAttachment( middle, 0 );
+    fdMemoryBudget.top = new FormAttachment( wAlwaysAddResult, margin );
+    fdMemoryBudget.right = new FormAttachment( 100, 0 );
+    wMemoryBudget.setLayoutData(fdMemoryBudget);
+
+    // The directory to spill rows to
+    //
+    Label wlSpillDirectory = new Label(shell, SWT.RIGHT);
+    wlSpillDirectory.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.SpillDirectory.Label" ) );
+    wlSpillDirectory.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.SpillDirectory.ToolTip" ) );
+    props.setLook(wlSpillDirectory);
+    FormData fdlSpillDirectory = new FormData();
+    fdlSpillDirectory.left = new FormAttachment( 0, 0 );
+    fdlSpillDirectory.top = new FormAttachment( wMemoryBudget, margin );
+    fdlSpillDirectory.right = new FormAttachment( middle, -margin );
+    wlSpillDirectory.setLayoutData(fdlSpillDirectory);
+    wSpillDirectory = new TextVar( variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wSpillDirectory.setToolTipText( BaseMessages.getString( PKG, "MemoryGroupByDialog.SpillDirectory.ToolTip" ) );
+    props.setLook( wSpillDirectory );
+    wSpillDirectory.addModifyListener( lsMod );
+    FormData fdSpillDirectory = new FormData();
+    fdSpillDirectory.left = new FormAttachment( middle, 0 );
+    fdSpillDirectory.top = new FormAttachment( wMemoryBudget, margin );
+    fdSpillDirectory.right = new FormAttachment( 100, 0 );
+    wSpillDirectory.setLayoutData(fdSpillDirectory);
+
     Label wlGroup = new Label(shell, SWT.NONE);
     wlGroup.setText( BaseMessages.getString( PKG, "MemoryGroupByDialog.Group.Label" ) );
     props.setLook(wlGroup);
     FormData fdlGroup = new FormData();
     fdlGroup.left = new FormAttachment( 0, 0 );
-    fdlGroup.top = new FormAttachment(wlAlwaysAddResult, 2*margin );
+    fdlGroup.top = new FormAttachment(wSpillDirectory, 2*margin );
     wlGroup.setLayoutData(fdlGroup);
 
     int nrKeyCols = 1;
@@ -315,6 +362,8 @@ public class MemoryGroupByDialog extends BaseTransformDialog implements ITransfo
     logDebug( BaseMessages.getString( PKG, "MemoryGroupByDialog.Log.GettingKeyInfo" ) );
 
     wAlwaysAddResult.setSelection( input.isAlwaysGivingBackOneRow() );
+    wMemoryBudget.setText( Const.NVL( input.getMemoryBudget(), "" ) );
+    wSpillDirectory.setText( Const.NVL( input.getSpillDirectory(), "" ) );
 
     if ( input.getGroupField() != null ) {
       for ( int i = 0; i < input.getGroupField().length; i++ ) {
@@ -365,6 +414,8 @@ public class MemoryGroupByDialog extends BaseTransformDialog implements ITransfo
     int nrFields = wAgg.nrNonEmpty();
 
     input.setAlwaysGivingBackOneRow( wAlwaysAddResult.getSelection() );
+    input.setMemoryBudget( wMemoryBudget.getText() );
+    input.setSpillDirectory( wSpillDirectory.getText() );
 
     input.allocate( sizegroup, nrFields );
 
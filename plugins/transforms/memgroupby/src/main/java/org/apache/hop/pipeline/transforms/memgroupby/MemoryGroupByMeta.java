@@ -161,6 +161,18 @@ public class MemoryGroupByMeta extends BaseTransformMeta
   /** Flag to indicate that we always give back one row. Defaults to true for existing pipelines. */
   private boolean alwaysGivingBackOneRow;
 
+  @Injection(name = "MEMORY_BUDGET", group = "FIELDS")
+  /**
+   * The maximum amount of memory to use for the groups, in bytes or with a unit like 512MB. When
+   * it's exceeded, the rows of new groups are written to disk and aggregated afterwards. Empty
+   * means that all groups are kept in memory.
+   */
+  private String memoryBudget;
+
+  @Injection(name = "SPILL_DIRECTORY", group = "FIELDS")
+  /** The directory to write the rows to when the memory budget is exceeded */
+  private String spillDirectory;
+
   public MemoryGroupByMeta() {
     super(); // allocate BaseTransformMeta
   }
@@ -291,6 +303,9 @@ public class MemoryGroupByMeta extends BaseTransformMeta
       } else {
         alwaysGivingBackOneRow = "Y".equalsIgnoreCase(giveBackRow);
       }
+
+      memoryBudget = XmlHandler.getTagValue(transformNode, "memory_budget");
+      spillDirectory = XmlHandler.getTagValue(transformNode, "spill_directory");
     } catch (Exception e) {
       throw new HopXmlException(
           BaseMessages.getString(
@@ -333,6 +348,9 @@ public class MemoryGroupByMeta extends BaseTransformMeta
     int nrFields = 0;
 
     allocate(sizegroup, nrFields);
+
+    memoryBudget = null;
+    spillDirectory = "${java.io.tmpdir}";
   }
 
   @Override
@@ -456,6 +474,8 @@ public class MemoryGroupByMeta extends BaseTransformMeta
     StringBuilder retval = new StringBuilder(500);
 
     retval.append("      ").append(XmlHandler.addTagValue("give_back_row", alwaysGivingBackOneRow));
+    retval.append("      ").append(XmlHandler.addTagValue("memory_budget", memoryBudget));
+    retval.append("      ").append(XmlHandler.addTagValue("spill_directory", spillDirectory));
 
     retval.append("      <group>").append(Const.CR);
     for (int i = 0; i < groupField.length; i++) {
@@ -526,6 +546,26 @@ public class MemoryGroupByMeta extends BaseTransformMeta
     this.alwaysGivingBackOneRow = alwaysGivingBackOneRow;
   }
 
+  /** @return the memory budget for the groups, in bytes or with a unit like 512MB */
+  public String getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  /** @param memoryBudget the memory budget for the groups, in bytes or with a unit like 512MB */
+  public void setMemoryBudget(String memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
+
+  /** @return the directory to write rows to when the memory budget is exceeded */
+  public String getSpillDirectory() {
+    return spillDirectory;
+  }
+
+  /** @param spillDirectory the directory to write rows to when the memory budget is exceeded */
+  public void setSpillDirectory(String spillDirectory) {
+    this.spillDirectory = spillDirectory;
+  }
+
   /**
    * If we use injection we can have different arrays lengths. We need synchronize them for
    * consistency behavior with UI
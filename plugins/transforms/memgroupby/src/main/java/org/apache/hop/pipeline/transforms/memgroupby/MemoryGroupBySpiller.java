@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.vfs.HopVfs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the input rows of groups which didn't fit in memory to a number of partition files, based on the hash code of
+ * the group key. All rows of a group end up in the same partition so every partition can be aggregated on its own
+ * afterwards.<br>
+ * Every level mixes the hash code differently: a partition which still doesn't fit in memory is split up over new
+ * partitions instead of ending up in a single one again.
+ */
+public class MemoryGroupBySpiller {
+
+  public static final int NR_PARTITIONS = 16;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final IRowMeta rowMeta;
+  private final String directory;
+  private final int level;
+
+  private final FileObject[] files;
+  private final DataOutputStream[] outputs;
+  private final long[] nrRows;
+
+  /**
+   * @param rowMeta   The layout of the rows to spill
+   * @param directory The directory to create the partition files in
+   * @param level     The number of times the rows were spilled before
+   */
+  public MemoryGroupBySpiller( IRowMeta rowMeta, String directory, int level ) {
+    this.rowMeta = rowMeta;
+    this.directory = directory;
+    this.level = level;
+    this.files = new FileObject[ NR_PARTITIONS ];
+    this.outputs = new DataOutputStream[ NR_PARTITIONS ];
+    this.nrRows = new long[ NR_PARTITIONS ];
+  }
+
+  /**
+   * Write a row to the partition of its group.
+   *
+   * @param hashCode The hash code of the group key
+   * @param row      The input row
+   * @throws HopException
+   */
+  public void writeRow( int hashCode, Object[] row ) throws HopException {
+    int partition = getPartition( hashCode, level );
+    if ( outputs[ partition ] == null ) {
+      try {
+        files[ partition ] = HopVfs.createTempFile( "memgroupby", ".tmp", directory );
+        outputs[ partition ] =
+          new DataOutputStream( new BufferedOutputStream( HopVfs.getOutputStream( files[ partition ], false ), BUFFER_SIZE ) );
+      } catch ( IOException e ) {
+        throw new HopException( "Unable to create a spill file in directory " + directory, e );
+      }
+    }
+    rowMeta.writeData( outputs[ partition ], row );
+    nrRows[ partition ]++;
+  }
+
+  /**
+   * Close all partition files.
+   *
+   * @return The partitions which received rows, to be aggregated one after the other.
+   * @throws HopException
+   */
+  public List<Partition> close() throws HopException {
+    List<Partition> partitions = new ArrayList<>();
+    HopException exception = null;
+    for ( int i = 0; i < NR_PARTITIONS; i++ ) {
+      if ( outputs[ i ] == null ) {
+        continue;
+      }
+      try {
+        outputs[ i ].close();
+      } catch ( IOException e ) {
+        exception = new HopException( "Unable to close spill file " + files[ i ], e );
+      }
+      outputs[ i ] = null;
+      partitions.add( new Partition( files[ i ], nrRows[ i ], level ) );
+    }
+    if ( exception != null ) {
+      for ( Partition partition : partitions ) {
+        partition.delete();
+      }
+      throw exception;
+    }
+    return partitions;
+  }
+
+  /**
+   * Close and remove all partition files, for example when the transform is stopped.
+   */
+  public void discard() {
+    for ( int i = 0; i < NR_PARTITIONS; i++ ) {
+      if ( outputs[ i ] != null ) {
+        try {
+          outputs[ i ].close();
+        } catch ( IOException e ) {
+          // Ignore, we remove the file below
+        }
+        outputs[ i ] = null;
+      }
+      if ( files[ i ] != null ) {
+        new Partition( files[ i ], nrRows[ i ], level ).delete();
+        files[ i ] = null;
+      }
+    }
+  }
+
+  /**
+   * @return The total number of rows written so far
+   */
+  public long getNrRows() {
+    long total = 0L;
+    for ( long rows : nrRows ) {
+      total += rows;
+    }
+    return total;
+  }
+
+  static int getPartition( int hashCode, int level ) {
+    // Give every level its own seed and finish with the MurmurHash3 mixer so that all bits take part
+    //
+    int h = hashCode ^ ( level * 0x9E3779B9 );
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    h ^= h >>> 16;
+    return ( h & Integer.MAX_VALUE ) % NR_PARTITIONS;
+  }
+
+  /**
+   * A partition file with the rows of a number of groups.
+   */
+  public static class Partition {
+    private final FileObject file;
+    private final long nrRows;
+    private final int level;
+    private DataInputStream input;
+
+    public Partition( FileObject file, long nrRows, int level ) {
+      this.file = file;
+      this.nrRows = nrRows;
+      this.level = level;
+    }
+
+    /**
+     * Read the next row from the partition file.
+     *
+     * @param rowMeta The layout of the spilled rows
+     * @return The next row
+     * @throws HopException
+     */
+    public Object[] readRow( IRowMeta rowMeta ) throws HopException {
+      try {
+        if ( input == null ) {
+          input = new DataInputStream( new BufferedInputStream( HopVfs.getInputStream( file ), BUFFER_SIZE ) );
+        }
+        return rowMeta.readData( input );
+      } catch ( IOException e ) {
+        throw new HopException( "Unable to read from spill file " + file, e );
+      }
+    }
+
+    /**
+     * Close and remove the partition file.
+     */
+    public void delete() {
+      try {
+        if ( input != null ) {
+          input.close();
+          input = null;
+        }
+      } catch ( IOException e ) {
+        // Ignore, we remove the file anyway
+      }
+      try {
+        if ( file.exists() ) {
+          file.delete();
+        }
+      } catch ( IOException e ) {
+        // Nothing more we can do, it's a temporary file
+      }
+    }
+
+    /**
+     * Gets file
+     *
+     * @return value of file
+     */
+    public FileObject getFile() {
+      return file;
+    }
+
+    /**
+     * Gets nrRows
+     *
+     * @return value of nrRows
+     */
+    public long getNrRows() {
+      return nrRows;
+    }
+
+    /**
+     * Gets level
+     *
+     * @return value of level
+     */
+    public int getLevel() {
+      return level;
+    }
+  }
+}
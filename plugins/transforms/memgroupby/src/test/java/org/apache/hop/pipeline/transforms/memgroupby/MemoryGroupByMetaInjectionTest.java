@@ -38,5 +38,7 @@ public class MemoryGroupByMetaInjectionTest extends BaseMetadataInjectionTest<Me
     check( "AGGREGATETYPE", () -> meta.getAggregateType()[ 0 ] );
     check( "VALUEFIELD", () -> meta.getValueField()[ 0 ] );
     check( "ALWAYSGIVINGBACKONEROW", () -> meta.isAlwaysGivingBackOneRow() );
+    check( "MEMORY_BUDGET", () -> meta.getMemoryBudget() );
+    check( "SPILL_DIRECTORY", () -> meta.getSpillDirectory() );
   }
 }
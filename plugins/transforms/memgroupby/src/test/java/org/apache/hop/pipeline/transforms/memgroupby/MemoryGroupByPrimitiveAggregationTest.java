@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.PrimitiveAggregate;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaNumber;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.junit.rules.RestoreHopEngineEnvironment;
+import org.apache.hop.pipeline.transform.RowAdapter;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs sums and averages of Integer and Number subjects through the primitive aggregates and through the generic
+ * calculation, which should give the same results.
+ */
+public class MemoryGroupByPrimitiveAggregationTest {
+  @ClassRule public static RestoreHopEngineEnvironment env = new RestoreHopEngineEnvironment();
+
+  private static final int[] AGGREGATE_TYPES = {
+    MemoryGroupByMeta.TYPE_GROUP_SUM,
+    MemoryGroupByMeta.TYPE_GROUP_AVERAGE,
+    MemoryGroupByMeta.TYPE_GROUP_MIN,
+    MemoryGroupByMeta.TYPE_GROUP_MAX,
+    MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL,
+  };
+
+  private TransformMockHelper<MemoryGroupByMeta, MemoryGroupByData> mockHelper;
+
+  @Before
+  public void setUp() {
+    mockHelper = new TransformMockHelper<>( "Memory group by", MemoryGroupByMeta.class, MemoryGroupByData.class );
+    when( mockHelper.logChannelFactory.create( any(), any( ILoggingObject.class ) ) )
+      .thenReturn( mockHelper.iLogChannel );
+    when( mockHelper.pipeline.isRunning() ).thenReturn( true );
+  }
+
+  @After
+  public void tearDown() {
+    mockHelper.cleanUp();
+  }
+
+  @Test
+  public void testPrimitiveAggregatesMatchGenericCalculation() throws Exception {
+    List<Object[]> primitive = runTransform( new MemoryGroupByData(), true );
+    List<Object[]> generic = runTransform( new MemoryGroupByData(), false );
+
+    assertEquals( 3, primitive.size() );
+    assertEquals( generic.size(), primitive.size() );
+    for ( int i = 0; i < primitive.size(); i++ ) {
+      assertArrayEquals( generic.get( i ), primitive.get( i ) );
+    }
+  }
+
+  @Test
+  public void testPrimitiveAggregates() throws Exception {
+    MemoryGroupByData data = new MemoryGroupByData();
+    List<Object[]> result = runTransform( data, true );
+
+    // Sums and averages of integers, then of numbers, are kept in primitives
+    //
+    assertArrayEquals( new int[] {
+      PrimitiveAggregate.LONG_SUM, PrimitiveAggregate.LONG_SUM,
+      PrimitiveAggregate.OBJECT, PrimitiveAggregate.OBJECT, PrimitiveAggregate.OBJECT,
+      PrimitiveAggregate.DOUBLE_SUM, PrimitiveAggregate.DOUBLE_SUM,
+      PrimitiveAggregate.OBJECT, PrimitiveAggregate.OBJECT, PrimitiveAggregate.OBJECT,
+    }, data.primitiveAggregates );
+
+    // Group a: integers 1, null, 3 and numbers 1.5, 2.5, null
+    //
+    Object[] a = result.get( 0 );
+    assertEquals( "a", a[ 0 ] );
+    assertEquals( Arrays.asList( 4L, 2L, 1L, 3L, 2L ), Arrays.asList( a ).subList( 1, 6 ) );
+    assertEquals( Arrays.asList( 4.0, 2.0, 1.5, 2.5, 2L ), Arrays.asList( a ).subList( 6, 11 ) );
+
+    // Group c: only nulls
+    //
+    Object[] c = result.get( 2 );
+    assertEquals( "c", c[ 0 ] );
+    for ( int i = 1; i < 11; i++ ) {
+      if ( i == 5 || i == 10 ) {
+        assertEquals( 0L, c[ i ] );
+      } else {
+        assertNull( c[ i ] );
+      }
+    }
+  }
+
+  private List<Object[]> getRows() {
+    return Arrays.asList(
+      new Object[] { "a", 1L, 1.5 },
+      new Object[] { "b", -5L, -0.1 },
+      new Object[] { "a", null, 2.5 },
+      new Object[] { "c", null, null },
+      new Object[] { "b", 7L, 0.2 },
+      new Object[] { "a", 3L, null },
+      new Object[] { "b", null, 0.3 },
+      new Object[] { "c", null, null },
+      new Object[] { "b", 10L, null } );
+  }
+
+  private List<Object[]> runTransform( MemoryGroupByData data, boolean primitiveAggregation ) throws Exception {
+    IRowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaString( "group" ) );
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "int" ) );
+    inputRowMeta.addValueMeta( new ValueMetaNumber( "num" ) );
+
+    String[] subjects = { "int", "num" };
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.allocate( 1, subjects.length * AGGREGATE_TYPES.length );
+    meta.getGroupField()[ 0 ] = "group";
+    for ( int s = 0; s < subjects.length; s++ ) {
+      for ( int t = 0; t < AGGREGATE_TYPES.length; t++ ) {
+        int index = s * AGGREGATE_TYPES.length + t;
+        meta.getAggregateField()[ index ] = subjects[ s ] + "_" + AGGREGATE_TYPES[ t ];
+        meta.getSubjectField()[ index ] = subjects[ s ];
+        meta.getAggregateType()[ index ] = AGGREGATE_TYPES[ t ];
+      }
+    }
+
+    IRowSet inputRowSet = mockHelper.getMockInputRowSet( getRows() );
+    when( inputRowSet.getRowMeta() ).thenReturn( inputRowMeta );
+
+    MemoryGroupBy transform = new MemoryGroupBy( mockHelper.transformMeta, meta, data, 0, mockHelper.pipelineMeta,
+      mockHelper.pipeline );
+    transform.setPrimitiveAggregation( primitiveAggregation );
+    assertTrue( transform.init() );
+    transform.setInputRowSets( Collections.singletonList( inputRowSet ) );
+
+    List<Object[]> result = new ArrayList<>();
+    transform.addRowListener( new RowAdapter() {
+      @Override
+      public void rowWrittenEvent( IRowMeta rowMeta, Object[] row ) throws HopTransformException {
+        result.add( Arrays.copyOf( row, rowMeta.size() ) );
+      }
+    } );
+
+    while ( transform.processRow() ) {
+      // Keep reading rows
+    }
+    transform.dispose();
+
+    // The groups come out of a hash map
+    //
+    result.sort( Comparator.comparing( row -> (String) row[ 0 ] ) );
+    return result;
+  }
+}
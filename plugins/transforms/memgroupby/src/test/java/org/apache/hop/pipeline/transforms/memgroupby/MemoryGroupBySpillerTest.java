@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.memgroupby;
+
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryGroupBySpillerTest {
+
+  @Test
+  public void testRowsOfAGroupEndUpInTheSamePartition() throws Exception {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+
+    MemoryGroupBySpiller spiller = new MemoryGroupBySpiller( rowMeta, System.getProperty( "java.io.tmpdir" ), 0 );
+    for ( long i = 0; i < 1000; i++ ) {
+      String key = "key" + ( i % 100 );
+      spiller.writeRow( key.hashCode(), new Object[] { key, i } );
+    }
+    assertEquals( 1000L, spiller.getNrRows() );
+
+    List<MemoryGroupBySpiller.Partition> partitions = spiller.close();
+    assertTrue( partitions.size() > 1 );
+
+    Map<String, Integer> partitionOfKey = new HashMap<>();
+    long nrRows = 0;
+    for ( int p = 0; p < partitions.size(); p++ ) {
+      MemoryGroupBySpiller.Partition partition = partitions.get( p );
+      assertEquals( 0, partition.getLevel() );
+      for ( long i = 0; i < partition.getNrRows(); i++ ) {
+        Object[] row = partition.readRow( rowMeta );
+        Integer previous = partitionOfKey.put( (String) row[ 0 ], p );
+        assertTrue( previous == null || previous == p );
+        nrRows++;
+      }
+      partition.delete();
+      assertFalse( partition.getFile().exists() );
+    }
+    assertEquals( 1000L, nrRows );
+    assertEquals( 100, partitionOfKey.size() );
+  }
+
+  @Test
+  public void testLevelsSplitPartitionsDifferently() {
+    // Take the hash codes which end up in partition 0 at level 0 and see that they are spread out again at level 1
+    //
+    boolean[] used = new boolean[ MemoryGroupBySpiller.NR_PARTITIONS ];
+    int nrUsed = 0;
+    for ( int hashCode = 0; hashCode < 100000; hashCode++ ) {
+      if ( MemoryGroupBySpiller.getPartition( hashCode, 0 ) == 0 ) {
+        int partition = MemoryGroupBySpiller.getPartition( hashCode, 1 );
+        if ( !used[ partition ] ) {
+          used[ partition ] = true;
+          nrUsed++;
+        }
+      }
+    }
+    assertEquals( MemoryGroupBySpiller.NR_PARTITIONS, nrUsed );
+  }
+}
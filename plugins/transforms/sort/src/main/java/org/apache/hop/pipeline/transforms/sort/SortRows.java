@@ -21,11 +21,15 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.hop.core.Const;
+import org.apache.hop.core.compress.CompressionProviderFactory;
 import org.apache.hop.core.exception.HopException;
-import org.apache.hop.core.exception.HopFileException;
 import org.apache.hop.core.exception.HopValueException;
+import org.apache.hop.core.memory.RowMemoryEstimator;
+import org.apache.hop.core.memory.TransformMemoryManager;
+import org.apache.hop.core.row.IRowMergeSource;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.row.IValueMeta;
+import org.apache.hop.core.row.LoserTreeRowMerger;
 import org.apache.hop.core.vfs.HopVfs;
 import org.apache.hop.i18n.BaseMessages;
 import org.apache.hop.pipeline.Pipeline;
@@ -34,14 +38,12 @@ import org.apache.hop.pipeline.transform.BaseTransform;
 import org.apache.hop.pipeline.transform.ITransform;
 import org.apache.hop.pipeline.transform.TransformMeta;
 
-import java.io.*;
-import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Sort the rows in the input-streams based on certain criteria
@@ -52,6 +54,16 @@ import java.util.zip.GZIPOutputStream;
 public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implements ITransform<SortRowsMeta, SortRowsData> {
   private static final Class<?> PKG = SortRows.class; // For Translator
 
+  /**
+   * Never spill fewer rows than this when the memory budget runs out, to avoid creating lots of tiny temp files
+   */
+  private static final int MIN_ROWS_PER_SPILL = 1000;
+
+  /**
+   * Below this number of rows a parallel sort doesn't pay off the overhead of splitting up the work
+   */
+  private static final int PARALLEL_SORT_MIN_ROWS = 10000;
+
   public SortRows( TransformMeta transformMeta, SortRowsMeta meta, SortRowsData data,
                    int copyNr, PipelineMeta pipelineMeta, Pipeline pipeline ) {
     super( transformMeta, meta, data, copyNr, pipelineMeta, pipeline );
@@ -66,13 +78,27 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
       }
     }
 
+    // Claim the memory of the row from our budget, spill the buffer to disk first if we're out of memory
+    //
+    if ( data.memoryReservation != null ) {
+      long rowSize = RowMemoryEstimator.estimateRowSize( r );
+      if ( !data.memoryReservation.tryAcquire( rowSize ) ) {
+        if ( data.buffer.size() >= MIN_ROWS_PER_SPILL ) {
+          sortExternalRows();
+        }
+        if ( !data.memoryReservation.tryAcquire( rowSize ) ) {
+          data.memoryReservation.acquire( rowSize );
+        }
+      }
+    }
+
     // Save row
     data.buffer.add( r );
 
     // Check the free memory every 1000 rows...
     //
     data.freeCounter++;
-    if ( data.sortSize <= 0 && data.freeCounter >= 1000 ) {
+    if ( data.sortSize <= 0 && data.memoryReservation == null && data.freeCounter >= 1000 ) {
       data.freeMemoryPct = Const.getPercentageFreeMemory();
       data.freeCounter = 0;
 
@@ -90,7 +116,7 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     // Buffer is full: sort & dump to disk
     boolean doSort = data.buffer.size() == data.sortSize;
     doSort |=
-      data.freeMemoryPctLimit > 0 && data.freeMemoryPct < data.freeMemoryPctLimit
+      data.memoryReservation == null && data.freeMemoryPctLimit > 0 && data.freeMemoryPct < data.freeMemoryPctLimit
         && data.buffer.size() >= data.minSortSize;
     if ( log.isDebug() ) {
       this.logDebug( BaseMessages.getString( PKG, "SortRows.Debug.StartDumpToDisk", data.freeMemoryPct, data.buffer
@@ -114,23 +140,11 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     quickSort( data.buffer );
 
     // Then write them to disk...
-    DataOutputStream dos;
-    GZIPOutputStream gzos;
-    int p;
-
     try {
       FileObject fileObject =
         HopVfs.createTempFile( meta.getPrefix(), ".tmp", resolve( meta.getDirectory() ));
 
       data.files.add( fileObject ); // Remember the files!
-      OutputStream outputStream = HopVfs.getOutputStream( fileObject, false );
-      if ( data.compressFiles ) {
-        gzos = new GZIPOutputStream( new BufferedOutputStream( outputStream ) );
-        dos = new DataOutputStream( gzos );
-      } else {
-        dos = new DataOutputStream( new BufferedOutputStream( outputStream, 500000 ) );
-        gzos = null;
-      }
 
       // Just write the data, nothing else
       List<Integer> duplicates = new ArrayList<>();
@@ -157,16 +171,23 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
       // How many records do we have left?
       data.bufferSizes.add( data.buffer.size() - duplicates.size() );
 
-      int duplicatesIndex = 0;
-      for ( p = 0; p < data.buffer.size(); p++ ) {
-        boolean skip = false;
-        if ( duplicatesIndex < duplicates.size() && p == duplicates.get( duplicatesIndex ) ) {
-            skip = true;
-            duplicatesIndex++;
-        }
-        if ( !skip ) {
-          data.outputRowMeta.writeData( dos, data.buffer.get( p ) );
+      SortRowsSpillWriter writer =
+        new SortRowsSpillWriter( fileObject, data.outputRowMeta, data.compressionProvider, data.spillBlockSize );
+      try {
+        int duplicatesIndex = 0;
+        for ( int p = 0; p < data.buffer.size(); p++ ) {
+          boolean skip = false;
+          if ( duplicatesIndex < duplicates.size() && p == duplicates.get( duplicatesIndex ) ) {
+              skip = true;
+              duplicatesIndex++;
+          }
+          if ( !skip ) {
+            writer.writeRow( data.buffer.get( p ) );
+          }
         }
+      } finally {
+        // Close temp-file
+        writer.close();
       }
 
       if ( data.sortSize < 0 && data.buffer.size() > data.minSortSize ) {
@@ -182,13 +203,9 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
 
       // Clear the list
       data.buffer.clear();
-
-      // Close temp-file
-      dos.close(); // close data stream
-      if ( gzos != null ) {
-        gzos.close(); // close gzip stream
+      if ( data.memoryReservation != null ) {
+        data.memoryReservation.releaseAll();
       }
-      outputStream.close(); // close file stream
 
       // How much memory do we have left?
       //
@@ -205,24 +222,19 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     data.getBufferIndex = 0;
   }
 
-  private DataInputStream getDataInputStream( GZIPInputStream gzipInputStream ) {
-    DataInputStream result = new DataInputStream( gzipInputStream );
-    data.gzis.add( gzipInputStream );
-    return result;
-  }
-
   // get sorted rows from available files in iterative manner.
   // that means call to this method will continue to return rows
   // till all temp files will not be read to the end.
-  Object[] getBuffer() throws HopValueException {
+  Object[] getBuffer() throws HopException {
     Object[] retval;
 
-    // Open all files at once and read one row from each file...
-    if ( CollectionUtils.isNotEmpty(data.files) && ( data.dis.isEmpty() || data.fis.isEmpty() ) ) {
+    // Open all files at once and set up the merge over them...
+    if ( CollectionUtils.isNotEmpty( data.files ) && data.merger == null ) {
       if ( log.isBasic() ) {
         logBasic( BaseMessages.getString( PKG, "SortRows.Basic.OpeningTempFiles", data.files.size() ) );
       }
 
+      List<TempFileRowSource> sources = new ArrayList<>( data.files.size() );
       try {
         for ( int f = 0; f < data.files.size() && !isStopped(); f++ ) {
           FileObject fileObject = data.files.get( f );
@@ -230,15 +242,9 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
           if ( log.isDetailed() ) {
             logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.OpeningTempFile", filename ) );
           }
-          InputStream fi = HopVfs.getInputStream( fileObject );
-          DataInputStream di;
-          data.fis.add( fi );
-          if ( data.compressFiles ) {
-            di = getDataInputStream( new GZIPInputStream( new BufferedInputStream( fi ) ) );
-          } else {
-            di = new DataInputStream( new BufferedInputStream( fi, 50000 ) );
-          }
-          data.dis.add( di );
+          SortRowsSpillReader reader =
+            new SortRowsSpillReader( fileObject, data.outputRowMeta, data.compressionProvider, data.spillBlockSize );
+          data.spillReaders.add( reader );
 
           // How long is the buffer?
           int buffersize = data.bufferSizes.get( f );
@@ -248,18 +254,13 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
               filename, buffersize ) );
           }
 
-          if ( buffersize > 0 ) {
-            Object[] row = data.outputRowMeta.readData( di );
-            data.rowbuffer.add( row ); // new row from input stream
-            data.tempRows.add( new RowTempFile( row, f ) );
-          }
+          sources.add( new TempFileRowSource( fileObject, reader, buffersize ) );
         }
-
-        // Sort the data row buffer
-        Collections.sort( data.tempRows, data.comparator );
       } catch ( Exception e ) {
         logError( BaseMessages.getString( PKG, "SortRows.Error.ErrorReadingBackTempFiles" ), e );
       }
+
+      data.merger = new LoserTreeRowMerger( data.rowComparator, sources );
     }
 
     if ( data.files.isEmpty() ) {
@@ -272,77 +273,9 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
         retval = null;
       }
     } else {
-      // read from disk processing
-
-      if ( data.rowbuffer.isEmpty() ) {
-        retval = null;
-      } else {
-        // We now have "filenr" rows waiting: which one is the smallest?
-        //
-        if ( log.isRowLevel() ) {
-          for ( int i = 0; i < data.rowbuffer.size() && !isStopped(); i++ ) {
-            Object[] b = data.rowbuffer.get( i );
-            logRowlevel( BaseMessages
-              .getString( PKG, "SortRows.RowLevel.PrintRow", i, data.outputRowMeta.getString( b ) ) );
-          }
-        }
-
-        RowTempFile rowTempFile = data.tempRows.remove( 0 );
-        retval = rowTempFile.row;
-        int smallest = rowTempFile.fileNumber;
-
-        // now get another Row for position smallest
-
-        FileObject file = data.files.get( smallest );
-        DataInputStream di = data.dis.get( smallest );
-        InputStream fi = data.fis.get( smallest );
-
-        try {
-          Object[] row2 = data.outputRowMeta.readData( di );
-          RowTempFile extra = new RowTempFile( row2, smallest );
-
-          int index = Collections.binarySearch( data.tempRows, extra, data.comparator );
-          if ( index < 0 ) {
-            data.tempRows.add( index * ( -1 ) - 1, extra );
-          } else {
-            data.tempRows.add( index, extra );
-          }
-        } catch ( HopFileException fe ) { // empty file or EOF mostly
-          GZIPInputStream gzfi = ( data.compressFiles ) ? data.gzis.get( smallest ) : null;
-          try {
-            di.close();
-            fi.close();
-            if ( gzfi != null ) {
-              gzfi.close();
-            }
-            file.delete();
-          } catch ( IOException e ) {
-            logError( BaseMessages.getString( PKG, "SortRows.Error.UnableToCloseFile", smallest, file.toString() ) );
-            setErrors( 1 );
-            stopAll();
-            return null;
-          }
-
-          data.files.remove( smallest );
-          data.dis.remove( smallest );
-          data.fis.remove( smallest );
-
-          if ( gzfi != null ) {
-            data.gzis.remove( smallest );
-          }
-
-          // Also update all file numbers in in data.tempRows if they are larger
-          // than smallest.
-          //
-          for ( RowTempFile rtf : data.tempRows ) {
-            if ( rtf.fileNumber > smallest ) {
-              rtf.fileNumber--;
-            }
-          }
-        } catch ( SocketTimeoutException e ) {
-          throw new HopValueException( e ); // should never happen on local files
-        }
-      }
+      // read from disk processing: the merger hands us the smallest row over all the temp files
+      //
+      retval = data.merger.getRow();
     }
     return retval;
   }
@@ -393,7 +326,6 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
       // Metadata
       data.outputRowMeta = inputRowMeta.clone();
       meta.getFields( data.outputRowMeta, getTransformName(), null, null, this, metadataProvider );
-      data.comparator = new RowTemapFileComparator( data.outputRowMeta, data.fieldnrs );
 
       for ( int i = 0; i < fieldNames.length; i++ ) {
         data.fieldnrs[ i ] = inputRowMeta.indexOfValue( fieldNames[ i ] );
@@ -526,7 +458,15 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
 
     data.sortSize = Const.toInt( resolve( meta.getSortSize() ), -1 );
     data.freeMemoryPctLimit = Const.toInt( meta.getFreeMemoryLimit(), -1 );
-    if ( data.sortSize <= 0 && data.freeMemoryPctLimit <= 0 ) {
+    long memoryBudget = TransformMemoryManager.toBudgetBytes( resolve( meta.getMemoryBudget() ) );
+    if ( memoryBudget > 0 ) {
+      data.memoryReservation =
+        TransformMemoryManager.getInstance().createReservation( getTransformName() + "." + getCopy(), memoryBudget );
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.MemoryBudget", memoryBudget ) );
+      }
+    }
+    if ( data.sortSize <= 0 && data.freeMemoryPctLimit <= 0 && data.memoryReservation == null ) {
       // Prefer the memory limit as it should never fail
       //
       data.freeMemoryPctLimit = 25;
@@ -536,13 +476,20 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     //
     data.buffer = new ArrayList<>( 5000 );
 
-    // Buffer for reading from disk
-    //
-    data.rowbuffer = new ArrayList<>( 5000 );
-
     data.compressFiles = getVariableBoolean( meta.getCompressFilesVariable(), meta.getCompressFiles() );
-
-    data.tempRows = new ArrayList<>();
+    if ( data.compressFiles ) {
+      String compressionType = Const.NVL( resolve( meta.getCompressionType() ), SortRowsMeta.DEFAULT_COMPRESSION_TYPE );
+      data.compressionProvider =
+        CompressionProviderFactory.getInstance().getCompressionProviderByName( compressionType );
+      if ( data.compressionProvider == null || !data.compressionProvider.supportsInput()
+        || !data.compressionProvider.supportsOutput() ) {
+        logError( BaseMessages.getString( PKG, "SortRows.Error.CompressionTypeNotSupported", compressionType ) );
+        return false;
+      }
+    } else {
+      data.compressionProvider = null;
+    }
+    data.spillBlockSize = SortRowsSpillWriter.DEFAULT_BLOCK_SIZE;
 
     data.minSortSize = 5000;
 
@@ -552,6 +499,10 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
   @Override
   public void dispose() {
     clearBuffers();
+    if ( data.memoryReservation != null ) {
+      data.memoryReservation.close();
+      data.memoryReservation = null;
+    }
     super.dispose();
   }
 
@@ -560,18 +511,17 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     // Clean out the sort buffer
     data.buffer.clear();
     data.getBufferIndex = 0;
-    data.rowbuffer.clear();
-
-    // close any open DataInputStream objects
-    if ( CollectionUtils.isNotEmpty(data.dis) ) {
-      for ( DataInputStream dis : data.dis ) {
-        BaseTransform.closeQuietly( dis );
-      }
+    data.merger = null;
+    if ( data.memoryReservation != null ) {
+      data.memoryReservation.releaseAll();
     }
-    // close any open InputStream objects
-    if ( CollectionUtils.isNotEmpty(data.fis) ) {
-      for ( InputStream is : data.fis ) {
-        BaseTransform.closeQuietly( is );
+
+    // close any open temp file readers
+    for ( SortRowsSpillReader reader : data.spillReaders ) {
+      try {
+        reader.close();
+      } catch ( HopException e ) {
+        // Ignore, the file is removed below
       }
     }
     // remove temp files
@@ -585,6 +535,9 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
         logError( e.getLocalizedMessage(), e );
       }
     }
+    data.files.clear();
+    data.spillReaders.clear();
+    data.bufferSizes.clear();
   }
 
   /**
@@ -592,7 +545,21 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
    */
   void quickSort( List<Object[]> elements ) {
     if (  CollectionUtils.isNotEmpty(elements) ) {
-      Collections.sort( elements, data.rowComparator );
+      if ( meta.isParallelSort() && elements.size() >= PARALLEL_SORT_MIN_ROWS ) {
+        // Parallel merge sort on the fork/join pool, the comparator only reads the (native) key values
+        //
+        Object[][] rows = elements.toArray( new Object[ elements.size() ][] );
+        Arrays.parallelSort( rows, data.rowComparator );
+        for ( int i = 0; i < rows.length; i++ ) {
+          elements.set( i, rows[ i ] );
+        }
+        if ( log.isDetailed() ) {
+          logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.ParallelSort", rows.length,
+            ForkJoinPool.getCommonPoolParallelism() ) );
+        }
+      } else {
+        Collections.sort( elements, data.rowComparator );
+      }
 
       long nrConversions = 0L;
       for ( IValueMeta valueMeta : data.outputRowMeta.getValueMetaList() ) {
@@ -653,15 +620,15 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     }
   }
 
-  private class RowTemapFileComparator extends SortRowsComparator implements Comparator<RowTempFile> {
-    RowTemapFileComparator( IRowMeta rowMeta, int[] fieldNrs ) {
+  private class RowObjectArrayComparator extends SortRowsComparator implements Comparator<Object[]> {
+    RowObjectArrayComparator( IRowMeta rowMeta, int[] fieldNrs ) {
       super( rowMeta, fieldNrs );
     }
 
     @Override
-    public int compare( RowTempFile o1, RowTempFile o2 ) {
+    public int compare( Object[] o1, Object[] o2 ) {
       try {
-        return rowMeta.compare( o1.row, o2.row, fieldNrs );
+        return rowMeta.compare( o1, o2, fieldNrs );
       } catch ( HopValueException e ) {
         logError( "Error comparing rows: " + e.toString() );
         return 0;
@@ -669,18 +636,44 @@ public class SortRows extends BaseTransform<SortRowsMeta, SortRowsData> implemen
     }
   }
 
-  private class RowObjectArrayComparator extends SortRowsComparator implements Comparator<Object[]> {
-    RowObjectArrayComparator( IRowMeta rowMeta, int[] fieldNrs ) {
-      super( rowMeta, fieldNrs );
+  /**
+   * Reads back the rows of one sorted temp file and cleans up the file once all rows are read.
+   */
+  private class TempFileRowSource implements IRowMergeSource {
+    private final FileObject fileObject;
+    private final SortRowsSpillReader reader;
+    private int rowsLeft;
+
+    TempFileRowSource( FileObject fileObject, SortRowsSpillReader reader, int nrRows ) {
+      this.fileObject = fileObject;
+      this.reader = reader;
+      this.rowsLeft = nrRows;
     }
 
     @Override
-    public int compare( Object[] o1, Object[] o2 ) {
+    public Object[] getRow() throws HopException {
+      if ( rowsLeft <= 0 ) {
+        return null;
+      }
+      Object[] row = reader.readRow();
+      if ( row == null ) {
+        throw new HopException( "Temp file " + fileObject + " ended after " + reader.getNrRowsRead() + " rows, "
+          + rowsLeft + " more rows were expected" );
+      }
+      rowsLeft--;
+      if ( rowsLeft == 0 ) {
+        close();
+      }
+      return row;
+    }
+
+    private void close() throws HopException {
       try {
-        return rowMeta.compare( o1, o2, fieldNrs );
-      } catch ( HopValueException e ) {
-        logError( "Error comparing rows: " + e.toString() );
-        return 0;
+        reader.close();
+        fileObject.delete();
+      } catch ( Exception e ) {
+        throw new HopException( BaseMessages.getString( PKG, "SortRows.Error.UnableToCloseFile",
+          data.files.indexOf( fileObject ), fileObject.toString() ), e );
       }
     }
   }
@@ -18,16 +18,16 @@
 package org.apache.hop.pipeline.transforms.sort;
 
 import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.compress.ICompressionProvider;
+import org.apache.hop.core.memory.MemoryReservation;
 import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.LoserTreeRowMerger;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
 
-import java.io.DataInputStream;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
 
 /**
  * @author Matt
@@ -38,24 +38,23 @@ public class SortRowsData extends BaseTransformData implements ITransformData {
   public List<Object[]> buffer;
   public int getBufferIndex;
 
-  public List<InputStream> fis;
-  public List<GZIPInputStream> gzis;
-  public List<DataInputStream> dis;
-  public List<Object[]> rowbuffer;
+  public List<SortRowsSpillReader> spillReaders;
   public List<Integer> bufferSizes;
 
-  // To store rows and file references
-  public List<RowTempFile> tempRows;
+  // Merges the sorted temp files
+  public LoserTreeRowMerger merger;
 
   public int[] fieldnrs; // the corresponding field numbers;
   public FileObject fil;
   public IRowMeta outputRowMeta;
   public int sortSize;
   public boolean compressFiles;
+  public ICompressionProvider compressionProvider;
+  public int spillBlockSize;
+  public MemoryReservation memoryReservation;
   public int[] convertKeysToNative;
   public boolean convertAnyKeysToNative;
 
-  Comparator<RowTempFile> comparator;
   Comparator<Object[]> rowComparator;
 
   public int freeCounter;
@@ -75,9 +74,7 @@ public class SortRowsData extends BaseTransformData implements ITransformData {
     super();
 
     files = new ArrayList<>();
-    fis = new ArrayList<>();
-    gzis = new ArrayList<>();
-    dis = new ArrayList<>();
+    spillReaders = new ArrayList<>();
     bufferSizes = new ArrayList<>();
 
     previous = null; // Heroic
@@ -19,6 +19,7 @@ package org.apache.hop.pipeline.transforms.sort;
 
 
 import org.apache.hop.core.Const;
+import org.apache.hop.core.compress.CompressionProviderFactory;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.core.util.Utils;
@@ -37,6 +38,7 @@ import org.apache.hop.ui.pipeline.transform.BaseTransformDialog;
 import org.apache.hop.ui.pipeline.transform.ComponentSelectionListener;
 import org.apache.hop.ui.pipeline.transform.ITableItemInsertListener;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.CCombo;
 import org.eclipse.swt.events.*;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.layout.FormAttachment;
@@ -59,10 +61,16 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
 
   private TextVar wFreeMemory;
 
+  private TextVar wMemoryBudget;
+
   private CheckBoxVar wCompress;
 
+  private CCombo wCompressionType;
+
   private Button wUniqueRows;
 
+  private Button wParallelSort;
+
   private TableView wFields;
 
   private final SortRowsMeta input;
@@ -205,6 +213,26 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     fdFreeMemory.right = new FormAttachment( 100, 0 );
     wFreeMemory.setLayoutData(fdFreeMemory);
 
+    // The memory budget of the sort buffer
+    Label wlMemoryBudget = new Label(shell, SWT.RIGHT);
+    wlMemoryBudget.setText( BaseMessages.getString( PKG, "SortRowsDialog.MemoryBudget.Label" ) );
+    wlMemoryBudget.setToolTipText( BaseMessages.getString( PKG, "SortRowsDialog.MemoryBudget.ToolTip" ) );
+    props.setLook(wlMemoryBudget);
+    FormData fdlMemoryBudget = new FormData();
+    fdlMemoryBudget.left = new FormAttachment( 0, 0 );
+    fdlMemoryBudget.right = new FormAttachment( middle, -margin );
+    fdlMemoryBudget.top = new FormAttachment( wFreeMemory, margin * 2 );
+    wlMemoryBudget.setLayoutData(fdlMemoryBudget);
+    wMemoryBudget = new TextVar( variables, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    wMemoryBudget.setToolTipText( BaseMessages.getString( PKG, "SortRowsDialog.MemoryBudget.ToolTip" ) );
+    props.setLook( wMemoryBudget );
+    wMemoryBudget.addModifyListener( lsMod );
+    FormData fdMemoryBudget = new FormData();
+    fdMemoryBudget.left = new FormAttachment( middle, 0 );
+    fdMemoryBudget.top = new FormAttachment( wFreeMemory, margin * 2 );
+    fdMemoryBudget.right = new FormAttachment( 100, 0 );
+    wMemoryBudget.setLayoutData(fdMemoryBudget);
+
     // Using compression for temporary files?
     Label wlCompress = new Label(shell, SWT.RIGHT);
     wlCompress.setText( BaseMessages.getString( PKG, "SortRowsDialog.Compress.Label" ) );
@@ -212,7 +240,7 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     FormData fdlCompress = new FormData();
     fdlCompress.left = new FormAttachment( 0, 0 );
     fdlCompress.right = new FormAttachment( middle, -margin );
-    fdlCompress.top = new FormAttachment( wFreeMemory, margin * 2 );
+    fdlCompress.top = new FormAttachment( wMemoryBudget, margin * 2 );
     wlCompress.setLayoutData(fdlCompress);
     wCompress = new CheckBoxVar( variables, shell, SWT.CHECK, "" );
     props.setLook( wCompress );
@@ -229,14 +257,33 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
       }
     } );
 
-    // Using compression for temporary files?
+    // Which compression to use for temporary files?
+    Label wlCompressionType = new Label(shell, SWT.RIGHT);
+    wlCompressionType.setText( BaseMessages.getString( PKG, "SortRowsDialog.CompressionType.Label" ) );
+    props.setLook(wlCompressionType);
+    FormData fdlCompressionType = new FormData();
+    fdlCompressionType.left = new FormAttachment( 0, 0 );
+    fdlCompressionType.right = new FormAttachment( middle, -margin );
+    fdlCompressionType.top = new FormAttachment( wCompress, margin );
+    wlCompressionType.setLayoutData(fdlCompressionType);
+    wCompressionType = new CCombo( shell, SWT.BORDER | SWT.READ_ONLY );
+    wCompressionType.setItems( CompressionProviderFactory.getInstance().getCompressionProviderNames() );
+    props.setLook( wCompressionType );
+    wCompressionType.addModifyListener( lsMod );
+    FormData fdCompressionType = new FormData();
+    fdCompressionType.left = new FormAttachment( middle, 0 );
+    fdCompressionType.top = new FormAttachment( wCompress, margin );
+    fdCompressionType.right = new FormAttachment( 100, 0 );
+    wCompressionType.setLayoutData(fdCompressionType);
+
+    // Only pass unique rows?
     Label wlUniqueRows = new Label(shell, SWT.RIGHT);
     wlUniqueRows.setText( BaseMessages.getString( PKG, "SortRowsDialog.UniqueRows.Label" ) );
     props.setLook(wlUniqueRows);
     FormData fdlUniqueRows = new FormData();
     fdlUniqueRows.left = new FormAttachment( 0, 0 );
     fdlUniqueRows.right = new FormAttachment( middle, -margin );
-    fdlUniqueRows.top = new FormAttachment( wCompress, margin );
+    fdlUniqueRows.top = new FormAttachment( wCompressionType, margin );
     wlUniqueRows.setLayoutData(fdlUniqueRows);
     wUniqueRows = new Button( shell, SWT.CHECK );
     wUniqueRows.setToolTipText( BaseMessages.getString( PKG, "SortRowsDialog.UniqueRows.Tooltip" ) );
@@ -248,6 +295,25 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     wUniqueRows.setLayoutData(fdUniqueRows);
     wUniqueRows.addSelectionListener( new ComponentSelectionListener( input ) );
 
+    // Sort the buffer using all available cores?
+    Label wlParallelSort = new Label(shell, SWT.RIGHT);
+    wlParallelSort.setText( BaseMessages.getString( PKG, "SortRowsDialog.ParallelSort.Label" ) );
+    props.setLook(wlParallelSort);
+    FormData fdlParallelSort = new FormData();
+    fdlParallelSort.left = new FormAttachment( 0, 0 );
+    fdlParallelSort.right = new FormAttachment( middle, -margin );
+    fdlParallelSort.top = new FormAttachment( wUniqueRows, margin );
+    wlParallelSort.setLayoutData(fdlParallelSort);
+    wParallelSort = new Button( shell, SWT.CHECK );
+    wParallelSort.setToolTipText( BaseMessages.getString( PKG, "SortRowsDialog.ParallelSort.Tooltip" ) );
+    props.setLook( wParallelSort );
+    FormData fdParallelSort = new FormData();
+    fdParallelSort.left = new FormAttachment( middle, 0 );
+    fdParallelSort.top = new FormAttachment( wlParallelSort, 0, SWT.CENTER );
+    fdParallelSort.right = new FormAttachment( 100, 0 );
+    wParallelSort.setLayoutData(fdParallelSort);
+    wParallelSort.addSelectionListener( new ComponentSelectionListener( input ) );
+
     wOk = new Button( shell, SWT.PUSH );
     wOk.setText( BaseMessages.getString( PKG, "System.Button.OK" ) );
     wOk.addListener( SWT.Selection, e -> ok() );
@@ -265,7 +331,7 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     props.setLook(wlFields);
     FormData fdlFields = new FormData();
     fdlFields.left = new FormAttachment( 0, 0 );
-    fdlFields.top = new FormAttachment( wUniqueRows, margin );
+    fdlFields.top = new FormAttachment( wParallelSort, margin );
     wlFields.setLayoutData(fdlFields);
 
     final int FieldsRows = input.getFieldName().length;
@@ -409,9 +475,12 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     }
     wSortSize.setText( Const.NVL( input.getSortSize(), "" ) );
     wFreeMemory.setText( Const.NVL( input.getFreeMemoryLimit(), "" ) );
+    wMemoryBudget.setText( Const.NVL( input.getMemoryBudget(), "" ) );
     wCompress.setSelection( input.getCompressFiles() );
     wCompress.setVariableName( input.getCompressFilesVariable() );
+    wCompressionType.setText( Const.NVL( input.getCompressionType(), SortRowsMeta.DEFAULT_COMPRESSION_TYPE ) );
     wUniqueRows.setSelection( input.isOnlyPassingUniqueRows() );
+    wParallelSort.setSelection( input.isParallelSort() );
 
     Table table = wFields.table;
     if ( input.getFieldName().length > 0 ) {
@@ -458,10 +527,13 @@ public class SortRowsDialog extends BaseTransformDialog implements ITransformDia
     input.setDirectory( wSortDir.getText() );
     input.setSortSize( wSortSize.getText() );
     input.setFreeMemoryLimit( wFreeMemory.getText() );
+    input.setMemoryBudget( wMemoryBudget.getText() );
     log.logDetailed( "Sort rows", "Compression is set to " + wCompress.getSelection() );
     input.setCompressFiles( wCompress.getSelection() );
     input.setCompressFilesVariable( wCompress.getVariableName() );
+    input.setCompressionType( wCompressionType.getText() );
     input.setOnlyPassingUniqueRows( wUniqueRows.getSelection() );
+    input.setParallelSort( wParallelSort.getSelection() );
 
     // Table table = wFields.table;
     int nrFields = wFields.nrNonEmpty();
@@ -66,6 +66,9 @@ public class SortRowsMeta extends BaseTransformMeta
   private static final long serialVersionUID = -9075883720765645655L;
   private static final Class<?> PKG = SortRowsMeta.class; // For Translator
 
+  /** The compression provider used for temporary files when no type is specified */
+  public static final String DEFAULT_COMPRESSION_TYPE = "GZip";
+
   /** order by which fields? */
   @Injection(name = "NAME", group = "FIELDS")
   private String[] fieldName;
@@ -108,10 +111,21 @@ public class SortRowsMeta extends BaseTransformMeta
   @Injection(name = "FREE_MEMORY_TRESHOLD")
   private String freeMemoryLimit;
 
+  /**
+   * The maximum amount of memory the sort buffer can use, in bytes or with a unit like 512MB. Empty
+   * means that the sort size or the free memory limit are used.
+   */
+  @Injection(name = "SORT_MEMORY_BUDGET")
+  private String memoryBudget;
+
   /** only pass unique rows to the output stream(s) */
   @Injection(name = "ONLY_PASS_UNIQUE_ROWS")
   private boolean onlyPassingUniqueRows;
 
+  /** sort the in-memory buffer with all available cores */
+  @Injection(name = "PARALLEL_SORT")
+  private boolean parallelSort;
+
   /**
    * Compress files: if set to true, temporary files are compressed, thus reducing I/O at the cost
    * of slightly higher CPU usage
@@ -122,6 +136,10 @@ public class SortRowsMeta extends BaseTransformMeta
   /** The variable to use to set the compressFiles option boolean */
   private String compressFilesVariable;
 
+  /** The name of the compression provider plugin to use when compressing temporary files */
+  @Injection(name = "COMPRESSION_TYPE")
+  private String compressionType;
+
   public SortRowsMeta() {
     super(); // allocate BaseTransformMeta
   }
@@ -215,10 +233,13 @@ public class SortRowsMeta extends BaseTransformMeta
       prefix = XmlHandler.getTagValue(transformNode, "prefix");
       sortSize = XmlHandler.getTagValue(transformNode, "sort_size");
       freeMemoryLimit = XmlHandler.getTagValue(transformNode, "free_memory");
+      memoryBudget = XmlHandler.getTagValue(transformNode, "memory_budget");
       compressFiles = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "compress"));
       compressFilesVariable = XmlHandler.getTagValue(transformNode, "compress_variable");
+      compressionType = XmlHandler.getTagValue(transformNode, "compression_type");
       onlyPassingUniqueRows =
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "unique_rows"));
+      parallelSort = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "parallel_sort"));
 
       Node fields = XmlHandler.getSubNode(transformNode, "fields");
       int nrFields = XmlHandler.countNodes(fields, "field");
@@ -253,9 +274,12 @@ public class SortRowsMeta extends BaseTransformMeta
     prefix = "out";
     sortSize = "1000000";
     freeMemoryLimit = null;
+    memoryBudget = null;
     compressFiles = false;
     compressFilesVariable = null;
+    compressionType = DEFAULT_COMPRESSION_TYPE;
     onlyPassingUniqueRows = false;
+    parallelSort = false;
 
     int nrFields = 0;
 
@@ -277,11 +301,14 @@ public class SortRowsMeta extends BaseTransformMeta
     retval.append("      ").append(XmlHandler.addTagValue("prefix", prefix));
     retval.append("      ").append(XmlHandler.addTagValue("sort_size", sortSize));
     retval.append("      ").append(XmlHandler.addTagValue("free_memory", freeMemoryLimit));
+    retval.append("      ").append(XmlHandler.addTagValue("memory_budget", memoryBudget));
     retval.append("      ").append(XmlHandler.addTagValue("compress", compressFiles));
     retval
         .append("      ")
         .append(XmlHandler.addTagValue("compress_variable", compressFilesVariable));
+    retval.append("      ").append(XmlHandler.addTagValue("compression_type", compressionType));
     retval.append("      ").append(XmlHandler.addTagValue("unique_rows", onlyPassingUniqueRows));
+    retval.append("      ").append(XmlHandler.addTagValue("parallel_sort", parallelSort));
 
     retval.append("    <fields>").append(Const.CR);
     for (int i = 0; i < fieldName.length; i++) {
@@ -515,6 +542,16 @@ public class SortRowsMeta extends BaseTransformMeta
     this.onlyPassingUniqueRows = onlyPassingUniqueRows;
   }
 
+  /** @return true if the in-memory buffer is sorted with all available cores */
+  public boolean isParallelSort() {
+    return parallelSort;
+  }
+
+  /** @param parallelSort true to sort the in-memory buffer with all available cores */
+  public void setParallelSort(boolean parallelSort) {
+    this.parallelSort = parallelSort;
+  }
+
   /** @return the compressFilesVariable */
   public String getCompressFilesVariable() {
     return compressFilesVariable;
@@ -525,6 +562,16 @@ public class SortRowsMeta extends BaseTransformMeta
     this.compressFilesVariable = compressFilesVariable;
   }
 
+  /** @return the name of the compression provider used for temporary files */
+  public String getCompressionType() {
+    return compressionType;
+  }
+
+  /** @param compressionType the name of the compression provider used for temporary files */
+  public void setCompressionType(String compressionType) {
+    this.compressionType = compressionType;
+  }
+
   /** @return the caseSensitive */
   public boolean[] getCaseSensitive() {
     return caseSensitive;
@@ -565,6 +612,16 @@ public class SortRowsMeta extends BaseTransformMeta
     this.freeMemoryLimit = freeMemoryLimit;
   }
 
+  /** @return the memory budget of the sort buffer, in bytes or with a unit like 512MB */
+  public String getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  /** @param memoryBudget the memory budget of the sort buffer, in bytes or with a unit like 512MB */
+  public void setMemoryBudget(String memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
+
   /** @return the preSortedField */
   public boolean[] getPreSortedField() {
     return preSortedField;
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.compress.CompressionInputStream;
+import org.apache.hop.core.compress.ICompressionProvider;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.vfs.HopVfs;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads back a temp file written by the SortRowsSpillWriter. Every block is read in one go into a large buffer which
+ * is re-used for the next block, rows are then de-serialized from memory.
+ * <p>
+ * The number of rows read is checked against the number of rows the writer stored at the end of the file. A file
+ * which ends before that, in a block header or in the middle of a block, is reported as truncated.
+ */
+public class SortRowsSpillReader implements AutoCloseable {
+
+  private final FileObject fileObject;
+  private final IRowMeta rowMeta;
+
+  private final InputStream fileInputStream;
+  private final InputStream compressedInputStream;
+  private final DataInputStream inputStream;
+
+  private final BlockInputStream block;
+  private final DataInputStream blockInputStream;
+  private int blockRowsLeft;
+  private long nrRowsRead;
+
+  private boolean endOfFile;
+
+  /**
+   * @param fileObject          The temp file to read from
+   * @param rowMeta             The layout of the rows
+   * @param compressionProvider The compression used to write the file or null if it's not compressed
+   * @param blockSize           The block size used to write the file, used as initial buffer size
+   * @throws HopException in case the file couldn't be opened for reading
+   */
+  public SortRowsSpillReader( FileObject fileObject, IRowMeta rowMeta, ICompressionProvider compressionProvider,
+                              int blockSize ) throws HopException {
+    this.fileObject = fileObject;
+    this.rowMeta = rowMeta;
+    try {
+      fileInputStream = HopVfs.getInputStream( fileObject );
+      if ( compressionProvider != null ) {
+        CompressionInputStream cis =
+          compressionProvider.createInputStream( new BufferedInputStream( fileInputStream, blockSize ) );
+        cis.nextEntry();
+        compressedInputStream = cis;
+      } else {
+        compressedInputStream = fileInputStream;
+      }
+      inputStream = new DataInputStream( new BufferedInputStream( compressedInputStream, blockSize ) );
+    } catch ( IOException e ) {
+      throw new HopException( "Unable to open temp file " + fileObject + " for reading", e );
+    }
+    block = new BlockInputStream( blockSize + blockSize / 4 );
+    blockInputStream = new DataInputStream( block );
+    blockRowsLeft = 0;
+    nrRowsRead = 0L;
+    endOfFile = false;
+  }
+
+  /**
+   * @return the next row in the file or null if all rows were read.
+   * @throws HopException in case of a de-serialization or I/O error
+   */
+  public Object[] readRow() throws HopException {
+    if ( blockRowsLeft == 0 ) {
+      if ( endOfFile || !readBlock() ) {
+        return null;
+      }
+    }
+    try {
+      Object[] row = rowMeta.readData( blockInputStream );
+      blockRowsLeft--;
+      nrRowsRead++;
+      return row;
+    } catch ( Exception e ) {
+      throw new HopException( "Error reading row from temp file block", e );
+    }
+  }
+
+  private boolean readBlock() throws HopException {
+    try {
+      int nrRows = inputStream.readInt();
+      if ( nrRows <= 0 ) {
+        // The end of file marker is followed by the total number of rows in the file
+        //
+        long nrRowsWritten = inputStream.readLong();
+        if ( nrRowsWritten != nrRowsRead ) {
+          throw new HopException( "Temp file " + fileObject + " holds " + nrRowsRead + " rows, expected "
+            + nrRowsWritten );
+        }
+        endOfFile = true;
+        return false;
+      }
+      int nrBytes = inputStream.readInt();
+      block.fill( inputStream, nrBytes );
+      blockRowsLeft = nrRows;
+      return true;
+    } catch ( EOFException e ) {
+      throw new HopException( "Temp file " + fileObject + " is truncated after " + nrRowsRead + " rows", e );
+    } catch ( IOException e ) {
+      throw new HopException( "Error reading block from temp file", e );
+    }
+  }
+
+  /**
+   * Gets nrRowsRead
+   *
+   * @return the number of rows read so far
+   */
+  public long getNrRowsRead() {
+    return nrRowsRead;
+  }
+
+  @Override
+  public void close() throws HopException {
+    try {
+      inputStream.close();
+      compressedInputStream.close();
+      fileInputStream.close();
+    } catch ( IOException e ) {
+      throw new HopException( "Error closing temp file", e );
+    }
+  }
+
+  /**
+   * A byte array input stream which can be re-filled with the next block, growing the buffer only when needed.
+   */
+  private static class BlockInputStream extends ByteArrayInputStream {
+    BlockInputStream( int size ) {
+      super( new byte[ size ] );
+      count = 0;
+    }
+
+    void fill( DataInputStream in, int nrBytes ) throws IOException {
+      if ( buf.length < nrBytes ) {
+        buf = new byte[ nrBytes ];
+      }
+      in.readFully( buf, 0, nrBytes );
+      pos = 0;
+      mark = 0;
+      count = nrBytes;
+    }
+  }
+}
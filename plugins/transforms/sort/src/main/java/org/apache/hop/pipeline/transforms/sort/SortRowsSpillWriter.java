@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.compress.CompressionOutputStream;
+import org.apache.hop.core.compress.ICompressionProvider;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.vfs.HopVfs;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a sorted run of rows to a temp file as a series of length-prefixed blocks:<br>
+ * [number of rows][number of bytes][rows serialized with IRowMeta.writeData()]<br>
+ * A block with 0 rows marks the end of the file and is followed by the total number of rows in the file, so that the
+ * reader can detect a truncated file. The rows are stored one after the other, not per column. The blocks are optionally passed through the output stream of a
+ * compression provider plugin (GZip, Snappy, ...) which compresses them as a whole.
+ */
+public class SortRowsSpillWriter implements AutoCloseable {
+
+  public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+  private final IRowMeta rowMeta;
+  private final int blockSize;
+
+  private final OutputStream fileOutputStream;
+  private final OutputStream compressedOutputStream;
+  private final DataOutputStream outputStream;
+
+  private final ByteArrayOutputStream block;
+  private final DataOutputStream blockOutputStream;
+  private int blockRows;
+
+  private long nrRows;
+
+  /**
+   * @param fileObject          The temp file to write to
+   * @param rowMeta             The layout of the rows
+   * @param compressionProvider The compression to apply or null if the file shouldn't be compressed
+   * @param blockSize           The approximate number of bytes of serialized rows per block
+   * @throws HopException in case the file couldn't be opened for writing
+   */
+  public SortRowsSpillWriter( FileObject fileObject, IRowMeta rowMeta, ICompressionProvider compressionProvider,
+                              int blockSize ) throws HopException {
+    this.rowMeta = rowMeta;
+    this.blockSize = blockSize;
+    try {
+      fileOutputStream = HopVfs.getOutputStream( fileObject, false );
+      if ( compressionProvider != null ) {
+        CompressionOutputStream cos = compressionProvider.createOutputStream( fileOutputStream );
+        cos.addEntry( fileObject.getName().getBaseName(), null );
+        compressedOutputStream = cos;
+      } else {
+        compressedOutputStream = fileOutputStream;
+      }
+      outputStream = new DataOutputStream( new BufferedOutputStream( compressedOutputStream, blockSize ) );
+    } catch ( IOException e ) {
+      throw new HopException( "Unable to open temp file " + fileObject + " for writing", e );
+    }
+    block = new ByteArrayOutputStream( blockSize + blockSize / 4 );
+    blockOutputStream = new DataOutputStream( block );
+    blockRows = 0;
+    nrRows = 0L;
+  }
+
+  /**
+   * Add a row to the current block, writing the block to the file once it's full.
+   *
+   * @param row the row to write
+   * @throws HopException in case of a serialization or I/O error
+   */
+  public void writeRow( Object[] row ) throws HopException {
+    rowMeta.writeData( blockOutputStream, row );
+    blockRows++;
+    nrRows++;
+    if ( block.size() >= blockSize ) {
+      writeBlock();
+    }
+  }
+
+  private void writeBlock() throws HopException {
+    try {
+      outputStream.writeInt( blockRows );
+      outputStream.writeInt( block.size() );
+      block.writeTo( outputStream );
+    } catch ( IOException e ) {
+      throw new HopException( "Error writing block of " + blockRows + " rows to temp file", e );
+    }
+    block.reset();
+    blockRows = 0;
+  }
+
+  /**
+   * Write the last block and the end marker and close the file.
+   */
+  @Override
+  public void close() throws HopException {
+    try {
+      if ( blockRows > 0 ) {
+        writeBlock();
+      }
+      outputStream.writeInt( 0 ); // end of file marker
+      outputStream.writeLong( nrRows );
+      outputStream.close();
+    } catch ( IOException e ) {
+      throw new HopException( "Error closing temp file", e );
+    } finally {
+      try {
+        compressedOutputStream.close();
+        fileOutputStream.close();
+      } catch ( IOException e ) {
+        // Already closed through the data output stream
+      }
+    }
+  }
+
+  /**
+   * Gets nrRows
+   *
+   * @return the number of rows written so far
+   */
+  public long getNrRows() {
+    return nrRows;
+  }
+}
@@ -37,8 +37,11 @@ public class SortRowsMetaInjectionTest extends BaseMetadataInjectionTest<SortRow
     check( "SORT_FILE_PREFIX", () -> meta.getPrefix() );
     check( "SORT_SIZE_ROWS", () -> meta.getSortSize() );
     check( "FREE_MEMORY_TRESHOLD", () -> meta.getFreeMemoryLimit() );
+    check( "SORT_MEMORY_BUDGET", () -> meta.getMemoryBudget() );
     check( "ONLY_PASS_UNIQUE_ROWS", () -> meta.isOnlyPassingUniqueRows() );
+    check( "PARALLEL_SORT", () -> meta.isParallelSort() );
     check( "COMPRESS_TEMP_FILES", () -> meta.getCompressFiles() );
+    check( "COMPRESSION_TYPE", () -> meta.getCompressionType() );
     check( "NAME", () -> meta.getFieldName()[ 0 ] );
     check( "SORT_ASCENDING", () -> meta.getAscending()[ 0 ] );
     check( "IGNORE_CASE", () -> meta.getCaseSensitive()[ 0 ] );
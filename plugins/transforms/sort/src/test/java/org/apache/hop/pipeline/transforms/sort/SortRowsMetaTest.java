@@ -39,8 +39,8 @@ public class SortRowsMetaTest {
    */
   @Test
   public void testRoundTrips() throws HopException {
-    List<String> attributes = Arrays.asList( "Directory", "Prefix", "SortSize", "FreeMemoryLimit", "CompressFiles",
-      "CompressFilesVariable", "OnlyPassingUniqueRows", "FieldName", "Ascending", "CaseSensitive", "CollatorEnabled",
+    List<String> attributes = Arrays.asList( "Directory", "Prefix", "SortSize", "FreeMemoryLimit", "MemoryBudget", "CompressFiles",
+      "CompressFilesVariable", "CompressionType", "OnlyPassingUniqueRows", "ParallelSort", "FieldName", "Ascending", "CaseSensitive", "CollatorEnabled",
       "CollatorStrength", "PreSortedField" );
 
     Map<String, String> getterMap = new HashMap<>();
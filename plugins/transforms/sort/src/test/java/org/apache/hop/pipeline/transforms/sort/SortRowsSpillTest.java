@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.hop.core.compress.ICompressionProvider;
+import org.apache.hop.core.compress.gzip.GzipCompressionProvider;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.core.row.value.ValueMetaString;
+import org.apache.hop.core.vfs.HopVfs;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class SortRowsSpillTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private IRowMeta createRowMeta() {
+    IRowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    return rowMeta;
+  }
+
+  private Object[] createRow( long i ) {
+    return new Object[] { i % 7 == 0 ? null : "name" + i, i };
+  }
+
+  private FileObject writeFile( File file, int nrRows, ICompressionProvider compressionProvider, int blockSize )
+    throws Exception {
+    FileObject fileObject = HopVfs.getFileObject( file.getAbsolutePath() );
+    SortRowsSpillWriter writer = new SortRowsSpillWriter( fileObject, createRowMeta(), compressionProvider, blockSize );
+    try {
+      for ( long i = 0; i < nrRows; i++ ) {
+        writer.writeRow( createRow( i ) );
+      }
+    } finally {
+      writer.close();
+    }
+    assertEquals( nrRows, writer.getNrRows() );
+    return fileObject;
+  }
+
+  private void readFile( FileObject fileObject, int nrRows, ICompressionProvider compressionProvider, int blockSize )
+    throws Exception {
+    SortRowsSpillReader reader = new SortRowsSpillReader( fileObject, createRowMeta(), compressionProvider, blockSize );
+    try {
+      for ( long i = 0; i < nrRows; i++ ) {
+        assertArrayEquals( createRow( i ), reader.readRow() );
+      }
+      assertNull( reader.readRow() );
+      assertNull( reader.readRow() );
+      assertEquals( nrRows, reader.getNrRowsRead() );
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    FileObject fileObject = writeFile( folder.newFile(), 100, null, SortRowsSpillWriter.DEFAULT_BLOCK_SIZE );
+    readFile( fileObject, 100, null, SortRowsSpillWriter.DEFAULT_BLOCK_SIZE );
+  }
+
+  @Test
+  public void testEmptyFile() throws Exception {
+    FileObject fileObject = writeFile( folder.newFile(), 0, null, SortRowsSpillWriter.DEFAULT_BLOCK_SIZE );
+    readFile( fileObject, 0, null, SortRowsSpillWriter.DEFAULT_BLOCK_SIZE );
+  }
+
+  @Test
+  public void testSeveralBlocks() throws Exception {
+    // Blocks of about 1KB hold a few dozen rows, the rows end up in many blocks
+    //
+    FileObject fileObject = writeFile( folder.newFile(), 5000, null, 1024 );
+    readFile( fileObject, 5000, null, 1024 );
+  }
+
+  @Test
+  public void testSeveralCompressedBlocks() throws Exception {
+    FileObject fileObject = writeFile( folder.newFile(), 5000, new GzipCompressionProvider(), 1024 );
+    readFile( fileObject, 5000, new GzipCompressionProvider(), 1024 );
+  }
+
+  @Test
+  public void testTruncatedFile() throws Exception {
+    File file = folder.newFile();
+    FileObject fileObject = writeFile( file, 5000, null, 1024 );
+
+    // Cut the file in the middle of a block
+    //
+    try ( RandomAccessFile randomAccessFile = new RandomAccessFile( file, "rw" ) ) {
+      randomAccessFile.setLength( randomAccessFile.length() / 2 + 3 );
+    }
+    assertTruncated( fileObject, 5000 );
+  }
+
+  @Test
+  public void testMissingEndOfFileMarker() throws Exception {
+    File file = folder.newFile();
+    FileObject fileObject = writeFile( file, 5000, null, 1024 );
+
+    // Only the end of file marker and the number of rows are missing, all blocks are complete
+    //
+    try ( RandomAccessFile randomAccessFile = new RandomAccessFile( file, "rw" ) ) {
+      randomAccessFile.setLength( randomAccessFile.length() - 12 );
+    }
+
+    SortRowsSpillReader reader = new SortRowsSpillReader( fileObject, createRowMeta(), null, 1024 );
+    try {
+      for ( long i = 0; i < 5000; i++ ) {
+        assertArrayEquals( createRow( i ), reader.readRow() );
+      }
+      reader.readRow();
+      fail( "The missing end of the file should have been detected" );
+    } catch ( HopException e ) {
+      // expected
+    } finally {
+      reader.close();
+    }
+  }
+
+  private void assertTruncated( FileObject fileObject, int nrRows ) throws Exception {
+    SortRowsSpillReader reader = new SortRowsSpillReader( fileObject, createRowMeta(), null, 1024 );
+    try {
+      for ( int i = 0; i < nrRows; i++ ) {
+        if ( reader.readRow() == null ) {
+          fail( "The truncated file ended after " + i + " rows without an error" );
+        }
+      }
+      fail( "The truncated file returned all rows" );
+    } catch ( HopException e ) {
+      // expected
+    } finally {
+      reader.close();
+    }
+  }
+}
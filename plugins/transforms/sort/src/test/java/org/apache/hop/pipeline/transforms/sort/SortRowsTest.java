@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.sort;
+
+import org.apache.hop.core.IRowSet;
+import org.apache.hop.core.exception.HopTransformException;
+import org.apache.hop.core.logging.ILoggingObject;
+import org.apache.hop.core.memory.MemoryReservation;
+import org.apache.hop.core.memory.TransformMemoryManager;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.apache.hop.pipeline.transform.RowAdapter;
+import org.apache.hop.pipeline.transforms.mock.TransformMockHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SortRowsTest {
+
+  private static final int NR_ROWS = 50000;
+  private static final int NR_KEYS = 100;
+
+  private TransformMockHelper<SortRowsMeta, SortRowsData> transformMockHelper;
+
+  @Before
+  public void setup() {
+    transformMockHelper = new TransformMockHelper<>( "Sort rows", SortRowsMeta.class, SortRowsData.class );
+    when( transformMockHelper.logChannelFactory.create( any(), any( ILoggingObject.class ) ) )
+      .thenReturn( transformMockHelper.iLogChannel );
+    when( transformMockHelper.pipeline.isRunning() ).thenReturn( true );
+
+    SortRowsMeta meta = transformMockHelper.iTransformMeta;
+    when( meta.getFieldName() ).thenReturn( new String[] { "key" } );
+    when( meta.getSortSize() ).thenReturn( Integer.toString( NR_ROWS * 2 ) );
+    when( meta.getCompressFiles() ).thenReturn( false );
+  }
+
+  @After
+  public void tearDown() {
+    transformMockHelper.cleanUp();
+  }
+
+  @Test
+  public void testParallelSortIsOrderedAndStable() throws Exception {
+    List<Object[]> rows = createRows();
+
+    List<Object[]> sequential = sort( rows, false );
+    List<Object[]> parallel = sort( rows, true );
+
+    assertEquals( NR_ROWS, parallel.size() );
+    for ( int i = 1; i < parallel.size(); i++ ) {
+      long previousKey = (Long) parallel.get( i - 1 )[ 0 ];
+      long key = (Long) parallel.get( i )[ 0 ];
+      assertTrue( "Rows out of order at row " + i, previousKey <= key );
+      if ( previousKey == key ) {
+        // Rows with the same key keep the order they were read in
+        //
+        assertTrue( "Rows with the same key swapped at row " + i,
+          (Long) parallel.get( i - 1 )[ 1 ] < (Long) parallel.get( i )[ 1 ] );
+      }
+    }
+
+    assertEquals( sequential.size(), parallel.size() );
+    for ( int i = 0; i < sequential.size(); i++ ) {
+      assertArrayEquals( sequential.get( i ), parallel.get( i ) );
+    }
+  }
+
+  @Test
+  public void testPinnedMemoryDoesNotForceSpilling() throws Exception {
+    when( transformMockHelper.iTransformMeta.isParallelSort() ).thenReturn( false );
+    when( transformMockHelper.iTransformMeta.getSortSize() ).thenReturn( null );
+    when( transformMockHelper.iTransformMeta.getMemoryBudget() ).thenReturn( "64MB" );
+
+    // A lookup table which can't be spilled claims more than the whole pool
+    //
+    TransformMemoryManager manager = TransformMemoryManager.getInstance();
+    MemoryReservation lookupTable = manager.createReservation( "Stream lookup.0", -1L );
+    try {
+      lookupTable.acquire( manager.getPoolSize() * 2 );
+
+      IRowMeta inputRowMeta = new RowMeta();
+      inputRowMeta.addValueMeta( new ValueMetaInteger( "key" ) );
+      inputRowMeta.addValueMeta( new ValueMetaInteger( "sequence" ) );
+      IRowSet inputRowSet = transformMockHelper.getMockInputRowSet( createRows() );
+      when( inputRowSet.getRowMeta() ).thenReturn( inputRowMeta );
+
+      SortRows transform = spy( new SortRows( transformMockHelper.transformMeta, transformMockHelper.iTransformMeta,
+        new SortRowsData(), 0, transformMockHelper.pipelineMeta, transformMockHelper.pipeline ) );
+      assertTrue( transform.init() );
+      transform.setInputRowSets( Collections.singletonList( inputRowSet ) );
+
+      List<Object[]> result = new ArrayList<>( NR_ROWS );
+      transform.addRowListener( new RowAdapter() {
+        @Override
+        public void rowWrittenEvent( IRowMeta rowMeta, Object[] row ) throws HopTransformException {
+          result.add( row );
+        }
+      } );
+      while ( transform.processRow() ) {
+        // Keep reading rows
+      }
+      transform.dispose();
+
+      // The rows fit in the share of the pool which is left to the sort
+      //
+      assertEquals( NR_ROWS, result.size() );
+      verify( transform, never() ).sortExternalRows();
+    } finally {
+      lookupTable.close();
+    }
+  }
+
+  private List<Object[]> createRows() {
+    Random random = new Random( 42 );
+    List<Object[]> rows = new ArrayList<>( NR_ROWS );
+    for ( long i = 0; i < NR_ROWS; i++ ) {
+      rows.add( new Object[] { (long) random.nextInt( NR_KEYS ), i } );
+    }
+    return rows;
+  }
+
+  private List<Object[]> sort( List<Object[]> rows, boolean parallelSort ) throws Exception {
+    when( transformMockHelper.iTransformMeta.isParallelSort() ).thenReturn( parallelSort );
+
+    IRowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "key" ) );
+    inputRowMeta.addValueMeta( new ValueMetaInteger( "sequence" ) );
+
+    IRowSet inputRowSet = transformMockHelper.getMockInputRowSet( rows );
+    when( inputRowSet.getRowMeta() ).thenReturn( inputRowMeta );
+
+    SortRows transform = new SortRows( transformMockHelper.transformMeta, transformMockHelper.iTransformMeta,
+      new SortRowsData(), 0, transformMockHelper.pipelineMeta, transformMockHelper.pipeline );
+    assertTrue( transform.init() );
+    transform.setInputRowSets( Collections.singletonList( inputRowSet ) );
+
+    List<Object[]> result = new ArrayList<>( rows.size() );
+    transform.addRowListener( new RowAdapter() {
+      @Override
+      public void rowWrittenEvent( IRowMeta rowMeta, Object[] row ) throws HopTransformException {
+        result.add( row );
+      }
+    } );
+
+    while ( transform.processRow() ) {
+      // Keep reading rows
+    }
+    transform.dispose();
+    return result;
+  }
+}
@@ -22,7 +22,9 @@ import org.apache.hop.core.RowMetaAndData;
 import org.apache.hop.core.exception.HopException;
 import org.apache.hop.core.exception.HopTransformException;
 import org.apache.hop.core.exception.HopValueException;
-import org.apache.hop.core.hash.ByteArrayHashIndex;
+import org.apache.hop.core.hash.ByteArrayOpenHashIndex;
+import org.apache.hop.core.memory.RowMemoryEstimator;
+import org.apache.hop.core.memory.TransformMemoryManager;
 import org.apache.hop.core.row.RowDataUtil;
 import org.apache.hop.core.row.RowMeta;
 import org.apache.hop.core.row.IRowMeta;
@@ -52,6 +54,11 @@ import java.util.Collections;
 public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupData> implements ITransform<StreamLookupMeta, StreamLookupData> {
   private static final Class<?> PKG = StreamLookupMeta.class; // For Translator
 
+  /**
+   * The estimated number of bytes used by a cache entry besides its key and value data
+   */
+  private static final long CACHE_ENTRY_OVERHEAD = 64L;
+
   public StreamLookup(TransformMeta transformMeta, StreamLookupMeta meta, StreamLookupData data, int copyNr, PipelineMeta pipelineMeta,
                       Pipeline pipeline ) {
     super( transformMeta, meta, data, copyNr, pipelineMeta, pipeline );
@@ -203,7 +210,16 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
         valueData[ i ] = rowData[ valueNrs[ i ] ];
       }
 
-      addToCache( data.cacheKeyMeta, keyData, data.cacheValueMeta, valueData );
+      if ( isInShard( keyData ) ) {
+        addToCache( data.cacheKeyMeta, keyData, data.cacheValueMeta, valueData );
+
+        // The lookup data has to stay in memory, tell the other transforms how much we're using
+        //
+        if ( data.memoryReservation != null ) {
+          data.memoryReservation.acquire( CACHE_ENTRY_OVERHEAD + RowMemoryEstimator.estimateRowSize( keyData )
+            + RowMemoryEstimator.estimateRowSize( valueData ) );
+        }
+      }
 
       rowData = getRowFrom( rowSet );
     }
@@ -211,6 +227,47 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
     return true;
   }
 
+  /**
+   * @return true if this copy needs to store the lookup row with the given key
+   */
+  private boolean isInShard( Object[] keyData ) throws HopValueException {
+    if ( data.sharedTable == null || !data.sharedTable.isHashSharded() ) {
+      return true;
+    }
+    return data.sharedTable.isInShard( getCopy(), data.cacheKeyMeta.hashCode( keyData ) );
+  }
+
+  /**
+   * Wait for the other copies to build their part of the shared lookup data.
+   *
+   * @return false if a copy failed to read the lookup rows or this copy was stopped
+   */
+  private boolean awaitSharedTable() throws HopException {
+    try {
+      if ( !data.sharedTable.awaitBuilt( this::isStopped ) ) {
+        return false;
+      }
+    } catch ( InterruptedException e ) {
+      throw new HopTransformException( e );
+    }
+
+    // The lookup rows can be distributed over the copies, take the metadata from a copy which got some
+    //
+    if ( !data.hasLookupRows ) {
+      for ( StreamLookupData shard : data.sharedTable.getShards() ) {
+        if ( shard.hasLookupRows ) {
+          data.hasLookupRows = true;
+          data.infoMeta = shard.infoMeta;
+          data.keyTypes = shard.keyTypes;
+          data.cacheKeyMeta = shard.cacheKeyMeta;
+          data.cacheValueMeta = shard.cacheValueMeta;
+          break;
+        }
+      }
+    }
+    return true;
+  }
+
   private Object[] lookupValues( IRowMeta rowMeta, Object[] row ) throws HopException {
     // See if we need to stop.
     if ( isStopped() ) {
@@ -312,7 +369,7 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
           data.longIndex.put( key, value );
         } else {
           if ( data.hashIndex == null ) {
-            data.hashIndex = new ByteArrayHashIndex( keyMeta );
+            data.hashIndex = new ByteArrayOpenHashIndex();
           }
           data.hashIndex
             .put( RowMeta.extractData( keyMeta, keyData ), RowMeta.extractData( valueMeta, valueData ) );
@@ -326,30 +383,53 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
   }
 
   private Object[] getFromCache( IRowMeta keyMeta, Object[] keyData ) throws HopValueException {
+    if ( data.sharedTable == null ) {
+      return getFromCache( data, keyMeta, keyData );
+    }
+    if ( data.sharedTable.isHashSharded() ) {
+      return getFromCache( data.sharedTable.getShard( keyMeta.hashCode( keyData ) ), keyMeta, keyData );
+    }
+    // A duplicate key can be in more than one shard, the shard of the lowest copy wins
+    //
+    for ( StreamLookupData shard : data.sharedTable.getShards() ) {
+      Object[] value = getFromCache( shard, keyMeta, keyData );
+      if ( value != null ) {
+        return value;
+      }
+    }
+    return null;
+  }
+
+  private Object[] getFromCache( StreamLookupData cache, IRowMeta keyMeta, Object[] keyData )
+    throws HopValueException {
     if ( meta.isMemoryPreservationActive() ) {
       if ( meta.isUsingSortedList() ) {
         KeyValue keyValue = new KeyValue( keyData, null );
-        int idx = Collections.binarySearch( data.list, keyValue, data.comparator );
+        int idx = Collections.binarySearch( cache.list, keyValue, cache.comparator );
         if ( idx < 0 ) {
           return null; // nothing found
         }
 
-        keyValue = data.list.get( idx );
+        keyValue = cache.list.get( idx );
         return keyValue.getValue();
       } else {
         if ( meta.isUsingIntegerPair() ) {
-          Long value = data.longIndex.get( keyMeta.getInteger( keyData, 0 ) );
+          Long value = cache.longIndex.get( keyMeta.getInteger( keyData, 0 ) );
           if ( value == null ) {
             return null;
           }
           return new Object[] { value, };
         } else {
+          if ( cache.hashIndex == null ) {
+            // A copy without lookup rows of its own
+            return null;
+          }
           try {
-            byte[] value = data.hashIndex.get( RowMeta.extractData( keyMeta, keyData ) );
+            byte[] value = cache.hashIndex.get( RowMeta.extractData( keyMeta, keyData ) );
             if ( value == null ) {
               return null;
             }
-            return RowMeta.getRow( data.cacheValueMeta, value );
+            return RowMeta.getRow( cache.cacheValueMeta, value );
           } catch ( Exception e ) {
             logError( "Oops", e );
             throw new RuntimeException( e );
@@ -357,7 +437,7 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
         }
       }
     } else {
-      return data.look.get( new RowMetaAndData( keyMeta, keyData ) );
+      return cache.look.get( new RowMetaAndData( keyMeta, keyData ) );
     }
   }
 
@@ -367,7 +447,22 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
     if ( data.readLookupValues ) {
       data.readLookupValues = false;
 
-      if ( !readLookupValues() ) {
+      boolean success = false;
+      try {
+        success = readLookupValues();
+      } finally {
+        if ( data.sharedTable != null ) {
+          data.sharedTable.finished( getCopy(), data, success );
+        }
+      }
+      if ( success && data.sharedTable != null ) {
+        success = awaitSharedTable();
+      }
+
+      if ( !success ) {
+        if ( isStopped() ) {
+          return false;
+        }
         // Read values in lookup table (look)
         logError( BaseMessages.getString( PKG, "StreamLookup.Log.UnableToReadDataFromLookupStream" ) );
         setErrors( 1 );
@@ -452,6 +547,19 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
 
     if ( super.init() ) {
       data.readLookupValues = true;
+      data.memoryReservation =
+        TransformMemoryManager.getInstance().createReservation( getTransformName() + "." + getCopy(), -1L );
+
+      // Let all copies build and use a single lookup table
+      //
+      if ( meta.isSharedTable() ) {
+        int copies = getTransformMeta().getCopies( this );
+        TransformMeta infoTransformMeta = meta.getTransformIOMeta().getInfoStreams().get( 0 ).getTransformMeta();
+        if ( copies > 1 && !getTransformMeta().isPartitioned() && infoTransformMeta != null ) {
+          data.sharedTable = StreamLookupSharedTable.getInstance( getPipeline(), getTransformName(), copies,
+            isEveryLookupRowCopied( infoTransformMeta, infoTransformMeta.getCopies( this ), copies ) );
+        }
+      }
 
       return true;
     }
@@ -459,14 +567,41 @@ public class StreamLookup extends BaseTransform<StreamLookupMeta, StreamLookupDa
     return false;
   }
 
+  /**
+   * Only when every copy reads all lookup rows can a copy keep just the keys of its own shard. With the same number
+   * of copies on both sides (N:N) every copy only reads the rows of the matching info transform copy, even when these
+   * are copied. Partitioned lookup rows are spread over the copies as well.
+   *
+   * @param infoTransformMeta The transform the lookup rows are read from
+   * @param infoCopies        The number of copies of the info transform
+   * @param copies            The number of copies of this transform
+   * @return true if every copy of this transform receives every lookup row
+   */
+  static boolean isEveryLookupRowCopied( TransformMeta infoTransformMeta, int infoCopies, int copies ) {
+    if ( infoTransformMeta.isDistributes() || infoTransformMeta.isPartitioned() ) {
+      return false;
+    }
+    return infoCopies == 1 || infoCopies != copies;
+  }
+
   @Override
   public void dispose() {
     // Recover memory immediately, allow in-memory data to be garbage collected
+    // Shared lookup data can still be in use by the other copies.
     //
-    data.look = null;
-    data.list = null;
-    data.hashIndex = null;
-    data.longIndex = null;
+    if ( data.sharedTable != null ) {
+      data.sharedTable.release( getPipeline(), getTransformName() );
+      data.sharedTable = null;
+    } else {
+      data.look = null;
+      data.list = null;
+      data.hashIndex = null;
+      data.longIndex = null;
+    }
+    if ( data.memoryReservation != null ) {
+      data.memoryReservation.close();
+      data.memoryReservation = null;
+    }
 
     super.dispose();
   }
@@ -19,8 +19,9 @@ package org.apache.hop.pipeline.transforms.streamlookup;
 
 import org.apache.hop.core.RowMetaAndData;
 import org.apache.hop.core.exception.HopValueException;
-import org.apache.hop.core.hash.ByteArrayHashIndex;
-import org.apache.hop.core.hash.LongHashIndex;
+import org.apache.hop.core.hash.ByteArrayOpenHashIndex;
+import org.apache.hop.core.hash.LongOpenHashIndex;
+import org.apache.hop.core.memory.MemoryReservation;
 import org.apache.hop.core.row.IRowMeta;
 import org.apache.hop.pipeline.transform.BaseTransformData;
 import org.apache.hop.pipeline.transform.ITransformData;
@@ -76,8 +77,8 @@ public class StreamLookupData extends BaseTransformData implements ITransformDat
 
   public Comparator<KeyValue> comparator;
 
-  public ByteArrayHashIndex hashIndex;
-  public LongHashIndex longIndex;
+  public ByteArrayOpenHashIndex hashIndex;
+  public LongOpenHashIndex longIndex;
 
   public IRowMeta lookupMeta;
 
@@ -97,11 +98,18 @@ public class StreamLookupData extends BaseTransformData implements ITransformDat
 
   public IStream infoStream;
 
+  public MemoryReservation memoryReservation;
+
+  /**
+   * The lookup data of all copies, when they share it
+   */
+  public StreamLookupSharedTable sharedTable;
+
   public StreamLookupData() {
     super();
     look = new HashMap<>();
     hashIndex = null;
-    longIndex = new LongHashIndex();
+    longIndex = new LongOpenHashIndex();
     list = new ArrayList<>();
     metadataVerifiedIntegerPair = false;
     hasLookupRows = false;
@@ -59,6 +59,8 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
 
   private Button wIntegerPair;
 
+  private Button wSharedTable;
+
   private final StreamLookupMeta input;
 
   private Listener lsGetLU;
@@ -268,6 +270,28 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
       wIntegerPair.setEnabled( selection );
     } );
 
+    Label wlSharedTable = new Label(shell, SWT.RIGHT);
+    wlSharedTable.setText( BaseMessages.getString( PKG, "StreamLookupDialog.SharedTable.Label" ) );
+    props.setLook(wlSharedTable);
+    FormData fdlSharedTable = new FormData();
+    fdlSharedTable.left = new FormAttachment( 0, 0 );
+    fdlSharedTable.bottom = new FormAttachment(wlPreserveMemory, -margin );
+    fdlSharedTable.right = new FormAttachment( middle, -margin );
+    wlSharedTable.setLayoutData(fdlSharedTable);
+    wSharedTable = new Button( shell, SWT.CHECK );
+    wSharedTable.setToolTipText( BaseMessages.getString( PKG, "StreamLookupDialog.SharedTable.Tooltip" ) );
+    props.setLook( wSharedTable );
+    FormData fdSharedTable = new FormData();
+    fdSharedTable.left = new FormAttachment( middle, 0 );
+    fdSharedTable.top = new FormAttachment(wlSharedTable, 0, SWT.CENTER );
+    fdSharedTable.right = new FormAttachment( 100, 0 );
+    wSharedTable.setLayoutData(fdSharedTable);
+    wSharedTable.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+      }
+    } );
+
     // THE UPDATE/INSERT TABLE
     Label wlReturn = new Label(shell, SWT.NONE);
     wlReturn.setText( BaseMessages.getString( PKG, "StreamLookupDialog.ReturnFields.Label" ) );
@@ -307,7 +331,7 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
     fdReturn.left = new FormAttachment( 0, 0 );
     fdReturn.top = new FormAttachment(wlReturn, margin );
     fdReturn.right = new FormAttachment( 100, 0 );
-    fdReturn.bottom = new FormAttachment(wlPreserveMemory, -2*margin );
+    fdReturn.bottom = new FormAttachment(wlSharedTable, -2*margin );
     wReturn.setLayoutData(fdReturn);
 
 
@@ -469,6 +493,7 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
     // but user will be forced to choose only one option later.
     wSortedList.setSelection( input.isUsingSortedList() );
     wIntegerPair.setSelection( input.isUsingIntegerPair() );
+    wSharedTable.setSelection( input.isSharedTable() );
 
     wKey.setRowNums();
     wKey.optWidth( true );
@@ -496,6 +521,7 @@ public class StreamLookupDialog extends BaseTransformDialog implements ITransfor
     input.setMemoryPreservationActive( wPreserveMemory.getSelection() );
     input.setUsingSortedList( wSortedList.getSelection() );
     input.setUsingIntegerPair( wIntegerPair.getSelection() );
+    input.setSharedTable( wSharedTable.getSelection() );
 
     if ( log.isDebug() ) {
       logDebug( BaseMessages.getString( PKG, "StreamLookupDialog.Log.FoundKeys", nrkeys + "" ) );
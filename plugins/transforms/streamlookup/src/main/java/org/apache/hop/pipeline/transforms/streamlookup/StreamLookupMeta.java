@@ -99,6 +99,10 @@ public class StreamLookupMeta extends BaseTransformMeta
   @Injection(name = "INTEGER_PAIR")
   private boolean usingIntegerPair;
 
+  /** Build one lookup table for all copies of the transform instead of one per copy */
+  @Injection(name = "SHARED_TABLE")
+  private boolean sharedTable;
+
   public StreamLookupMeta() {
     super(); // allocate BaseTransformMeta
   }
@@ -165,6 +169,8 @@ public class StreamLookupMeta extends BaseTransformMeta
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "sorted_list")));
       setUsingIntegerPair(
           "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "integer_pair")));
+      setSharedTable(
+          "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "shared_table")));
 
       Node lookup = XmlHandler.getSubNode(transformNode, "lookup");
       nrkeys = XmlHandler.countNodes(lookup, "key");
@@ -216,6 +222,7 @@ public class StreamLookupMeta extends BaseTransformMeta
     setMemoryPreservationActive(true);
     setUsingSortedList(false);
     setUsingIntegerPair(false);
+    setSharedTable(false);
 
     allocate(0, 0);
   }
@@ -269,6 +276,7 @@ public class StreamLookupMeta extends BaseTransformMeta
         .append(XmlHandler.addTagValue("preserve_memory", isMemoryPreservationActive()));
     retval.append("    ").append(XmlHandler.addTagValue("sorted_list", isUsingSortedList()));
     retval.append("    ").append(XmlHandler.addTagValue("integer_pair", isUsingIntegerPair()));
+    retval.append("    ").append(XmlHandler.addTagValue("shared_table", isSharedTable()));
 
     retval.append("    <lookup>").append(Const.CR);
     for (int i = 0; i < getKeystream().length; i++) {
@@ -651,6 +659,16 @@ public class StreamLookupMeta extends BaseTransformMeta
     this.usingIntegerPair = usingIntegerPair;
   }
 
+  /** @return true if all copies of the transform share a single lookup table */
+  public boolean isSharedTable() {
+    return sharedTable;
+  }
+
+  /** @param sharedTable true to let all copies of the transform share a single lookup table */
+  public void setSharedTable(boolean sharedTable) {
+    this.sharedTable = sharedTable;
+  }
+
   /**
    * If we use injection we can have different arrays lengths. We need synchronize them for
    * consistency behavior with UI
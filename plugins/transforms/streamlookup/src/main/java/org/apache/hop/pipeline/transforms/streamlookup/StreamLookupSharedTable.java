@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.streamlookup;
+
+import org.apache.hop.pipeline.engine.IPipelineEngine;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The lookup data of all the copies of a Stream lookup transform in a pipeline.
+ * <p>
+ * Every copy builds one shard of the lookup data from the rows it reads from the lookup transform, in parallel with
+ * the other copies. When the lookup rows are copied to all the copies, a copy only keeps the rows with a key hashing to
+ * its own shard and a key is looked up in a single shard. When a copy only gets part of the lookup rows, because they
+ * are distributed or every copy reads from its own info transform copy, a copy keeps all the rows it reads and a key
+ * is looked up in all shards. The order of the lookup rows over the copies isn't known then: a key which occurs in
+ * more than one shard is taken from the shard of the lowest copy, not from the last lookup row like without sharing.
+ * <p>
+ * Once all shards are built they are only read, by all copies at the same time and without locking.
+ */
+public class StreamLookupSharedTable {
+
+  private static final String EXTENSION_DATA_PREFIX = "StreamLookupSharedTable:";
+
+  private final StreamLookupData[] shards;
+  private final boolean hashSharded;
+  private final CountDownLatch built;
+  private final AtomicInteger activeCopies;
+  private volatile boolean failed;
+
+  private StreamLookupSharedTable( int copies, boolean hashSharded ) {
+    this.shards = new StreamLookupData[ copies ];
+    this.hashSharded = hashSharded;
+    this.built = new CountDownLatch( copies );
+    this.activeCopies = new AtomicInteger( copies );
+  }
+
+  /**
+   * Get the shared lookup data of a transform, created by the first copy asking for it.
+   *
+   * @param pipeline      The pipeline the transform runs in
+   * @param transformName The name of the transform
+   * @param copies        The number of copies of the transform
+   * @param hashSharded   true if every copy reads all lookup rows, false if a copy only reads part of them
+   * @return The shared lookup data
+   */
+  public static StreamLookupSharedTable getInstance( IPipelineEngine<?> pipeline, String transformName, int copies,
+                                                     boolean hashSharded ) {
+    Map<String, Object> extensionDataMap = pipeline.getExtensionDataMap();
+    synchronized ( extensionDataMap ) {
+      String key = EXTENSION_DATA_PREFIX + transformName;
+      StreamLookupSharedTable table = (StreamLookupSharedTable) extensionDataMap.get( key );
+      if ( table == null ) {
+        table = new StreamLookupSharedTable( copies, hashSharded );
+        extensionDataMap.put( key, table );
+      }
+      return table;
+    }
+  }
+
+  /**
+   * @param copyNr   The copy building the shard
+   * @param hashCode The hash code of the key of a lookup row
+   * @return true if the key belongs in the shard of the copy, for hash sharded lookup data
+   */
+  public boolean isInShard( int copyNr, int hashCode ) {
+    return getShardNr( hashCode ) == copyNr;
+  }
+
+  /**
+   * Register the lookup data of a copy once it has read all lookup rows, or failed to do so.
+   *
+   * @param copyNr  The copy
+   * @param data    The lookup data of the copy
+   * @param success false if the copy failed to read the lookup rows
+   */
+  public void finished( int copyNr, StreamLookupData data, boolean success ) {
+    shards[ copyNr ] = data;
+    if ( !success ) {
+      failed = true;
+    }
+    built.countDown();
+  }
+
+  /**
+   * Wait until all copies have built their shard.
+   *
+   * @param stopped Tells if the waiting copy was stopped
+   * @return true if all shards are built, false if a copy failed or the waiting copy was stopped
+   */
+  public boolean awaitBuilt( BooleanSupplier stopped ) throws InterruptedException {
+    while ( !built.await( 100, TimeUnit.MILLISECONDS ) ) {
+      if ( failed || stopped.getAsBoolean() ) {
+        return false;
+      }
+    }
+    return !failed;
+  }
+
+  /**
+   * @return true if a key is found in a single shard, selected by the hash code of the key
+   */
+  public boolean isHashSharded() {
+    return hashSharded;
+  }
+
+  /**
+   * @param hashCode The hash code of a key
+   * @return The lookup data holding the key, if any
+   */
+  public StreamLookupData getShard( int hashCode ) {
+    return shards[ getShardNr( hashCode ) ];
+  }
+
+  /**
+   * @return The lookup data of all copies
+   */
+  public StreamLookupData[] getShards() {
+    return shards;
+  }
+
+  /**
+   * Called by every copy when it's done. The last one removes the lookup data from the pipeline.
+   */
+  public void release( IPipelineEngine<?> pipeline, String transformName ) {
+    if ( activeCopies.decrementAndGet() == 0 ) {
+      Map<String, Object> extensionDataMap = pipeline.getExtensionDataMap();
+      synchronized ( extensionDataMap ) {
+        extensionDataMap.remove( EXTENSION_DATA_PREFIX + transformName );
+      }
+    }
+  }
+
+  private int getShardNr( int hashCode ) {
+    return Math.floorMod( hashCode, shards.length );
+  }
+}
@@ -56,7 +56,7 @@ public class StreamLookupMetaTest implements IInitializer<ITransformMeta> {
     HopEnvironment.init();
     PluginRegistry.init( false );
     List<String> attributes =
-      Arrays.asList( "inputSorted", "memoryPreservationActive", "usingSortedList", "usingIntegerPair", "keystream",
+      Arrays.asList( "inputSorted", "memoryPreservationActive", "usingSortedList", "usingIntegerPair", "sharedTable", "keystream",
         "keylookup", "value", "valueName", "valueDefault", "valueDefaultType" );
 
     IFieldLoadSaveValidator<String[]> stringArrayLoadSaveValidator =
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.streamlookup;
+
+import org.apache.hop.pipeline.Pipeline;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StreamLookupSharedTableTest {
+
+  private Pipeline pipeline;
+
+  @Before
+  public void setUp() {
+    pipeline = mock( Pipeline.class );
+    when( pipeline.getExtensionDataMap() ).thenReturn( new HashMap<>() );
+  }
+
+  @Test
+  public void testOneInstancePerTransform() {
+    StreamLookupSharedTable table = StreamLookupSharedTable.getInstance( pipeline, "lookup", 2, true );
+    assertSame( table, StreamLookupSharedTable.getInstance( pipeline, "lookup", 2, true ) );
+    assertNotSame( table, StreamLookupSharedTable.getInstance( pipeline, "other", 2, true ) );
+
+    // Once all copies are done a new run starts from scratch
+    //
+    table.release( pipeline, "lookup" );
+    assertSame( table, StreamLookupSharedTable.getInstance( pipeline, "lookup", 2, true ) );
+    table.release( pipeline, "lookup" );
+    assertNotSame( table, StreamLookupSharedTable.getInstance( pipeline, "lookup", 2, true ) );
+  }
+
+  @Test
+  public void testEveryKeyInOneShard() throws Exception {
+    StreamLookupSharedTable table = StreamLookupSharedTable.getInstance( pipeline, "lookup", 3, true );
+    StreamLookupData[] data = new StreamLookupData[ 3 ];
+    for ( int copy = 0; copy < 3; copy++ ) {
+      data[ copy ] = new StreamLookupData();
+      table.finished( copy, data[ copy ], true );
+    }
+    assertTrue( table.awaitBuilt( () -> false ) );
+
+    for ( int hashCode : new int[] { 0, 1, 2, 3, -1, -2, Integer.MIN_VALUE, Integer.MAX_VALUE } ) {
+      int shards = 0;
+      for ( int copy = 0; copy < 3; copy++ ) {
+        if ( table.isInShard( copy, hashCode ) ) {
+          assertSame( data[ copy ], table.getShard( hashCode ) );
+          shards++;
+        }
+      }
+      assertEquals( 1, shards );
+    }
+  }
+
+  @Test
+  public void testAwaitBuiltAfterFailure() throws Exception {
+    StreamLookupSharedTable table = StreamLookupSharedTable.getInstance( pipeline, "lookup", 2, false );
+    assertFalse( table.isHashSharded() );
+    table.finished( 0, new StreamLookupData(), false );
+    assertFalse( table.awaitBuilt( () -> false ) );
+  }
+
+  @Test
+  public void testAwaitBuiltWhenStopped() throws Exception {
+    StreamLookupSharedTable table = StreamLookupSharedTable.getInstance( pipeline, "lookup", 2, true );
+    table.finished( 0, new StreamLookupData(), true );
+    assertFalse( table.awaitBuilt( () -> true ) );
+  }
+}
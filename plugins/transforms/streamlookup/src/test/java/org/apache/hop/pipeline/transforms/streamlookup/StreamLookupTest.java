@@ -29,6 +29,7 @@ import org.apache.hop.core.row.IValueMeta;
 import org.apache.hop.core.row.value.ValueMetaString;
 import org.apache.hop.core.variables.IVariables;
 import org.apache.hop.metadata.api.IHopMetadataProvider;
+import org.apache.hop.pipeline.transform.RowAdapter;
 import org.apache.hop.pipeline.transform.TransformIOMeta;
 import org.apache.hop.pipeline.transform.TransformMeta;
 import org.apache.hop.pipeline.transform.errorhandling.Stream;
@@ -40,7 +41,19 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
-
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doCallRealMethod;
@@ -55,6 +68,9 @@ import static org.mockito.Mockito.when;
  * @see StreamLookup
  */
 public class StreamLookupTest {
+  private static final int COPIES = 3;
+  private static final int NR_KEYS = 50;
+
   private TransformMockHelper<StreamLookupMeta, StreamLookupData> smh;
 
   @Before
@@ -237,4 +253,133 @@ public class StreamLookupTest {
   public void testMemoryPreservationWithBinaryStreams() throws HopException {
     doTest( true, false, true );
   }
+
+  @Test
+  public void testSharedTableWithCopiedLookupRows() throws Exception {
+    doSharedTableTest( false );
+  }
+
+  @Test
+  public void testSharedTableWithDistributedLookupRows() throws Exception {
+    doSharedTableTest( true );
+  }
+
+  @Test
+  public void testEveryLookupRowCopied() {
+    TransformMeta infoTransformMeta = mock( TransformMeta.class );
+    assertTrue( StreamLookup.isEveryLookupRowCopied( infoTransformMeta, 1, 3 ) );
+    assertTrue( StreamLookup.isEveryLookupRowCopied( infoTransformMeta, 2, 3 ) );
+
+    // N:N, every copy only reads the rows of one info transform copy
+    //
+    assertFalse( StreamLookup.isEveryLookupRowCopied( infoTransformMeta, 3, 3 ) );
+
+    doReturn( true ).when( infoTransformMeta ).isPartitioned();
+    assertFalse( StreamLookup.isEveryLookupRowCopied( infoTransformMeta, 1, 3 ) );
+
+    doReturn( false ).when( infoTransformMeta ).isPartitioned();
+    doReturn( true ).when( infoTransformMeta ).isDistributes();
+    assertFalse( StreamLookup.isEveryLookupRowCopied( infoTransformMeta, 1, 3 ) );
+  }
+
+  /**
+   * Runs a number of copies sharing the lookup table. Every copy looks up all keys, which are spread over the shards of
+   * the other copies.
+   */
+  private void doSharedTableTest( boolean distributes ) throws Exception {
+    when( smh.pipeline.getExtensionDataMap() ).thenReturn( new HashMap<>() );
+    when( smh.transformMeta.getCopies( any( IVariables.class ) ) ).thenReturn( COPIES );
+    StreamLookupMeta meta = mockProcessRowMeta( true );
+    doReturn( true ).when( meta ).isSharedTable();
+    TransformMeta lookupTransformMeta = smh.pipelineMeta.findTransform( "Lookup" );
+    doReturn( distributes ).when( lookupTransformMeta ).isDistributes();
+    doReturn( 1 ).when( lookupTransformMeta ).getCopies( any( IVariables.class ) );
+
+    List<Object[]> output = Collections.synchronizedList( new ArrayList<>() );
+    StreamLookup[] transforms = new StreamLookup[ COPIES ];
+    StreamLookupData[] datas = new StreamLookupData[ COPIES ];
+    for ( int copy = 0; copy < COPIES; copy++ ) {
+      datas[ copy ] = new StreamLookupData();
+      transforms[ copy ] =
+        new StreamLookup( smh.transformMeta, meta, datas[ copy ], copy, smh.pipelineMeta, smh.pipeline );
+      assertTrue( transforms[ copy ].init() );
+      transforms[ copy ].addRowSetToInputRowSets( mockSharedLookupRowSet( copy, distributes ) );
+      transforms[ copy ].addRowSetToInputRowSets( mockSharedDataRowSet() );
+      transforms[ copy ].addRowListener( new RowAdapter() {
+        @Override
+        public void rowWrittenEvent( IRowMeta rowMeta, Object[] row ) throws HopTransformException {
+          output.add( new Object[] { row[ 1 ], row[ 2 ] } );
+        }
+      } );
+    }
+
+    // The copies wait for each other to build the table
+    //
+    ExecutorService executor = Executors.newFixedThreadPool( COPIES );
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for ( StreamLookup transform : transforms ) {
+        futures.add( executor.submit( (Callable<Void>) () -> {
+          while ( transform.processRow() ) {
+            // Keep looking up rows
+          }
+          return null;
+        } ) );
+      }
+      for ( Future<Void> future : futures ) {
+        future.get( 30, TimeUnit.SECONDS );
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for ( int copy = 0; copy < COPIES; copy++ ) {
+      assertEquals( 0, transforms[ copy ].getErrors() );
+      assertEquals( !distributes, datas[ copy ].sharedTable.isHashSharded() );
+    }
+
+    assertEquals( COPIES * NR_KEYS, output.size() );
+    for ( Object[] row : output ) {
+      assertEquals( "Value" + row[ 0 ], row[ 1 ] );
+    }
+
+    for ( StreamLookup transform : transforms ) {
+      transform.dispose();
+    }
+  }
+
+  private IRowSet mockSharedLookupRowSet( int copy, boolean distributes ) {
+    List<Object[]> rows = new ArrayList<>();
+    for ( int key = 0; key < NR_KEYS; key++ ) {
+      if ( !distributes || key % COPIES == copy ) {
+        rows.add( new Object[] { "Value" + key, Integer.toString( key ) } );
+      }
+    }
+    IRowSet lookupRowSet = smh.getMockInputRowSet( rows );
+    doReturn( "Lookup" ).when( lookupRowSet ).getOriginTransformName();
+    doReturn( "StreamLookup" ).when( lookupRowSet ).getDestinationTransformName();
+    doReturn( copy ).when( lookupRowSet ).getDestinationTransformCopy();
+
+    RowMeta lookupRowMeta = new RowMeta();
+    lookupRowMeta.addValueMeta( new ValueMetaString( "Value" ) );
+    lookupRowMeta.addValueMeta( new ValueMetaString( "Id" ) );
+    doReturn( lookupRowMeta ).when( lookupRowSet ).getRowMeta();
+
+    return lookupRowSet;
+  }
+
+  private IRowSet mockSharedDataRowSet() {
+    List<Object[]> rows = new ArrayList<>();
+    for ( int key = 0; key < NR_KEYS; key++ ) {
+      rows.add( new Object[] { "Name" + key, Integer.toString( key ) } );
+    }
+    IRowSet dataRowSet = smh.getMockInputRowSet( rows );
+
+    RowMeta dataRowMeta = new RowMeta();
+    dataRowMeta.addValueMeta( new ValueMetaString( "Name" ) );
+    dataRowMeta.addValueMeta( new ValueMetaString( "Id" ) );
+    doReturn( dataRowMeta ).when( dataRowSet ).getRowMeta();
+
+    return dataRowSet;
+  }
 }
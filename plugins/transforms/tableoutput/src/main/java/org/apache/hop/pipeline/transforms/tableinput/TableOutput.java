@@ -247,6 +247,27 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
       data.preparedStatements.put(tableName, insertStatement);
     }
 
+    if (data.asyncWriter) {
+      // The batch writer owns the connection from now on, the rows are passed on once committed
+      //
+      if (data.batchWriter == null) {
+        data.batchWriter =
+            new TableOutputBatchWriter(
+                data.db,
+                insertStatement,
+                data.insertRowMeta,
+                data.commitSize,
+                data.maxInFlightBatches,
+                getTransformMeta().isDoingErrorHandling(),
+                meta.ignoreErrors(),
+                tableName,
+                getTransformName() + " - batch writer " + getCopy());
+      }
+      data.batchWriter.addRow(insertRowData, outputRowData);
+      processCompletedBatches();
+      return null;
+    }
+
     try {
       // For PG & GP, we add a savepoint before the row.
       // Then revert to the savepoint afterwards... (not a transaction, so hopefully still fast)
@@ -444,13 +465,22 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
 
   private void processBatchException(
       String errorMessage, int[] updateCounts, List<Exception> exceptionsList) throws HopException {
+    processBatchException(data.batchBuffer, errorMessage, updateCounts, exceptionsList);
+
+    // Clear the buffer afterwards...
+    data.batchBuffer.clear();
+  }
+
+  private void processBatchException(
+      List<Object[]> rows, String errorMessage, int[] updateCounts, List<Exception> exceptionsList)
+      throws HopException {
     // There was an error with the commit
     // We should put all the failing rows out there...
     //
     if (updateCounts != null) {
       int errNr = 0;
       for (int i = 0; i < updateCounts.length; i++) {
-        Object[] row = data.batchBuffer.get(i);
+        Object[] row = rows.get(i);
         if (updateCounts[i] > 0) {
           // send the error foward
           putRow(data.outputRowMeta, row);
@@ -469,14 +499,51 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
       // If we don't have update counts, it probably means the DB doesn't support it.
       // In this case we don't have a choice but to consider all inserted rows to be error rows.
       //
-      for (int i = 0; i < data.batchBuffer.size(); i++) {
-        Object[] row = data.batchBuffer.get(i);
+      for (Object[] row : rows) {
         putError(data.outputRowMeta, row, 1L, errorMessage, null, "TOP0003");
       }
     }
+  }
 
-    // Clear the buffer afterwards...
-    data.batchBuffer.clear();
+  /** Pass on the rows of the batches which the batch writer is done with. */
+  private void processCompletedBatches() throws HopException {
+    TableOutputBatchWriter.Batch batch = data.batchWriter.pollCompletedBatch();
+    while (batch != null) {
+      if (batch.getFailure() != null) {
+        throw batch.getFailure();
+      }
+
+      // Rows refused by the database one by one
+      //
+      for (int i = 0; i < batch.getRejectedRows().size(); i++) {
+        Object[] row = batch.getRejectedRows().get(i);
+        String errorMessage = batch.getRejectedMessages().get(i);
+        if (getTransformMeta().isDoingErrorHandling()) {
+          putError(data.outputRowMeta, row, 1L, errorMessage, null, "TOP001");
+        } else {
+          if (data.warnings < 20 && log.isBasic()) {
+            logBasic(
+                "WARNING: Couldn't insert row into table: "
+                    + data.outputRowMeta.getString(row)
+                    + Const.CR
+                    + errorMessage);
+          }
+          data.warnings++;
+        }
+      }
+
+      HopDatabaseBatchException be = batch.getBatchException();
+      if (be != null) {
+        processBatchException(
+            batch.getWrittenRows(), be.toString(), be.getUpdateCounts(), be.getExceptionsList());
+      } else {
+        for (Object[] row : batch.getWrittenRows()) {
+          putRow(data.outputRowMeta, row);
+          incrementLinesOutput();
+        }
+      }
+      batch = data.batchWriter.pollCompletedBatch();
+    }
   }
 
   public boolean init() {
@@ -513,6 +580,11 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
                 && !meta.isReturningGeneratedKeys()
                 && !data.useSafePoints;
 
+        data.maxInFlightBatches =
+            Const.toInt(
+                resolve(meta.getMaxInFlightBatches()),
+                TableOutputMeta.DEFAULT_MAX_IN_FLIGHT_BATCHES);
+
         // give a warning that batch mode operation in combination with transform error handling can
         // lead to
         // incorrectly processed rows.
@@ -558,6 +630,19 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
         }
         data.db.setCommit(data.commitSize);
 
+        // The asynchronous writer sends all rows over a single prepared statement
+        //
+        if (meta.isAsyncWriter()) {
+          data.asyncWriter =
+              data.batchMode
+                  && !meta.isTableNameInField()
+                  && !meta.isPartitioningEnabled()
+                  && data.db.getUseBatchInsert(true);
+          if (!data.asyncWriter) {
+            logBasic(BaseMessages.getString(PKG, "TableOutput.Log.AsyncWriterDisabled"));
+          }
+        }
+
         if (!meta.isPartitioningEnabled() && !meta.isTableNameInField()) {
           data.tableName = resolve(meta.getTableName());
         }
@@ -586,6 +671,14 @@ public class TableOutput extends BaseTransform<TableOutputMeta, TableOutputData>
 
     if (data.db != null) {
       try {
+        if (data.batchWriter != null) {
+          if (getErrors() > 0) {
+            data.batchWriter.abort();
+          } else {
+            data.batchWriter.finish();
+            processCompletedBatches();
+          }
+        }
         for (String schemaTable : data.preparedStatements.keySet()) {
           // Get a commit counter per prepared statement to keep track of separate tables, etc.
           //
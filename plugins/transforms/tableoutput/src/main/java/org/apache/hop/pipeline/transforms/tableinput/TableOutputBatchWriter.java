@@ -0,0 +1,355 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.tableinput;
+
+import org.apache.hop.core.Const;
+import org.apache.hop.core.database.Database;
+import org.apache.hop.core.exception.HopDatabaseBatchException;
+import org.apache.hop.core.exception.HopDatabaseException;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the batches of a table output to the database on a background thread. The transform
+ * keeps filling the next batch while full batches are executed and committed by the flusher.
+ * <br>
+ * Only the flusher thread uses the database connection while the writer is open. The batches it
+ * finished come back through {@link #pollCompletedBatch()} so that the rows are passed on, or
+ * sent to error handling, on the transform thread.
+ */
+public class TableOutputBatchWriter {
+
+  /** Marks the end of the batches for the flusher thread */
+  private static final Batch END = new Batch(0);
+
+  private final Database db;
+  private final PreparedStatement insertStatement;
+  private final IRowMeta insertRowMeta;
+  private final int batchSize;
+  private final boolean errorHandling;
+  private final boolean ignoreErrors;
+  private final String tableName;
+
+  private final BlockingQueue<Batch> pendingBatches;
+  private final BlockingQueue<Batch> completedBatches;
+  private final Thread flusher;
+
+  private Batch currentBatch;
+  private volatile HopException failure;
+
+  /** The rows of one commit, together with the outcome of sending them to the database. */
+  public static class Batch {
+    private final List<Object[]> insertRows;
+    private final List<Object[]> outputRows;
+
+    private final List<Object[]> writtenRows;
+    private final List<Object[]> rejectedRows;
+    private final List<String> rejectedMessages;
+
+    private HopDatabaseBatchException batchException;
+    private HopException failure;
+
+    Batch(int size) {
+      insertRows = new ArrayList<>(size);
+      outputRows = new ArrayList<>(size);
+      writtenRows = new ArrayList<>(size);
+      rejectedRows = new ArrayList<>();
+      rejectedMessages = new ArrayList<>();
+    }
+
+    void add(Object[] insertRow, Object[] outputRow) {
+      insertRows.add(insertRow);
+      outputRows.add(outputRow);
+    }
+
+    int size() {
+      return insertRows.size();
+    }
+
+    /** @return The output rows which were added to the JDBC batch, in order */
+    public List<Object[]> getWrittenRows() {
+      return writtenRows;
+    }
+
+    /** @return The output rows which the database refused one by one */
+    public List<Object[]> getRejectedRows() {
+      return rejectedRows;
+    }
+
+    /** @return The error messages of the rejected rows */
+    public List<String> getRejectedMessages() {
+      return rejectedMessages;
+    }
+
+    /** @return The error of executing the batch or null if all written rows are committed */
+    public HopDatabaseBatchException getBatchException() {
+      return batchException;
+    }
+
+    /** @return The error which stops the transform or null */
+    public HopException getFailure() {
+      return failure;
+    }
+  }
+
+  /**
+   * @param db The connected database, not to be used by anyone else until {@link #finish()}
+   * @param insertStatement The insert statement to add the rows to
+   * @param insertRowMeta The layout of the rows to insert
+   * @param batchSize The number of rows to commit at once
+   * @param maxInFlightBatches The maximum number of full batches waiting for the flusher
+   * @param errorHandling True if failing rows go to the error handling of the transform
+   * @param ignoreErrors True if failing rows can be skipped
+   * @param tableName The name of the table, for the error messages
+   * @param threadName The name of the flusher thread
+   */
+  public TableOutputBatchWriter(
+      Database db,
+      PreparedStatement insertStatement,
+      IRowMeta insertRowMeta,
+      int batchSize,
+      int maxInFlightBatches,
+      boolean errorHandling,
+      boolean ignoreErrors,
+      String tableName,
+      String threadName) {
+    this.db = db;
+    this.insertStatement = insertStatement;
+    this.insertRowMeta = insertRowMeta;
+    this.batchSize = batchSize;
+    this.errorHandling = errorHandling;
+    this.ignoreErrors = ignoreErrors;
+    this.tableName = tableName;
+
+    pendingBatches = new ArrayBlockingQueue<>(Math.max(1, maxInFlightBatches));
+    completedBatches = new LinkedBlockingQueue<>();
+    currentBatch = new Batch(batchSize);
+
+    flusher = new Thread(this::flushBatches, threadName);
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /**
+   * Add a row to the current batch. A full batch is handed to the flusher, this waits if the
+   * maximum number of batches is already in flight.
+   *
+   * @param insertRow The values to insert
+   * @param outputRow The row to pass on once the insert is committed
+   * @throws HopException In case of an earlier fatal error or when interrupted
+   */
+  public void addRow(Object[] insertRow, Object[] outputRow) throws HopException {
+    if (failure != null) {
+      throw failure;
+    }
+    currentBatch.add(insertRow, outputRow);
+    if (currentBatch.size() >= batchSize) {
+      submit(currentBatch);
+      currentBatch = new Batch(batchSize);
+    }
+  }
+
+  private void submit(Batch batch) throws HopException {
+    try {
+      while (!pendingBatches.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+        // The queue stays full when the flusher is gone: don't wait for it forever
+        if (!flusher.isAlive()) {
+          if (batch == END) {
+            return;
+          }
+          if (failure != null) {
+            throw failure;
+          }
+          throw new HopException(
+              "The database writer for table [" + tableName + "] stopped unexpectedly");
+        }
+        if (failure != null && batch != END) {
+          throw failure;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HopException("Interrupted while handing a batch to the database writer", e);
+    }
+  }
+
+  /** @return The next batch which the database is done with or null if there is none yet */
+  public Batch pollCompletedBatch() {
+    return completedBatches.poll();
+  }
+
+  /**
+   * Send the last batch and wait until the flusher is done with all batches. The completed
+   * batches are still available through {@link #pollCompletedBatch()} afterwards.
+   *
+   * @throws HopException When interrupted
+   */
+  public void finish() throws HopException {
+    if (currentBatch.size() > 0) {
+      submit(currentBatch);
+      currentBatch = new Batch(batchSize);
+    }
+    stopFlusher();
+  }
+
+  /**
+   * Stop without sending the batches which didn't reach the database yet, for when the transform
+   * stops because of an error.
+   */
+  public void abort() {
+    if (failure == null) {
+      failure = new HopException("The database writer was aborted");
+    }
+    pendingBatches.clear();
+    currentBatch = new Batch(batchSize);
+    try {
+      stopFlusher();
+    } catch (HopException e) {
+      // We're stopping anyway
+    }
+  }
+
+  private void stopFlusher() throws HopException {
+    if (!flusher.isAlive()) {
+      return;
+    }
+    submit(END);
+    try {
+      flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HopException("Interrupted while waiting for the database writer", e);
+    }
+  }
+
+  private void flushBatches() {
+    Batch batch = null;
+    try {
+      batch = pendingBatches.take();
+      while (batch != END) {
+        if (failure != null) {
+          // Nothing more goes to the database after a fatal error
+          batch.failure = failure;
+        } else {
+          executeBatch(batch);
+        }
+        completedBatches.add(batch);
+        batch = pendingBatches.take();
+      }
+    } catch (InterruptedException e) {
+      if (failure == null) {
+        failure =
+            new HopException("The database writer for table [" + tableName + "] was interrupted");
+      }
+      Thread.currentThread().interrupt();
+    } catch (Throwable t) {
+      // Anything unexpected stops the transform through the failure, not just this thread
+      failure =
+          new HopException(
+              "Unexpected error in the database writer for table [" + tableName + "]", t);
+      if (batch != null && batch != END) {
+        batch.failure = failure;
+        completedBatches.add(batch);
+      }
+    }
+  }
+
+  private void executeBatch(Batch batch) {
+    try {
+      for (int i = 0; i < batch.size(); i++) {
+        Object[] insertRow = batch.insertRows.get(i);
+        Object[] outputRow = batch.outputRows.get(i);
+        try {
+          db.setValues(insertRowMeta, insertRow, insertStatement);
+          db.insertRow(insertStatement, true, false);
+          batch.writtenRows.add(outputRow);
+        } catch (HopDatabaseBatchException e) {
+          throw e;
+        } catch (HopDatabaseException e) {
+          if (!errorHandling && !ignoreErrors) {
+            throw new HopException(
+                "Error inserting row into table ["
+                    + tableName
+                    + "] with values: "
+                    + insertRowMeta.getString(insertRow),
+                e);
+          }
+          batch.rejectedRows.add(outputRow);
+          batch.rejectedMessages.add(e.toString());
+        }
+      }
+      if (!batch.writtenRows.isEmpty()) {
+        insertStatement.executeBatch();
+      }
+      db.commit();
+      insertStatement.clearBatch();
+    } catch (SQLException e) {
+      handleBatchException(
+          batch, Database.createHopDatabaseBatchException("Error updating batch", e));
+    } catch (HopDatabaseBatchException e) {
+      handleBatchException(batch, e);
+    } catch (HopException e) {
+      fail(batch, e);
+    }
+  }
+
+  private void handleBatchException(Batch batch, HopDatabaseBatchException be) {
+    batch.batchException = be;
+    try {
+      db.clearBatch(insertStatement);
+      if (errorHandling) {
+        db.commit(true);
+        return;
+      }
+    } catch (HopDatabaseException e) {
+      // Report the original problem below
+    }
+
+    StringBuilder msg =
+        new StringBuilder("Error batch inserting rows into table [" + tableName + "].");
+    msg.append(Const.CR);
+    msg.append("Errors encountered (first 10):").append(Const.CR);
+    for (int x = 0; x < be.getExceptionsList().size() && x < 10; x++) {
+      Exception exception = be.getExceptionsList().get(x);
+      if (exception.getMessage() != null) {
+        msg.append(exception.getMessage()).append(Const.CR);
+      }
+    }
+    fail(batch, new HopException(msg.toString(), be));
+  }
+
+  private void fail(Batch batch, HopException e) {
+    failure = e;
+    batch.failure = e;
+    try {
+      db.clearBatch(insertStatement);
+      db.rollback();
+    } catch (HopDatabaseException re) {
+      // The transform stops with the original error
+    }
+  }
+}
@@ -74,6 +74,14 @@ public class TableOutputData extends BaseTransformData implements ITransformData
 
   public int commitSize;
 
+  /** Are the batches sent to the database on a background thread? */
+  public boolean asyncWriter;
+
+  public int maxInFlightBatches;
+
+  /** Sends the batches to the database in async mode, created with the first row */
+  public TableOutputBatchWriter batchWriter;
+
   public TableOutputData() {
     super();
 
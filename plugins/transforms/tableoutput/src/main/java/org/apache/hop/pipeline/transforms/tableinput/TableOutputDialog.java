@@ -81,6 +81,12 @@ public class TableOutputDialog extends BaseTransformDialog implements ITransform
   private Label wlBatch;
   private Button wBatch;
 
+  private Label wlAsyncWriter;
+  private Button wAsyncWriter;
+
+  private Label wlMaxInFlightBatches;
+  private TextVar wMaxInFlightBatches;
+
   private Button wUsePart;
 
   private Label wlPartField;
@@ -482,13 +488,59 @@ public class TableOutputDialog extends BaseTransformDialog implements ITransform
           }
         });
 
+    // Asynchronous batch writer
+    wlAsyncWriter = new Label(wMainComp, SWT.RIGHT);
+    wlAsyncWriter.setText(BaseMessages.getString(PKG, "TableOutputDialog.AsyncWriter.Label"));
+    wlAsyncWriter.setToolTipText(
+        BaseMessages.getString(PKG, "TableOutputDialog.AsyncWriter.Tooltip"));
+    props.setLook(wlAsyncWriter);
+    FormData fdlAsyncWriter = new FormData();
+    fdlAsyncWriter.left = new FormAttachment(0, 0);
+    fdlAsyncWriter.top = new FormAttachment(wBatch, margin);
+    fdlAsyncWriter.right = new FormAttachment(middle, -margin);
+    wlAsyncWriter.setLayoutData(fdlAsyncWriter);
+    wAsyncWriter = new Button(wMainComp, SWT.CHECK);
+    props.setLook(wAsyncWriter);
+    FormData fdAsyncWriter = new FormData();
+    fdAsyncWriter.left = new FormAttachment(middle, 0);
+    fdAsyncWriter.top = new FormAttachment(wlAsyncWriter, 0, SWT.CENTER);
+    fdAsyncWriter.right = new FormAttachment(100, 0);
+    wAsyncWriter.setLayoutData(fdAsyncWriter);
+    wAsyncWriter.addSelectionListener(lsSelMod);
+    wAsyncWriter.addSelectionListener(
+        new SelectionAdapter() {
+          public void widgetSelected(SelectionEvent arg0) {
+            setFlags();
+          }
+        });
+
+    // Maximum number of batches in flight
+    wlMaxInFlightBatches = new Label(wMainComp, SWT.RIGHT);
+    wlMaxInFlightBatches.setText(
+        BaseMessages.getString(PKG, "TableOutputDialog.MaxInFlightBatches.Label"));
+    wlMaxInFlightBatches.setToolTipText(
+        BaseMessages.getString(PKG, "TableOutputDialog.MaxInFlightBatches.Tooltip"));
+    props.setLook(wlMaxInFlightBatches);
+    FormData fdlMaxInFlightBatches = new FormData();
+    fdlMaxInFlightBatches.left = new FormAttachment(0, 0);
+    fdlMaxInFlightBatches.top = new FormAttachment(wAsyncWriter, margin);
+    fdlMaxInFlightBatches.right = new FormAttachment(middle, -margin);
+    wlMaxInFlightBatches.setLayoutData(fdlMaxInFlightBatches);
+    wMaxInFlightBatches = new TextVar(variables, wMainComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+    props.setLook(wMaxInFlightBatches);
+    FormData fdMaxInFlightBatches = new FormData();
+    fdMaxInFlightBatches.left = new FormAttachment(middle, 0);
+    fdMaxInFlightBatches.top = new FormAttachment(wlMaxInFlightBatches, 0, SWT.CENTER);
+    fdMaxInFlightBatches.right = new FormAttachment(100, 0);
+    wMaxInFlightBatches.setLayoutData(fdMaxInFlightBatches);
+
     // NameInField
     Label wlNameInField = new Label(wMainComp, SWT.RIGHT);
     wlNameInField.setText(BaseMessages.getString(PKG, "TableOutputDialog.NameInField.Label"));
     props.setLook(wlNameInField);
     FormData fdlNameInField = new FormData();
     fdlNameInField.left = new FormAttachment(0, 0);
-    fdlNameInField.top = new FormAttachment(wBatch, margin * 5);
+    fdlNameInField.top = new FormAttachment(wMaxInFlightBatches, margin * 5);
     fdlNameInField.right = new FormAttachment(middle, -margin);
     wlNameInField.setLayoutData(fdlNameInField);
     wNameInField = new Button(wMainComp, SWT.CHECK);
@@ -1185,6 +1237,13 @@ public class TableOutputDialog extends BaseTransformDialog implements ITransform
     wlBatch.setEnabled(enableBatch);
     wBatch.setEnabled(enableBatch);
 
+    // The asynchronous writer sends batches over one prepared statement
+    boolean enableAsyncWriter = useBatch && !usePartitioning && !isTableNameInField;
+    wlAsyncWriter.setEnabled(enableAsyncWriter);
+    wAsyncWriter.setEnabled(enableAsyncWriter);
+    wlMaxInFlightBatches.setEnabled(enableAsyncWriter && wAsyncWriter.getSelection());
+    wMaxInFlightBatches.setEnabled(enableAsyncWriter && wAsyncWriter.getSelection());
+
     boolean specifyFields = wSpecifyFields.getSelection();
     wFields.setEnabled(specifyFields);
     wGetFields.setEnabled(specifyFields);
@@ -1228,6 +1287,8 @@ public class TableOutputDialog extends BaseTransformDialog implements ITransform
     wTruncate.setSelection(input.truncateTable());
     wIgnore.setSelection(input.ignoreErrors());
     wBatch.setSelection(input.useBatchUpdate());
+    wAsyncWriter.setSelection(input.isAsyncWriter());
+    wMaxInFlightBatches.setText(Const.NVL(input.getMaxInFlightBatches(), ""));
 
     wCommit.setText(input.getCommitSize());
 
@@ -1281,6 +1342,8 @@ public class TableOutputDialog extends BaseTransformDialog implements ITransform
     info.setTruncateTable(wTruncate.getSelection());
     info.setIgnoreErrors(wIgnore.getSelection());
     info.setUseBatchUpdate(wBatch.getSelection());
+    info.setAsyncWriter(wAsyncWriter.getSelection());
+    info.setMaxInFlightBatches(wMaxInFlightBatches.getText());
     info.setPartitioningEnabled(wUsePart.getSelection());
     info.setPartitioningField(wPartField.getText());
     info.setPartitioningDaily(wPartDaily.getSelection());
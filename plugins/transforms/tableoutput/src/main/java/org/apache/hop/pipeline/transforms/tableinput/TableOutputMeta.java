@@ -64,6 +64,8 @@ public class TableOutputMeta extends BaseTransformMeta
     implements ITransformMeta<TableOutput, TableOutputData>, IProvidesModelerMeta {
   private static final Class<?> PKG = TableOutputMeta.class; // For Translator
 
+  public static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 2;
+
   private DatabaseMeta databaseMeta;
   private String schemaName;
   private String tableName;
@@ -72,6 +74,12 @@ public class TableOutputMeta extends BaseTransformMeta
   private boolean ignoreErrors;
   private boolean useBatchUpdate;
 
+  /** Send the batches to the database on a background thread */
+  private boolean asyncWriter;
+
+  /** The maximum number of full batches waiting to be sent to the database */
+  private String maxInFlightBatches;
+
   private boolean partitioningEnabled;
   private String partitioningField;
   private boolean partitioningDaily;
@@ -190,6 +198,7 @@ public class TableOutputMeta extends BaseTransformMeta
     super(); // allocate BaseTransformMeta
     useBatchUpdate = true;
     commitSize = "1000";
+    maxInFlightBatches = Integer.toString(DEFAULT_MAX_IN_FLIGHT_BATCHES);
 
     fieldStream = new String[0];
     fieldDatabase = new String[0];
@@ -315,6 +324,26 @@ public class TableOutputMeta extends BaseTransformMeta
     return useBatchUpdate;
   }
 
+  /** @return Returns the asyncWriter flag. */
+  public boolean isAsyncWriter() {
+    return asyncWriter;
+  }
+
+  /** @param asyncWriter The asyncWriter flag to set. */
+  public void setAsyncWriter(boolean asyncWriter) {
+    this.asyncWriter = asyncWriter;
+  }
+
+  /** @return Returns the maximum number of batches in flight. */
+  public String getMaxInFlightBatches() {
+    return maxInFlightBatches;
+  }
+
+  /** @param maxInFlightBatches The maximum number of batches in flight to set. */
+  public void setMaxInFlightBatches(String maxInFlightBatches) {
+    this.maxInFlightBatches = maxInFlightBatches;
+  }
+
   private void readData(Node transformNode, IHopMetadataProvider metadataProvider)
       throws HopXmlException {
     try {
@@ -326,6 +355,11 @@ public class TableOutputMeta extends BaseTransformMeta
       truncateTable = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "truncate"));
       ignoreErrors = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "ignore_errors"));
       useBatchUpdate = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "use_batch"));
+      asyncWriter = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "async_writer"));
+      maxInFlightBatches =
+          Const.NVL(
+              XmlHandler.getTagValue(transformNode, "max_in_flight_batches"),
+              Integer.toString(DEFAULT_MAX_IN_FLIGHT_BATCHES));
 
       // If not present it will be false to be compatible with pre-v3.2
       specifyFields = "Y".equalsIgnoreCase(XmlHandler.getTagValue(transformNode, "specify_fields"));
@@ -368,6 +402,8 @@ public class TableOutputMeta extends BaseTransformMeta
     databaseMeta = null;
     tableName = "";
     commitSize = "1000";
+    asyncWriter = false;
+    maxInFlightBatches = Integer.toString(DEFAULT_MAX_IN_FLIGHT_BATCHES);
 
     partitioningEnabled = false;
     partitioningMonthly = true;
@@ -392,6 +428,8 @@ public class TableOutputMeta extends BaseTransformMeta
     retval.append("    " + XmlHandler.addTagValue("truncate", truncateTable));
     retval.append("    " + XmlHandler.addTagValue("ignore_errors", ignoreErrors));
     retval.append("    " + XmlHandler.addTagValue("use_batch", useBatchUpdate));
+    retval.append("    " + XmlHandler.addTagValue("async_writer", asyncWriter));
+    retval.append("    " + XmlHandler.addTagValue("max_in_flight_batches", maxInFlightBatches));
     retval.append("    " + XmlHandler.addTagValue("specify_fields", specifyFields));
 
     retval.append("    " + XmlHandler.addTagValue("partitioning_enabled", partitioningEnabled));
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hop.pipeline.transforms.tableinput;
+
+import org.apache.hop.core.database.Database;
+import org.apache.hop.core.exception.HopException;
+import org.apache.hop.core.row.IRowMeta;
+import org.apache.hop.core.row.RowMeta;
+import org.apache.hop.core.row.value.ValueMetaInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TableOutputBatchWriterTest {
+
+  private Database db;
+  private PreparedStatement insertStatement;
+  private IRowMeta insertRowMeta;
+
+  @Before
+  public void setUp() {
+    db = mock(Database.class);
+    insertStatement = mock(PreparedStatement.class);
+    insertRowMeta = new RowMeta();
+    insertRowMeta.addValueMeta(new ValueMetaInteger("id"));
+  }
+
+  private TableOutputBatchWriter createWriter(boolean errorHandling) {
+    return new TableOutputBatchWriter(
+        db, insertStatement, insertRowMeta, 10, 2, errorHandling, false, "table", "test writer");
+  }
+
+  private List<TableOutputBatchWriter.Batch> getCompletedBatches(TableOutputBatchWriter writer) {
+    List<TableOutputBatchWriter.Batch> batches = new ArrayList<>();
+    TableOutputBatchWriter.Batch batch = writer.pollCompletedBatch();
+    while (batch != null) {
+      batches.add(batch);
+      batch = writer.pollCompletedBatch();
+    }
+    return batches;
+  }
+
+  @Test
+  public void testRowsAreCommittedPerBatchInOrder() throws Exception {
+    TableOutputBatchWriter writer = createWriter(false);
+    for (long i = 0; i < 25; i++) {
+      writer.addRow(new Object[] {i}, new Object[] {i});
+    }
+    writer.finish();
+
+    List<TableOutputBatchWriter.Batch> batches = getCompletedBatches(writer);
+    assertEquals(3, batches.size());
+    long expected = 0;
+    for (TableOutputBatchWriter.Batch batch : batches) {
+      assertNull(batch.getFailure());
+      assertNull(batch.getBatchException());
+      for (Object[] row : batch.getWrittenRows()) {
+        assertArrayEquals(new Object[] {expected++}, row);
+      }
+    }
+    assertEquals(25L, expected);
+    verify(insertStatement, times(3)).executeBatch();
+    verify(db, times(3)).commit();
+  }
+
+  @Test
+  public void testBatchErrorIsReportedForErrorHandling() throws Exception {
+    when(insertStatement.executeBatch())
+        .thenThrow(new BatchUpdateException(new int[] {1, 0, 1, 1, 1, 1, 1, 1, 1, 1}));
+
+    TableOutputBatchWriter writer = createWriter(true);
+    for (long i = 0; i < 10; i++) {
+      writer.addRow(new Object[] {i}, new Object[] {i});
+    }
+    writer.finish();
+
+    List<TableOutputBatchWriter.Batch> batches = getCompletedBatches(writer);
+    assertEquals(1, batches.size());
+    assertNull(batches.get(0).getFailure());
+    assertNotNull(batches.get(0).getBatchException());
+    assertEquals(10, batches.get(0).getBatchException().getUpdateCounts().length);
+    assertEquals(10, batches.get(0).getWrittenRows().size());
+    verify(db).commit(true);
+    verify(db, never()).rollback();
+  }
+
+  @Test
+  public void testBatchErrorStopsTheWriterWithoutErrorHandling() throws Exception {
+    when(insertStatement.executeBatch()).thenThrow(new BatchUpdateException(new int[0]));
+
+    TableOutputBatchWriter writer = createWriter(false);
+    for (long i = 0; i < 10; i++) {
+      writer.addRow(new Object[] {i}, new Object[] {i});
+    }
+    writer.finish();
+
+    List<TableOutputBatchWriter.Batch> batches = getCompletedBatches(writer);
+    assertEquals(1, batches.size());
+    assertNotNull(batches.get(0).getFailure());
+    verify(db).rollback();
+
+    try {
+      writer.addRow(new Object[] {10L}, new Object[] {10L});
+      fail("Rows can't be added after a fatal error");
+    } catch (HopException e) {
+      // Expected
+    }
+  }
+}
@@ -54,6 +54,8 @@ public class TableOutputMetaLoadSaveTest implements IInitializer<ITransformMeta>
             "truncateTable",
             "ignoreErrors",
             "useBatchUpdate",
+            "asyncWriter",
+            "maxInFlightBatches",
             "partitioningEnabled",
             "partitioningField",
             "partitioningDaily",
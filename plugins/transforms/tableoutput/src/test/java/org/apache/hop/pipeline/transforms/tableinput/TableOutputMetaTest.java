@@ -130,6 +130,8 @@ public class TableOutputMetaTest {
             + "    <truncate>Y</truncate>\n"
             + "    <ignore_errors>N</ignore_errors>\n"
             + "    <use_batch>Y</use_batch>\n"
+            + "    <async_writer>N</async_writer>\n"
+            + "    <max_in_flight_batches>2</max_in_flight_batches>\n"
             + "    <specify_fields>Y</specify_fields>\n"
             + "    <partitioning_enabled>N</partitioning_enabled>\n"
             + "    <partitioning_field/>\n"
@@ -170,6 +172,8 @@ public class TableOutputMetaTest {
     assertTrue(tableOutputMeta.isTableNameInTable());
     assertEquals("", tableOutputMeta.getTableNameField());
     assertFalse(tableOutputMeta.specifyFields());
+    assertFalse(tableOutputMeta.isAsyncWriter());
+    assertEquals("2", tableOutputMeta.getMaxInFlightBatches());
   }
 
   @Test
@@ -64,6 +64,7 @@ public class WebServiceEditor extends MetadataEditor<WebService> {
   private TextVar wField;
   private ComboVar wContentType;
   private Button wListStatus;
+  private TextVar wPoolSize;
 
   private int middle;
   private int margin;
@@ -268,6 +269,26 @@ public class WebServiceEditor extends MetadataEditor<WebService> {
     fdListStatus.top = new FormAttachment(wlListStatus, 0, SWT.CENTER);
     wListStatus.setLayoutData(fdListStatus);
     lastControl = wlListStatus;
+
+    // The number of prepared pipelines to keep ready
+    //
+    Label wlPoolSize = new Label(parent, SWT.RIGHT);
+    props.setLook(wlPoolSize);
+    wlPoolSize.setText(BaseMessages.getString(PKG, "WebServiceEditor.PoolSize.Label"));
+    wlPoolSize.setToolTipText(BaseMessages.getString(PKG, "WebServiceEditor.PoolSize.Tooltip"));
+    FormData fdlPoolSize = new FormData();
+    fdlPoolSize.left = new FormAttachment(0, 0);
+    fdlPoolSize.right = new FormAttachment(middle, 0);
+    fdlPoolSize.top = new FormAttachment(lastControl, 2 * margin);
+    wlPoolSize.setLayoutData(fdlPoolSize);
+    wPoolSize = new TextVar(manager.getVariables(), parent, SWT.SINGLE | SWT.BORDER | SWT.LEFT);
+    props.setLook(wPoolSize);
+    FormData fdPoolSize = new FormData();
+    fdPoolSize.left = new FormAttachment(middle, margin);
+    fdPoolSize.right = new FormAttachment(100, 0);
+    fdPoolSize.top = new FormAttachment(wlPoolSize, 0, SWT.CENTER);
+    wPoolSize.setLayoutData(fdPoolSize);
+    lastControl = wlPoolSize;
     
     // Add listener to detect change after loading data
     ModifyListener lsMod = e -> setChanged();
@@ -278,6 +299,7 @@ public class WebServiceEditor extends MetadataEditor<WebService> {
     wField.addModifyListener(lsMod);
     wContentType.addModifyListener(lsMod);
     wListStatus.addListener(SWT.Selection, e -> setChanged());
+    wPoolSize.addModifyListener(lsMod);
 
     setWidgetsContent();
   }
@@ -382,6 +404,7 @@ public class WebServiceEditor extends MetadataEditor<WebService> {
     wField.setText(Const.NVL(ws.getFieldName(), ""));
     wContentType.setText(Const.NVL(ws.getContentType(), ""));
     wListStatus.setSelection(ws.isListingStatus());
+    wPoolSize.setText(Const.NVL(ws.getPoolSize(), ""));
 
   }
 
@@ -394,6 +417,7 @@ public class WebServiceEditor extends MetadataEditor<WebService> {
     ws.setFieldName(wField.getText());
     ws.setContentType(wContentType.getText());
     ws.setListingStatus(wListStatus.getSelection());
+    ws.setPoolSize(wPoolSize.getText());
   }
 
   @Override